@@ -1,3 +1,6 @@
+import java.time.LocalDate
+import java.time.LocalTime
+
 plugins {
     java
     application
@@ -24,30 +27,168 @@ val platform = when {
 val javafxVersion = "20.0.2"
 
 dependencies {
-    implementation("org.fxmisc.richtext:richtextfx:0.10.9")
-    implementation("org.json:json:20230618")
     implementation("com.google.code.gson:gson:2.10.1")
     implementation("org.openjfx:javafx-base:$javafxVersion:$platform")
     implementation("org.openjfx:javafx-controls:$javafxVersion:$platform")
     implementation("org.openjfx:javafx-graphics:$javafxVersion:$platform")
-    implementation("org.openjfx:javafx-fxml:$javafxVersion:$platform")
-    implementation("org.openjfx:javafx-media:$javafxVersion:$platform")
+    implementation("org.fxmisc.richtext:richtextfx:0.10.9")
+
+    testImplementation(platform("org.junit:junit-bom:5.10.2"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
+tasks.test {
+    useJUnitPlatform()
 }
 
 application {
     mainClass.set("org.oogle.calender.CalendarApp")
 }
 
+// Render the icons at build time so the app only loads finished PNGs (see IconAssets)
+val generateIcons = tasks.register<JavaExec>("generateIcons") {
+    description = "Renders window icon PNGs, the .ico and the tray day atlas into generated resources."
+    val outputDir = layout.buildDirectory.dir("generated/icons")
+    classpath = sourceSets.main.get().output.classesDirs
+    mainClass.set("org.oogle.calender.icon.IconGenerator")
+    systemProperty("java.awt.headless", "true")
+    argumentProviders.add(CommandLineArgumentProvider {
+        listOf(outputDir.get().dir("icons").asFile.absolutePath)
+    })
+    outputs.dir(outputDir)
+}
+
+sourceSets.main {
+    resources.srcDir(generateIcons)
+}
+
+// Synthetic calendars and load tests, e.g.
+//   gradle generateCalendar --args="generate --out=big.dat --events=1000000"
+//   gradle loadTest --args="loadtest --events=100000"
+tasks.register<JavaExec>("generateCalendar") {
+    description = "Writes a seeded synthetic calendar in the .dat format."
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("org.oogle.calender.tools.CalendarGenerator")
+    workingDir = projectDir
+}
+
+tasks.register<JavaExec>("loadTest") {
+    description = "Runs load, import, mutation and reminder latency tests on a synthetic calendar."
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("org.oogle.calender.tools.CalendarGenerator")
+    args("loadtest")
+}
+
+tasks.register<JavaExec>("replicationTest") {
+    description = "Runs several replicas on localhost and reports what replicating changes costs."
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("org.oogle.calender.tools.CalendarGenerator")
+    args("replicate")
+}
+
+tasks.register<JavaExec>("reminderSimulation") {
+    description = "Replays reminder checks over a span of simulated time and reports lateness, misses and throughput."
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("org.oogle.calender.tools.CalendarGenerator")
+    args("simulate")
+}
+
+tasks.register<JavaExec>("trayFootprint") {
+    description = "Measures heap, RSS and idle CPU of a synthetic calendar open and parked in the tray."
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("org.oogle.calender.tools.CalendarGenerator")
+    args("footprint")
+}
+
+tasks.register<JavaExec>("contentionTest") {
+    description = "Runs several JVMs editing one data file at once and checks that no change is lost."
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("org.oogle.calender.tools.CalendarGenerator")
+    args("contend")
+}
+
+// JMH benchmarks for the headless model, persistence and reminder code: gradle jmh
+// Narrow the run with -Pjmh.include=<regex> and -Pjmh.events=1000,100000
+val jmh: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations[jmh.implementationConfigurationName].extendsFrom(configurations.implementation.get())
+
+val jmhVersion = "1.37"
+
+dependencies {
+    jmh.implementationConfigurationName("org.openjdk.jmh:jmh-core:$jmhVersion")
+    jmh.annotationProcessorConfigurationName("org.openjdk.jmh:jmh-generator-annprocess:$jmhVersion")
+    jmh.implementationConfigurationName("org.openjdk.jol:jol-core:0.17")
+}
+
+tasks.register<JavaExec>("jmh") {
+    description = "Runs the JMH benchmarks with the GC profiler (throughput, latency, allocation rate)."
+    group = "verification"
+    classpath = jmh.runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    val resultFile = layout.buildDirectory.file("reports/jmh/results.json")
+    outputs.file(resultFile)
+    argumentProviders.add(CommandLineArgumentProvider {
+        val selection = mutableListOf<String>()
+        project.findProperty("jmh.events")?.let { selection += listOf("-p", "events=$it") }
+        project.findProperty("jmh.include")?.let { selection += it.toString() }
+        listOf("-prof", "gc", "-rf", "json", "-rff", resultFile.get().asFile.absolutePath) + selection
+    })
+    doFirst { resultFile.get().asFile.parentFile.mkdirs() }
+}
+
+tasks.register<JavaExec>("eventFootprint") {
+    description = "Measures retained heap per event with JOL: gradle eventFootprint -Pevents=100000"
+    group = "verification"
+    classpath = jmh.runtimeClasspath
+    mainClass.set("org.oogle.calender.bench.EventFootprint")
+    jvmArgs("-Djdk.attach.allowAttachSelf=true")
+    args((project.findProperty("events") ?: "100000").toString())
+}
+
 tasks.jar {
     manifest {
         attributes["Main-Class"] = "org.oogle.calender.CalendarApp"
-        attributes["Class-Path"] = configurations.runtimeClasspath.get().files.joinToString(" ") { it.name }
+        attributes["Class-Path"] = configurations.runtimeClasspath.get().files
+            .filterNot { it.name.startsWith("javafx-") }
+            .joinToString(" ") { it.name }
     }
 }
 
-// NEW: Copy all dependencies to build/jpackage-input
+// Packaging pipeline: jlink a runtime holding only the modules we use, jpackage the app onto it,
+// then run the packaged app once so the JVM writes an AppCDS archive of the startup classes.
+val jdkHome = javaToolchains.launcherFor {
+    languageVersion.set(JavaLanguageVersion.of(20))
+}.map { it.metadata.installationPath.asFile }
+
+fun jdkTool(name: String) = jdkHome.get().resolve("bin/$name").absolutePath
+
+// javafx.controls brings in javafx.graphics/base, java.xml and jdk.unsupported
+val runtimeModules = listOf("java.desktop", "java.prefs", "jdk.jfr", "jdk.httpserver", "javafx.controls")
+
+val javafxJars = configurations.runtimeClasspath.map { cp -> cp.filter { it.name.startsWith("javafx-") } }
+
+val appName = "TaskFlowCalendar"
+val appImageDir = when (platform) {
+    "mac" -> "$appName.app"
+    else -> appName
+}
+val appLauncher = when (platform) {
+    "win" -> "$appImageDir/$appName.exe"
+    "mac" -> "$appImageDir/Contents/MacOS/$appName"
+    else -> "$appImageDir/bin/$appName"
+}
+val trainingDataFile = "build/cds/training-events.dat"
+
+// Copy the non-JavaFX dependencies to build/jpackage-input; JavaFX is linked into the runtime
 tasks.register<Copy>("copyDependencies") {
-    from(configurations.runtimeClasspath)
+    from(configurations.runtimeClasspath) {
+        exclude("javafx-*")
+    }
     into("build/jpackage-input")
 }
 
@@ -57,20 +198,110 @@ tasks.register<Copy>("prepareJpackage") {
     into("build/jpackage-input")
 }
 
+tasks.register<Exec>("jlinkRuntime") {
+    inputs.files(javafxJars)
+    outputs.dir("build/jlink-runtime")
+    doFirst {
+        delete("build/jlink-runtime")
+        commandLine(
+            jdkTool("jlink"),
+            "--module-path", (listOf(jdkHome.get().resolve("jmods")) + javafxJars.get().files)
+                .joinToString(File.pathSeparator),
+            "--add-modules", runtimeModules.joinToString(","),
+            "--output", "build/jlink-runtime",
+            "--generate-cds-archive",
+            "--strip-debug",
+            "--no-header-files",
+            "--no-man-pages"
+        )
+    }
+}
+
 tasks.register<Exec>("createInstaller") {
-    dependsOn("prepareJpackage")
+    dependsOn("prepareJpackage", "jlinkRuntime")
+    finalizedBy("trainCdsArchive")
 
     commandLine(
         "jpackage",
         "--input", "build/jpackage-input",
-        "--name", "TaskFlowCalendar",
+        "--runtime-image", "build/jlink-runtime",
+        "--name", appName,
         "--main-jar", "calender.jar",
         "--vendor", "Oogle",
         "--main-class", "org.oogle.calender.CalendarApp",
-        "--icon", "calendar-icon.ico",
+        "--icon", "build/generated/icons/icons/calendar-icon.ico",
         "--type", "app-image",
         "--java-options", "-Dfile.encoding=UTF-8",
         "--java-options", "-Djava.library.path=\$APPDIR",
+        // Recreated automatically when missing or stale, e.g. after the image has been moved
+        "--java-options", "-XX:+AutoCreateSharedArchive",
+        "--java-options", "-XX:SharedArchiveFile=\$APPDIR/taskflow.jsa",
         "--verbose"
     )
-}
\ No newline at end of file
+}
+
+tasks.register("writeTrainingData") {
+    description = "Writes a small calendar around the current month for the CDS training run."
+    outputs.file(trainingDataFile)
+    doLast {
+        val start = LocalDate.now().withDayOfMonth(1).minusMonths(6)
+        val lines = (0 until 2000).map { i ->
+            val date = start.plusDays((i % 365).toLong())
+            val time = LocalTime.of(8 + i % 10, (i % 4) * 15)
+            "$date|Training event $i|$time|Description &#124; line one&#10;line two|${listOf("", "10", "60,10", "1440,30,0")[i % 4]}"
+        }
+        file(trainingDataFile).apply { parentFile.mkdirs() }.writeText(lines.joinToString("\n", postfix = "\n"))
+    }
+}
+
+tasks.register<Exec>("trainCdsArchive") {
+    description = "Runs the packaged app through startup once so it writes its AppCDS archive."
+    dependsOn("writeTrainingData")
+    commandLine(appLauncher, "--exit-after-startup", "--data-file=${file(trainingDataFile).absolutePath}")
+}
+
+tasks.register("measureStartup") {
+    description = "Reports startup times of the plain JDK launch and the packaged jlink + AppCDS image."
+    dependsOn("prepareJpackage", "writeTrainingData")
+    doLast {
+        val runs = 5
+        val appArgs = listOf("--exit-after-startup", "--data-file=${file(trainingDataFile).absolutePath}")
+        val appClasspath = fileTree("build/jpackage-input").files.joinToString(File.pathSeparator)
+        val baseline = listOf(
+            jdkTool("java"),
+            "--module-path", javafxJars.get().files.joinToString(File.pathSeparator),
+            "--add-modules", "javafx.controls",
+            "-cp", appClasspath,
+            "org.oogle.calender.CalendarApp"
+        ) + appArgs
+        val packaged = listOf(file(appLauncher).absolutePath) + appArgs
+
+        fun measure(label: String, command: List<String>) {
+            val firstFrame = mutableListOf<Long>()
+            val loaded = mutableListOf<Long>()
+            val wall = mutableListOf<Long>()
+            repeat(runs) {
+                val started = System.nanoTime()
+                val process = ProcessBuilder(command).redirectErrorStream(true).start()
+                val output = process.inputStream.bufferedReader().readLines()
+                process.waitFor()
+                wall += (System.nanoTime() - started) / 1_000_000
+                fun milestone(name: String) = output.firstOrNull { it.startsWith("Startup: $name after") }
+                    ?.substringAfter(" after ")?.substringBefore(" ms")?.toLong()
+                    ?: throw GradleException("$label run did not report '$name':\n${output.joinToString("\n")}")
+                firstFrame += milestone("first frame")
+                loaded += milestone("events loaded")
+            }
+            fun median(values: List<Long>) = values.sorted()[values.size / 2]
+            println("%-28s first frame %5d ms   events loaded %5d ms   process exit %5d ms   (median of %d)"
+                .format(label, median(firstFrame), median(loaded), median(wall), runs))
+        }
+
+        measure("Before (JDK, no AppCDS):", baseline)
+        if (file(appLauncher).exists()) {
+            measure("After (jlink + AppCDS):", packaged)
+        } else {
+            println("No packaged image at $appImageDir; run createInstaller for the optimized numbers.")
+        }
+    }
+}
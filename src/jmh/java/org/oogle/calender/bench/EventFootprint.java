@@ -0,0 +1,36 @@
+package org.oogle.calender.bench;
+
+import org.oogle.calender.model.Event;
+import org.oogle.calender.model.EventModel;
+import org.oogle.calender.tools.SyntheticCalendar;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.List;
+
+/**
+ * Measures the retained heap of the events in a synthetic model with JOL, walking the real
+ * object graph rather than trusting {@link Event#estimatedSize()}. Shared objects such as
+ * interned titles are counted once, as they are in the running app.
+ *
+ * <p>Usage: {@code gradle eventFootprint [-Pevents=100000]}
+ */
+public final class EventFootprint {
+
+    public static void main(String[] args) {
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+
+        EventModel model = new EventModel();
+        model.addAll(new SyntheticCalendar().seed(42).events(events).generate());
+        List<Event> all = model.allEvents();
+
+        GraphLayout layout = GraphLayout.parseInstance((Object) all.toArray());
+        long arrayBytes = 16 + 4L * all.size(); // The Object[] passed to JOL, not part of the events
+        long retained = layout.totalSize() - arrayBytes;
+
+        System.out.println(layout.toFootprint());
+        System.out.printf("%d events: %,d bytes retained, %.1f bytes per event%n",
+                all.size(), retained, retained / (double) all.size());
+        System.out.printf("EventModel estimate: %,d bytes, %.1f bytes per event%n",
+                model.estimatedHeapBytes(), model.estimatedHeapBytes() / (double) all.size());
+    }
+}
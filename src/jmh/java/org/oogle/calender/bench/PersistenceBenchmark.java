@@ -0,0 +1,102 @@
+package org.oogle.calender.bench;
+
+import org.oogle.calender.model.Event;
+import org.oogle.calender.model.EventModel;
+import org.oogle.calender.storage.EventFile;
+import org.oogle.calender.storage.ICalendarFile;
+import org.oogle.calender.storage.RecordFile;
+import org.oogle.calender.tools.SyntheticCalendar;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The save, load and merge-import paths of the data file, as run by CalendarApp, next to the
+ * same work through iCalendar files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistenceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int events;
+
+    private EventModel model;
+    private File dataFile;
+    private File saveFile;
+    private File icsFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        model = new EventModel();
+        model.addAll(new SyntheticCalendar().seed(42).events(events).generate());
+        dataFile = File.createTempFile("bench-events", ".dat");
+        saveFile = File.createTempFile("bench-save", ".dat");
+        EventFile.write(dataFile, model.snapshot().values());
+        icsFile = File.createTempFile("bench-events", ".ics");
+        ICalendarFile.write(icsFile, model.snapshot().values());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataFile.delete();
+        saveFile.delete();
+        icsFile.delete();
+    }
+
+    /** saveEventsToFile(): snapshot the model and rewrite the whole file. */
+    @Benchmark
+    public File save() throws IOException {
+        EventFile.write(saveFile, model.snapshot().values());
+        return saveFile;
+    }
+
+    /** Loading the data file into a fresh model, as at startup. */
+    @Benchmark
+    public EventModel load() throws IOException {
+        EventModel loaded = new EventModel();
+        loaded.replaceAll(EventFile.read(dataFile));
+        return loaded;
+    }
+
+    /** The checksum pass of a load on its own: every block's CRC32C, no parsing. */
+    @Benchmark
+    public long verify() throws IOException {
+        return RecordFile.read(dataFile, line -> true).getRecords();
+    }
+
+    /** importAndMerge(): parse the file and add every event as one batch. */
+    @Benchmark
+    public EventModel importAndMerge() throws IOException {
+        EventModel target = new EventModel();
+        target.addListener(changes -> changes.getAffectedDates());
+        List<Event> imported = EventFile.read(dataFile);
+        target.addAll(imported);
+        return target;
+    }
+
+    /** exportICalendar(): the same snapshot written as VEVENTs with folded lines. */
+    @Benchmark
+    public File saveICalendar() throws IOException {
+        ICalendarFile.write(saveFile, model.snapshot().values());
+        return saveFile;
+    }
+
+    /** importICalendar(): stream-parse the .ics export of the same events into a fresh model. */
+    @Benchmark
+    public EventModel loadICalendar() throws IOException {
+        List<Event> imported = new ArrayList<>();
+        ICalendarFile.read(icsFile, imported::add);
+        EventModel loaded = new EventModel();
+        loaded.replaceAll(imported);
+        return loaded;
+    }
+}
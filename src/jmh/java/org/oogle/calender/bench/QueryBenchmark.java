@@ -0,0 +1,82 @@
+package org.oogle.calender.bench;
+
+import org.oogle.calender.model.EventModel;
+import org.oogle.calender.query.EventQuery;
+import org.oogle.calender.query.QueryEngine;
+import org.oogle.calender.tools.SyntheticCalendar;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtered views through the query planner: each query runs once against an engine with only
+ * the day buckets and once against one with text, time and reminder indexes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int events;
+
+    @Param({"buckets", "indexed"})
+    public String engine;
+
+    private QueryEngine queries;
+    private EventQuery matching;
+    private EventQuery firstMatches;
+    private EventQuery weekMatching;
+    private EventQuery morning;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticCalendar calendar = new SyntheticCalendar().seed(42).events(events);
+        EventModel model = new EventModel();
+        model.addAll(calendar.generate());
+        queries = new QueryEngine(model);
+        if (engine.equals("indexed")) {
+            queries.indexText().indexTimes().indexReminders();
+        }
+        LocalDate week = calendar.getStartDate().plusDays(calendar.getSpreadDays() / 2);
+        matching = EventQuery.all().matching("sprint review");
+        firstMatches = EventQuery.all().matching("dentist").limit(20);
+        weekMatching = EventQuery.all().between(week, week.plusDays(6)).matching("review");
+        morning = EventQuery.all().timeOfDay(LocalTime.of(9, 0), LocalTime.of(9, 15)).withReminders();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        queries.close();
+    }
+
+    @Benchmark
+    public long matchingEverywhere() {
+        return queries.count(matching);
+    }
+
+    @Benchmark
+    public long firstTwentyMatches() {
+        return queries.count(firstMatches);
+    }
+
+    @Benchmark
+    public long weekMatching() {
+        return queries.count(weekMatching);
+    }
+
+    @Benchmark
+    public long timeWindowWithReminders() {
+        return queries.count(morning);
+    }
+
+    @Benchmark
+    public long matchingEverywhereParallel() {
+        return queries.count(matching.parallel());
+    }
+}
@@ -0,0 +1,64 @@
+package org.oogle.calender.bench;
+
+import org.oogle.calender.model.Event;
+import org.oogle.calender.model.EventModel;
+import org.oogle.calender.reminder.ReminderScheduler;
+import org.oogle.calender.tools.SyntheticCalendar;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The 30 second reminder check: the scheduler's due-queue poll against the full scan it replaced,
+ * plus the cost of building the pending set after a load.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReminderBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int events;
+
+    private EventModel model;
+    private ReminderScheduler scheduler;
+    private LocalDateTime checkTime;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        model = new EventModel();
+        model.addAll(new SyntheticCalendar().seed(42).events(events).generate());
+        scheduler = new ReminderScheduler(model);
+        // Before every generated reminder, so a check finds nothing due and state stays unchanged
+        checkTime = LocalDateTime.now().minusYears(2);
+    }
+
+    @Benchmark
+    public int pollDue() {
+        return scheduler.pollDue(checkTime).size();
+    }
+
+    /** The per-tick scan over every event's reminders that startReminderChecker() used to run. */
+    @Benchmark
+    public void fullScan(Blackhole bh) {
+        for (Event event : model.allEvents()) {
+            List<Integer> reminders = event.getReminderMinutes();
+            for (int i = 0; i < reminders.size(); i++) {
+                if (!event.isNotified(i)) {
+                    bh.consume(!checkTime.isBefore(event.getDateTime().minusMinutes(reminders.get(i))));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public ReminderScheduler rebuild() {
+        return new ReminderScheduler(model);
+    }
+}
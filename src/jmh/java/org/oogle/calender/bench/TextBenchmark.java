@@ -0,0 +1,77 @@
+package org.oogle.calender.bench;
+
+import org.oogle.calender.model.Event;
+import org.oogle.calender.storage.EventFile;
+import org.oogle.calender.tools.SyntheticCalendar;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-record text work over a whole calendar: escaping, line formatting and parsing, and the
+ * sidebar's Event.toString() rendering.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int events;
+
+    private List<Event> calendar;
+    private String[] escaped;
+    private String[] lines;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        calendar = new SyntheticCalendar().seed(42).events(events).generate();
+        escaped = new String[calendar.size()];
+        lines = new String[calendar.size()];
+        for (int i = 0; i < calendar.size(); i++) {
+            escaped[i] = EventFile.escape(calendar.get(i).getDescription());
+            lines[i] = EventFile.formatLine(calendar.get(i));
+        }
+    }
+
+    @Benchmark
+    public void escape(Blackhole bh) {
+        for (Event event : calendar) {
+            bh.consume(EventFile.escape(event.getTitle()));
+            bh.consume(EventFile.escape(event.getDescription()));
+        }
+    }
+
+    @Benchmark
+    public void unescape(Blackhole bh) {
+        for (String text : escaped) {
+            bh.consume(EventFile.unescape(text));
+        }
+    }
+
+    @Benchmark
+    public void formatLine(Blackhole bh) {
+        for (Event event : calendar) {
+            bh.consume(EventFile.formatLine(event));
+        }
+    }
+
+    @Benchmark
+    public void parseLine(Blackhole bh) {
+        for (String line : lines) {
+            bh.consume(EventFile.parseLine(line));
+        }
+    }
+
+    @Benchmark
+    public void eventToString(Blackhole bh) {
+        for (Event event : calendar) {
+            bh.consume(event.toString());
+        }
+    }
+}
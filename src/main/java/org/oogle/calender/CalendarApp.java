@@ -1,12 +1,22 @@
 package org.oogle.calender;
 
+import javafx.animation.PauseTransition;
 import javafx.application.Application;
 import javafx.application.Platform;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.collections.ListChangeListener;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCombination;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
@@ -14,18 +24,45 @@ import javafx.scene.text.FontWeight;
 import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import org.oogle.calender.api.ApiServer;
+import org.oogle.calender.cache.BoundedCache;
+import org.oogle.calender.calendars.CalendarSet;
+import org.oogle.calender.calendars.EventSelection;
+import org.oogle.calender.calendars.NamedCalendar;
+import org.oogle.calender.icon.IconAssets;
+import org.oogle.calender.metrics.FlightRecording;
+import org.oogle.calender.metrics.Metrics;
+import org.oogle.calender.metrics.PersistenceEvent;
+import org.oogle.calender.metrics.RenderEvent;
+import org.oogle.calender.model.ChangeSet;
+import org.oogle.calender.model.Event;
+import org.oogle.calender.model.EventModel;
+import org.oogle.calender.model.StoredText;
+import org.oogle.calender.query.EventQuery;
+import org.oogle.calender.query.QueryEngine;
+import org.oogle.calender.reminder.ReminderChecker;
+import org.oogle.calender.reminder.ReminderScheduler;
+import org.oogle.calender.reminder.SystemTaskScheduler;
+import org.oogle.calender.reminder.TaskScheduler;
+import org.oogle.calender.storage.DataFileLock;
+import org.oogle.calender.storage.DescriptionStore;
+import org.oogle.calender.storage.EventFile;
+import org.oogle.calender.storage.ICalendarFile;
+import org.oogle.calender.storage.RecoveryReport;
+import org.oogle.calender.sync.Replicator;
 
 import java.awt.AWTException;
-import java.awt.Graphics2D;
 import java.awt.PopupMenu;
-import java.awt.RenderingHints;
 import java.awt.SystemTray;
 import java.awt.TrayIcon;
-import java.awt.image.BufferedImage;
 import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -33,21 +70,68 @@ import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.prefs.Preferences;
 import java.util.stream.Collectors;
 
 public class CalendarApp extends Application {
 
-    private final Map<LocalDate, List<Event>> eventsMap = new HashMap<>();
-    private Timer timer;
+    private final EventModel eventModel = new EventModel(
+            Preferences.userNodeForPackage(CalendarApp.class).getBoolean("offHeapStore", false)
+                    ? EventModel.Storage.OFF_HEAP : EventModel.Storage.HEAP);
+    // The text index is added the first time a filter needs it, see ensureTextIndex()
+    private final QueryEngine queryEngine = new QueryEngine(eventModel).indexReminders();
+    private final Map<LocalDate, VBox> dayCells = new HashMap<>();
+    private ReminderScheduler reminderScheduler;
+    private final TaskScheduler taskScheduler; // Clock and timer of the reminder check
     private GridPane calendarGrid;
     private Label monthYearLabel;
     private YearMonth currentYearMonth;
     private ListView<String> eventDetailsView;
+    private List<Event> shownEvents = List.of(); // What eventDetailsView lists, index for index
+    private boolean showingEvents; // True while the list is refilled, so its selection is not followed
+    // Events picked for bulk actions; kept while moving between days
+    private final EventSelection selection = new EventSelection();
+    private final IntegerProperty selectionSize = new SimpleIntegerProperty(0);
     private LocalDate selectedDate;
     private Label sidebarTitle;
+    private TextField filterField;
+    private CheckBox reminderFilter;
+    private ChoiceBox<String> filterScope;
+    private final Set<NamedCalendar> textIndexed = new HashSet<>(); // Calendars whose text index was requested
+    private CalendarSet calendars;
+    private NamedCalendar undoCalendar; // Where the last edit was made; Undo and Redo act on it
+    private Menu calendarsMenu;
+    private int pendingLoads;
+    private List<NamedCalendar> loadingCalendars = List.of();
+    private boolean reminderCheckStarted;
+    private boolean windowReleased; // Scene dropped while in the tray, see releaseForTray()
+    private double releasedWidth;
+    private double releasedHeight;
     private Stage primaryStage;
     private TrayIcon trayIcon;
+    private int trayIconDay;
+    private Label loadingLabel;
+    private final FlightRecording flightRecording = new FlightRecording();
+    private StackPane rootPane;
+    private PerformanceOverlay performanceOverlay;
+    private StatisticsDashboard statisticsDashboard;
+    private final ApiServer apiServer = new ApiServer(eventModel, queryEngine, () -> Platform.runLater(this::saveEventsToFile));
+    private final BooleanProperty apiRunning = new SimpleBooleanProperty(false);
+    private Replicator replicator;
+    private final BooleanProperty replicationRunning = new SimpleBooleanProperty(false);
+    private final BooleanProperty canUndo = new SimpleBooleanProperty(false);
+    private final BooleanProperty canRedo = new SimpleBooleanProperty(false);
+
+    // Change sets delivered off the FX thread, drained together by a single runLater
+    private final List<ChangeSet> pendingUiChanges = new ArrayList<>();
+    private List<ChangeSet> uiBatch; // Non-null while a bulk action gathers its change sets into one refresh
+    private final ViewCache viewCache = new ViewCache();
+
+    // True while the background loader is still streaming events in
+    private final BooleanProperty loading = new SimpleBooleanProperty(false);
+    private boolean saveAfterLoad;
 
     // Color scheme
     private static final String PRIMARY_COLOR = "#4A90E2";
@@ -56,32 +140,88 @@ public class CalendarApp extends Application {
     private static final String BACKGROUND_COLOR = "#F5F7FA";
     private static final String CARD_COLOR = "#FFFFFF";
 
+    private static final DateTimeFormatter MONTH_TITLE_FORMAT = DateTimeFormatter.ofPattern("MMMM yyyy");
+    private static final DateTimeFormatter DAY_TITLE_FORMAT = DateTimeFormatter.ofPattern("MMM dd, yyyy");
+    private static final DateTimeFormatter LIST_DAY_FORMAT = DateTimeFormatter.ofPattern("EEE, MMM dd yyyy");
+    private static final DateTimeFormatter EVENT_TIME_FORMAT = DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm");
+
     // Data file for persistent storage
     private static final String DEFAULT_DATA_FILE = "calendar_events.dat";
+    private static final int LOAD_CHUNK_SIZE = 10_000;
+    private static final int MAX_FILTER_RESULTS = 500;
+    private static final Duration REMINDER_CHECK_PERIOD = Duration.ofSeconds(30);
+    private static final Duration FILE_CHECK_PERIOD = Duration.ofSeconds(2);
     private String dataFilePath;
     private Preferences prefs;
 
+    // Set by the --exit-after-startup flag used for CDS training and startup measurement
+    private boolean exitAfterStartup;
+
+    public CalendarApp() {
+        this(new SystemTaskScheduler());
+    }
+
+    /** An application whose reminder check reads time from and is run by {@code taskScheduler}. */
+    CalendarApp(TaskScheduler taskScheduler) {
+        this.taskScheduler = taskScheduler;
+    }
+
     @Override
     public void start(Stage primaryStage) {
         this.primaryStage = primaryStage;
         primaryStage.setTitle("TaskFlow Calendar");
 
-        // Set window icon
-        primaryStage.getIcons().add(createWindowIcon());
+        // Set window icon (pre-rendered at build time, decoded in the background)
+        for (URL iconUrl : IconAssets.windowIconUrls()) {
+            primaryStage.getIcons().add(new Image(iconUrl.toExternalForm(), true));
+        }
 
         // Prevent app from closing when all windows are closed
         Platform.setImplicitExit(false);
 
         // Initialize preferences and data file path
         prefs = Preferences.userNodeForPackage(CalendarApp.class);
-        dataFilePath = prefs.get("dataFilePath", getDefaultDataPath());
+        dataFilePath = getParameters().getNamed().getOrDefault("data-file",
+                prefs.get("dataFilePath", getDefaultDataPath()));
+        exitAfterStartup = getParameters().getUnnamed().contains("--exit-after-startup");
+        createCalendars();
+
+        if (prefs.getBoolean("flightRecording", false)) {
+            startFlightRecording();
+        }
 
         currentYearMonth = YearMonth.now();
         selectedDate = LocalDate.now(); // Initialize selected date to today
 
-        // Load saved events
-        loadEventsFromFile();
+        buildWindow(1200, 700);
+
+        // Refresh only the parts of the UI touched by each change set
+        for (NamedCalendar calendar : calendars.all()) {
+            calendar.getModel().addListener(this::onModelChanged);
+        }
+
+        // Handle window close event - minimize to tray instead of closing
+        primaryStage.setOnCloseRequest(event -> {
+            event.consume(); // Prevent default close
+            hideToSystemTray();
+        });
+
+        primaryStage.show();
+        Platform.runLater(() -> reportStartup("first frame"));
+
+        // Set up system tray
+        setupSystemTray();
+
+        // Pending reminders are kept in due order and updated from model changes,
+        // so the loaders below fill them in as they stream events
+        reminderScheduler = calendars.primary().getReminders();
+
+        // Load saved events without holding up the first frame, every calendar in parallel
+        loadCalendarsInBackground();
+    }
 
+    /** Builds the scene: menus, month grid and sidebar. */
+    private void buildWindow(double width, double height) {
         // Main layout
         BorderPane mainLayout = new BorderPane();
         mainLayout.setStyle("-fx-background-color: " + BACKGROUND_COLOR + ";");
@@ -103,22 +243,177 @@ public class CalendarApp extends Application {
         VBox sidebar = createSidebar();
         mainLayout.setRight(sidebar);
 
-        Scene scene = new Scene(mainLayout, 1200, 700);
-        primaryStage.setScene(scene);
+        // Root stack so diagnostics can be drawn over the main layout
+        rootPane = new StackPane(mainLayout);
 
-        // Handle window close event - minimize to tray instead of closing
-        primaryStage.setOnCloseRequest(event -> {
-            event.consume(); // Prevent default close
-            hideToSystemTray();
+        primaryStage.setScene(new Scene(rootPane, width, height));
+    }
+
+    /**
+     * The primary calendar is the data file; the others are listed in the {@code calendars}
+     * preference, one per line as {@code visible<TAB>name<TAB>path}.
+     */
+    private void createCalendars() {
+        NamedCalendar primary = new NamedCalendar(prefs.get("primaryCalendarName", "Personal"),
+                new File(dataFilePath), eventModel, queryEngine);
+        primary.setVisible(prefs.getBoolean("primaryCalendarVisible", true));
+        calendars = new CalendarSet(primary);
+        undoCalendar = primary;
+        for (String line : prefs.get("calendars", "").split("\n")) {
+            String[] fields = line.split("\t", 3);
+            if (fields.length < 3 || calendars.find(fields[1]) != null) {
+                continue;
+            }
+            NamedCalendar calendar = newCalendar(fields[1], new File(fields[2]));
+            calendar.setVisible(Boolean.parseBoolean(fields[0]));
+            calendars.add(calendar);
+        }
+    }
+
+    private NamedCalendar newCalendar(String name, File file) {
+        EventModel model = new EventModel(eventModel.getStorage());
+        return new NamedCalendar(name, file, model, new QueryEngine(model).indexReminders());
+    }
+
+    private void saveCalendarList() {
+        StringBuilder list = new StringBuilder();
+        for (NamedCalendar calendar : calendars.all().subList(1, calendars.all().size())) {
+            list.append(calendar.isVisible()).append('\t').append(calendar.getName()).append('\t')
+                    .append(calendar.getFile().getAbsolutePath()).append('\n');
+        }
+        prefs.put("calendars", list.toString());
+        prefs.putBoolean("primaryCalendarVisible", calendars.primary().isVisible());
+    }
+
+    /** The calendar holding {@code event}; the primary one if it is in none of them any more. */
+    private NamedCalendar calendarOf(Event event) {
+        NamedCalendar calendar = calendars.calendarOf(event);
+        return calendar != null ? calendar : calendars.primary();
+    }
+
+    private void rebuildCalendarsMenu() {
+        calendarsMenu.getItems().clear();
+        for (NamedCalendar calendar : calendars.all()) {
+            CheckMenuItem item = new CheckMenuItem(calendar.getName() + (calendar == calendars.primary() ? " (primary)" : ""));
+            item.setSelected(calendar.isVisible());
+            item.setOnAction(e -> setCalendarVisible(calendar, item.isSelected()));
+            calendarsMenu.getItems().add(item);
+        }
+
+        MenuItem newItem = new MenuItem("New Calendar...");
+        newItem.setOnAction(e -> createCalendar());
+        newItem.disableProperty().bind(loading);
+
+        MenuItem openItem = new MenuItem("Open Calendar File...");
+        openItem.setOnAction(e -> openCalendarFile());
+        openItem.disableProperty().bind(loading);
+
+        MenuItem removeItem = new MenuItem("Remove Calendar...");
+        removeItem.setOnAction(e -> removeCalendar());
+        removeItem.disableProperty().bind(loading.or(new SimpleBooleanProperty(calendars.all().size() == 1)));
+
+        MenuItem statisticsItem = new MenuItem("Statistics...");
+        statisticsItem.setOnAction(e -> showStatistics());
+
+        calendarsMenu.getItems().addAll(new SeparatorMenuItem(), newItem, openItem, removeItem,
+                new SeparatorMenuItem(), statisticsItem);
+    }
+
+    /** Hiding or showing a calendar only changes which day lists are merged; nothing is reloaded. */
+    private void setCalendarVisible(NamedCalendar calendar, boolean visible) {
+        calendar.setVisible(visible);
+        saveCalendarList();
+        updateCalendarView();
+        updateEventDetailsView(selectedDate);
+        if (statisticsDashboard != null) {
+            statisticsDashboard.modelChanged();
+        }
+    }
+
+    /** Statistics of the visible calendars, read from their incrementally kept aggregates. */
+    private void showStatistics() {
+        if (statisticsDashboard == null) {
+            statisticsDashboard = new StatisticsDashboard(primaryStage, () -> calendars.visible().stream()
+                    .map(NamedCalendar::getStatistics)
+                    .collect(Collectors.toList()));
+        }
+        statisticsDashboard.show();
+    }
+
+    private void createCalendar() {
+        TextInputDialog dialog = new TextInputDialog();
+        dialog.setTitle("New Calendar");
+        dialog.setHeaderText("Create a calendar with its own data file");
+        dialog.setContentText("Name:");
+        dialog.showAndWait().map(String::strip).filter(name -> !name.isEmpty()).ifPresent(name -> {
+            // Next to the primary data file, named after the calendar
+            File directory = new File(dataFilePath).getAbsoluteFile().getParentFile();
+            addCalendar(name, new File(directory, name.replaceAll("[^A-Za-z0-9 _-]", "_") + ".dat"));
         });
+    }
 
-        primaryStage.show();
+    private void openCalendarFile() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Open Calendar File");
+        fileChooser.getExtensionFilters().add(
+                new FileChooser.ExtensionFilter("Calendar Data Files", "*.dat")
+        );
+        File file = fileChooser.showOpenDialog(primaryStage);
+        if (file != null) {
+            addCalendar(file.getName().replaceFirst("\\.dat$", ""), file);
+        }
+    }
 
-        // Set up system tray
-        setupSystemTray();
+    /** Adds a calendar backed by {@code file}, loading the file first if it exists. */
+    private void addCalendar(String name, File file) {
+        String cleanName = name.replaceAll("[\\t\\r\\n]", " ");
+        if (calendars.find(cleanName) != null) {
+            showErrorAlert("Calendar Exists", "A calendar named " + cleanName + " already exists.");
+            return;
+        }
+        for (NamedCalendar existing : calendars.all()) {
+            if (existing.getFile().getAbsoluteFile().equals(file.getAbsoluteFile())) {
+                showErrorAlert("Calendar Exists", file + " is already open as " + existing.getName() + ".");
+                return;
+            }
+        }
+        NamedCalendar calendar = newCalendar(cleanName, file);
+        loadCalendar(calendar, () -> {
+            calendar.getModel().clearHistory();
+            calendar.takeDirty();
+            calendar.getStatistics().rebuild();
+            calendars.add(calendar);
+            calendar.getModel().addListener(this::onModelChanged);
+            saveCalendarList();
+            rebuildCalendarsMenu();
+            applyFilter();
+        });
+    }
 
-        // Start notification checker
-        startReminderChecker();
+    private void removeCalendar() {
+        List<NamedCalendar> removable = calendars.all().subList(1, calendars.all().size());
+        ChoiceDialog<NamedCalendar> dialog = new ChoiceDialog<>(removable.get(0), removable);
+        dialog.setTitle("Remove Calendar");
+        dialog.setHeaderText("Remove a calendar from the list; its data file is kept");
+        dialog.setContentText("Calendar:");
+        dialog.showAndWait().ifPresent(calendar -> {
+            if (calendar.isDirty()) {
+                saveCalendar(calendar);
+            }
+            calendars.remove(calendar);
+            calendar.getQueries().close();
+            calendar.getStatistics().close();
+            viewCache.invalidate(calendar);
+            textIndexed.remove(calendar);
+            if (undoCalendar == calendar) {
+                undoCalendar = calendars.primary();
+                updateUndoState();
+            }
+            saveCalendarList();
+            rebuildCalendarsMenu();
+            updateCalendarView();
+            updateEventDetailsView(selectedDate);
+        });
     }
 
     private String getDefaultDataPath() {
@@ -138,8 +433,9 @@ public class CalendarApp extends Application {
         Menu fileMenu = new Menu("File");
 
         MenuItem saveItem = new MenuItem("Save Events");
+        saveItem.disableProperty().bind(loading);
         saveItem.setOnAction(e -> {
-            saveEventsToFile();
+            saveChangedCalendars();
             Alert alert = new Alert(Alert.AlertType.INFORMATION);
             alert.setTitle("Save Successful");
             alert.setHeaderText(null);
@@ -149,12 +445,50 @@ public class CalendarApp extends Application {
 
         MenuItem importItem = new MenuItem("Import Events...");
         importItem.setOnAction(e -> importEvents());
+        importItem.disableProperty().bind(loading);
 
         MenuItem exportItem = new MenuItem("Export Events...");
         exportItem.setOnAction(e -> exportEvents());
+        exportItem.disableProperty().bind(loading);
+
+        MenuItem importIcsItem = new MenuItem("Import iCalendar (.ics)...");
+        importIcsItem.setOnAction(e -> importICalendar());
+        importIcsItem.disableProperty().bind(loading);
+
+        MenuItem exportIcsItem = new MenuItem("Export iCalendar (.ics)...");
+        exportIcsItem.setOnAction(e -> exportICalendar());
+        exportIcsItem.disableProperty().bind(loading);
+
+        CheckMenuItem apiItem = new CheckMenuItem("Local HTTP API");
+        apiItem.selectedProperty().bindBidirectional(apiRunning);
+        apiItem.setOnAction(e -> {
+            prefs.putBoolean("apiEnabled", apiItem.isSelected());
+            if (apiItem.isSelected()) {
+                startApiServer();
+            } else {
+                apiServer.stop();
+                apiRunning.set(false);
+            }
+        });
+
+        CheckMenuItem replicationItem = new CheckMenuItem("Peer Replication");
+        replicationItem.selectedProperty().bindBidirectional(replicationRunning);
+        replicationItem.disableProperty().bind(loading);
+        replicationItem.setOnAction(e -> {
+            prefs.putBoolean("syncEnabled", replicationItem.isSelected());
+            if (replicationItem.isSelected()) {
+                startReplication();
+            } else {
+                stopReplication();
+            }
+        });
+
+        MenuItem replicationPeersItem = new MenuItem("Replication Peers...");
+        replicationPeersItem.setOnAction(e -> editReplicationPeers());
 
         MenuItem changeLocationItem = new MenuItem("Change Data Location...");
         changeLocationItem.setOnAction(e -> changeDataLocation());
+        changeLocationItem.disableProperty().bind(loading);
 
         MenuItem viewLocationItem = new MenuItem("View Current Data Location");
         viewLocationItem.setOnAction(e -> {
@@ -177,10 +511,10 @@ public class CalendarApp extends Application {
 
             Optional<ButtonType> result = confirm.showAndWait();
             if (result.isPresent() && result.get() == ButtonType.OK) {
-                saveEventsToFile(); // Save before exiting
-                if (timer != null) {
-                    timer.cancel();
-                }
+                apiServer.stop();
+                stopReplication();
+                saveChangedCalendars(); // Save before exiting
+                taskScheduler.shutdown();
                 if (trayIcon != null) {
                     SystemTray.getSystemTray().remove(trayIcon);
                 }
@@ -194,6 +528,11 @@ public class CalendarApp extends Application {
                 new SeparatorMenuItem(),
                 importItem,
                 exportItem,
+                importIcsItem,
+                exportIcsItem,
+                apiItem,
+                replicationItem,
+                replicationPeersItem,
                 new SeparatorMenuItem(),
                 changeLocationItem,
                 viewLocationItem,
@@ -204,6 +543,99 @@ public class CalendarApp extends Application {
         );
         menuBar.getMenus().add(fileMenu);
 
+        // Edit menu
+        Menu editMenu = new Menu("Edit");
+
+        MenuItem undoItem = new MenuItem("Undo");
+        undoItem.setAccelerator(KeyCombination.keyCombination("Shortcut+Z"));
+        undoItem.disableProperty().bind(loading.or(canUndo.not()));
+        undoItem.setOnAction(e -> undo());
+
+        MenuItem redoItem = new MenuItem("Redo");
+        redoItem.setAccelerator(KeyCombination.keyCombination("Shortcut+Y"));
+        redoItem.disableProperty().bind(loading.or(canRedo.not()));
+        redoItem.setOnAction(e -> redo());
+
+        MenuItem selectRangeItem = new MenuItem("Select Range...");
+        selectRangeItem.setAccelerator(KeyCombination.keyCombination("Shortcut+Shift+A"));
+        selectRangeItem.disableProperty().bind(loading);
+        selectRangeItem.setOnAction(e -> selectRange());
+
+        MenuItem clearSelectionItem = new MenuItem("Clear Selection");
+        clearSelectionItem.disableProperty().bind(selectionSize.isEqualTo(0));
+        clearSelectionItem.setOnAction(e -> clearSelection());
+
+        editMenu.getItems().addAll(undoItem, redoItem, new SeparatorMenuItem(), selectRangeItem, clearSelectionItem);
+        menuBar.getMenus().add(editMenu);
+
+        // Calendars menu, rebuilt whenever calendars are added or removed
+        calendarsMenu = new Menu("Calendars");
+        rebuildCalendarsMenu();
+        menuBar.getMenus().add(calendarsMenu);
+
+        // Diagnostics menu
+        Menu diagnosticsMenu = new Menu("Diagnostics");
+
+        CheckMenuItem recordingItem = new CheckMenuItem("Continuous Flight Recording");
+        recordingItem.setSelected(flightRecording.isRunning());
+        recordingItem.setOnAction(e -> {
+            prefs.putBoolean("flightRecording", recordingItem.isSelected());
+            if (recordingItem.isSelected()) {
+                startFlightRecording();
+            } else {
+                flightRecording.stop();
+            }
+            recordingItem.setSelected(flightRecording.isRunning());
+        });
+
+        MenuItem dumpItem = new MenuItem("Dump Flight Recording...");
+        dumpItem.disableProperty().bind(recordingItem.selectedProperty().not());
+        dumpItem.setOnAction(e -> dumpFlightRecording());
+
+        MenuItem metricsItem = new MenuItem("Show Metrics");
+        metricsItem.setOnAction(e -> {
+            TextArea metricsText = new TextArea(Metrics.registry().summary() + "\n" + BoundedCache.summary());
+            metricsText.setEditable(false);
+            metricsText.setFont(Font.font("Monospaced", 12));
+            metricsText.setPrefSize(640, 360);
+
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle("Metrics");
+            alert.setHeaderText("Counters and timings since startup (durations in ns)");
+            alert.getDialogPane().setContent(metricsText);
+            alert.showAndWait();
+        });
+
+        CheckMenuItem overlayItem = new CheckMenuItem("Performance Overlay");
+        overlayItem.setAccelerator(KeyCombination.keyCombination("Shortcut+Shift+P"));
+        overlayItem.setOnAction(e -> {
+            if (performanceOverlay == null) {
+                performanceOverlay = new PerformanceOverlay(primaryStage.getScene(), rootPane,
+                        calendarGrid, eventModel, () -> reminderScheduler);
+            }
+            performanceOverlay.setShowing(overlayItem.isSelected());
+        });
+
+        CheckMenuItem offHeapItem = new CheckMenuItem("Off-Heap Event Store (after restart)");
+        offHeapItem.setSelected(prefs.getBoolean("offHeapStore", false));
+        offHeapItem.setOnAction(e -> {
+            prefs.putBoolean("offHeapStore", offHeapItem.isSelected());
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle("Event Store");
+            alert.setHeaderText(null);
+            alert.setContentText("The " + (offHeapItem.isSelected() ? "off-heap" : "heap") +
+                    " event store will be used the next time the calendar starts.");
+            alert.showAndWait();
+        });
+
+        CheckMenuItem releaseItem = new CheckMenuItem("Release Memory in Tray");
+        releaseItem.setSelected(prefs.getBoolean("releaseInTray", true));
+        releaseItem.setOnAction(e -> prefs.putBoolean("releaseInTray", releaseItem.isSelected()));
+
+        diagnosticsMenu.getItems().addAll(recordingItem, dumpItem, new SeparatorMenuItem(), metricsItem, overlayItem,
+                new SeparatorMenuItem(), offHeapItem, releaseItem);
+        menuBar.getMenus().add(diagnosticsMenu);
+
         return menuBar;
     }
 
@@ -220,6 +652,16 @@ public class CalendarApp extends Application {
         Region spacer = new Region();
         HBox.setHgrow(spacer, Priority.ALWAYS);
 
+        // Shown while events are still being loaded
+        ProgressIndicator loadingIndicator = new ProgressIndicator();
+        loadingIndicator.setPrefSize(20, 20);
+        loadingLabel = new Label("Loading events...");
+        loadingLabel.setTextFill(Color.WHITE);
+        HBox loadingBox = new HBox(8, loadingIndicator, loadingLabel);
+        loadingBox.setAlignment(Pos.CENTER);
+        loadingBox.visibleProperty().bind(loading);
+        loadingBox.managedProperty().bind(loading);
+
         Button prevBtn = new Button("◀ Previous");
         Button todayBtn = new Button("Today");
         Button nextBtn = new Button("Next ▶");
@@ -243,7 +685,7 @@ public class CalendarApp extends Application {
             updateCalendarView();
         });
 
-        topBar.getChildren().addAll(title, spacer, prevBtn, todayBtn, nextBtn);
+        topBar.getChildren().addAll(title, spacer, loadingBox, prevBtn, todayBtn, nextBtn);
         return topBar;
     }
 
@@ -297,42 +739,214 @@ public class CalendarApp extends Application {
         styleButton(addEventBtn, SECONDARY_COLOR, CARD_COLOR);
         addEventBtn.setOnAction(e -> showAddEventDialog(selectedDate));
 
+        // Filtered view: matching events in the chosen scope around the selected date
+        filterField = new TextField();
+        filterField.setPromptText("Filter events, e.g. review");
+        reminderFilter = new CheckBox("Only with reminders");
+        filterScope = new ChoiceBox<>();
+        filterScope.getItems().addAll("Day", "Week", "Month", "All");
+        filterScope.setValue("Week");
+        PauseTransition filterDelay = new PauseTransition(javafx.util.Duration.millis(200));
+        filterDelay.setOnFinished(e -> applyFilter());
+        filterField.textProperty().addListener((obs, old, text) -> filterDelay.playFromStart());
+        reminderFilter.setOnAction(e -> applyFilter());
+        filterScope.setOnAction(e -> applyFilter());
+        HBox filterOptions = new HBox(10, reminderFilter, filterScope);
+        filterOptions.setAlignment(Pos.CENTER_LEFT);
+
         eventDetailsView = new ListView<>();
         eventDetailsView.setPlaceholder(new Label("No events for today"));
         eventDetailsView.setPrefHeight(400);
         VBox.setVgrow(eventDetailsView, Priority.ALWAYS);
+        eventDetailsView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        eventDetailsView.getSelectionModel().getSelectedIndices()
+                .addListener((ListChangeListener<Integer>) change -> followListSelection());
+        eventDetailsView.setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.DELETE && !selection.isEmpty()) {
+                deleteSelected();
+            }
+        });
 
-        sidebar.getChildren().addAll(sidebarTitle, addEventBtn, eventDetailsView);
+        // Bulk actions on the events selected here and on other days
+        Label selectionLabel = new Label();
+        selectionLabel.textProperty().bind(selectionSize.asString("%d selected"));
+        selectionLabel.setFont(Font.font("System", FontWeight.BOLD, 12));
+        Button deleteSelectedBtn = new Button("Delete");
+        styleSmallButton(deleteSelectedBtn, ACCENT_COLOR);
+        deleteSelectedBtn.setOnAction(e -> deleteSelected());
+        Button moveSelectedBtn = new Button("Move...");
+        styleSmallButton(moveSelectedBtn, PRIMARY_COLOR);
+        moveSelectedBtn.setOnAction(e -> moveSelected());
+        Button remindSelectedBtn = new Button("Reminders...");
+        styleSmallButton(remindSelectedBtn, PRIMARY_COLOR);
+        remindSelectedBtn.setOnAction(e -> setSelectedReminders());
+        Button duplicateSelectedBtn = new Button("Duplicate...");
+        styleSmallButton(duplicateSelectedBtn, SECONDARY_COLOR);
+        duplicateSelectedBtn.setOnAction(e -> duplicateSelected());
+        Button clearSelectionBtn = new Button("Clear");
+        styleSmallButton(clearSelectionBtn, "#95A5A6");
+        clearSelectionBtn.setOnAction(e -> clearSelection());
+        FlowPane bulkBar = new FlowPane(6, 6, selectionLabel, deleteSelectedBtn, moveSelectedBtn,
+                remindSelectedBtn, duplicateSelectedBtn, clearSelectionBtn);
+        bulkBar.visibleProperty().bind(selectionSize.greaterThan(0));
+        bulkBar.managedProperty().bind(selectionSize.greaterThan(0));
+        bulkBar.disableProperty().bind(loading);
+
+        sidebar.getChildren().addAll(sidebarTitle, addEventBtn, filterField, filterOptions, eventDetailsView, bulkBar);
         updateEventDetailsView(LocalDate.now());
 
         return sidebar;
     }
 
     private void updateCalendarView() {
+        Metrics.Probe probe = Metrics.begin("render.calendar", new RenderEvent("month grid"));
+        // Each calendar's counts are read under its lock, so they are consistent for the whole month
+        List<int[]> monthCounts = new ArrayList<>();
+        for (NamedCalendar calendar : calendars.visible()) {
+            monthCounts.add(viewCache.monthCounts(calendar, currentYearMonth));
+        }
+        EventQuery filter = currentFilter();
+        Map<LocalDate, Long> matches = filter == null ? null : calendars
+                .stream(filter.between(currentYearMonth.atDay(1), currentYearMonth.atEndOfMonth()))
+                .collect(Collectors.groupingBy(Event::getDate, Collectors.counting()));
         calendarGrid.getChildren().clear();
-        monthYearLabel.setText(currentYearMonth.format(DateTimeFormatter.ofPattern("MMMM yyyy")));
+        dayCells.clear();
+        monthYearLabel.setText(currentYearMonth.format(MONTH_TITLE_FORMAT));
 
-        LocalDate firstOfMonth = currentYearMonth.atDay(1);
-        int dayOfWeek = firstOfMonth.getDayOfWeek().getValue() % 7;
         int daysInMonth = currentYearMonth.lengthOfMonth();
 
-        int row = 0;
-        int col = dayOfWeek;
-
         for (int day = 1; day <= daysInMonth; day++) {
-            LocalDate date = LocalDate.of(currentYearMonth.getYear(), currentYearMonth.getMonth(), day);
-            VBox dayCell = createDayCell(date);
-            calendarGrid.add(dayCell, col, row);
-
-            col++;
-            if (col > 6) {
-                col = 0;
-                row++;
+            LocalDate date = currentYearMonth.atDay(day);
+            int count;
+            if (matches != null) {
+                count = matches.getOrDefault(date, 0L).intValue();
+            } else {
+                count = 0;
+                for (int[] counts : monthCounts) {
+                    count += counts[day - 1];
+                }
+            }
+            VBox dayCell = createDayCell(date, count);
+            dayCells.put(date, dayCell);
+            calendarGrid.add(dayCell, gridColumn(date), gridRow(date));
+        }
+        probe.end(daysInMonth, 0);
+    }
+
+    private void refreshDayCell(LocalDate date) {
+        VBox oldCell = dayCells.get(date);
+        if (oldCell == null) {
+            return; // Not in the displayed month
+        }
+        Metrics.Probe probe = Metrics.begin("render.cell", new RenderEvent("day cell"));
+        EventQuery filter = currentFilter();
+        int count = filter == null ? calendars.countOn(date) : (int) calendars.stream(filter.on(date)).count();
+        VBox dayCell = createDayCell(date, count);
+        dayCells.put(date, dayCell);
+        int index = calendarGrid.getChildren().indexOf(oldCell);
+        calendarGrid.getChildren().set(index, dayCell);
+        GridPane.setConstraints(dayCell, gridColumn(date), gridRow(date));
+        probe.end(1, 0);
+    }
+
+    private int gridColumn(LocalDate date) {
+        return date.getDayOfWeek().getValue() % 7;
+    }
+
+    private int gridRow(LocalDate date) {
+        int firstColumn = gridColumn(date.withDayOfMonth(1));
+        return (firstColumn + date.getDayOfMonth() - 1) / 7;
+    }
+
+    private void selectDate(LocalDate date) {
+        LocalDate previous = selectedDate;
+        selectedDate = date;
+        updateEventDetailsView(date);
+        refreshDayCell(previous);
+        refreshDayCell(date);
+    }
+
+    private void onModelChanged(ChangeSet changes) {
+        if (!Platform.isFxApplicationThread()) {
+            // Background writers such as the HTTP API can publish many change sets per frame;
+            // only the first one of a run schedules a refresh
+            synchronized (pendingUiChanges) {
+                pendingUiChanges.add(changes);
+                if (pendingUiChanges.size() > 1) {
+                    return;
+                }
+            }
+            Platform.runLater(this::drainPendingUiChanges);
+            return;
+        }
+        if (uiBatch != null) {
+            uiBatch.add(changes);
+            return;
+        }
+        applyUiChanges(List.of(changes));
+    }
+
+    private void drainPendingUiChanges() {
+        List<ChangeSet> drained;
+        synchronized (pendingUiChanges) {
+            drained = new ArrayList<>(pendingUiChanges);
+            pendingUiChanges.clear();
+        }
+        applyUiChanges(drained);
+    }
+
+    private void applyUiChanges(List<ChangeSet> changeSets) {
+        viewCache.invalidate(changeSets);
+        if (!selection.isEmpty()) {
+            selection.retainExisting(calendars); // Removed or reloaded events drop out
+            selectionSize.set(selection.size());
+        }
+        if (windowReleased) {
+            return; // The window is rebuilt from the model when it is shown again
+        }
+        boolean reset = false;
+        Set<LocalDate> affected = new HashSet<>();
+        for (ChangeSet changes : changeSets) {
+            reset |= changes.isReset();
+            if (!reset) {
+                affected.addAll(changes.getAffectedDates());
+            }
+        }
+        if (reset) {
+            updateCalendarView();
+        } else {
+            for (LocalDate date : affected) {
+                refreshDayCell(date);
             }
         }
+        // A filtered sidebar can list any day, so it follows every change
+        if (reset || affected.contains(selectedDate) || currentFilter() != null) {
+            updateEventDetailsView(selectedDate);
+        }
+        updateUndoState();
+        if (statisticsDashboard != null) {
+            statisticsDashboard.modelChanged();
+        }
+    }
+
+    private void updateUndoState() {
+        canUndo.set(undoCalendar.getModel().canUndo());
+        canRedo.set(undoCalendar.getModel().canRedo());
+    }
+
+    private void undo() {
+        if (undoCalendar.getModel().undo()) {
+            saveCalendar(undoCalendar);
+        }
+    }
+
+    private void redo() {
+        if (undoCalendar.getModel().redo()) {
+            saveCalendar(undoCalendar);
+        }
     }
 
-    private VBox createDayCell(LocalDate date) {
+    private VBox createDayCell(LocalDate date, int eventCount) {
         VBox cell = new VBox(5);
         cell.setPrefSize(140, 100);
         cell.setAlignment(Pos.TOP_CENTER);
@@ -340,7 +954,7 @@ public class CalendarApp extends Application {
 
         boolean isToday = date.equals(LocalDate.now());
         boolean isSelected = date.equals(selectedDate);
-        boolean hasEvents = eventsMap.containsKey(date) && !eventsMap.get(date).isEmpty();
+        boolean hasEvents = eventCount > 0;
 
         String cellStyle;
 
@@ -375,7 +989,6 @@ public class CalendarApp extends Application {
         cell.getChildren().add(dayNum);
 
         if (hasEvents) {
-            int eventCount = eventsMap.get(date).size();
             Label eventIndicator = new Label(eventCount + " event" + (eventCount > 1 ? "s" : ""));
             eventIndicator.setFont(Font.font("System", 11));
             eventIndicator.setTextFill(isToday ? Color.WHITE : Color.web(ACCENT_COLOR));
@@ -385,11 +998,7 @@ public class CalendarApp extends Application {
             cell.getChildren().add(eventIndicator);
         }
 
-        cell.setOnMouseClicked(e -> {
-            selectedDate = date;
-            updateEventDetailsView(date);
-            updateCalendarView(); // Refresh to show new selection
-        });
+        cell.setOnMouseClicked(e -> selectDate(date)); // Refresh old and new selection only
 
         cell.setOnMouseEntered(e -> {
             if (!isToday && !isSelected) {
@@ -405,32 +1014,111 @@ public class CalendarApp extends Application {
     }
 
     private void updateEventDetailsView(LocalDate date) {
+        Metrics.Probe probe = Metrics.begin("render.sidebar", new RenderEvent("sidebar"));
+        showingEvents = true;
         eventDetailsView.getItems().clear();
-        List<Event> dayEvents = eventsMap.getOrDefault(date, new ArrayList<>());
-
-        // Update sidebar title to show selected date
-        if (date.equals(LocalDate.now())) {
-            sidebarTitle.setText("Today's Events");
+        EventQuery filter = currentFilter();
+        List<Event> dayEvents;
+
+        if (filter == null) {
+            dayEvents = calendars.eventsOn(date); // Merged by time from the visible calendars
+            // Update sidebar title to show selected date
+            if (date.equals(LocalDate.now())) {
+                sidebarTitle.setText("Today's Events");
+            } else {
+                sidebarTitle.setText(date.format(DAY_TITLE_FORMAT));
+            }
         } else {
-            sidebarTitle.setText(date.format(DateTimeFormatter.ofPattern("MMM dd, yyyy")));
+            // One more than shown, to tell whether the list was cut short
+            List<Event> matches = calendars.stream(scoped(filter, date).limit(MAX_FILTER_RESULTS + 1)).toList();
+            boolean more = matches.size() > MAX_FILTER_RESULTS;
+            dayEvents = new ArrayList<>(more ? matches.subList(0, MAX_FILTER_RESULTS) : matches);
+            dayEvents.sort(Comparator.comparingInt(Event::getEpochMinute));
+            sidebarTitle.setText((more ? MAX_FILTER_RESULTS + "+" : String.valueOf(dayEvents.size())) + " matching");
         }
 
+        shownEvents = dayEvents;
         if (dayEvents.isEmpty()) {
-            eventDetailsView.setPlaceholder(new Label("No events on this day"));
+            eventDetailsView.setPlaceholder(new Label(filter == null ? "No events on this day" : "No matching events"));
         } else {
             // Clear and rebuild the list with custom cell factory
-            eventDetailsView.setCellFactory(lv -> new EventListCell(date));
-            eventDetailsView.getItems().addAll(
-                    dayEvents.stream().map(Event::toString).collect(Collectors.toList())
-            );
+            eventDetailsView.setCellFactory(lv -> new EventListCell(dayEvents));
+            boolean showCalendar = calendars.visible().size() > 1;
+            eventDetailsView.getItems().addAll(dayEvents.stream()
+                    .map(event -> (showCalendar ? "[" + calendars.calendarOf(event) + "] " : "")
+                            + (filter == null ? viewCache.eventText(event, true)
+                            : "📅 " + event.getDate().format(LIST_DAY_FORMAT) + "\n" + viewCache.eventText(event, false)))
+                    .collect(Collectors.toList()));
+            if (!selection.isEmpty()) {
+                for (int i = 0; i < dayEvents.size(); i++) {
+                    Event event = dayEvents.get(i);
+                    if (selection.contains(calendarOf(event), event)) {
+                        eventDetailsView.getSelectionModel().select(i);
+                    }
+                }
+            }
+        }
+        showingEvents = false;
+        probe.end(dayEvents.size(), 0);
+    }
+
+    /** The sidebar filter as a query, or {@code null} while it is empty. */
+    private EventQuery currentFilter() {
+        if (filterField == null) {
+            return null; // Sidebar not built yet
+        }
+        String text = filterField.getText().trim();
+        if (text.isEmpty() && !reminderFilter.isSelected()) {
+            return null;
+        }
+        EventQuery filter = EventQuery.all().matching(text);
+        return reminderFilter.isSelected() ? filter.withReminders() : filter;
+    }
+
+    /** Narrows {@code filter} to the chosen scope around {@code date}; weeks start on Sunday like the grid. */
+    private EventQuery scoped(EventQuery filter, LocalDate date) {
+        return switch (filterScope.getValue()) {
+            case "Day" -> filter.on(date);
+            case "Week" -> {
+                LocalDate sunday = date.minusDays(gridColumn(date));
+                yield filter.between(sunday, sunday.plusDays(6));
+            }
+            case "Month" -> filter.between(date.withDayOfMonth(1), date.withDayOfMonth(date.lengthOfMonth()));
+            default -> filter;
+        };
+    }
+
+    private void applyFilter() {
+        ensureTextIndex();
+        updateCalendarView();
+        updateEventDetailsView(selectedDate);
+    }
+
+    /**
+     * Builds the calendars' text indexes in the background the first time a filter has text; until
+     * then text filters scan the day buckets. Off-heap calendars are meant to keep the heap small,
+     * so they always scan.
+     */
+    private void ensureTextIndex() {
+        if (filterField.getText().isBlank() || eventModel.getStorage() == EventModel.Storage.OFF_HEAP) {
+            return;
         }
+        List<NamedCalendar> missing = new ArrayList<>(calendars.all());
+        missing.removeAll(textIndexed);
+        if (missing.isEmpty()) {
+            return;
+        }
+        textIndexed.addAll(missing);
+        Thread builder = new Thread(() -> missing.forEach(calendar -> calendar.getQueries().indexText()), "text-index");
+        builder.setDaemon(true);
+        builder.start();
     }
 
     private class EventListCell extends ListCell<String> {
-        private final LocalDate cellDate;
+        private final List<Event> dayEvents;
 
-        public EventListCell(LocalDate date) {
-            this.cellDate = date;
+        public EventListCell(List<Event> dayEvents) {
+            this.dayEvents = dayEvents; // The list the items were rendered from
         }
 
         @Override
@@ -473,27 +1161,67 @@ public class CalendarApp extends Application {
                 deleteBtn.setTooltip(new Tooltip("Delete Event"));
 
                 int eventIndex = getIndex();
-                List<Event> dayEvents = eventsMap.get(cellDate);
+                container.getChildren().add(eventLabel);
 
-                if (dayEvents != null && eventIndex < dayEvents.size()) {
+                if (eventIndex < dayEvents.size()) {
                     Event event = dayEvents.get(eventIndex);
 
+                    if (event.hasDescription()) {
+                        Button notesBtn = new Button("Notes");
+                        notesBtn.setStyle("-fx-background-color: " + PRIMARY_COLOR + "; " +
+                                "-fx-text-fill: white; " +
+                                "-fx-font-size: 11px; " +
+                                "-fx-font-weight: bold; " +
+                                "-fx-padding: 5 10 5 10; " +
+                                "-fx-background-radius: 5; " +
+                                "-fx-cursor: hand;");
+                        notesBtn.setTooltip(new Tooltip("Show the whole description"));
+                        notesBtn.setOnAction(e -> CalendarApp.this.showDescription(event));
+                        container.getChildren().add(notesBtn);
+                    }
+
                     editBtn.setOnAction(e -> {
-                        CalendarApp.this.showEditEventDialog(cellDate, event, eventIndex);
+                        CalendarApp.this.showEditEventDialog(event.getDate(), event);
                     });
 
                     deleteBtn.setOnAction(e -> {
-                        CalendarApp.this.deleteEvent(cellDate, event, eventIndex);
+                        CalendarApp.this.deleteEvent(event);
                     });
                 }
 
-                container.getChildren().addAll(eventLabel, editBtn, deleteBtn);
+                container.getChildren().addAll(editBtn, deleteBtn);
                 setGraphic(container);
                 setText(null);
             }
         }
     }
 
+    /** A description editor for the add and edit dialogs. */
+    private DescriptionPane descriptionEditor(String text) {
+        DescriptionPane editor = new DescriptionPane(true, url -> getHostServices().showDocument(url), null);
+        editor.setPrefSize(360, 160);
+        editor.setText(text);
+        return editor;
+    }
+
+    /** Shows an event's whole description; a stored one is read off the FX thread. */
+    private void showDescription(Event event) {
+        DescriptionPane viewer = new DescriptionPane(false, url -> getHostServices().showDocument(url), viewCache.renderings());
+        viewer.setPrefSize(560, 480);
+        viewer.setText("Loading...");
+
+        Stage window = new Stage();
+        window.initOwner(primaryStage);
+        window.setTitle(event.getTitle() + " - " + event.getDateTime().format(EVENT_TIME_FORMAT));
+        BorderPane root = new BorderPane(viewer.getNode());
+        root.setPadding(new Insets(10));
+        window.setScene(new Scene(root));
+        window.show();
+
+        CompletableFuture.supplyAsync(event::getDescription)
+                .thenAccept(text -> Platform.runLater(() -> viewer.setText(text, event.getId())));
+    }
+
     private void showAddEventDialog(LocalDate initialDate) {
         Dialog<Event> dialog = new Dialog<>();
         dialog.setTitle("Add New Event");
@@ -514,9 +1242,7 @@ public class CalendarApp extends Application {
         hourSpinner.setPrefWidth(80);
         minuteSpinner.setPrefWidth(80);
 
-        TextArea descField = new TextArea();
-        descField.setPromptText("Event description (optional)");
-        descField.setPrefRowCount(3);
+        DescriptionPane descField = descriptionEditor("");
 
         // Multiple reminders
         Label remindersLabel = new Label("Reminders:");
@@ -534,6 +1260,12 @@ public class CalendarApp extends Application {
         HBox timeBox = new HBox(10, hourSpinner, new Label(":"), minuteSpinner);
         timeBox.setAlignment(Pos.CENTER_LEFT);
 
+        // New events go to the first visible calendar unless another one is picked
+        ChoiceBox<NamedCalendar> calendarChoice = new ChoiceBox<>();
+        calendarChoice.getItems().addAll(calendars.all());
+        List<NamedCalendar> visibleCalendars = calendars.visible();
+        calendarChoice.setValue(visibleCalendars.isEmpty() ? calendars.primary() : visibleCalendars.get(0));
+
         grid.add(new Label("Title:"), 0, 0);
         grid.add(titleField, 1, 0);
         grid.add(new Label("Date:"), 0, 1);
@@ -541,9 +1273,13 @@ public class CalendarApp extends Application {
         grid.add(new Label("Time:"), 0, 2);
         grid.add(timeBox, 1, 2);
         grid.add(new Label("Description:"), 0, 3);
-        grid.add(descField, 1, 3);
+        grid.add(descField.getNode(), 1, 3);
         grid.add(remindersLabel, 0, 4);
         grid.add(remindersBox, 1, 4);
+        if (calendars.all().size() > 1) {
+            grid.add(new Label("Calendar:"), 0, 5);
+            grid.add(calendarChoice, 1, 5);
+        }
 
         dialog.getDialogPane().setContent(grid);
 
@@ -565,17 +1301,22 @@ public class CalendarApp extends Application {
                 if (reminder4.isSelected()) reminderMinutes.add(10);    // 10 min
                 if (reminder5.isSelected()) reminderMinutes.add(0);     // at time
 
-                Event event = new Event(title, eventDateTime, description, reminderMinutes);
+                if (!Event.isSupported(eventDateTime)) {
+                    showErrorAlert("Invalid Date", "Events can be dated from year " + Event.MIN_DATE_TIME.getYear()
+                            + " to " + Event.MAX_DATE_TIME.getYear() + ".");
+                    return null;
+                }
 
-                eventsMap.computeIfAbsent(date, k -> new ArrayList<>()).add(event);
+                Event event = new Event(title, eventDateTime, description, reminderMinutes);
 
-                // Save events to file
-                saveEventsToFile();
+                // Select the new event's date first so the change notification refreshes it
+                NamedCalendar calendar = calendarChoice.getValue();
+                selectDate(date);
+                undoCalendar = calendar;
+                calendar.getModel().add(event);
 
-                // Update selected date to show the new event
-                selectedDate = date;
-                updateCalendarView();
-                updateEventDetailsView(date);
+                // Save only the calendar that changed
+                saveCalendar(calendar);
 
                 return event;
             }
@@ -585,7 +1326,7 @@ public class CalendarApp extends Application {
         dialog.showAndWait();
     }
 
-    private void showEditEventDialog(LocalDate date, Event existingEvent, int eventIndex) {
+    private void showEditEventDialog(LocalDate date, Event existingEvent) {
         Dialog<Event> dialog = new Dialog<>();
         dialog.setTitle("Edit Event");
         dialog.setHeaderText("Update event details");
@@ -595,19 +1336,19 @@ public class CalendarApp extends Application {
         grid.setVgap(15);
         grid.setPadding(new Insets(20));
 
-        TextField titleField = new TextField(existingEvent.title);
+        TextField titleField = new TextField(existingEvent.getTitle());
         titleField.setPromptText("Event title");
 
         DatePicker datePicker = new DatePicker(date);
 
-        Spinner<Integer> hourSpinner = new Spinner<>(0, 23, existingEvent.dateTime.getHour());
-        Spinner<Integer> minuteSpinner = new Spinner<>(0, 59, existingEvent.dateTime.getMinute());
+        Spinner<Integer> hourSpinner = new Spinner<>(0, 23, existingEvent.getDateTime().getHour());
+        Spinner<Integer> minuteSpinner = new Spinner<>(0, 59, existingEvent.getDateTime().getMinute());
         hourSpinner.setPrefWidth(80);
         minuteSpinner.setPrefWidth(80);
 
-        TextArea descField = new TextArea(existingEvent.description);
-        descField.setPromptText("Event description (optional)");
-        descField.setPrefRowCount(3);
+        // Read off the FX thread, as it may come from the description file
+        String[] existingDescription = {existingEvent.hasDescription() ? null : ""};
+        DescriptionPane descField = descriptionEditor(existingEvent.hasDescription() ? "Loading..." : "");
 
         // Multiple reminders - pre-check based on existing event
         Label remindersLabel = new Label("Reminders:");
@@ -621,7 +1362,7 @@ public class CalendarApp extends Application {
         CheckBox reminder5 = new CheckBox("At event time");
 
         // Pre-select existing reminders
-        for (Integer minutes : existingEvent.reminderMinutes) {
+        for (Integer minutes : existingEvent.getReminderMinutes()) {
             if (minutes == 1440) reminder1.setSelected(true);
             else if (minutes == 60) reminder2.setSelected(true);
             else if (minutes == 30) reminder3.setSelected(true);
@@ -641,7 +1382,7 @@ public class CalendarApp extends Application {
         grid.add(new Label("Time:"), 0, 2);
         grid.add(timeBox, 1, 2);
         grid.add(new Label("Description:"), 0, 3);
-        grid.add(descField, 1, 3);
+        grid.add(descField.getNode(), 1, 3);
         grid.add(remindersLabel, 0, 4);
         grid.add(remindersBox, 1, 4);
 
@@ -650,8 +1391,24 @@ public class CalendarApp extends Application {
         ButtonType saveBtn = new ButtonType("Save Changes", ButtonBar.ButtonData.OK_DONE);
         dialog.getDialogPane().getButtonTypes().addAll(saveBtn, ButtonType.CANCEL);
 
+        if (existingDescription[0] == null) {
+            Node saveButton = dialog.getDialogPane().lookupButton(saveBtn);
+            saveButton.setDisable(true);
+            descField.getNode().setDisable(true);
+            CompletableFuture.supplyAsync(existingEvent::getDescription).whenComplete((text, failure) -> Platform.runLater(() -> {
+                if (failure != null) {
+                    descField.setText("Could not read the description: " + failure.getCause().getMessage());
+                    return; // Saving stays disabled, as it would drop the description
+                }
+                existingDescription[0] = text;
+                descField.setText(text, existingEvent.getId());
+                descField.getNode().setDisable(false);
+                saveButton.setDisable(false);
+            }));
+        }
+
         dialog.setResultConverter(btn -> {
-            if (btn == saveBtn && !titleField.getText().trim().isEmpty()) {
+            if (btn == saveBtn && existingDescription[0] != null && !titleField.getText().trim().isEmpty()) {
                 String title = titleField.getText().trim();
                 LocalDate newDate = datePicker.getValue();
                 LocalTime time = LocalTime.of(hourSpinner.getValue(), minuteSpinner.getValue());
@@ -665,26 +1422,24 @@ public class CalendarApp extends Application {
                 if (reminder4.isSelected()) reminderMinutes.add(10);
                 if (reminder5.isSelected()) reminderMinutes.add(0);
 
-                // Remove old event
-                List<Event> oldDateEvents = eventsMap.get(date);
-                if (oldDateEvents != null) {
-                    oldDateEvents.remove(eventIndex);
-                    if (oldDateEvents.isEmpty()) {
-                        eventsMap.remove(date);
-                    }
+                if (!Event.isSupported(eventDateTime)) {
+                    showErrorAlert("Invalid Date", "Events can be dated from year " + Event.MIN_DATE_TIME.getYear()
+                            + " to " + Event.MAX_DATE_TIME.getYear() + ".");
+                    return null;
                 }
 
-                // Add updated event
-                Event updatedEvent = new Event(title, eventDateTime, description, reminderMinutes);
-                eventsMap.computeIfAbsent(newDate, k -> new ArrayList<>()).add(updatedEvent);
+                // Replace the old event, keeping its id, and its stored description if that is unchanged
+                StoredText storedDescription = existingEvent.getStoredDescription();
+                Event updatedEvent = storedDescription != null && description.equals(existingDescription[0])
+                        ? new Event(existingEvent.getId(), title, eventDateTime, storedDescription, reminderMinutes)
+                        : new Event(existingEvent.getId(), title, eventDateTime, description, reminderMinutes);
+                NamedCalendar calendar = calendarOf(existingEvent);
+                selectDate(newDate);
+                undoCalendar = calendar;
+                calendar.getModel().update(existingEvent, updatedEvent);
 
                 // Save changes
-                saveEventsToFile();
-
-                // Update view
-                selectedDate = newDate;
-                updateCalendarView();
-                updateEventDetailsView(newDate);
+                saveCalendar(calendar);
 
                 return updatedEvent;
             }
@@ -694,30 +1449,20 @@ public class CalendarApp extends Application {
         dialog.showAndWait();
     }
 
-    private void deleteEvent(LocalDate date, Event event, int eventIndex) {
+    private void deleteEvent(Event event) {
         Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
         confirm.setTitle("Delete Event");
         confirm.setHeaderText("Are you sure you want to delete this event?");
-        confirm.setContentText("Event: " + event.title + "\nTime: " +
-                event.dateTime.format(DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm")));
+        confirm.setContentText("Event: " + event.getTitle() + "\nTime: " +
+                event.getDateTime().format(EVENT_TIME_FORMAT));
 
         Optional<ButtonType> result = confirm.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            List<Event> dayEvents = eventsMap.get(date);
-            if (dayEvents != null) {
-                dayEvents.remove(eventIndex);
-
-                // Remove date from map if no more events
-                if (dayEvents.isEmpty()) {
-                    eventsMap.remove(date);
-                }
-
+            NamedCalendar calendar = calendarOf(event);
+            undoCalendar = calendar;
+            if (calendar.getModel().remove(event)) {
                 // Save changes
-                saveEventsToFile();
-
-                // Update view
-                updateCalendarView();
-                updateEventDetailsView(date);
+                saveCalendar(calendar);
 
                 // Show confirmation
                 Alert success = new Alert(Alert.AlertType.INFORMATION);
@@ -729,107 +1474,292 @@ public class CalendarApp extends Application {
         }
     }
 
-    private void startReminderChecker() {
-        timer = new Timer(true);
-        timer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                LocalDateTime now = LocalDateTime.now();
-
-                for (List<Event> eventList : eventsMap.values()) {
-                    for (Event event : eventList) {
-                        for (int i = 0; i < event.reminderMinutes.size(); i++) {
-                            if (!event.notified[i]) {
-                                int reminderMin = event.reminderMinutes.get(i);
-                                LocalDateTime reminderTime = event.dateTime.minusMinutes(reminderMin);
-
-                                if (now.isAfter(reminderTime) || now.isEqual(reminderTime)) {
-                                    final int index = i;
-                                    Platform.runLater(() -> showNotification(event, reminderMin));
-                                    event.notified[index] = true;
-                                }
-                            }
-                        }
-                    }
-                }
+    // Follows the list's selection for the events it shows; events selected on other days stay selected
+    private void followListSelection() {
+        if (showingEvents) {
+            return;
+        }
+        Set<Integer> chosen = new HashSet<>(eventDetailsView.getSelectionModel().getSelectedIndices());
+        for (int i = 0; i < shownEvents.size(); i++) {
+            Event event = shownEvents.get(i);
+            if (chosen.contains(i)) {
+                selection.add(calendarOf(event), event);
+            } else {
+                selection.remove(calendarOf(event), event);
             }
-        }, 0, 30_000); // Check every 30 seconds
+        }
+        selectionSize.set(selection.size());
     }
 
-    private void setupSystemTray() {
-        // Check if system tray is supported
-        if (!SystemTray.isSupported()) {
-            System.out.println("System tray is not supported");
-            return;
+    private void clearSelection() {
+        selection.clear();
+        selectionSize.set(0);
+        if (eventDetailsView != null) {
+            showingEvents = true;
+            eventDetailsView.getSelectionModel().clearSelection();
+            showingEvents = false;
         }
+    }
 
-        SystemTray systemTray = SystemTray.getSystemTray();
-
-        // Create tray icon image
-        BufferedImage trayIconImage = createTrayIcon();
-
-        // Create popup menu
-        PopupMenu popup = new PopupMenu();
-
-        // Use java.awt.MenuItem explicitly for system tray
-        java.awt.MenuItem openItem = new java.awt.MenuItem("Open Calendar");
-        openItem.addActionListener(e -> Platform.runLater(this::showWindow));
-
-        java.awt.MenuItem exitItem = new java.awt.MenuItem("Exit");
-        exitItem.addActionListener(e -> {
-            Platform.runLater(() -> {
-                saveEventsToFile(); // Save before exiting
-                if (timer != null) {
-                    timer.cancel();
-                }
-                systemTray.remove(trayIcon);
-                Platform.exit();
-                System.exit(0);
-            });
-        });
+    /** Adds every event between two dates, or only those matching the filter, to the selection. */
+    private void selectRange() {
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Select Range");
+        dialog.setHeaderText("Select the events of the visible calendars between two dates");
 
-        popup.add(openItem);
-        popup.addSeparator();
-        popup.add(exitItem);
+        GridPane grid = new GridPane();
+        grid.setHgap(15);
+        grid.setVgap(15);
+        grid.setPadding(new Insets(20));
 
-        // Create tray icon
-        trayIcon = new TrayIcon(trayIconImage, "TaskFlow Calendar", popup);
-        trayIcon.setImageAutoSize(true);
+        DatePicker fromPicker = new DatePicker(selectedDate);
+        DatePicker toPicker = new DatePicker(selectedDate.plusDays(6));
+        EventQuery filter = currentFilter();
+        CheckBox matchingBox = new CheckBox("Only events matching the filter");
+        matchingBox.setSelected(filter != null);
+        matchingBox.setDisable(filter == null);
+
+        grid.add(new Label("From:"), 0, 0);
+        grid.add(fromPicker, 1, 0);
+        grid.add(new Label("To:"), 0, 1);
+        grid.add(toPicker, 1, 1);
+        grid.add(matchingBox, 1, 2);
+        dialog.getDialogPane().setContent(grid);
 
-        // Double-click to open
-        trayIcon.addActionListener(e -> Platform.runLater(this::showWindow));
+        ButtonType selectBtn = new ButtonType("Select", ButtonBar.ButtonData.OK_DONE);
+        dialog.getDialogPane().getButtonTypes().addAll(selectBtn, ButtonType.CANCEL);
 
-        try {
-            systemTray.add(trayIcon);
-        } catch (AWTException e) {
-            System.err.println("Unable to add tray icon");
-            e.printStackTrace();
+        Optional<ButtonType> result = dialog.showAndWait();
+        if (result.isEmpty() || result.get() != selectBtn || fromPicker.getValue() == null || toPicker.getValue() == null) {
+            return;
+        }
+        LocalDate from = fromPicker.getValue();
+        LocalDate to = toPicker.getValue();
+        if (to.isBefore(from)) {
+            LocalDate swap = from;
+            from = to;
+            to = swap;
         }
+        EventQuery query = (matchingBox.isSelected() && filter != null ? filter : EventQuery.all()).between(from, to);
+        selection.select(calendars, query);
+        selectionSize.set(selection.size());
+        updateEventDetailsView(selectedDate);
     }
 
-    private BufferedImage createTrayIcon() {
-        // Create a simple calendar icon
-        int size = 16;
-        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
-        Graphics2D g = image.createGraphics();
-
-        // Enable anti-aliasing
-        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    private void deleteSelected() {
+        Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
+        confirm.setTitle("Delete Events");
+        confirm.setHeaderText("Are you sure you want to delete " + selection.size() + " selected events?");
+        confirm.setContentText("They may be on several days and in several calendars. Undo restores them.");
 
-        // Draw calendar icon (using java.awt.Color explicitly)
-        g.setColor(new java.awt.Color(74, 144, 226)); // PRIMARY_COLOR
-        g.fillRoundRect(1, 3, 14, 12, 3, 3);
+        Optional<ButtonType> result = confirm.showAndWait();
+        if (result.isPresent() && result.get() == ButtonType.OK) {
+            applyToSelection(EventSelection::delete);
+        }
+    }
+
+    private void moveSelected() {
+        askOffset("Move Events", "Move " + selection.size() + " selected events by", "Move", 1)
+                .ifPresent(offset -> applyToSelection(events -> events.move(offset)));
+    }
+
+    private void duplicateSelected() {
+        askOffset("Duplicate Events", "Copy " + selection.size() + " selected events, shifted by", "Duplicate", 7)
+                .ifPresent(offset -> applyToSelection(events -> events.duplicate(offset)));
+    }
+
+    private void setSelectedReminders() {
+        Dialog<List<Integer>> dialog = new Dialog<>();
+        dialog.setTitle("Change Reminders");
+        dialog.setHeaderText("Replace the reminders of " + selection.size() + " selected events with");
+
+        VBox remindersBox = new VBox(10);
+        remindersBox.setPadding(new Insets(20));
+        CheckBox reminder1 = new CheckBox("1 day before");
+        CheckBox reminder2 = new CheckBox("1 hour before");
+        CheckBox reminder3 = new CheckBox("30 minutes before");
+        CheckBox reminder4 = new CheckBox("10 minutes before");
+        CheckBox reminder5 = new CheckBox("At event time");
+        remindersBox.getChildren().addAll(reminder1, reminder2, reminder3, reminder4, reminder5);
+        dialog.getDialogPane().setContent(remindersBox);
+
+        ButtonType applyBtn = new ButtonType("Apply", ButtonBar.ButtonData.OK_DONE);
+        dialog.getDialogPane().getButtonTypes().addAll(applyBtn, ButtonType.CANCEL);
+        dialog.setResultConverter(btn -> {
+            if (btn != applyBtn) {
+                return null;
+            }
+            List<Integer> reminderMinutes = new ArrayList<>();
+            if (reminder1.isSelected()) reminderMinutes.add(1440);  // 1 day
+            if (reminder2.isSelected()) reminderMinutes.add(60);    // 1 hour
+            if (reminder3.isSelected()) reminderMinutes.add(30);    // 30 min
+            if (reminder4.isSelected()) reminderMinutes.add(10);    // 10 min
+            if (reminder5.isSelected()) reminderMinutes.add(0);     // at time
+            return reminderMinutes;
+        });
 
-        g.setColor(java.awt.Color.WHITE);
-        g.fillRect(2, 1, 3, 3);
-        g.fillRect(11, 1, 3, 3);
+        dialog.showAndWait().ifPresent(minutes -> applyToSelection(events -> events.setReminders(minutes)));
+    }
+
+    /** Asks for a shift in days, hours and minutes; empty if cancelled or zero. */
+    private Optional<Duration> askOffset(String title, String header, String buttonText, int defaultDays) {
+        Dialog<Duration> dialog = new Dialog<>();
+        dialog.setTitle(title);
+        dialog.setHeaderText(header);
+
+        GridPane grid = new GridPane();
+        grid.setHgap(15);
+        grid.setVgap(15);
+        grid.setPadding(new Insets(20));
+
+        Spinner<Integer> daysSpinner = new Spinner<>(-3650, 3650, defaultDays);
+        Spinner<Integer> hoursSpinner = new Spinner<>(-23, 23, 0);
+        Spinner<Integer> minutesSpinner = new Spinner<>(-59, 59, 0);
+        for (Spinner<Integer> spinner : List.of(daysSpinner, hoursSpinner, minutesSpinner)) {
+            spinner.setEditable(true);
+            spinner.setPrefWidth(100);
+        }
+
+        grid.add(new Label("Days:"), 0, 0);
+        grid.add(daysSpinner, 1, 0);
+        grid.add(new Label("Hours:"), 0, 1);
+        grid.add(hoursSpinner, 1, 1);
+        grid.add(new Label("Minutes:"), 0, 2);
+        grid.add(minutesSpinner, 1, 2);
+        dialog.getDialogPane().setContent(grid);
+
+        ButtonType applyBtn = new ButtonType(buttonText, ButtonBar.ButtonData.OK_DONE);
+        dialog.getDialogPane().getButtonTypes().addAll(applyBtn, ButtonType.CANCEL);
+        dialog.setResultConverter(btn -> btn != applyBtn ? null : Duration.ofDays(daysSpinner.getValue())
+                .plusHours(hoursSpinner.getValue()).plusMinutes(minutesSpinner.getValue()));
+
+        return dialog.showAndWait().filter(offset -> !offset.isZero());
+    }
+
+    /**
+     * Runs a bulk action: one batch per calendar, one refresh of the views for all of them, and
+     * one save of each calendar changed. Undo reverts the part in the calendar changed last.
+     */
+    private void applyToSelection(Function<EventSelection, List<NamedCalendar>> action) {
+        List<NamedCalendar> changed;
+        uiBatch = new ArrayList<>();
+        try {
+            changed = action.apply(selection);
+        } finally {
+            List<ChangeSet> batch = uiBatch;
+            uiBatch = null;
+            if (!batch.isEmpty()) {
+                applyUiChanges(batch);
+            }
+        }
+        if (!changed.isEmpty()) {
+            undoCalendar = changed.get(changed.size() - 1);
+            updateUndoState();
+        }
+        for (NamedCalendar calendar : changed) {
+            saveCalendar(calendar);
+        }
+        selectionSize.set(selection.size());
+    }
 
-        g.setColor(java.awt.Color.WHITE);
-        g.setFont(new java.awt.Font("Arial", java.awt.Font.BOLD, 8));
-        g.drawString(String.valueOf(LocalDate.now().getDayOfMonth()), 5, 12);
+    private void startReminderChecker() {
+        ReminderChecker checker = new ReminderChecker(taskScheduler.getClock(),
+                () -> calendars.all().stream().map(NamedCalendar::getReminders).toList());
+        taskScheduler.scheduleAtFixedRate(() -> {
+            updateTrayIconDay(); // Keep the tray's day badge current past midnight
+            for (ReminderScheduler.DueReminder due : checker.check()) {
+                Platform.runLater(() -> showNotification(due.getEvent(), due.getMinutesBefore()));
+            }
+        }, REMINDER_CHECK_PERIOD);
+    }
 
-        g.dispose();
-        return image;
+    /**
+     * Reads the changes other processes sharing the calendars' files have saved, such as a second
+     * instance or a script. A check costs one line per file unless something changed, and then
+     * only the changes are read, unless the file was written in full.
+     */
+    private void startFileWatcher() {
+        taskScheduler.scheduleAtFixedRate(() -> {
+            for (NamedCalendar calendar : calendars.all()) {
+                try {
+                    if (calendar.refresh()) {
+                        System.out.println("Read changes to " + calendar.getFile() + " saved by another process");
+                        Platform.runLater(this::updateUndoState); // Reading them cleared the undo history
+                    }
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Error reading changes to " + calendar.getName() + ": " + e.getMessage());
+                    e.printStackTrace();
+                }
+            }
+        }, FILE_CHECK_PERIOD);
+    }
+
+    private void setupSystemTray() {
+        // Check if system tray is supported
+        if (!SystemTray.isSupported()) {
+            System.out.println("System tray is not supported");
+            return;
+        }
+
+        SystemTray systemTray = SystemTray.getSystemTray();
+
+        // Create popup menu
+        PopupMenu popup = new PopupMenu();
+
+        // Use java.awt.MenuItem explicitly for system tray
+        java.awt.MenuItem openItem = new java.awt.MenuItem("Open Calendar");
+        openItem.addActionListener(e -> Platform.runLater(this::showWindow));
+
+        java.awt.MenuItem exitItem = new java.awt.MenuItem("Exit");
+        exitItem.addActionListener(e -> {
+            Platform.runLater(() -> {
+                apiServer.stop();
+                stopReplication();
+                saveChangedCalendars(); // Save before exiting
+                taskScheduler.shutdown();
+                systemTray.remove(trayIcon);
+                Platform.exit();
+                System.exit(0);
+            });
+        });
+
+        popup.add(openItem);
+        popup.addSeparator();
+        popup.add(exitItem);
+
+        // Create tray icon
+        trayIconDay = LocalDate.now(taskScheduler.getClock()).getDayOfMonth();
+        try {
+            trayIcon = new TrayIcon(IconAssets.trayIcon(trayIconDay), "TaskFlow Calendar", popup);
+        } catch (IOException e) {
+            System.err.println("Unable to load tray icon");
+            e.printStackTrace();
+            return;
+        }
+        trayIcon.setImageAutoSize(true);
+
+        // Double-click to open
+        trayIcon.addActionListener(e -> Platform.runLater(this::showWindow));
+
+        try {
+            systemTray.add(trayIcon);
+        } catch (AWTException e) {
+            System.err.println("Unable to add tray icon");
+            e.printStackTrace();
+        }
+    }
+
+    private void updateTrayIconDay() {
+        int today = LocalDate.now(taskScheduler.getClock()).getDayOfMonth();
+        if (trayIcon == null || today == trayIconDay) {
+            return;
+        }
+        try {
+            trayIcon.setImage(IconAssets.trayIcon(today));
+            trayIconDay = today;
+        } catch (IOException e) {
+            System.err.println("Unable to update tray icon: " + e.getMessage());
+        }
     }
 
     private void hideToSystemTray() {
@@ -841,134 +1771,414 @@ public class CalendarApp extends Application {
                     "The calendar is still running in the background. Notifications will continue.",
                     TrayIcon.MessageType.INFO);
         }
+        if (prefs.getBoolean("releaseInTray", true) && !loading.get()) {
+            releaseForTray();
+        }
     }
 
     private void showWindow() {
+        if (windowReleased) {
+            windowReleased = false;
+            buildWindow(releasedWidth, releasedHeight);
+            updateEventDetailsView(selectedDate);
+            reloadParkedCalendars();
+        }
         primaryStage.show();
         primaryStage.toFront();
     }
 
-    private Image createWindowIcon() {
-        // Create a calendar icon for the window
-        int size = 64;
-        BufferedImage bufferedImage = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
-        Graphics2D g = bufferedImage.createGraphics();
-
-        // Enable anti-aliasing
-        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-        // Draw calendar background
-        g.setColor(new java.awt.Color(74, 144, 226)); // PRIMARY_COLOR
-        g.fillRoundRect(8, 16, 48, 40, 8, 8);
-
-        // Draw calendar header (darker blue)
-        g.setColor(new java.awt.Color(50, 100, 180));
-        g.fillRoundRect(8, 16, 48, 12, 8, 8);
-        g.fillRect(8, 20, 48, 8);
-
-        // Draw binding rings
-        g.setColor(java.awt.Color.WHITE);
-        g.fillOval(16, 10, 8, 8);
-        g.fillOval(40, 10, 8, 8);
+    /**
+     * Lets go of what only the window needs while it is in the tray: the scene with its month grid
+     * and sidebar, and the view caches. Unless the HTTP API or replication still work on the
+     * models, every calendar is also saved and parked, so only the reminders due within a week
+     * stay in memory. {@link #showWindow()} builds the window again and reloads the calendars.
+     */
+    private void releaseForTray() {
+        Runtime runtime = Runtime.getRuntime();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+
+        if (performanceOverlay != null) {
+            performanceOverlay.setShowing(false);
+            performanceOverlay = null;
+        }
+        releasedWidth = primaryStage.getScene().getWidth();
+        releasedHeight = primaryStage.getScene().getHeight();
+        primaryStage.setScene(null);
+        rootPane = null;
+        calendarGrid = null;
+        monthYearLabel = null;
+        eventDetailsView = null;
+        sidebarTitle = null;
+        filterField = null;
+        reminderFilter = null;
+        filterScope = null;
+        calendarsMenu = null;
+        loadingLabel = null;
+        dayCells.clear();
+        shownEvents = List.of();
+        clearSelection(); // Reloaded events get new ids
+        viewCache.invalidateAll();
+        windowReleased = true;
+
+        int parked = 0;
+        if (!apiServer.isRunning() && !replicationRunning.get()) {
+            saveChangedCalendars();
+            LocalDateTime now = LocalDateTime.now(taskScheduler.getClock());
+            for (NamedCalendar calendar : calendars.all()) {
+                if (calendar.park(now)) {
+                    parked++;
+                }
+            }
+        }
+        int parkedCalendars = parked;
+
+        // Collect now, so the freed heap is given back to the system rather than kept until it fills up
+        Thread collector = new Thread(() -> {
+            System.gc();
+            long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+            System.out.printf("Released for tray: %d of %d calendars parked, heap in use %d MB -> %d MB, committed %d MB%n",
+                    parkedCalendars, calendars.all().size(), heapBefore / (1024 * 1024), heapAfter / (1024 * 1024),
+                    runtime.totalMemory() / (1024 * 1024));
+        }, "tray-release");
+        collector.setDaemon(true);
+        collector.start();
+    }
 
-        // Draw grid lines
-        g.setColor(new java.awt.Color(255, 255, 255, 100));
-        g.drawLine(20, 32, 44, 32);
-        g.drawLine(20, 40, 44, 40);
-        g.drawLine(20, 48, 44, 48);
-        g.drawLine(28, 28, 28, 52);
-        g.drawLine(36, 28, 36, 52);
+    /** Reads the calendars parked in the tray back into their models, as at startup. */
+    private void reloadParkedCalendars() {
+        List<NamedCalendar> parked = calendars.all().stream().filter(NamedCalendar::isParked).toList();
+        if (parked.isEmpty()) {
+            return;
+        }
+        loadingCalendars = parked;
+        loading.set(true);
+        pendingLoads = parked.size();
+        for (NamedCalendar calendar : parked) {
+            if (calendar == calendars.primary()) {
+                loadEventsInBackground();
+            } else {
+                loadCalendar(calendar, this::calendarLoaded);
+            }
+        }
+    }
 
-        // Draw current day highlight
-        g.setColor(new java.awt.Color(255, 107, 107)); // ACCENT_COLOR
-        g.fillOval(38, 42, 6, 6);
+    /** Writes the primary calendar, which imports, the HTTP API and replication work on. */
+    private void saveEventsToFile() {
+        saveCalendar(calendars.primary());
+    }
 
-        g.dispose();
+    /** Writes every calendar changed since it was loaded or last saved, and leaves the others alone. */
+    private void saveChangedCalendars() {
+        for (NamedCalendar calendar : calendars.all()) {
+            if (calendar.isDirty()) {
+                saveCalendar(calendar);
+            }
+        }
+    }
 
-        // Convert BufferedImage to JavaFX Image
+    private void saveCalendar(NamedCalendar calendar) {
+        if (calendar.isParked()) {
+            return; // The model is empty and the file already holds everything
+        }
+        if (loading.get()) {
+            // Writing now would truncate the file to the part loaded so far
+            saveAfterLoad = true;
+            return;
+        }
+        File file = calendar.getFile();
         try {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            javax.imageio.ImageIO.write(bufferedImage, "png", baos);
-            return new Image(new ByteArrayInputStream(baos.toByteArray()));
+            Metrics.Probe probe = Metrics.begin("save", new PersistenceEvent("save", file.getPath()));
+            long written = calendar.save(); // Changes made while writing are saved the next time
+            probe.end(written, file.length());
+            System.out.println("Events saved successfully to " + file);
         } catch (IOException e) {
+            System.err.println("Error saving events: " + e.getMessage());
             e.printStackTrace();
-            return null;
+            showErrorAlert("Error Saving Events", "Could not save events to file: " + e.getMessage());
         }
     }
 
-    private void saveEventsToFile() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(dataFilePath))) {
-            for (Map.Entry<LocalDate, List<Event>> entry : eventsMap.entrySet()) {
-                LocalDate date = entry.getKey();
-                for (Event event : entry.getValue()) {
-                    // Format: DATE|TITLE|TIME|DESCRIPTION|REMINDERS
-                    String reminders = event.reminderMinutes.stream()
-                            .map(String::valueOf)
-                            .collect(Collectors.joining(","));
-
-                    String line = String.format("%s|%s|%s|%s|%s",
-                            date.toString(),
-                            escapeString(event.title),
-                            event.dateTime.toLocalTime().toString(),
-                            escapeString(event.description),
-                            reminders
-                    );
-                    writer.println(line);
+    /** Loads the primary calendar month-first and every other calendar on its own thread, all at once. */
+    private void loadCalendarsInBackground() {
+        loadingCalendars = calendars.all();
+        loading.set(true);
+        pendingLoads = calendars.all().size();
+        loadEventsInBackground();
+        for (NamedCalendar calendar : calendars.all().subList(1, calendars.all().size())) {
+            loadCalendar(calendar, this::calendarLoaded);
+        }
+    }
+
+    private void calendarLoaded() {
+        if (--pendingLoads == 0) {
+            finishLoading();
+        }
+    }
+
+    /** Reads {@code calendar}'s file into its model in the background, then runs {@code done} on the FX thread. */
+    private void loadCalendar(NamedCalendar calendar, Runnable done) {
+        Thread loaderThread = new Thread(() -> {
+            File file = calendar.getFile();
+            RecoveryReport report = null;
+            calendar.beginLoad();
+            try {
+                if (file.exists()) {
+                    Metrics.Probe probe = Metrics.begin("load", new PersistenceEvent("load", file.getPath()));
+                    List<Event> events = new ArrayList<>();
+                    report = EventFile.read(file, events::add);
+                    reportRecovery(report);
+                    calendar.getModel().addAll(events);
+                    probe.end(events.size(), file.length());
+                    System.out.println("Loaded " + events.size() + " events into " + calendar.getName() + ".");
                 }
+            } catch (IOException e) {
+                System.err.println("Error loading calendar " + calendar.getName() + ": " + e.getMessage());
+                e.printStackTrace();
             }
-            System.out.println("Events saved successfully to " + dataFilePath);
-        } catch (IOException e) {
-            System.err.println("Error saving events: " + e.getMessage());
-            e.printStackTrace();
-            showErrorAlert("Error Saving Events", "Could not save events to file: " + e.getMessage());
-        }
+            calendar.endLoad(report);
+            Platform.runLater(done);
+        }, "calendar-loader");
+        loaderThread.setDaemon(true);
+        loaderThread.start();
     }
 
-    private void loadEventsFromFile() {
+    private void loadEventsInBackground() {
         File file = new File(dataFilePath);
+        NamedCalendar primary = calendars.primary();
         if (!file.exists()) {
             System.out.println("No saved events found at: " + dataFilePath);
+            primary.beginLoad();
+            primary.endLoad(null);
+            calendarLoaded();
             return;
         }
 
-        eventsMap.clear(); // Clear existing events before loading
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            int loadedCount = 0;
-            while ((line = reader.readLine()) != null) {
-                try {
-                    String[] parts = line.split("\\|");
-                    if (parts.length >= 5) {
-                        LocalDate date = LocalDate.parse(parts[0]);
-                        String title = unescapeString(parts[1]);
-                        LocalTime time = LocalTime.parse(parts[2]);
-                        String description = unescapeString(parts[3]);
-
-                        List<Integer> reminders = new ArrayList<>();
-                        if (!parts[4].isEmpty()) {
-                            String[] reminderParts = parts[4].split(",");
-                            for (String r : reminderParts) {
-                                reminders.add(Integer.parseInt(r.trim()));
-                            }
-                        }
-
-                        LocalDateTime dateTime = LocalDateTime.of(date, time);
-                        Event event = new Event(title, dateTime, description, reminders);
-
-                        eventsMap.computeIfAbsent(date, k -> new ArrayList<>()).add(event);
-                        loadedCount++;
+        YearMonth priorityMonth = currentYearMonth;
+        Task<Integer> loader = new Task<>() {
+            @Override
+            protected Integer call() throws IOException {
+                primary.beginLoad();
+                Metrics.Probe probe = Metrics.begin("load", new PersistenceEvent("load", file.getPath()));
+
+                // DATE is the first field, so the displayed month's lines share this prefix
+                String monthPrefix = priorityMonth.toString();
+                DescriptionStore notes = DescriptionStore.of(file);
+                List<Event> monthEvents = new ArrayList<>();
+                List<Event> chunk = new ArrayList<>(LOAD_CHUNK_SIZE);
+                int[] loaded = {0};
+
+                // Lines arrive as each block is verified, so damaged records never reach the model.
+                // The file is in date order: the displayed month goes in as soon as its run of lines
+                // ends, the rest in chunks as they fill, each as one change set
+                RecoveryReport report = EventFile.readLines(file, line -> {
+                    boolean inMonth = line.startsWith(monthPrefix);
+                    if (!inMonth && !monthEvents.isEmpty()) {
+                        loaded[0] += publish(monthEvents, loaded[0]);
                     }
-                } catch (Exception e) {
-                    System.err.println("Error parsing line: " + line);
-                    e.printStackTrace();
+                    Event event = EventFile.parseLine(line, notes);
+                    if (event == null) {
+                        return false;
+                    }
+                    (inMonth ? monthEvents : chunk).add(event);
+                    if (chunk.size() == LOAD_CHUNK_SIZE) {
+                        loaded[0] += publish(chunk, loaded[0]);
+                    }
+                    return true;
+                });
+                reportRecovery(report);
+                loaded[0] += publish(monthEvents, loaded[0]);
+                int loadedCount = loaded[0] + publish(chunk, loaded[0]);
+                probe.end(loadedCount, file.length());
+                primary.endLoad(report);
+                return loadedCount;
+            }
+
+            // Adds the events to the model and empties the list; returns how many there were
+            private int publish(List<Event> events, int loadedBefore) {
+                int count = events.size();
+                if (count > 0) {
+                    eventModel.addAll(events);
+                    events.clear();
+                    updateMessage("Loading events... " + (loadedBefore + count));
                 }
+                return count;
             }
-            System.out.println("Loaded " + loadedCount + " events from file.");
+        };
+
+        loader.setOnSucceeded(e -> {
+            System.out.println("Loaded " + loader.getValue() + " events from file.");
+            calendarLoaded();
+        });
+        loader.setOnFailed(e -> {
+            Throwable error = loader.getException();
+            System.err.println("Error loading events: " + error.getMessage());
+            error.printStackTrace();
+            primary.endLoad(null);
+            calendarLoaded();
+        });
+
+        loadingLabel.textProperty().bind(loader.messageProperty());
+        loading.set(true);
+
+        Thread loaderThread = new Thread(loader, "event-loader");
+        loaderThread.setDaemon(true);
+        loaderThread.start();
+    }
+
+    /**
+     * Tells the user what a damaged data file lost, after copying it aside so the next save, which
+     * writes only what was read, does not destroy what is left for a manual repair.
+     */
+    private void reportRecovery(RecoveryReport report) {
+        if (report.isClean()) {
+            return;
+        }
+        System.err.println("Recovered " + report.getFile() + " with damage: " + report);
+        File damaged = new File(report.getFile().getPath() + ".damaged");
+        String copied;
+        try {
+            Files.copy(report.getFile().toPath(), damaged.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            copied = "The damaged file was copied to:\n" + damaged.getAbsolutePath();
         } catch (IOException e) {
-            System.err.println("Error loading events: " + e.getMessage());
+            System.err.println("Error copying damaged file: " + e.getMessage());
             e.printStackTrace();
+            copied = "The damaged file could not be copied: " + e.getMessage();
         }
+        String details = report.describe() + "\n" + copied;
+        Platform.runLater(() -> {
+            TextArea reportText = new TextArea(details);
+            reportText.setEditable(false);
+            reportText.setWrapText(true);
+            reportText.setPrefSize(560, 240);
+
+            Alert alert = new Alert(Alert.AlertType.WARNING);
+            alert.setTitle("Calendar Data Recovered");
+            alert.setHeaderText("Some events in " + report.getFile().getName() + " were damaged");
+            alert.getDialogPane().setContent(reportText);
+            alert.show();
+        });
+    }
+
+    private void finishLoading() {
+        loadingLabel.textProperty().unbind();
+        loading.set(false);
+
+        // Loading the files is not something to undo, nor a reason to write them back
+        for (NamedCalendar calendar : loadingCalendars) {
+            calendar.unpark(); // Read back after the tray; its reminders follow the model again
+            calendar.getModel().clearHistory();
+            if (!saveAfterLoad) {
+                calendar.takeDirty();
+            }
+            // One parallel pass over the loaded events; the statistics follow each change from here
+            calendar.getStatistics().rebuild();
+        }
+        updateUndoState();
+
+        if (saveAfterLoad) {
+            saveAfterLoad = false;
+            saveChangedCalendars();
+        }
+        if (reminderCheckStarted) {
+            return; // Reloaded after the tray; the rest happens once per start
+        }
+
+        // The pending-reminder set is complete now
+        startReminderChecker();
+        startFileWatcher();
+        reminderCheckStarted = true;
+
+        // Only serve requests once the model holds the whole file
+        if (prefs.getBoolean("apiEnabled", false) && !exitAfterStartup) {
+            startApiServer();
+        }
+        if ((prefs.getBoolean("syncEnabled", false) || getParameters().getNamed().containsKey("sync-port"))
+                && !exitAfterStartup) {
+            startReplication();
+        }
+
+        reportStartup("events loaded");
+        if (exitAfterStartup) {
+            // Training or measurement run from build.gradle.kts: nothing to save
+            if (trayIcon != null) {
+                SystemTray.getSystemTray().remove(trayIcon);
+            }
+            Platform.exit();
+            System.exit(0);
+        }
+    }
+
+    private void startApiServer() {
+        int port = prefs.getInt("apiPort", ApiServer.DEFAULT_PORT);
+        try {
+            apiServer.start(port);
+            System.out.println("HTTP API listening on http://localhost:" + apiServer.getPort() + "/events");
+        } catch (IOException e) {
+            System.err.println("Error starting HTTP API: " + e.getMessage());
+            e.printStackTrace();
+            showErrorAlert("Error Starting HTTP API", "Could not listen on port " + port + ": " + e.getMessage());
+        }
+        apiRunning.set(apiServer.isRunning());
+    }
+
+    /**
+     * Starts replicating with the configured peers. The {@code --sync-port} and {@code --sync-peers}
+     * parameters override the preferences, so several instances with their own {@code --data-file}
+     * can replicate on one machine.
+     */
+    private void startReplication() {
+        Map<String, String> named = getParameters().getNamed();
+        int port = Integer.parseInt(named.getOrDefault("sync-port",
+                String.valueOf(prefs.getInt("syncPort", Replicator.DEFAULT_PORT))));
+        try {
+            List<InetSocketAddress> peers = Replicator.parsePeers(named.getOrDefault("sync-peers", prefs.get("syncPeers", "")));
+            replicator = new Replicator(eventModel, new File(dataFilePath + ".sync"),
+                    () -> Platform.runLater(this::saveEventsToFile));
+            replicator.start(port, peers);
+            System.out.println("Replicating as " + replicator.getNodeId() + " on port " + replicator.getPort()
+                    + " with " + peers.size() + " peer(s)");
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error starting replication: " + e.getMessage());
+            e.printStackTrace();
+            showErrorAlert("Error Starting Replication", "Could not start replication on port " + port + ": " + e.getMessage());
+            replicator = null;
+        }
+        replicationRunning.set(replicator != null);
+    }
+
+    private void stopReplication() {
+        if (replicator != null) {
+            replicator.stop();
+            replicator = null;
+        }
+        replicationRunning.set(false);
+    }
+
+    private void editReplicationPeers() {
+        TextInputDialog dialog = new TextInputDialog(prefs.get("syncPeers", ""));
+        dialog.setTitle("Replication Peers");
+        dialog.setHeaderText("Instances to replicate with, as host:port separated by commas.\n"
+                + "This instance listens on port " + prefs.getInt("syncPort", Replicator.DEFAULT_PORT) + ".");
+        dialog.setContentText("Peers:");
+        dialog.showAndWait().ifPresent(peers -> {
+            try {
+                Replicator.parsePeers(peers);
+            } catch (IllegalArgumentException e) {
+                showErrorAlert("Invalid Peers", e.getMessage());
+                return;
+            }
+            prefs.put("syncPeers", peers.trim());
+            if (replicator != null) {
+                stopReplication();
+                startReplication();
+            }
+        });
+    }
+
+    private void reportStartup(String milestone) {
+        Instant jvmStart = ProcessHandle.current().info().startInstant().orElse(Instant.now());
+        System.out.println("Startup: " + milestone + " after " +
+                Duration.between(jvmStart, Instant.now()).toMillis() + " ms");
     }
 
     private void importEvents() {
@@ -983,82 +2193,175 @@ public class CalendarApp extends Application {
 
         File selectedFile = fileChooser.showOpenDialog(primaryStage);
         if (selectedFile != null) {
-            Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
-            confirm.setTitle("Import Events");
-            confirm.setHeaderText("How would you like to import?");
-            confirm.setContentText("Choose import option:");
-
-            ButtonType mergeBtn = new ButtonType("Merge with Current");
-            ButtonType replaceBtn = new ButtonType("Replace All");
-            ButtonType cancelBtn = new ButtonType("Cancel", ButtonBar.ButtonData.CANCEL_CLOSE);
-
-            confirm.getButtonTypes().setAll(mergeBtn, replaceBtn, cancelBtn);
-
-            Optional<ButtonType> result = confirm.showAndWait();
+            Optional<Boolean> merge = askMergeOrReplace();
 
-            if (result.isPresent() && result.get() == mergeBtn) {
+            if (merge.isPresent() && merge.get()) {
                 // Merge: Load and add to existing events
                 importAndMerge(selectedFile);
-            } else if (result.isPresent() && result.get() == replaceBtn) {
-                // Replace: Clear current and load new
-                eventsMap.clear();
-                String tempPath = dataFilePath;
-                dataFilePath = selectedFile.getAbsolutePath();
-                loadEventsFromFile();
-                dataFilePath = tempPath;
-                saveEventsToFile(); // Save merged data to current location
-                updateCalendarView();
-                updateEventDetailsView(selectedDate);
+            } else if (merge.isPresent()) {
+                // Replace: swap in the imported events as one reset change
+                RecoveryReport report;
+                try {
+                    Metrics.Probe probe = Metrics.begin("import",
+                            new PersistenceEvent("import (replace)", selectedFile.getPath()));
+                    List<Event> imported = new ArrayList<>();
+                    report = EventFile.read(selectedFile, imported::add);
+                    eventModel.replaceAll(imported);
+                    probe.end(imported.size(), selectedFile.length());
+                } catch (IOException e) {
+                    showErrorAlert("Import Error", "Could not import events: " + e.getMessage());
+                    return;
+                }
+                saveEventsToFile(); // Save imported data to current location
 
                 Alert success = new Alert(Alert.AlertType.INFORMATION);
                 success.setTitle("Import Complete");
                 success.setHeaderText(null);
-                success.setContentText("Events replaced successfully!");
+                success.setContentText("Events replaced successfully!" + damageNote(report));
                 success.showAndWait();
             }
         }
     }
 
-    private void importAndMerge(File importFile) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(importFile))) {
-            String line;
-            int importedCount = 0;
-            while ((line = reader.readLine()) != null) {
-                try {
-                    String[] parts = line.split("\\|");
-                    if (parts.length >= 5) {
-                        LocalDate date = LocalDate.parse(parts[0]);
-                        String title = unescapeString(parts[1]);
-                        LocalTime time = LocalTime.parse(parts[2]);
-                        String description = unescapeString(parts[3]);
-
-                        List<Integer> reminders = new ArrayList<>();
-                        if (!parts[4].isEmpty()) {
-                            String[] reminderParts = parts[4].split(",");
-                            for (String r : reminderParts) {
-                                reminders.add(Integer.parseInt(r.trim()));
-                            }
-                        }
-
-                        LocalDateTime dateTime = LocalDateTime.of(date, time);
-                        Event event = new Event(title, dateTime, description, reminders);
-
-                        eventsMap.computeIfAbsent(date, k -> new ArrayList<>()).add(event);
-                        importedCount++;
+    /** Asks how to import: true to merge, false to replace, empty if cancelled. */
+    private Optional<Boolean> askMergeOrReplace() {
+        Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
+        confirm.setTitle("Import Events");
+        confirm.setHeaderText("How would you like to import?");
+        confirm.setContentText("Choose import option:");
+
+        ButtonType mergeBtn = new ButtonType("Merge with Current");
+        ButtonType replaceBtn = new ButtonType("Replace All");
+        ButtonType cancelBtn = new ButtonType("Cancel", ButtonBar.ButtonData.CANCEL_CLOSE);
+
+        confirm.getButtonTypes().setAll(mergeBtn, replaceBtn, cancelBtn);
+
+        Optional<ButtonType> result = confirm.showAndWait();
+        if (result.isEmpty() || result.get() == cancelBtn) {
+            return Optional.empty();
+        }
+        return Optional.of(result.get() == mergeBtn);
+    }
+
+    private void importICalendar() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Import iCalendar");
+        fileChooser.getExtensionFilters().add(
+                new FileChooser.ExtensionFilter("iCalendar Files", "*.ics", "*.ical")
+        );
+        fileChooser.getExtensionFilters().add(
+                new FileChooser.ExtensionFilter("All Files", "*.*")
+        );
+
+        File selectedFile = fileChooser.showOpenDialog(primaryStage);
+        if (selectedFile == null) {
+            return;
+        }
+        Optional<Boolean> merge = askMergeOrReplace();
+        if (merge.isEmpty()) {
+            return;
+        }
+
+        // Parsed in the background; the reader streams, so only the resulting events are held
+        Task<List<Event>> importer = new Task<>() {
+            @Override
+            protected List<Event> call() throws IOException {
+                updateMessage("Importing events...");
+                Metrics.Probe probe = Metrics.begin("import", new PersistenceEvent(
+                        merge.get() ? "import ics (merge)" : "import ics (replace)", selectedFile.getPath()));
+                List<Event> imported = new ArrayList<>();
+                ICalendarFile.read(selectedFile, event -> {
+                    imported.add(event);
+                    if (imported.size() % LOAD_CHUNK_SIZE == 0) {
+                        updateMessage("Importing events... " + imported.size());
                     }
-                } catch (Exception e) {
-                    System.err.println("Error parsing line during import: " + line);
-                }
+                });
+                probe.end(imported.size(), selectedFile.length());
+                return imported;
+            }
+        };
+
+        importer.setOnSucceeded(e -> {
+            finishImport();
+
+            List<Event> imported = importer.getValue();
+            if (merge.get()) {
+                eventModel.addAll(imported);
+            } else {
+                eventModel.replaceAll(imported);
+            }
+            saveEventsToFile();
+
+            Alert success = new Alert(Alert.AlertType.INFORMATION);
+            success.setTitle("Import Complete");
+            success.setHeaderText(null);
+            success.setContentText(imported.size() + " events imported from iCalendar successfully!");
+            success.showAndWait();
+        });
+        importer.setOnFailed(e -> {
+            finishImport();
+            showErrorAlert("Import Error", "Could not import events: " + importer.getException().getMessage());
+        });
+
+        loadingLabel.textProperty().bind(importer.messageProperty());
+        loading.set(true);
+
+        Thread importerThread = new Thread(importer, "ics-importer");
+        importerThread.setDaemon(true);
+        importerThread.start();
+    }
+
+    // Saves held back while importing are written now, as after loading
+    private void finishImport() {
+        loadingLabel.textProperty().unbind();
+        loading.set(false);
+        if (saveAfterLoad) {
+            saveAfterLoad = false;
+            saveChangedCalendars();
+        }
+    }
+
+    private void exportICalendar() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export iCalendar");
+        fileChooser.setInitialFileName("calendar_" + LocalDate.now() + ".ics");
+        fileChooser.getExtensionFilters().add(
+                new FileChooser.ExtensionFilter("iCalendar Files", "*.ics")
+        );
+
+        File selectedFile = fileChooser.showSaveDialog(primaryStage);
+        if (selectedFile != null) {
+            try {
+                Metrics.Probe probe = Metrics.begin("export", new PersistenceEvent("export ics", selectedFile.getPath()));
+                Map<LocalDate, List<Event>> snapshot = eventModel.snapshot();
+                ICalendarFile.write(selectedFile, snapshot.values());
+                probe.end(snapshot.values().stream().mapToLong(List::size).sum(), selectedFile.length());
+
+                Alert success = new Alert(Alert.AlertType.INFORMATION);
+                success.setTitle("Export Successful");
+                success.setHeaderText(null);
+                success.setContentText("Events exported successfully to:\n" + selectedFile.getAbsolutePath());
+                success.showAndWait();
+            } catch (IOException e) {
+                showErrorAlert("Export Error", "Could not export events: " + e.getMessage());
             }
+        }
+    }
+
+    private void importAndMerge(File importFile) {
+        try {
+            Metrics.Probe probe = Metrics.begin("import", new PersistenceEvent("import (merge)", importFile.getPath()));
+            List<Event> imported = new ArrayList<>();
+            RecoveryReport report = EventFile.read(importFile, imported::add);
+            eventModel.addAll(imported); // Delivered as a single batched change set
+            probe.end(imported.size(), importFile.length());
 
             saveEventsToFile(); // Save merged data
-            updateCalendarView();
-            updateEventDetailsView(selectedDate);
 
             Alert success = new Alert(Alert.AlertType.INFORMATION);
             success.setTitle("Import Complete");
             success.setHeaderText(null);
-            success.setContentText(importedCount + " events imported and merged successfully!");
+            success.setContentText(imported.size() + " events imported and merged successfully!" + damageNote(report));
             success.showAndWait();
 
         } catch (IOException e) {
@@ -1066,6 +2369,11 @@ public class CalendarApp extends Application {
         }
     }
 
+    /** What an imported file lost, to append to the import message; empty if it was read whole. */
+    private static String damageNote(RecoveryReport report) {
+        return report.isClean() ? "" : "\n\nThe file was damaged:\n" + report.describe();
+    }
+
     private void exportEvents() {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Export Events");
@@ -1077,7 +2385,8 @@ public class CalendarApp extends Application {
         File selectedFile = fileChooser.showSaveDialog(primaryStage);
         if (selectedFile != null) {
             try {
-                Files.copy(Paths.get(dataFilePath), selectedFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                // Descriptions go into the records, so the backup does not depend on the notes files
+                EventFile.writeInline(selectedFile, eventModel.snapshot().values());
 
                 Alert success = new Alert(Alert.AlertType.INFORMATION);
                 success.setTitle("Export Successful");
@@ -1090,6 +2399,7 @@ public class CalendarApp extends Application {
         }
     }
 
+    @SuppressWarnings("try")
     private void changeDataLocation() {
         Alert info = new Alert(Alert.AlertType.INFORMATION);
         info.setTitle("Change Data Location");
@@ -1110,15 +2420,33 @@ public class CalendarApp extends Application {
             String newPath = new File(selectedDir, DEFAULT_DATA_FILE).getAbsolutePath();
 
             try {
-                // Copy current data to new location
+                // Copy current data to new location, as no other process is writing it
                 File oldFile = new File(dataFilePath);
-                if (oldFile.exists()) {
-                    Files.copy(oldFile.toPath(), Paths.get(newPath), StandardCopyOption.REPLACE_EXISTING);
+                try (DataFileLock.Hold hold = DataFileLock.of(oldFile).shared()) {
+                    if (oldFile.exists()) {
+                        Files.copy(oldFile.toPath(), Paths.get(newPath), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    String oldName = oldFile.getName();
+                    for (File notesFile : DescriptionStore.filesOf(oldFile)) {
+                        Files.copy(notesFile.toPath(), Paths.get(newPath + notesFile.getName().substring(oldName.length())),
+                                StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+                // The replication log moves along, so events keep their replication ids
+                boolean replicating = replicator != null;
+                stopReplication();
+                File oldLog = new File(dataFilePath + ".sync");
+                if (oldLog.exists()) {
+                    Files.copy(oldLog.toPath(), Paths.get(newPath + ".sync"), StandardCopyOption.REPLACE_EXISTING);
                 }
 
                 // Update data file path
                 dataFilePath = newPath;
                 prefs.put("dataFilePath", dataFilePath);
+                calendars.primary().setFile(new File(dataFilePath));
+                if (replicating) {
+                    startReplication();
+                }
 
                 Alert success = new Alert(Alert.AlertType.INFORMATION);
                 success.setTitle("Location Changed");
@@ -1132,6 +2460,38 @@ public class CalendarApp extends Application {
         }
     }
 
+    private void startFlightRecording() {
+        try {
+            flightRecording.start();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not start flight recording: " + e.getMessage());
+        }
+    }
+
+    private void dumpFlightRecording() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Dump Flight Recording");
+        fileChooser.setInitialFileName("taskflow_" + LocalDate.now() + ".jfr");
+        fileChooser.getExtensionFilters().add(
+                new FileChooser.ExtensionFilter("Flight Recordings", "*.jfr")
+        );
+
+        File selectedFile = fileChooser.showSaveDialog(primaryStage);
+        if (selectedFile != null) {
+            try {
+                flightRecording.dump(selectedFile.toPath());
+
+                Alert success = new Alert(Alert.AlertType.INFORMATION);
+                success.setTitle("Recording Saved");
+                success.setHeaderText(null);
+                success.setContentText("Flight recording written to:\n" + selectedFile.getAbsolutePath());
+                success.showAndWait();
+            } catch (IOException e) {
+                showErrorAlert("Recording Error", "Could not dump flight recording: " + e.getMessage());
+            }
+        }
+    }
+
     private void showErrorAlert(String title, String message) {
         Alert alert = new Alert(Alert.AlertType.ERROR);
         alert.setTitle(title);
@@ -1140,16 +2500,6 @@ public class CalendarApp extends Application {
         alert.showAndWait();
     }
 
-    private String escapeString(String str) {
-        if (str == null) return "";
-        return str.replace("|", "&#124;").replace("\n", "&#10;");
-    }
-
-    private String unescapeString(String str) {
-        if (str == null) return "";
-        return str.replace("&#124;", "|").replace("&#10;", "\n");
-    }
-
     private void showNotification(Event event, int minutesBefore) {
         Alert alert = new Alert(Alert.AlertType.INFORMATION);
         alert.setTitle("📅 Event Reminder");
@@ -1159,9 +2509,20 @@ public class CalendarApp extends Application {
                 "Event in " + formatMinutes(minutesBefore);
 
         alert.setHeaderText(headerText);
-        alert.setContentText("Event: " + event.title + "\n" +
-                "Time: " + event.dateTime.format(DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm")) +
-                (event.description.isEmpty() ? "" : "\n\n" + event.description));
+        alert.setContentText("Event: " + event.getTitle() + "\n" +
+                "Time: " + event.getDateTime().format(EVENT_TIME_FORMAT) +
+                (event.hasDescription() ? "\n\n📝 Notes" : ""));
+
+        // The description is only read if asked for, in the notes window
+        if (event.hasDescription()) {
+            ButtonType notes = new ButtonType("Show Notes");
+            alert.getButtonTypes().add(notes);
+            alert.setOnHidden(e -> {
+                if (alert.getResult() == notes) {
+                    showDescription(event);
+                }
+            });
+        }
 
         DialogPane dialogPane = alert.getDialogPane();
         dialogPane.setStyle("-fx-background-color: " + CARD_COLOR + ";");
@@ -1175,6 +2536,16 @@ public class CalendarApp extends Application {
         return minutes + " minute(s)";
     }
 
+    private void styleSmallButton(Button btn, String bgColor) {
+        btn.setStyle("-fx-background-color: " + bgColor + "; " +
+                "-fx-text-fill: white; " +
+                "-fx-font-size: 11px; " +
+                "-fx-font-weight: bold; " +
+                "-fx-padding: 5 10 5 10; " +
+                "-fx-background-radius: 5; " +
+                "-fx-cursor: hand;");
+    }
+
     private void styleButton(Button btn, String bgColor, String textColor) {
         btn.setStyle("-fx-background-color: " + bgColor + "; " +
                 "-fx-text-fill: " + textColor + "; " +
@@ -1192,31 +2563,4 @@ public class CalendarApp extends Application {
         System.out.println("Java Version: " + System.getProperty("java.version"));
         launch(args);
     }
-
-    static class Event {
-        String title;
-        LocalDateTime dateTime;
-        String description;
-        List<Integer> reminderMinutes;
-        boolean[] notified;
-
-        Event(String title, LocalDateTime dateTime, String description, List<Integer> reminderMinutes) {
-            this.title = title;
-            this.dateTime = dateTime;
-            this.description = description;
-            this.reminderMinutes = reminderMinutes;
-            this.notified = new boolean[reminderMinutes.size()];
-        }
-
-        @Override
-        public String toString() {
-            String time = dateTime.format(DateTimeFormatter.ofPattern("HH:mm"));
-            String reminders = reminderMinutes.stream()
-                    .map(m -> m == 0 ? "at time" : m + "min before")
-                    .collect(Collectors.joining(", "));
-            return "🕐 " + time + " - " + title +
-                    (description.isEmpty() ? "" : "\n   " + description) +
-                    "\n   📢 Reminders: " + reminders;
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,331 @@
+package org.oogle.calender;
+
+import javafx.application.Platform;
+import javafx.scene.Cursor;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import org.fxmisc.flowless.VirtualizedScrollPane;
+import org.fxmisc.richtext.InlineCssTextArea;
+import org.fxmisc.richtext.model.PlainTextChange;
+import org.fxmisc.richtext.model.StyleSpans;
+import org.fxmisc.richtext.model.StyleSpansBuilder;
+import org.fxmisc.richtext.model.TwoDimensional;
+import org.oogle.calender.cache.BoundedCache;
+import org.oogle.calender.metrics.Metrics;
+import org.oogle.calender.notes.NoteMarkup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Shows or edits a description in a virtualized RichTextFX area, so only the visible lines are
+ * laid out however long the text is. {@link NoteMarkup} is highlighted off the FX thread: a new
+ * text is parsed in chunks of lines whose styles are applied as they arrive, and after edits only
+ * the changed lines are parsed again. A style computed for a line that has changed since is
+ * dropped and the line parsed anew.
+ *
+ * <p>Given a cache, the highlighting of an event's description is kept by event id, so opening
+ * the same notes again only reapplies it.
+ *
+ * <p>Clicking a link opens it (with the shortcut key held while editing); clicking a checkbox
+ * while editing ticks or clears it.
+ */
+class DescriptionPane {
+
+    private static final int CHUNK_LINES = 500;
+    private static final Duration EDIT_DELAY = Duration.ofMillis(80);
+
+    private static final String LINK_STYLE = "-fx-fill: #2A6FBF; -fx-underline: true;";
+    private static final String BULLET_STYLE = "-fx-fill: #50C878; -fx-font-weight: bold;";
+    private static final String CHECKBOX_STYLE = "-fx-font-family: monospace; -fx-font-weight: bold;";
+    private static final String DONE_STYLE = "-fx-fill: #8A8F98; -fx-strikethrough: true;";
+
+    // One thread for every pane; highlighting is short and ordered per pane
+    private static final ExecutorService HIGHLIGHTER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "description-highlighter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final InlineCssTextArea area = new InlineCssTextArea();
+    private final VirtualizedScrollPane<InlineCssTextArea> node = new VirtualizedScrollPane<>(area);
+    private final boolean editable;
+    private final Consumer<String> openLink;
+    private final BoundedCache<Long, Rendering> renderings;
+
+    private int generation; // Bumped by setText, so highlighting of an earlier text is dropped
+    private boolean settingText;
+    private int dirtyFrom = -1; // Lines changed by edits and not yet submitted, inclusive
+    private int dirtyTo = -1;
+
+    /** The highlighting of a whole text: the lines with markup, by index, and their styles. */
+    record Rendering(String text, List<Integer> indexes, List<String> lines, List<StyleSpans<String>> styles) {
+    }
+
+    /** A pane whose highlighting is kept in {@code renderings} when shown by event, or not at all if it is null. */
+    DescriptionPane(boolean editable, Consumer<String> openLink, BoundedCache<Long, Rendering> renderings) {
+        this.editable = editable;
+        this.openLink = openLink;
+        this.renderings = renderings;
+        area.setEditable(editable);
+        area.setWrapText(true);
+        area.setStyle("-fx-font-size: 13px;");
+        if (editable) {
+            Label placeholder = new Label("Event description (optional)");
+            placeholder.setStyle("-fx-text-fill: #999999;");
+            area.setPlaceholder(placeholder);
+        }
+
+        area.plainTextChanges().subscribe(this::textChanged);
+        area.plainTextChanges().successionEnds(EDIT_DELAY).subscribe(change -> submitDirty());
+        area.setOnMouseClicked(this::clicked);
+        area.setOnMouseMoved(e -> {
+            Hit hit = spanAt(e);
+            area.setCursor(hit != null && hit.span().kind() == NoteMarkup.Kind.LINK ? Cursor.HAND : Cursor.TEXT);
+        });
+    }
+
+    Node getNode() {
+        return node;
+    }
+
+    String getText() {
+        return area.getText();
+    }
+
+    void setPrefSize(double width, double height) {
+        node.setPrefSize(width, height);
+    }
+
+    /** Replaces the text without an undo step and highlights it in the background. */
+    void setText(String text) {
+        setText(text, -1);
+    }
+
+    /** Like {@link #setText(String)}, reusing or keeping the highlighting of event {@code eventId}'s description. */
+    void setText(String text, long eventId) {
+        int current = ++generation;
+        settingText = true;
+        try {
+            area.replaceText(text);
+        } finally {
+            settingText = false;
+        }
+        area.getUndoManager().forgetHistory();
+        area.moveTo(0);
+        area.requestFollowCaret();
+        dirtyFrom = -1;
+
+        Rendering cached = renderings != null && eventId >= 0 ? renderings.getIfPresent(eventId) : null;
+        if (cached != null && cached.text().equals(text)) {
+            for (int from = 0; from < cached.indexes().size(); from += CHUNK_LINES) {
+                int to = Math.min(from + CHUNK_LINES, cached.indexes().size());
+                post(current, cached.indexes().subList(from, to), cached.lines().subList(from, to), cached.styles().subList(from, to));
+            }
+            return;
+        }
+        Long key = renderings != null && eventId >= 0 ? eventId : null;
+        HIGHLIGHTER.execute(() -> highlightAll(current, text, key));
+    }
+
+    // Background: the whole text, chunk by chunk, posting only lines that have markup
+    private void highlightAll(int textGeneration, String text, Long key) {
+        long started = System.nanoTime();
+        List<Integer> allIndexes = new ArrayList<>();
+        List<String> allLines = new ArrayList<>();
+        List<StyleSpans<String>> allStyles = new ArrayList<>();
+        List<String> lines = new ArrayList<>(CHUNK_LINES);
+        List<StyleSpans<String>> styles = new ArrayList<>(CHUNK_LINES);
+        List<Integer> indexes = new ArrayList<>(CHUNK_LINES);
+        int line = 0;
+        int lineStart = 0;
+        while (lineStart <= text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = text.length();
+            }
+            String lineText = text.substring(lineStart, lineEnd);
+            List<NoteMarkup.Span> spans = NoteMarkup.parse(lineText);
+            if (!spans.isEmpty()) {
+                lines.add(lineText);
+                styles.add(styleSpans(spans, lineText.length()));
+                indexes.add(line);
+            }
+            line++;
+            lineStart = lineEnd + 1;
+            if (line % CHUNK_LINES == 0 && !indexes.isEmpty()) {
+                post(textGeneration, indexes, lines, styles);
+                allIndexes.addAll(indexes);
+                allLines.addAll(lines);
+                allStyles.addAll(styles);
+                lines = new ArrayList<>(CHUNK_LINES);
+                styles = new ArrayList<>(CHUNK_LINES);
+                indexes = new ArrayList<>(CHUNK_LINES);
+            }
+        }
+        if (!indexes.isEmpty()) {
+            post(textGeneration, indexes, lines, styles);
+            allIndexes.addAll(indexes);
+            allLines.addAll(lines);
+            allStyles.addAll(styles);
+        }
+        if (key != null) {
+            renderings.put(key, new Rendering(text, allIndexes, allLines, allStyles));
+        }
+        Metrics.registry().histogram("notes.highlight.nanos").record(System.nanoTime() - started);
+    }
+
+    // Background: lines changed by edits; every one is styled, so removed markup is cleared too
+    private void highlightLines(int textGeneration, int first, List<String> lines) {
+        List<StyleSpans<String>> styles = new ArrayList<>(lines.size());
+        List<Integer> indexes = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            styles.add(styleSpans(NoteMarkup.parse(lines.get(i)), lines.get(i).length()));
+            indexes.add(first + i);
+        }
+        post(textGeneration, indexes, lines, styles);
+    }
+
+    private void post(int textGeneration, List<Integer> indexes, List<String> lines, List<StyleSpans<String>> styles) {
+        Platform.runLater(() -> apply(textGeneration, indexes, lines, styles));
+    }
+
+    // FX thread: applies the styles of lines that still read as they did when parsed
+    private void apply(int textGeneration, List<Integer> indexes, List<String> lines, List<StyleSpans<String>> styles) {
+        if (textGeneration != generation) {
+            return;
+        }
+        int paragraphs = area.getParagraphs().size();
+        for (int i = 0; i < indexes.size(); i++) {
+            int index = indexes.get(i);
+            if (index < paragraphs && area.getParagraph(index).getText().equals(lines.get(i))) {
+                area.setStyleSpans(index, 0, styles.get(i));
+            } else {
+                markDirty(Math.min(index, paragraphs - 1), Math.min(index, paragraphs - 1));
+            }
+        }
+        if (dirtyFrom >= 0) {
+            submitDirty();
+        }
+    }
+
+    private void textChanged(PlainTextChange change) {
+        if (settingText) {
+            return;
+        }
+        int first = area.offsetToPosition(change.getPosition(), TwoDimensional.Bias.Forward).getMajor();
+        int last = area.offsetToPosition(change.getInsertionEnd(), TwoDimensional.Bias.Forward).getMajor();
+        int shift = lineBreaks(change.getInserted()) - lineBreaks(change.getRemoved());
+        if (dirtyFrom >= 0 && dirtyTo > first) {
+            dirtyTo += shift; // Lines below the edit moved
+        }
+        markDirty(first, last);
+    }
+
+    private void markDirty(int first, int last) {
+        if (dirtyFrom < 0) {
+            dirtyFrom = first;
+            dirtyTo = last;
+        } else {
+            dirtyFrom = Math.min(dirtyFrom, first);
+            dirtyTo = Math.max(dirtyTo, last);
+        }
+    }
+
+    // FX thread: copies the dirty lines and hands them to the highlighter
+    private void submitDirty() {
+        if (dirtyFrom < 0) {
+            return;
+        }
+        int paragraphs = area.getParagraphs().size();
+        int first = Math.max(0, Math.min(dirtyFrom, paragraphs - 1));
+        int last = Math.max(first, Math.min(dirtyTo, paragraphs - 1));
+        dirtyFrom = -1;
+        List<String> lines = new ArrayList<>(last - first + 1);
+        for (int i = first; i <= last; i++) {
+            lines.add(area.getParagraph(i).getText());
+        }
+        int current = generation;
+        HIGHLIGHTER.execute(() -> highlightLines(current, first, lines));
+    }
+
+    private void clicked(MouseEvent e) {
+        if (e.getButton() != MouseButton.PRIMARY || e.getClickCount() != 1 || area.getSelection().getLength() > 0) {
+            return;
+        }
+        Hit hit = spanAt(e);
+        if (hit == null) {
+            return;
+        }
+        NoteMarkup.Span span = hit.span();
+        String line = area.getParagraph(hit.paragraph()).getText();
+        switch (span.kind()) {
+            case LINK -> {
+                if (!editable || e.isShortcutDown()) {
+                    openLink.accept(NoteMarkup.target(line.substring(span.start(), span.end())));
+                }
+            }
+            case CHECKBOX, CHECKED -> {
+                if (editable) {
+                    int start = area.getAbsolutePosition(hit.paragraph(), span.start());
+                    area.replaceText(start, start + 3, span.kind() == NoteMarkup.Kind.CHECKED ? "[ ]" : "[x]");
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private record Hit(int paragraph, NoteMarkup.Span span) {
+    }
+
+    /** The markup under the mouse, parsing just that line, or {@code null}. */
+    private Hit spanAt(MouseEvent e) {
+        OptionalInt index = area.hit(e.getX(), e.getY()).getCharacterIndex();
+        if (index.isEmpty()) {
+            return null;
+        }
+        TwoDimensional.Position position = area.offsetToPosition(index.getAsInt(), TwoDimensional.Bias.Forward);
+        String line = area.getParagraph(position.getMajor()).getText();
+        NoteMarkup.Span span = NoteMarkup.at(NoteMarkup.parse(line), position.getMinor());
+        return span == null ? null : new Hit(position.getMajor(), span);
+    }
+
+    private static StyleSpans<String> styleSpans(List<NoteMarkup.Span> spans, int length) {
+        StyleSpansBuilder<String> builder = new StyleSpansBuilder<>(spans.size() * 2 + 1);
+        int at = 0;
+        for (NoteMarkup.Span span : spans) {
+            if (span.start() > at) {
+                builder.add("", span.start() - at);
+            }
+            builder.add(style(span.kind()), span.end() - span.start());
+            at = span.end();
+        }
+        builder.add("", length - at); // Also makes the builder non-empty for a blank line
+        return builder.create();
+    }
+
+    private static String style(NoteMarkup.Kind kind) {
+        return switch (kind) {
+            case LINK -> LINK_STYLE;
+            case BULLET -> BULLET_STYLE;
+            case CHECKBOX, CHECKED -> CHECKBOX_STYLE;
+            case DONE -> DONE_STYLE;
+        };
+    }
+
+    private static int lineBreaks(String text) {
+        int count = 0;
+        for (int i = text.indexOf('\n'); i >= 0; i = text.indexOf('\n', i + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
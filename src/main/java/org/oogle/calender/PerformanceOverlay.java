@@ -0,0 +1,163 @@
+package org.oogle.calender;
+
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import org.oogle.calender.metrics.Histogram;
+import org.oogle.calender.metrics.Metrics;
+import org.oogle.calender.model.EventModel;
+import org.oogle.calender.reminder.ReminderScheduler;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.function.Supplier;
+
+/**
+ * Live diagnostics drawn over the main window. While visible it times each pulse's CSS and
+ * layout pass with scene pulse listeners and refreshes its numbers once a second; while hidden
+ * it has no listeners and no timer, so it costs nothing.
+ */
+class PerformanceOverlay {
+
+    // A pulse whose CSS and layout pass alone exceeds one 60 Hz frame misses its frame
+    private static final long FRAME_BUDGET_NANOS = 1_000_000_000L / 60;
+    private static final DateTimeFormatter DUE_FORMAT = DateTimeFormatter.ofPattern("MMM dd HH:mm");
+
+    private final Scene scene;
+    private final Parent calendarGrid;
+    private final EventModel eventModel;
+    private final Supplier<ReminderScheduler> reminderScheduler;
+
+    private final VBox panel = new VBox(2);
+    private final Label text = new Label();
+    private Timer sampler;
+
+    // Pulse statistics, only touched on the FX thread
+    private long pulseStart;
+    private long pulses;
+    private long droppedFrames;
+    private long worstPulseNanos;
+    private long lastPulseNanos;
+
+    private final Runnable prePulse = () -> pulseStart = System.nanoTime();
+    private final Runnable postPulse = () -> {
+        long nanos = System.nanoTime() - pulseStart;
+        pulses++;
+        lastPulseNanos = nanos;
+        worstPulseNanos = Math.max(worstPulseNanos, nanos);
+        if (nanos > FRAME_BUDGET_NANOS) {
+            droppedFrames++;
+        }
+    };
+
+    PerformanceOverlay(Scene scene, StackPane host, Parent calendarGrid, EventModel eventModel,
+                       Supplier<ReminderScheduler> reminderScheduler) {
+        this.scene = scene;
+        this.calendarGrid = calendarGrid;
+        this.eventModel = eventModel;
+        this.reminderScheduler = reminderScheduler;
+
+        text.setFont(Font.font("Monospaced", 12));
+        text.setTextFill(Color.WHITE);
+        panel.getChildren().add(text);
+        panel.setPadding(new Insets(10));
+        panel.setMaxSize(VBox.USE_PREF_SIZE, VBox.USE_PREF_SIZE);
+        panel.setStyle("-fx-background-color: rgba(44, 62, 80, 0.85); -fx-background-radius: 8;");
+        panel.setMouseTransparent(true);
+        panel.setVisible(false);
+
+        StackPane.setAlignment(panel, Pos.BOTTOM_LEFT);
+        StackPane.setMargin(panel, new Insets(12));
+        host.getChildren().add(panel);
+    }
+
+    boolean isShowing() {
+        return panel.isVisible();
+    }
+
+    void setShowing(boolean showing) {
+        if (showing == isShowing()) {
+            return;
+        }
+        panel.setVisible(showing);
+        if (showing) {
+            pulses = 0;
+            droppedFrames = 0;
+            worstPulseNanos = 0;
+            scene.addPreLayoutPulseListener(prePulse);
+            scene.addPostLayoutPulseListener(postPulse);
+
+            sampler = new Timer("performance-overlay", true);
+            sampler.scheduleAtFixedRate(new TimerTask() {
+                @Override
+                public void run() {
+                    Platform.runLater(PerformanceOverlay.this::refresh);
+                }
+            }, 0, 1000);
+        } else {
+            sampler.cancel();
+            sampler = null;
+            scene.removePreLayoutPulseListener(prePulse);
+            scene.removePostLayoutPulseListener(postPulse);
+        }
+    }
+
+    private void refresh() {
+        if (!isShowing()) {
+            return;
+        }
+        Histogram render = Metrics.registry().histogram("render.calendar.nanos");
+        Histogram saveNanos = Metrics.registry().histogram("save.nanos");
+        Histogram saveBytes = Metrics.registry().histogram("save.bytes");
+
+        ReminderScheduler scheduler = reminderScheduler.get();
+        LocalDateTime nextDue = scheduler != null ? scheduler.nextDue() : null;
+
+        Runtime runtime = Runtime.getRuntime();
+        long heapUsed = runtime.totalMemory() - runtime.freeMemory();
+
+        text.setText(String.join("\n",
+                String.format("Pulse (CSS+layout)  last %.2f ms, worst %.2f ms", millis(lastPulseNanos), millis(worstPulseNanos)),
+                String.format("Pulses              %d, over budget %d", pulses, droppedFrames),
+                String.format("Month grid rebuild  %.2f ms", millis(render.getLast())),
+                String.format("Grid nodes          %d", countNodes(calendarGrid)),
+                String.format("Event model heap    ~%s (%d events)", formatBytes(eventModel.estimatedHeapBytes()), eventModel.size()),
+                String.format("Event model direct  %s", formatBytes(eventModel.offHeapBytes())),
+                String.format("JVM heap used       %s", formatBytes(heapUsed)),
+                String.format("Pending reminders   %d", scheduler != null ? scheduler.pendingCount() : 0),
+                String.format("Next reminder due   %s", nextDue != null ?
+                        nextDue.format(DUE_FORMAT) : "none"),
+                String.format("Last save           %.2f ms, %s", millis(saveNanos.getLast()), formatBytes(saveBytes.getLast()))
+        ));
+    }
+
+    private static int countNodes(Node node) {
+        int count = 1;
+        if (node instanceof Parent parent) {
+            for (Node child : parent.getChildrenUnmodifiable()) {
+                count += countNodes(child);
+            }
+        }
+        return count;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes >= 1024 * 1024) return String.format("%.1f MB", bytes / (1024.0 * 1024));
+        if (bytes >= 1024) return String.format("%.1f KB", bytes / 1024.0);
+        return bytes + " B";
+    }
+}
@@ -0,0 +1,205 @@
+package org.oogle.calender;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.chart.BarChart;
+import javafx.scene.chart.CategoryAxis;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.Spinner;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TabPane;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Font;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+import javafx.util.Duration;
+import org.oogle.calender.metrics.Metrics;
+import org.oogle.calender.metrics.RenderEvent;
+import org.oogle.calender.stats.EventStatistics;
+import org.oogle.calender.stats.StatisticsSummary;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.TextStyle;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * The Statistics window. It only reads the aggregates kept by each calendar's
+ * {@link EventStatistics}, so opening it or changing the years costs a pass over the days of the
+ * range rather than over the events. While open it redraws shortly after the model changes.
+ */
+class StatisticsDashboard {
+
+    private static final Duration REFRESH_DELAY = Duration.millis(300);
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MMM d, yyyy");
+
+    private final Window owner;
+    private final Supplier<List<EventStatistics>> statistics;
+    private final PauseTransition pendingRefresh = new PauseTransition(REFRESH_DELAY);
+
+    private Stage stage;
+    private Spinner<Integer> fromYear;
+    private Spinner<Integer> toYear;
+    private final Label summaryText = new Label();
+    private final BarChart<String, Number> monthChart = barChart();
+    private final LineChart<String, Number> weekChart = new LineChart<>(new CategoryAxis(), new NumberAxis());
+    private final BarChart<String, Number> weekdayChart = barChart();
+    private final BarChart<String, Number> hourChart = barChart();
+
+    StatisticsDashboard(Window owner, Supplier<List<EventStatistics>> statistics) {
+        this.owner = owner;
+        this.statistics = statistics;
+        pendingRefresh.setOnFinished(e -> refresh());
+        weekChart.setAnimated(false);
+        weekChart.setCreateSymbols(false);
+        weekChart.setLegendVisible(false);
+    }
+
+    void show() {
+        if (stage == null) {
+            stage = createStage();
+        }
+        refresh();
+        stage.show();
+        stage.toFront();
+    }
+
+    /** Redraws after a short pause if the window is open; called for every model change. */
+    void modelChanged() {
+        if (stage != null && stage.isShowing()) {
+            pendingRefresh.playFromStart();
+        }
+    }
+
+    private Stage createStage() {
+        int year = Year.now().getValue();
+        fromYear = new Spinner<>(1900, 9999, year - 1);
+        toYear = new Spinner<>(1900, 9999, year);
+        for (Spinner<Integer> spinner : List.of(fromYear, toYear)) {
+            spinner.setEditable(true);
+            spinner.setPrefWidth(90);
+            spinner.valueProperty().addListener((obs, oldValue, newValue) -> refresh());
+        }
+
+        Button allYears = new Button("All Years");
+        allYears.setOnAction(e -> {
+            StatisticsSummary all = EventStatistics.summarize(statistics.get(), null, null);
+            fromYear.getValueFactory().setValue(all.from().getYear());
+            toYear.getValueFactory().setValue(all.to().getYear());
+        });
+
+        HBox range = new HBox(8, new Label("From"), fromYear, new Label("to"), toYear, allYears);
+        range.setAlignment(Pos.CENTER_LEFT);
+
+        summaryText.setFont(Font.font("Monospaced", 12));
+
+        TabPane charts = new TabPane(
+                new Tab("Months", monthChart),
+                new Tab("Weeks", weekChart),
+                new Tab("Weekdays", weekdayChart),
+                new Tab("Hours", hourChart));
+        charts.setTabClosingPolicy(TabPane.TabClosingPolicy.UNAVAILABLE);
+
+        VBox top = new VBox(12, range, summaryText);
+        BorderPane root = new BorderPane(charts);
+        root.setTop(top);
+        root.setPadding(new Insets(15));
+        BorderPane.setMargin(top, new Insets(0, 0, 10, 0));
+
+        Stage window = new Stage();
+        window.initOwner(owner);
+        window.setTitle("Statistics");
+        window.setScene(new Scene(root, 760, 560));
+        window.setOnHidden(e -> pendingRefresh.stop());
+        return window;
+    }
+
+    private void refresh() {
+        if (stage == null) {
+            return;
+        }
+        int first = Math.min(fromYear.getValue(), toYear.getValue());
+        int last = Math.max(fromYear.getValue(), toYear.getValue());
+        List<EventStatistics> sources = statistics.get();
+
+        Metrics.Probe probe = Metrics.begin("render.statistics", new RenderEvent("statistics"));
+        StatisticsSummary summary = EventStatistics.summarize(sources, YearMonth.of(first, 1), YearMonth.of(last, 12));
+
+        boolean ready = sources.stream().allMatch(EventStatistics::isReady);
+        summaryText.setText(describe(summary) + (ready ? "" : "\n(updating...)"));
+        if (!ready) {
+            CompletableFuture.allOf(sources.stream().map(EventStatistics::whenReady).toArray(CompletableFuture[]::new))
+                    .thenRun(() -> Platform.runLater(this::refresh));
+        }
+
+        XYChart.Series<String, Number> months = new XYChart.Series<>();
+        for (Map.Entry<YearMonth, Integer> month : summary.perMonth().entrySet()) {
+            months.getData().add(new XYChart.Data<>(month.getKey().toString(), month.getValue()));
+        }
+        monthChart.getData().setAll(List.of(months));
+
+        XYChart.Series<String, Number> weeks = new XYChart.Series<>();
+        for (Map.Entry<LocalDate, Integer> week : summary.perWeek().entrySet()) {
+            weeks.getData().add(new XYChart.Data<>(week.getKey().toString(), week.getValue()));
+        }
+        weekChart.getData().setAll(List.of(weeks));
+
+        XYChart.Series<String, Number> weekdays = new XYChart.Series<>();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            weekdays.getData().add(new XYChart.Data<>(day.getDisplayName(TextStyle.SHORT, Locale.getDefault()),
+                    summary.perWeekday()[day.ordinal()]));
+        }
+        weekdayChart.getData().setAll(List.of(weekdays));
+
+        XYChart.Series<String, Number> hours = new XYChart.Series<>();
+        for (int hour = 0; hour < 24; hour++) {
+            hours.getData().add(new XYChart.Data<>(String.format("%02d", hour), summary.perHour()[hour]));
+        }
+        hourChart.getData().setAll(List.of(hours));
+
+        probe.end(summary.days(), 0);
+    }
+
+    private static String describe(StatisticsSummary summary) {
+        LocalDate busiestWeek = summary.busiestWeek();
+        String freeStreak = summary.longestFreeDays() == 0 ? "none" : String.format("%d days from %s",
+                summary.longestFreeDays(), summary.longestFreeStart().format(DATE_FORMAT));
+        return String.join("\n",
+                String.format("Events              %d (%.1f per week, %.1f per month)",
+                        summary.events(), summary.averagePerWeek(), summary.averagePerMonth()),
+                String.format("Busiest week        %s", busiestWeek != null ?
+                        "of " + busiestWeek.format(DATE_FORMAT) + " (" + summary.perWeek().get(busiestWeek) + " events)" : "none"),
+                String.format("Busiest weekday     %s", summary.events() == 0 ? "none" :
+                        summary.busiestWeekday().getDisplayName(TextStyle.FULL, Locale.getDefault())),
+                String.format("Busiest hour        %s", summary.events() == 0 ? "none" :
+                        String.format("%02d:00-%02d:59", summary.busiestHour(), summary.busiestHour())),
+                String.format("With reminders      %d (%.0f%%), %d reminders in all",
+                        summary.withReminders(), summary.reminderShare() * 100, summary.reminders()),
+                String.format("Longest free streak %s", freeStreak));
+    }
+
+    private static BarChart<String, Number> barChart() {
+        BarChart<String, Number> chart = new BarChart<>(new CategoryAxis(), new NumberAxis());
+        chart.setAnimated(false);
+        chart.setLegendVisible(false);
+        chart.setCategoryGap(2);
+        chart.setBarGap(0);
+        return chart;
+    }
+}
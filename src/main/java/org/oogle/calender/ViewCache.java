@@ -0,0 +1,99 @@
+package org.oogle.calender;
+
+import org.oogle.calender.cache.BoundedCache;
+import org.oogle.calender.calendars.NamedCalendar;
+import org.oogle.calender.model.ChangeSet;
+import org.oogle.calender.model.Event;
+import org.oogle.calender.model.EventChange;
+import org.oogle.calender.model.EventModel;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * What the views derive from the model and would otherwise rebuild on every render: the sidebar
+ * text of events, the per-day event counts of each calendar's months, and the highlighting of
+ * descriptions shown in full. Entries are dropped precisely, by event id and by month, as
+ * change sets arrive; a reset drops everything. Invalidation and rendering both run on the FX
+ * thread, so an entry is never cached from a model state older than the last invalidation.
+ */
+final class ViewCache {
+
+    private static final long EVENT_TEXT_CHARS = 2_000_000;
+    private static final int MONTHS = 512;
+    private static final long RENDERED_CHARS = 4_000_000;
+
+    private record TextKey(long eventId, boolean preview) {
+    }
+
+    private record MonthKey(NamedCalendar calendar, YearMonth month) {
+    }
+
+    // Scrolling through months is a scan, so texts and renderings admit by frequency
+    private final BoundedCache<TextKey, String> eventTexts =
+            BoundedCache.create("view.eventText", BoundedCache.Policy.TINY_LFU, EVENT_TEXT_CHARS, (key, text) -> text.length());
+    private final BoundedCache<MonthKey, int[]> monthCounts =
+            BoundedCache.create("view.monthCounts", BoundedCache.Policy.LRU, MONTHS);
+    private final BoundedCache<Long, DescriptionPane.Rendering> renderings =
+            BoundedCache.create("view.description", BoundedCache.Policy.TINY_LFU, RENDERED_CHARS,
+                    (id, rendering) -> rendering.text().length());
+
+    /** The event as the day view lists it, with a description preview, or without reading it. */
+    String eventText(Event event, boolean preview) {
+        return eventTexts.get(new TextKey(event.getId(), preview), key -> preview ? event.toString() : event.summary(0));
+    }
+
+    /** Events per day of {@code month} in {@code calendar}, index 0 being the 1st; read under the model lock. */
+    int[] monthCounts(NamedCalendar calendar, YearMonth month) {
+        return monthCounts.get(new MonthKey(calendar, month), key -> {
+            EventModel model = calendar.getModel();
+            return model.read(() -> {
+                int[] counts = new int[month.lengthOfMonth()];
+                for (int day = 1; day <= counts.length; day++) {
+                    counts[day - 1] = model.countOn(month.atDay(day));
+                }
+                return counts;
+            });
+        });
+    }
+
+    BoundedCache<Long, DescriptionPane.Rendering> renderings() {
+        return renderings;
+    }
+
+    /** Drops what the change sets make stale; call before the views refresh. */
+    void invalidate(List<ChangeSet> changeSets) {
+        Set<YearMonth> months = new HashSet<>();
+        for (ChangeSet changes : changeSets) {
+            if (changes.isReset()) {
+                invalidateAll();
+                return;
+            }
+            for (EventChange change : changes.getChanges()) {
+                eventTexts.invalidate(new TextKey(change.getEventId(), true));
+                eventTexts.invalidate(new TextKey(change.getEventId(), false));
+                renderings.invalidate(change.getEventId());
+            }
+            for (LocalDate date : changes.getAffectedDates()) {
+                months.add(YearMonth.from(date));
+            }
+        }
+        if (!months.isEmpty()) {
+            monthCounts.invalidateIf(key -> months.contains(key.month()));
+        }
+    }
+
+    /** Drops the months of {@code calendar}, such as when it is removed. */
+    void invalidate(NamedCalendar calendar) {
+        monthCounts.invalidateIf(key -> key.calendar() == calendar);
+    }
+
+    void invalidateAll() {
+        eventTexts.invalidateAll();
+        monthCounts.invalidateAll();
+        renderings.invalidateAll();
+    }
+}
@@ -0,0 +1,378 @@
+package org.oogle.calender.api;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.oogle.calender.metrics.Metrics;
+import org.oogle.calender.model.Event;
+import org.oogle.calender.model.EventModel;
+import org.oogle.calender.query.EventQuery;
+import org.oogle.calender.query.QueryEngine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Local JSON API over the {@link EventModel}, bound to the loopback interface only.
+ *
+ * <pre>
+ * GET    /events?from=DATE&amp;to=DATE   events in the inclusive range, optionally filtered with
+ *        &amp;q=WORDS&amp;reminders=true|false&amp;timeFrom=HH:MM&amp;timeTo=HH:MM&amp;limit=N
+ * GET    /events/{id}                 one event
+ * POST   /events                      create, returns the stored event with its id
+ * PUT    /events/{id}                 replace
+ * DELETE /events/{id}                 remove
+ * POST   /events/bulk                 newline-delimited events, applied as one batch
+ * </pre>
+ *
+ * With {@code limit=N} a list holds the first N matching events by start time, events starting
+ * together in the order they were added. Without a limit it holds every match in no set order.
+ *
+ * Binding to loopback keeps other machines out, but not web pages open in the user's browser. So
+ * requests must name this server in {@code Host} ({@code localhost}, {@code 127.0.0.1} or
+ * {@code [::1]} with the port), which defeats DNS rebinding. They must not carry an {@code Origin},
+ * which browsers add to cross-site requests. POST and PUT must be {@code application/json} or
+ * {@code application/x-ndjson}, which a page cannot send without a CORS preflight that this server
+ * never answers. Anything else gets 403 or 415.
+ *
+ * <p>Requests mutate the model directly from the handler threads; the model's change sets keep the
+ * UI and reminders in sync. Saves are coalesced so a stream of requests causes at most one write
+ * per {@link #SAVE_DELAY_MILLIS}. Ids are only stable for the lifetime of the running app.
+ */
+public class ApiServer {
+
+    public static final int DEFAULT_PORT = 8787;
+    static final long SAVE_DELAY_MILLIS = 500;
+
+    private final EventModel model;
+    private final QueryEngine queryEngine;
+    private final Runnable persist;
+    private final Gson gson = new Gson();
+    private final AtomicBoolean saveScheduled = new AtomicBoolean();
+
+    private HttpServer server;
+    private ExecutorService requestExecutor;
+    private ScheduledExecutorService saveExecutor;
+
+    /**
+     * @param persist writes the model to disk; called from a background thread after mutations
+     */
+    public ApiServer(EventModel model, Runnable persist) {
+        this(model, new QueryEngine(model), persist);
+    }
+
+    /**
+     * @param queryEngine runs the list queries, with whatever indexes the caller maintains
+     * @param persist     writes the model to disk; called from a background thread after mutations
+     */
+    public ApiServer(EventModel model, QueryEngine queryEngine, Runnable persist) {
+        this.model = model;
+        this.queryEngine = queryEngine;
+        this.persist = persist;
+    }
+
+    public synchronized void start(int port) throws IOException {
+        if (server != null) {
+            return;
+        }
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        requestExecutor = newRequestExecutor();
+        saveExecutor = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "api-save"));
+        server.setExecutor(requestExecutor);
+        server.createContext("/events", this::handle);
+        server.start();
+    }
+
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        server.stop(1);
+        requestExecutor.shutdown();
+        saveExecutor.shutdown(); // A save that is already scheduled still runs
+        server = null;
+    }
+
+    public synchronized boolean isRunning() {
+        return server != null;
+    }
+
+    public synchronized int getPort() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        Metrics.registry().counter("api.requests").increment();
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            if (refused(exchange, method)) {
+                return;
+            }
+            if (path.equals("/events") || path.equals("/events/")) {
+                switch (method) {
+                    case "GET" -> listRange(exchange);
+                    case "POST" -> create(exchange);
+                    default -> sendError(exchange, 405, "method not allowed");
+                }
+            } else if (path.equals("/events/bulk")) {
+                if (method.equals("POST")) {
+                    bulkInsert(exchange);
+                } else {
+                    sendError(exchange, 405, "method not allowed");
+                }
+            } else if (path.startsWith("/events/")) {
+                long id = Long.parseLong(path.substring("/events/".length()));
+                switch (method) {
+                    case "GET" -> get(exchange, id);
+                    case "PUT" -> replace(exchange, id);
+                    case "DELETE" -> delete(exchange, id);
+                    default -> sendError(exchange, 405, "method not allowed");
+                }
+            } else {
+                sendError(exchange, 404, "not found");
+            }
+        } catch (NumberFormatException e) {
+            sendError(exchange, 400, "invalid event id");
+        } catch (IllegalArgumentException | JsonParseException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (Exception e) {
+            System.err.println("API request failed: " + e.getMessage());
+            e.printStackTrace();
+            sendError(exchange, 500, "internal error");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // Answers a request that may come from a web page with 403 or 415; returns whether it did
+    private boolean refused(HttpExchange exchange, String method) throws IOException {
+        Headers headers = exchange.getRequestHeaders();
+        if (headers.containsKey("Origin")) {
+            sendError(exchange, 403, "cross-origin requests are not allowed");
+            return true;
+        }
+        String host = headers.getFirst("Host");
+        int port = exchange.getLocalAddress().getPort();
+        if (host == null || !List.of("localhost:" + port, "127.0.0.1:" + port, "[::1]:" + port)
+                .contains(host.trim().toLowerCase(Locale.ROOT))) {
+            sendError(exchange, 403, "unexpected host: " + host);
+            return true;
+        }
+        if (method.equals("POST") || method.equals("PUT")) {
+            String type = headers.getFirst("Content-Type");
+            String mediaType = type == null ? "" : type.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+            if (!mediaType.equals("application/json") && !mediaType.equals("application/x-ndjson")) {
+                sendError(exchange, 415, "content type must be application/json or application/x-ndjson");
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void listRange(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI());
+        if (!query.containsKey("from") || !query.containsKey("to")) {
+            throw new IllegalArgumentException("from and to are required");
+        }
+        EventQuery eventQuery;
+        try {
+            eventQuery = EventQuery.all().between(LocalDate.parse(query.get("from")), LocalDate.parse(query.get("to")));
+            if (query.containsKey("timeFrom") || query.containsKey("timeTo")) {
+                eventQuery = eventQuery.timeOfDay(LocalTime.parse(query.getOrDefault("timeFrom", "00:00")),
+                        LocalTime.parse(query.getOrDefault("timeTo", "23:59")));
+            }
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("invalid date or time: " + e.getParsedString());
+        }
+        eventQuery = eventQuery.matching(query.get("q"));
+        String reminders = query.get("reminders");
+        if (reminders != null) {
+            switch (reminders) {
+                case "true" -> eventQuery = eventQuery.withReminders();
+                case "false" -> eventQuery = eventQuery.withoutReminders();
+                default -> throw new IllegalArgumentException("reminders must be true or false");
+            }
+        }
+        if (query.containsKey("limit")) {
+            try {
+                eventQuery = eventQuery.limit(Long.parseLong(query.get("limit")));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("invalid limit: " + query.get("limit"));
+            }
+        }
+
+        // Streamed, so large ranges are not built up as one string first
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, 0);
+        try (Stream<Event> events = queryEngine.stream(eventQuery);
+             JsonWriter writer = new JsonWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+            writer.beginArray();
+            for (Iterator<Event> it = events.iterator(); it.hasNext(); ) {
+                gson.toJson(EventJson.from(it.next()), EventJson.class, writer);
+            }
+            writer.endArray();
+        }
+    }
+
+    private void get(HttpExchange exchange, long id) throws IOException {
+        Event event = model.findById(id);
+        if (event == null) {
+            sendError(exchange, 404, "no event " + id);
+            return;
+        }
+        sendJson(exchange, 200, EventJson.from(event));
+    }
+
+    private void create(HttpExchange exchange) throws IOException {
+        Event event = readBody(exchange).toEvent();
+        model.add(event);
+        requestSave();
+        sendJson(exchange, 201, EventJson.from(event));
+    }
+
+    private void replace(HttpExchange exchange, long id) throws IOException {
+        Event updated = readBody(exchange).toEvent(id);
+        Event existing = model.findById(id);
+        if (existing == null || !model.update(existing, updated)) {
+            sendError(exchange, 404, "no event " + id);
+            return;
+        }
+        requestSave();
+        sendJson(exchange, 200, EventJson.from(updated));
+    }
+
+    private void delete(HttpExchange exchange, long id) throws IOException {
+        Event existing = model.findById(id);
+        if (existing == null || !model.remove(existing)) {
+            sendError(exchange, 404, "no event " + id);
+            return;
+        }
+        requestSave();
+        exchange.sendResponseHeaders(204, -1);
+    }
+
+    /**
+     * Parses the whole body before touching the model, so a bad line rejects the request without
+     * applying any of it. The accepted events reach listeners as one change set.
+     */
+    private void bulkInsert(HttpExchange exchange) throws IOException {
+        List<Event> events = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    EventJson json = gson.fromJson(line, EventJson.class);
+                    if (json == null) {
+                        throw new IllegalArgumentException("empty event");
+                    }
+                    events.add(json.toEvent());
+                } catch (IllegalArgumentException | JsonParseException e) {
+                    throw new IllegalArgumentException("line " + lineNumber + ": " + e.getMessage());
+                }
+            }
+        }
+
+        model.addAll(events);
+        Metrics.registry().histogram("api.bulk.records").record(events.size());
+        if (!events.isEmpty()) {
+            requestSave();
+        }
+        sendJson(exchange, 200, Map.of("added", events.size()));
+    }
+
+    private void requestSave() {
+        if (saveScheduled.compareAndSet(false, true)) {
+            saveExecutor.schedule(() -> {
+                saveScheduled.set(false);
+                persist.run();
+            }, SAVE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private EventJson readBody(HttpExchange exchange) throws IOException {
+        try (Reader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+            EventJson json = gson.fromJson(reader, EventJson.class);
+            if (json == null) {
+                throw new IllegalArgumentException("request body is empty");
+            }
+            return json;
+        }
+    }
+
+    private void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = gson.toJson(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        sendJson(exchange, status, Map.of("error", message == null ? "bad request" : message));
+    }
+
+    private static Map<String, String> parseQuery(URI uri) {
+        Map<String, String> query = new HashMap<>();
+        String raw = uri.getQuery();
+        if (raw == null) {
+            return query;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                query.put(pair.substring(0, eq), pair.substring(eq + 1));
+            }
+        }
+        return query;
+    }
+
+    /**
+     * One virtual thread per request where the runtime has them as a final feature (JDK 21+).
+     * On JDK 20 they are a preview API that fails without --enable-preview, so fall back to a
+     * cached pool of daemon threads.
+     */
+    private static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return Executors.newCachedThreadPool(r -> daemon(r, "api-request"));
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,72 @@
+package org.oogle.calender.api;
+
+import org.oogle.calender.model.Event;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Wire form of an {@link Event}: {@code {"id":1,"title":"...","date":"2024-05-01","time":"09:30",
+ * "description":"...","reminders":[10,0]}}. The id is ignored on input; new events get a fresh one
+ * and updates keep the id from the request path.
+ */
+final class EventJson {
+
+    Long id;
+    String title;
+    String date;
+    String time;
+    String description;
+    List<Integer> reminders;
+
+    static EventJson from(Event event) {
+        EventJson json = new EventJson();
+        json.id = event.getId();
+        json.title = event.getTitle();
+        json.date = event.getDate().toString();
+        json.time = event.getDateTime().toLocalTime().toString();
+        json.description = event.getDescription();
+        json.reminders = event.getReminderMinutes();
+        return json;
+    }
+
+    /** A new event with a fresh id. */
+    Event toEvent() {
+        validate();
+        return new Event(title, LocalDate.parse(date).atTime(LocalTime.parse(time)), description(), reminders());
+    }
+
+    /** The replacement for an existing event, keeping its id. */
+    Event toEvent(long id) {
+        validate();
+        return new Event(id, title, LocalDate.parse(date).atTime(LocalTime.parse(time)), description(), reminders());
+    }
+
+    private void validate() {
+        if (title == null || title.isBlank()) {
+            throw new IllegalArgumentException("title is required");
+        }
+        if (date == null || time == null) {
+            throw new IllegalArgumentException("date and time are required");
+        }
+        try {
+            LocalDate.parse(date);
+            LocalTime.parse(time);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("invalid date or time: " + e.getParsedString());
+        }
+        if (reminders != null && reminders.stream().anyMatch(m -> m == null || m < 0)) {
+            throw new IllegalArgumentException("reminders must be non-negative minute offsets");
+        }
+    }
+
+    private String description() {
+        return description == null ? "" : description;
+    }
+
+    private List<Integer> reminders() {
+        return reminders == null ? List.of() : reminders;
+    }
+}
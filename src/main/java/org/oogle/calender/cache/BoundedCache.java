@@ -0,0 +1,248 @@
+package org.oogle.calender.cache;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongBiFunction;
+import java.util.stream.Collectors;
+
+/**
+ * A named cache bounded by the total weight of its entries, such as characters of text, that
+ * evicts by one of two policies:
+ * <ul>
+ *   <li>{@link Policy#LRU}: the least recently used entry goes first.</li>
+ *   <li>{@link Policy#TINY_LFU}: window TinyLFU. New entries enter a small LRU window (1% of the
+ *   weight); an entry leaving it is admitted to the main LRU area only if a
+ *   {@link FrequencySketch} says it has been asked for more often than the entry it would
+ *   replace. A burst of one-off lookups, such as scrolling through years of events, then cannot
+ *   flush out the entries that are used again and again.</li>
+ * </ul>
+ *
+ * <p>Entries are only removed by eviction or by the owner invalidating them when what they were
+ * derived from changes; there is no expiry. All methods are thread-safe; loaders run outside
+ * the lock, so two threads missing the same key may both load it.
+ */
+public final class BoundedCache<K, V> {
+
+    public enum Policy {
+        LRU,
+        TINY_LFU
+    }
+
+    private static final List<BoundedCache<?, ?>> CACHES = new CopyOnWriteArrayList<>();
+
+    private final String name;
+    private final Policy policy;
+    private final long maximumWeight;
+    private final long windowMaximum;
+    private final ToLongBiFunction<? super K, ? super V> weigher;
+
+    // Both in access order, least recently used first
+    private final LinkedHashMap<K, Node<V>> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Node<V>> main = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch = new FrequencySketch();
+    private final ArrayDeque<K> candidates = new ArrayDeque<>();
+    private long windowWeight;
+    private long weight;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long rejections;
+    private long invalidations;
+
+    private BoundedCache(String name, Policy policy, long maximumWeight, ToLongBiFunction<? super K, ? super V> weigher) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("Maximum weight must be positive: " + maximumWeight);
+        }
+        this.name = name;
+        this.policy = policy;
+        this.maximumWeight = maximumWeight;
+        this.windowMaximum = policy == Policy.TINY_LFU ? Math.max(1, maximumWeight / 100) : 0;
+        this.weigher = weigher;
+    }
+
+    /** A cache of at most {@code maximumWeight} as measured by {@code weigher}, listed in {@link #summary()}. */
+    public static <K, V> BoundedCache<K, V> create(String name, Policy policy, long maximumWeight,
+                                                   ToLongBiFunction<? super K, ? super V> weigher) {
+        BoundedCache<K, V> cache = new BoundedCache<>(name, policy, maximumWeight, weigher);
+        CACHES.add(cache);
+        return cache;
+    }
+
+    /** A cache of at most {@code maximumSize} entries. */
+    public static <K, V> BoundedCache<K, V> create(String name, Policy policy, int maximumSize) {
+        return create(name, policy, maximumSize, (key, value) -> 1);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized V getIfPresent(K key) {
+        if (policy == Policy.TINY_LFU) {
+            sketch.increment(key.hashCode());
+        }
+        Node<V> node = window.get(key);
+        if (node == null) {
+            node = main.get(key);
+        }
+        if (node == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return node.value;
+    }
+
+    /** The cached value of {@code key}, or what {@code loader} makes of it, which is then cached. */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = getIfPresent(key);
+        if (value == null) {
+            value = loader.apply(key);
+            if (value != null) {
+                store(key, value); // The lookup already counted towards its frequency
+            }
+        }
+        return value;
+    }
+
+    public synchronized void put(K key, V value) {
+        if (policy == Policy.TINY_LFU) {
+            sketch.increment(key.hashCode());
+        }
+        store(key, value);
+    }
+
+    private synchronized void store(K key, V value) {
+        long entryWeight = weigher.applyAsLong(key, value);
+        remove(key);
+        if (entryWeight > maximumWeight) {
+            rejections++; // Would evict everything else and still not fit
+            return;
+        }
+        Node<V> node = new Node<>(value, entryWeight);
+        weight += entryWeight;
+        if (policy == Policy.TINY_LFU) {
+            window.put(key, node);
+            windowWeight += entryWeight;
+            int entries = window.size() + main.size();
+            if (entries > sketch.capacity()) {
+                sketch.ensureCapacity(entries * 2);
+            }
+        } else {
+            main.put(key, node);
+        }
+        evict();
+    }
+
+    public synchronized void invalidate(K key) {
+        if (remove(key)) {
+            invalidations++;
+        }
+    }
+
+    /** Removes every entry whose key matches, such as all months of one year. */
+    public synchronized void invalidateIf(Predicate<? super K> keys) {
+        invalidateIf(window, keys, true);
+        invalidateIf(main, keys, false);
+    }
+
+    public synchronized void invalidateAll() {
+        invalidations += window.size() + main.size();
+        window.clear();
+        main.clear();
+        windowWeight = 0;
+        weight = 0;
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(name, window.size() + main.size(), weight, maximumWeight,
+                hits, misses, evictions, rejections, invalidations);
+    }
+
+    /** One line of statistics per cache created, for the metrics window. */
+    public static String summary() {
+        return CACHES.stream().map(cache -> cache.stats().toString()).collect(Collectors.joining("\n"));
+    }
+
+    private boolean remove(K key) {
+        Node<V> node = window.remove(key);
+        if (node != null) {
+            windowWeight -= node.weight;
+        } else {
+            node = main.remove(key);
+        }
+        if (node == null) {
+            return false;
+        }
+        weight -= node.weight;
+        return true;
+    }
+
+    private void invalidateIf(Map<K, Node<V>> area, Predicate<? super K> keys, boolean inWindow) {
+        Iterator<Map.Entry<K, Node<V>>> entries = area.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<K, Node<V>> entry = entries.next();
+            if (keys.test(entry.getKey())) {
+                entries.remove();
+                weight -= entry.getValue().weight;
+                if (inWindow) {
+                    windowWeight -= entry.getValue().weight;
+                }
+                invalidations++;
+            }
+        }
+    }
+
+    private void evict() {
+        // Entries leaving the window become candidates at the most recent end of the main area
+        while (windowWeight > windowMaximum) {
+            Iterator<Map.Entry<K, Node<V>>> eldest = window.entrySet().iterator();
+            Map.Entry<K, Node<V>> entry = eldest.next();
+            eldest.remove();
+            windowWeight -= entry.getValue().weight;
+            main.put(entry.getKey(), entry.getValue());
+            candidates.add(entry.getKey());
+        }
+        while (weight > maximumWeight && !main.isEmpty()) {
+            K victim = main.keySet().iterator().next();
+            K candidate = candidates.peekFirst();
+            if (candidate == null || candidate.equals(victim)) {
+                candidates.remove(victim);
+                evicted(victim);
+            } else if (sketch.frequency(candidate.hashCode()) > sketch.frequency(victim.hashCode())) {
+                evicted(victim);
+            } else {
+                candidates.pollFirst();
+                Node<V> node = main.remove(candidate);
+                weight -= node.weight;
+                rejections++;
+            }
+        }
+        candidates.clear();
+    }
+
+    private void evicted(K key) {
+        Node<V> node = main.remove(key);
+        if (node != null) {
+            weight -= node.weight;
+        }
+        evictions++;
+    }
+
+    private static final class Node<V> {
+        final V value;
+        final long weight;
+
+        Node(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.oogle.calender.cache;
+
+/**
+ * A point-in-time view of a {@link BoundedCache}'s counters. Rejections are new entries that
+ * TinyLFU admission turned away because what they would have replaced was used more often.
+ */
+public record CacheStats(String name, int entries, long weight, long maximumWeight,
+                         long hits, long misses, long evictions, long rejections, long invalidations) {
+
+    public long requests() {
+        return hits + misses;
+    }
+
+    /** Share of lookups that found their entry, from 0 to 1; 0 before the first lookup. */
+    public double hitRate() {
+        long requests = requests();
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-20s hit rate %5.1f%% (%d of %d), %d entries, weight %d/%d, %d evicted, %d rejected, %d invalidated",
+                name, hitRate() * 100, hits, requests(), entries, weight, maximumWeight, evictions, rejections, invalidations);
+    }
+}
@@ -0,0 +1,80 @@
+package org.oogle.calender.cache;
+
+/**
+ * Approximate access counts for TinyLFU admission: a count-min sketch of four-bit counters,
+ * sixteen to a {@code long}, four rows per key. Every {@code 10 x width} increments all counters
+ * are halved, so counts reflect recent popularity rather than all-time totals.
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private long[] table = new long[0];
+    private int mask;
+    private int sampleSize;
+    private int additions;
+
+    /** Grows the sketch to track about {@code entries} keys; counts start over when it grows. */
+    void ensureCapacity(int entries) {
+        int width = Integer.highestOneBit(Math.max(16, entries - 1) << 1);
+        if (width > table.length) {
+            table = new long[width];
+            mask = width - 1;
+            sampleSize = 10 * width;
+            additions = 0;
+        }
+    }
+
+    int capacity() {
+        return table.length;
+    }
+
+    /** The estimated recent count of {@code hashCode}, from 0 to 15. */
+    int frequency(int hashCode) {
+        int item = spread(hashCode);
+        int start = (item & 3) << 2;
+        int frequency = 15;
+        for (int i = 0; i < 4; i++) {
+            int offset = (start + i) << 2;
+            frequency = Math.min(frequency, (int) (table[indexOf(item, i)] >>> offset) & 0xF);
+        }
+        return frequency;
+    }
+
+    void increment(int hashCode) {
+        if (table.length == 0) {
+            return;
+        }
+        int item = spread(hashCode);
+        int start = (item & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(item, i);
+            int offset = (start + i) << 2;
+            if (((table[index] >>> offset) & 0xF) != 0xF) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++additions == sampleSize) {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            additions /= 2;
+        }
+    }
+
+    private int indexOf(int item, int row) {
+        long hash = (item + SEEDS[row]) * SEEDS[row];
+        hash += hash >>> 32;
+        return (int) hash & mask;
+    }
+
+    // Hash codes such as Long's of small ids are poorly distributed
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
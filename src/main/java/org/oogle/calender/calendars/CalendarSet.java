@@ -0,0 +1,147 @@
+package org.oogle.calender.calendars;
+
+import org.oogle.calender.model.Event;
+import org.oogle.calender.query.EventQuery;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+/**
+ * The calendars shown together, the first one being the primary calendar. Reads cover the visible
+ * calendars and leave the events where they are: a day is the k-way merge of the calendars'
+ * day lists, which the stores keep ordered by start time, so hiding or showing a calendar only
+ * changes which lists take part.
+ */
+public final class CalendarSet {
+
+    private final List<NamedCalendar> calendars = new CopyOnWriteArrayList<>();
+
+    public CalendarSet(NamedCalendar primary) {
+        calendars.add(primary);
+    }
+
+    public NamedCalendar primary() {
+        return calendars.get(0);
+    }
+
+    /** Every calendar, the primary one first. */
+    public List<NamedCalendar> all() {
+        return Collections.unmodifiableList(calendars);
+    }
+
+    public List<NamedCalendar> visible() {
+        List<NamedCalendar> visible = new ArrayList<>(calendars.size());
+        for (NamedCalendar calendar : calendars) {
+            if (calendar.isVisible()) {
+                visible.add(calendar);
+            }
+        }
+        return visible;
+    }
+
+    public NamedCalendar find(String name) {
+        for (NamedCalendar calendar : calendars) {
+            if (calendar.getName().equalsIgnoreCase(name)) {
+                return calendar;
+            }
+        }
+        return null;
+    }
+
+    public void add(NamedCalendar calendar) {
+        if (find(calendar.getName()) != null) {
+            throw new IllegalArgumentException("A calendar named " + calendar.getName() + " already exists");
+        }
+        calendars.add(calendar);
+    }
+
+    /** Removes {@code calendar} from the set; the primary calendar cannot be removed. */
+    public boolean remove(NamedCalendar calendar) {
+        if (calendar == primary()) {
+            throw new IllegalArgumentException("The primary calendar cannot be removed");
+        }
+        return calendars.remove(calendar);
+    }
+
+    /** The calendar holding {@code event}, or {@code null}. */
+    public NamedCalendar calendarOf(Event event) {
+        for (NamedCalendar calendar : calendars) {
+            if (calendar.getModel().findById(event.getId()) != null) {
+                return calendar;
+            }
+        }
+        return null;
+    }
+
+    /** The visible events on {@code date} by start time; ties keep calendar order. */
+    public List<Event> eventsOn(LocalDate date) {
+        List<List<Event>> days = new ArrayList<>();
+        for (NamedCalendar calendar : calendars) {
+            if (calendar.isVisible() && calendar.getModel().countOn(date) > 0) {
+                days.add(calendar.getModel().eventsOn(date));
+            }
+        }
+        return mergeByTime(days);
+    }
+
+    public int countOn(LocalDate date) {
+        int count = 0;
+        for (NamedCalendar calendar : calendars) {
+            if (calendar.isVisible()) {
+                count += calendar.getModel().countOn(date);
+            }
+        }
+        return count;
+    }
+
+    /** Runs {@code query} on each visible calendar in turn, the limit applying to the whole. */
+    public Stream<Event> stream(EventQuery query) {
+        Stream<Event> events = visible().stream().flatMap(calendar -> calendar.getQueries().stream(query));
+        return query.limit() == Long.MAX_VALUE ? events : events.limit(query.limit());
+    }
+
+    /** Merges lists that are each ordered by start time into one, in O(n log k). */
+    static List<Event> mergeByTime(List<List<Event>> lists) {
+        if (lists.isEmpty()) {
+            return List.of();
+        }
+        if (lists.size() == 1) {
+            return lists.get(0);
+        }
+        int total = 0;
+        for (List<Event> list : lists) {
+            total += list.size();
+        }
+        // Cursor: list index in the high and position in the low 32 bits
+        PriorityQueue<long[]> heads = new PriorityQueue<>((a, b) -> {
+            int byTime = Integer.compare(head(lists, a).getEpochMinute(), head(lists, b).getEpochMinute());
+            return byTime != 0 ? byTime : Long.compare(a[0], b[0]);
+        });
+        for (int i = 0; i < lists.size(); i++) {
+            if (!lists.get(i).isEmpty()) {
+                heads.add(new long[]{(long) i << 32});
+            }
+        }
+        List<Event> merged = new ArrayList<>(total);
+        while (!heads.isEmpty()) {
+            long[] cursor = heads.poll();
+            merged.add(head(lists, cursor));
+            int list = (int) (cursor[0] >>> 32);
+            int next = (int) cursor[0] + 1;
+            if (next < lists.get(list).size()) {
+                cursor[0] = (long) list << 32 | next;
+                heads.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    private static Event head(List<List<Event>> lists, long[] cursor) {
+        return lists.get((int) (cursor[0] >>> 32)).get((int) cursor[0]);
+    }
+}
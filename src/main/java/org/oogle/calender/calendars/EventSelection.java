@@ -0,0 +1,173 @@
+package org.oogle.calender.calendars;
+
+import org.oogle.calender.model.Event;
+import org.oogle.calender.model.EventModel;
+import org.oogle.calender.model.StoredText;
+import org.oogle.calender.query.EventQuery;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Events picked across days and calendars for a bulk action. Events are held by id per calendar,
+ * since the off-heap store hands out a new instance on every read.
+ *
+ * <p>Each action runs on each calendar's selected events as one {@link EventModel#runBatch batch}:
+ * readers never see it half done, listeners such as the query indexes and the views get one
+ * change set, and undo reverts it in one step. Actions return the calendars they changed, so
+ * the caller can write each of them once.
+ */
+public final class EventSelection {
+
+    private interface Action {
+        void apply(EventModel model, Event event);
+    }
+
+    private final Map<NamedCalendar, Set<Long>> selected = new LinkedHashMap<>();
+
+    public void add(NamedCalendar calendar, Event event) {
+        selected.computeIfAbsent(calendar, c -> new LinkedHashSet<>()).add(event.getId());
+    }
+
+    public void remove(NamedCalendar calendar, Event event) {
+        Set<Long> ids = selected.get(calendar);
+        if (ids != null && ids.remove(event.getId()) && ids.isEmpty()) {
+            selected.remove(calendar);
+        }
+    }
+
+    public boolean contains(NamedCalendar calendar, Event event) {
+        Set<Long> ids = selected.get(calendar);
+        return ids != null && ids.contains(event.getId());
+    }
+
+    /** Selects every event of the visible calendars that matches {@code query}; returns how many. */
+    public int select(CalendarSet calendars, EventQuery query) {
+        int matched = 0;
+        for (NamedCalendar calendar : calendars.visible()) {
+            Set<Long> ids = selected.computeIfAbsent(calendar, c -> new LinkedHashSet<>());
+            for (Event event : calendar.getQueries().stream(query).toList()) {
+                ids.add(event.getId());
+                matched++;
+            }
+            if (ids.isEmpty()) {
+                selected.remove(calendar);
+            }
+        }
+        return matched;
+    }
+
+    public int size() {
+        return selected.values().stream().mapToInt(Set::size).sum();
+    }
+
+    public boolean isEmpty() {
+        return selected.isEmpty();
+    }
+
+    public void clear() {
+        selected.clear();
+    }
+
+    /** Forgets events that are no longer in their calendar, e.g. after a reload, and removed calendars. */
+    public void retainExisting(CalendarSet calendars) {
+        Iterator<Map.Entry<NamedCalendar, Set<Long>>> entries = selected.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<NamedCalendar, Set<Long>> entry = entries.next();
+            EventModel model = entry.getKey().getModel();
+            if (!calendars.all().contains(entry.getKey())) {
+                entries.remove();
+                continue;
+            }
+            model.read(() -> entry.getValue().removeIf(id -> model.findById(id) == null));
+            if (entry.getValue().isEmpty()) {
+                entries.remove();
+            }
+        }
+    }
+
+    /** Removes the selected events and clears the selection. */
+    public List<NamedCalendar> delete() {
+        List<NamedCalendar> changed = apply((model, event) -> model.remove(event));
+        selected.clear();
+        return changed;
+    }
+
+    /** Moves the selected events by {@code offset}; their reminders fire again at the new times. */
+    public List<NamedCalendar> move(Duration offset) {
+        return apply((model, event) -> model.update(event,
+                copy(event, event.getId(), event.getDateTime().plus(offset), event.getReminderMinutes())));
+    }
+
+    /** Replaces the reminders of the selected events with {@code reminderMinutes}. */
+    public List<NamedCalendar> setReminders(List<Integer> reminderMinutes) {
+        return apply((model, event) -> model.update(event,
+                copy(event, event.getId(), event.getDateTime(), reminderMinutes)));
+    }
+
+    /** Adds a copy of each selected event {@code offset} later; the copies become the selection. */
+    public List<NamedCalendar> duplicate(Duration offset) {
+        Map<NamedCalendar, Set<Long>> copies = new LinkedHashMap<>();
+        List<NamedCalendar> changed = new ArrayList<>();
+        for (Map.Entry<NamedCalendar, Set<Long>> entry : selected.entrySet()) {
+            Set<Long> ids = new LinkedHashSet<>();
+            if (apply(entry.getKey(), entry.getValue(), (model, event) -> {
+                Event copy = copy(event, -1, event.getDateTime().plus(offset), event.getReminderMinutes());
+                model.add(copy);
+                ids.add(copy.getId());
+            })) {
+                changed.add(entry.getKey());
+                copies.put(entry.getKey(), ids);
+            }
+        }
+        selected.clear();
+        selected.putAll(copies);
+        return changed;
+    }
+
+    private List<NamedCalendar> apply(Action action) {
+        List<NamedCalendar> changed = new ArrayList<>();
+        for (Map.Entry<NamedCalendar, Set<Long>> entry : selected.entrySet()) {
+            if (apply(entry.getKey(), entry.getValue(), action)) {
+                changed.add(entry.getKey());
+            }
+        }
+        return changed;
+    }
+
+    // One batch per calendar; ids whose event has gone are skipped
+    private static boolean apply(NamedCalendar calendar, Set<Long> ids, Action action) {
+        EventModel model = calendar.getModel();
+        boolean[] applied = {false};
+        model.runBatch(() -> {
+            for (long id : ids) {
+                Event event = model.findById(id);
+                if (event != null) {
+                    action.apply(model, event);
+                    applied[0] = true;
+                }
+            }
+        });
+        return applied[0];
+    }
+
+    // Keeps a stored description stored rather than reading it in; id -1 gives the copy a new id
+    private static Event copy(Event event, long id, LocalDateTime dateTime, List<Integer> reminderMinutes) {
+        StoredText stored = event.getStoredDescription();
+        if (id < 0) {
+            return stored != null
+                    ? new Event(event.getTitle(), dateTime, stored, reminderMinutes)
+                    : new Event(event.getTitle(), dateTime, event.getDescription(), reminderMinutes);
+        }
+        return stored != null
+                ? new Event(id, event.getTitle(), dateTime, stored, reminderMinutes)
+                : new Event(id, event.getTitle(), dateTime, event.getDescription(), reminderMinutes);
+    }
+}
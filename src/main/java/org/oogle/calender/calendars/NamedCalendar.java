@@ -0,0 +1,462 @@
+package org.oogle.calender.calendars;
+
+import org.oogle.calender.model.ChangeSet;
+import org.oogle.calender.model.Event;
+import org.oogle.calender.model.EventChange;
+import org.oogle.calender.model.EventModel;
+import org.oogle.calender.model.StoredText;
+import org.oogle.calender.query.QueryEngine;
+import org.oogle.calender.reminder.ReminderScheduler;
+import org.oogle.calender.stats.EventStatistics;
+import org.oogle.calender.storage.DataFileLock;
+import org.oogle.calender.storage.EventFile;
+import org.oogle.calender.storage.RecordFile;
+import org.oogle.calender.storage.RecoveryReport;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * One calendar of a {@link CalendarSet}: its own model, backing file, reminders, queries and
+ * statistics.
+ * Changes mark it dirty, so saving writes only the calendars that changed.
+ *
+ * <p>A saved calendar can be {@link #park parked} while the window is closed: its events are
+ * released and only the reminders due soon stay in memory, the rest being read from the file
+ * when their time comes. Loading the file again and calling {@link #unpark()} brings it back.
+ *
+ * <p>Other processes may have the file open too. The calendar keeps the edits made since it
+ * last saved and the {@link RecordFile.Version version} of the file its model holds; a
+ * {@link #save} first reads what others committed since, then appends the edits to the file's
+ * journal, writing it in full only when the journal has grown large or the model was replaced,
+ * and {@link #refresh} reads others' changes without saving. Both read only the changes if the
+ * file has not been written in full since, and the whole file otherwise, redoing the unsaved
+ * edits on top. Either clears the undo history, since undo restores whole versions of the model
+ * and would take the others' changes back with it.
+ */
+public final class NamedCalendar {
+
+    /** The journal may grow to a quarter of the records, or this much, before a save writes the file in full. */
+    static final long MIN_JOURNAL_BYTES = 1 << 20;
+
+    /** A change read from another process, kept in order until it is applied. */
+    private record Change(Event added, String removedKey) {
+    }
+
+    private final String name;
+    private volatile File file;
+    private final EventModel model;
+    private final QueryEngine queries;
+    private final ReminderScheduler reminders;
+    private final EventStatistics statistics;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private volatile boolean visible = true;
+    private volatile boolean parked;
+
+    // The model's changes not saved yet, unless it was replaced, which the next save writes whole
+    private final List<EventChange> unsaved = new ArrayList<>(); // Guarded by itself
+    private boolean replaced;    // Guarded by unsaved
+    private boolean writeInFull; // Guarded by unsaved; set when the file read had damage
+
+    // Changes made on these threads come from the file, so they are not edits to save
+    private volatile Thread loader;
+    private volatile Thread applying;
+
+    private boolean loaded;               // Guarded by this
+    private RecordFile.Version version;   // Guarded by this; what the model, or while parked the reminders, hold of the file; null if nothing
+
+    public NamedCalendar(String name, File file, EventModel model, QueryEngine queries) {
+        this.name = name;
+        this.file = file;
+        this.model = model;
+        this.queries = queries;
+        this.reminders = new ReminderScheduler(model);
+        model.addListener(reminders);
+        this.statistics = new EventStatistics(model); // Follows the model from its first rebuild
+        model.addListener(this::modelChanged);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public void setFile(File file) {
+        this.file = file;
+    }
+
+    public EventModel getModel() {
+        return model;
+    }
+
+    public QueryEngine getQueries() {
+        return queries;
+    }
+
+    public ReminderScheduler getReminders() {
+        return reminders;
+    }
+
+    public EventStatistics getStatistics() {
+        return statistics;
+    }
+
+    public boolean isVisible() {
+        return visible;
+    }
+
+    public void setVisible(boolean visible) {
+        this.visible = visible;
+    }
+
+    /** True if the calendar changed since it was loaded or last saved. */
+    public boolean isDirty() {
+        return dirty.get();
+    }
+
+    /** Clears the dirty flag and returns whether it was set; edits not saved yet are still written by the next {@link #save}. */
+    public boolean takeDirty() {
+        return dirty.getAndSet(false);
+    }
+
+    /** Makes the next save write the whole model. */
+    public void markDirty() {
+        synchronized (unsaved) {
+            writeInFull = true;
+            dirty.set(true);
+        }
+    }
+
+    /** Call on the thread about to read the file into the model; what it adds are not edits. */
+    public synchronized void beginLoad() {
+        loader = Thread.currentThread();
+        loaded = false;
+    }
+
+    /**
+     * Call once the model holds the file as {@code report} read it, or with {@code null} if there
+     * was no file or it could not be read. Edits made while loading are saved as usual; a file
+     * read with damage is written in full at the next save.
+     */
+    public synchronized void endLoad(RecoveryReport report) {
+        loader = null;
+        loaded = true;
+        version = report != null ? report.getVersion() : null;
+        if (report != null && !report.isClean()) {
+            synchronized (unsaved) {
+                writeInFull = true;
+            }
+        }
+    }
+
+    /**
+     * Saves the edits made since the last save: reads what other processes committed first, then
+     * appends the edits to the file's journal, or writes the whole model if the journal is long,
+     * the model was replaced or the file has no journal yet. Returns the number of changes
+     * appended or events written.
+     */
+    @SuppressWarnings("try")
+    public synchronized long save() throws IOException {
+        if (parked) {
+            return 0; // The model is empty and the file already holds everything
+        }
+        File current = file;
+        try (DataFileLock.Hold hold = DataFileLock.of(current).exclusive()) {
+            boolean keepModel;
+            synchronized (unsaved) {
+                keepModel = replaced;
+            }
+            if (!keepModel) {
+                catchUp(current);
+            }
+
+            // The edits and the events to write are taken together, so none is saved twice or lost
+            List<EventChange> changes = new ArrayList<>();
+            boolean[] full = new boolean[1];
+            Map<LocalDate, List<Event>> snapshot = model.read(() -> {
+                synchronized (unsaved) {
+                    changes.addAll(unsaved);
+                    unsaved.clear();
+                    full[0] = replaced || writeInFull || version == null || !version.isAppendable()
+                            || version.journalBytes() > Math.max(MIN_JOURNAL_BYTES, version.journalStart() / 4);
+                    replaced = false;
+                    writeInFull = false;
+                    dirty.set(false);
+                }
+                return full[0] ? model.snapshot() : null;
+            });
+            try {
+                if (full[0]) {
+                    version = EventFile.write(current, snapshot.values());
+                    return snapshot.values().stream().mapToLong(List::size).sum();
+                }
+                if (!changes.isEmpty()) {
+                    version = EventFile.append(current, changes);
+                }
+                return changes.size();
+            } catch (IOException | RuntimeException e) {
+                synchronized (unsaved) {
+                    unsaved.addAll(0, changes);
+                    replaced |= keepModel;
+                    writeInFull |= full[0] && !keepModel;
+                    dirty.set(true);
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Reads the changes other processes saved to the file since the model last caught up with it;
+     * returns true if there were any. Costs one read of the file's first line if there were none.
+     * While parked, the reminders due soon are read from the file again instead.
+     */
+    @SuppressWarnings("try")
+    public synchronized boolean refresh() throws IOException {
+        if (!parked && !loaded) {
+            return false;
+        }
+        File current = file;
+        try (DataFileLock.Hold hold = DataFileLock.of(current).shared()) {
+            return parked ? reloadReminders(current) : catchUp(current);
+        }
+    }
+
+    /**
+     * Empties the model, keeping the reminders due within a week, if the file holds every change;
+     * returns false, leaving the calendar as it is, if it is dirty. Nothing may change the model
+     * until it has been loaded again and {@link #unpark()} called.
+     */
+    public synchronized boolean park(LocalDateTime now) {
+        if (parked) {
+            return true;
+        }
+        synchronized (unsaved) {
+            if (dirty.get() || !unsaved.isEmpty() || replaced || writeInFull) {
+                return false;
+            }
+        }
+        reminders.park(this::readEvents, now);
+        applying = Thread.currentThread(); // Releasing the events is not a change to save
+        try {
+            model.replaceAll(List.of());
+        } finally {
+            applying = null;
+        }
+        model.clearHistory();
+        loaded = false;
+        parked = true; // The version stays, as the one the parked reminders were read from
+        return true;
+    }
+
+    /** True while the model is empty because the calendar is parked, until {@link #unpark()}. */
+    public boolean isParked() {
+        return parked;
+    }
+
+    /** Call once the file has been loaded into the model again; reminders follow the model from here. */
+    public synchronized void unpark() {
+        if (parked) {
+            reminders.unpark();
+            parked = false;
+        }
+    }
+
+    private void modelChanged(ChangeSet changes) {
+        Thread thread = Thread.currentThread();
+        if (thread == loader || thread == applying) {
+            return;
+        }
+        synchronized (unsaved) {
+            dirty.set(true);
+            if (changes.isReset()) {
+                replaced = true;
+                unsaved.clear();
+            } else if (!replaced) {
+                unsaved.addAll(changes.getChanges());
+            }
+        }
+    }
+
+    /** Reads the parked reminders again if another process has committed to the file; the caller holds its lock. */
+    private boolean reloadReminders(File current) throws IOException {
+        RecordFile.Version onDisk = RecordFile.readVersion(current);
+        if (onDisk == null || version != null && onDisk.generation() == version.generation()) {
+            return false;
+        }
+        reminders.reloadParked(); // Due times already checked are not read back, so none is delivered twice
+        version = onDisk;
+        return true;
+    }
+
+    /** Brings the model up to the file's version; the caller holds the file's lock. */
+    private boolean catchUp(File current) throws IOException {
+        synchronized (unsaved) {
+            if (replaced) {
+                return false; // The model replaces the file at the next save
+            }
+        }
+        RecordFile.Version onDisk = RecordFile.readVersion(current);
+        if (onDisk == null || onDisk.equals(version)) {
+            return false;
+        }
+        if (version != null) {
+            List<Change> changes = new ArrayList<>();
+            RecordFile.Version read = EventFile.readChanges(current, version, new EventFile.Changes() {
+                @Override
+                public void added(Event event) {
+                    changes.add(new Change(event, null));
+                }
+
+                @Override
+                public void removed(String key) {
+                    changes.add(new Change(null, key));
+                }
+            });
+            if (read != null) {
+                applying = Thread.currentThread();
+                try {
+                    apply(changes);
+                } finally {
+                    applying = null;
+                }
+                // Undo restores whole model versions, so any step would take back the other process's work
+                model.clearHistory();
+                version = read;
+                return true;
+            }
+        }
+
+        // Written in full since: read it all again, then redo the unsaved edits on top
+        List<Event> events = new ArrayList<>();
+        RecoveryReport report = EventFile.read(current, events::add);
+        if (!report.isClean()) {
+            System.err.println("Recovered " + current + " with damage: " + report);
+        }
+        List<EventChange> edits = new ArrayList<>();
+        applying = Thread.currentThread();
+        try {
+            model.runBatch(() -> {
+                synchronized (unsaved) {
+                    edits.addAll(unsaved);
+                    unsaved.clear();
+                }
+                model.replaceAll(events);
+            });
+        } finally {
+            applying = null;
+        }
+        model.clearHistory(); // As after loading; undo would take back the other process's work
+        version = report.getVersion();
+        redo(edits);
+        return true;
+    }
+
+    // Applies another process's changes in one batch; a removal followed by an addition is an update
+    private void apply(List<Change> changes) {
+        IOException[] failure = new IOException[1];
+        model.runBatch(() -> {
+            try {
+                for (int i = 0; i < changes.size(); i++) {
+                    Change change = changes.get(i);
+                    if (change.added() != null) {
+                        model.add(change.added());
+                        continue;
+                    }
+                    Event removed = findByKey(change.removedKey());
+                    if (removed == null) {
+                        continue; // Gone already, or removed here too
+                    }
+                    if (i + 1 < changes.size() && changes.get(i + 1).added() != null) {
+                        model.update(removed, withId(removed.getId(), changes.get(++i).added()));
+                    } else {
+                        model.remove(removed);
+                    }
+                }
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        if (failure[0] != null) {
+            System.err.println("Error applying changes to " + name + ": " + failure[0].getMessage());
+            failure[0].printStackTrace();
+        }
+    }
+
+    // Redoes edits on a freshly read model; one whose event is gone is kept as an addition
+    private void redo(List<EventChange> edits) throws IOException {
+        IOException[] failure = new IOException[1];
+        model.runBatch(() -> {
+            try {
+                for (EventChange edit : edits) {
+                    switch (edit.getType()) {
+                        case ADDED -> model.add(edit.getEvent());
+                        case REMOVED -> {
+                            Event removed = findByKey(EventFile.key(edit.getEvent()));
+                            if (removed != null) {
+                                model.remove(removed);
+                            }
+                        }
+                        case UPDATED -> {
+                            Event previous = findByKey(EventFile.key(edit.getPrevious()));
+                            if (previous != null) {
+                                model.update(previous, withId(previous.getId(), edit.getEvent()));
+                            } else {
+                                model.add(edit.getEvent());
+                            }
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    private Event findByKey(String key) throws IOException {
+        LocalDate date;
+        try {
+            date = LocalDate.parse(key.substring(0, key.indexOf('|')));
+        } catch (RuntimeException e) {
+            return null; // Not the key of an event
+        }
+        for (Event event : model.eventsOn(date)) {
+            if (EventFile.key(event).equals(key)) {
+                return event;
+            }
+        }
+        return null;
+    }
+
+    private static Event withId(long id, Event event) {
+        StoredText stored = event.getStoredDescription();
+        return stored != null
+                ? new Event(id, event.getTitle(), event.getDateTime(), stored, event.getReminderMinutes())
+                : new Event(id, event.getTitle(), event.getDateTime(), event.getDescription(), event.getReminderMinutes());
+    }
+
+    private void readEvents(Consumer<Event> action) throws IOException {
+        File current = file;
+        if (current.exists()) {
+            EventFile.read(current, action); // Damage was reported when the file was loaded
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
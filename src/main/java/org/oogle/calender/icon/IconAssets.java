@@ -0,0 +1,57 @@
+package org.oogle.calender.icon;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runtime access to the icons {@link IconGenerator} renders at build time into the
+ * {@code /icons} resource folder.
+ */
+public final class IconAssets {
+
+    static final int[] WINDOW_ICON_SIZES = {16, 32, 48, 64, 128, 256};
+    static final int TRAY_ICON_SIZE = 16;
+    static final String RESOURCE_DIR = "/icons/";
+    static final String ICO_FILE = "calendar-icon.ico";
+    // 31 tray icons side by side, one per day of the month
+    static final String TRAY_ATLAS_FILE = "tray-days-" + TRAY_ICON_SIZE + ".png";
+
+    private static BufferedImage trayAtlas;
+
+    private IconAssets() {
+    }
+
+    static String windowIconFile(int size) {
+        return "calendar-icon-" + size + ".png";
+    }
+
+    /** URLs of the window icon in every generated size, for the platform to choose from. */
+    public static List<URL> windowIconUrls() {
+        List<URL> urls = new ArrayList<>();
+        for (int size : WINDOW_ICON_SIZES) {
+            URL url = IconAssets.class.getResource(RESOURCE_DIR + windowIconFile(size));
+            if (url != null) {
+                urls.add(url);
+            }
+        }
+        return urls;
+    }
+
+    /** The tray icon showing {@code dayOfMonth}, cut from the pre-rendered atlas. */
+    public static synchronized BufferedImage trayIcon(int dayOfMonth) throws IOException {
+        if (trayAtlas == null) {
+            try (InputStream in = IconAssets.class.getResourceAsStream(RESOURCE_DIR + TRAY_ATLAS_FILE)) {
+                if (in == null) {
+                    throw new IOException("Missing tray icon atlas " + TRAY_ATLAS_FILE);
+                }
+                trayAtlas = ImageIO.read(in);
+            }
+        }
+        return trayAtlas.getSubimage((dayOfMonth - 1) * TRAY_ICON_SIZE, 0, TRAY_ICON_SIZE, TRAY_ICON_SIZE);
+    }
+}
@@ -4,27 +4,36 @@ import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.*;
-
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Build step (see the generateIcons task) that renders the application icons into a resource
+ * folder: one PNG per window icon size, a multi-resolution .ico for jpackage, and the tray icon
+ * atlas with one variant per day of the month.
+ */
 public class IconGenerator {
 
     public static void main(String[] args) {
+        File outputDir = new File(args.length > 0 ? args[0] : ".");
         try {
-            // Create calendar icon at multiple sizes for .ico
-            int[] sizes = {16, 32, 48, 64, 128, 256};
-
-            for (int size : sizes) {
-                BufferedImage icon = createCalendarIcon(size);
-                String filename = "calendar-icon-" + size + ".png";
-                ImageIO.write(icon, "PNG", new File(filename));
-                System.out.println("Created: " + filename);
+            outputDir.mkdirs();
+
+            List<byte[]> pngs = new ArrayList<>();
+            for (int size : IconAssets.WINDOW_ICON_SIZES) {
+                byte[] png = toPng(createCalendarIcon(size));
+                pngs.add(png);
+                writeFile(new File(outputDir, IconAssets.windowIconFile(size)), png);
             }
 
-            System.out.println("\nNow visit: https://convertio.co/png-ico/");
-            System.out.println("Upload calendar-icon-256.png and convert it to .ico");
-            System.out.println("Save as: calendar-icon.ico in your project folder");
+            writeFile(new File(outputDir, IconAssets.ICO_FILE), toIco(IconAssets.WINDOW_ICON_SIZES, pngs));
+            ImageIO.write(createTrayAtlas(), "PNG", new File(outputDir, IconAssets.TRAY_ATLAS_FILE));
+
+            System.out.println("Icons written to " + outputDir.getAbsolutePath());
 
         } catch (IOException e) {
             e.printStackTrace();
+            System.exit(1);
         }
     }
 
@@ -87,4 +96,86 @@ public class IconGenerator {
         g.dispose();
         return image;
     }
+
+    private static BufferedImage createTrayAtlas() {
+        int size = IconAssets.TRAY_ICON_SIZE;
+        BufferedImage atlas = new BufferedImage(size * 31, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = atlas.createGraphics();
+
+        // Enable anti-aliasing
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setFont(new Font("Arial", Font.BOLD, 8));
+
+        for (int day = 1; day <= 31; day++) {
+            int x = (day - 1) * size;
+
+            // Draw calendar icon
+            g.setColor(new Color(74, 144, 226)); // PRIMARY_COLOR
+            g.fillRoundRect(x + 1, 3, 14, 12, 3, 3);
+
+            g.setColor(Color.WHITE);
+            g.fillRect(x + 2, 1, 3, 3);
+            g.fillRect(x + 11, 1, 3, 3);
+
+            // Day of month, centred
+            String label = String.valueOf(day);
+            int labelX = x + (size - g.getFontMetrics().stringWidth(label)) / 2;
+            g.drawString(label, labelX, 12);
+        }
+
+        g.dispose();
+        return atlas;
+    }
+
+    private static byte[] toPng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "PNG", out);
+        return out.toByteArray();
+    }
+
+    // ICO container with PNG-compressed entries (supported since Windows Vista)
+    private static byte[] toIco(int[] sizes, List<byte[]> pngs) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        writeShortLE(out, 0);            // reserved
+        writeShortLE(out, 1);            // type: icon
+        writeShortLE(out, sizes.length);
+
+        int offset = 6 + 16 * sizes.length;
+        for (int i = 0; i < sizes.length; i++) {
+            int dimension = sizes[i] >= 256 ? 0 : sizes[i]; // 0 means 256
+            out.writeByte(dimension);    // width
+            out.writeByte(dimension);    // height
+            out.writeByte(0);            // palette size
+            out.writeByte(0);            // reserved
+            writeShortLE(out, 1);        // color planes
+            writeShortLE(out, 32);       // bits per pixel
+            writeIntLE(out, pngs.get(i).length);
+            writeIntLE(out, offset);
+            offset += pngs.get(i).length;
+        }
+        for (byte[] png : pngs) {
+            out.write(png);
+        }
+
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writeShortLE(DataOutputStream out, int value) throws IOException {
+        out.writeByte(value & 0xFF);
+        out.writeByte((value >>> 8) & 0xFF);
+    }
+
+    private static void writeIntLE(DataOutputStream out, int value) throws IOException {
+        writeShortLE(out, value & 0xFFFF);
+        writeShortLE(out, (value >>> 16) & 0xFFFF);
+    }
+
+    private static void writeFile(File file, byte[] data) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(data);
+        }
+    }
 }
@@ -0,0 +1,60 @@
+package org.oogle.calender.metrics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**
+ * The optional continuous Flight Recorder recording: JFR's low-overhead "default" settings plus
+ * the app's own events, kept in a rolling on-disk buffer until dumped.
+ */
+public final class FlightRecording {
+
+    private static final Duration MAX_AGE = Duration.ofHours(6);
+    private static final long MAX_SIZE = 100L * 1024 * 1024;
+
+    private Recording recording;
+
+    public synchronized boolean isRunning() {
+        return recording != null;
+    }
+
+    public synchronized void start() throws IOException {
+        if (recording != null) {
+            return;
+        }
+        try {
+            recording = new Recording(Configuration.getConfiguration("default"));
+        } catch (ParseException e) {
+            throw new IOException("Could not read the JFR default configuration", e);
+        }
+        recording.setName("TaskFlow Calendar");
+        recording.setToDisk(true);
+        recording.setMaxAge(MAX_AGE);
+        recording.setMaxSize(MAX_SIZE);
+        recording.enable(PersistenceEvent.class);
+        recording.enable(RenderEvent.class);
+        recording.enable(ReminderCheckEvent.class);
+        recording.enable(ReplicationEvent.class);
+        recording.start();
+    }
+
+    public synchronized void stop() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    /** Writes everything recorded so far to {@code destination}; the recording keeps running. */
+    public synchronized void dump(Path destination) throws IOException {
+        if (recording == null) {
+            throw new IOException("Flight recording is not running");
+        }
+        recording.dump(destination);
+    }
+}
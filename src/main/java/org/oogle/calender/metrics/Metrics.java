@@ -0,0 +1,55 @@
+package org.oogle.calender.metrics;
+
+/**
+ * Instrumentation entry point: each {@link Probe} times one operation, commits its JFR event and
+ * records the same numbers in the process-wide {@link MetricsRegistry}.
+ */
+public final class Metrics {
+
+    private static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+    private Metrics() {
+    }
+
+    public static MetricsRegistry registry() {
+        return REGISTRY;
+    }
+
+    /** Starts timing an operation recorded under {@code metric} and as {@code event}. */
+    public static Probe begin(String metric, TimedEvent event) {
+        return new Probe(metric, event);
+    }
+
+    public static final class Probe {
+        private final String metric;
+        private final TimedEvent event;
+        private final long startNanos;
+
+        private Probe(String metric, TimedEvent event) {
+            this.metric = metric;
+            this.event = event;
+            this.startNanos = System.nanoTime();
+            event.begin();
+        }
+
+        public TimedEvent getEvent() {
+            return event;
+        }
+
+        /** Ends the operation and returns its duration in nanoseconds. */
+        public long end(long records, long bytes) {
+            long nanos = System.nanoTime() - startNanos;
+            event.records = records;
+            event.bytes = bytes;
+            event.commit();
+
+            REGISTRY.counter(metric + ".count").increment();
+            REGISTRY.counter(metric + ".records").add(records);
+            REGISTRY.histogram(metric + ".nanos").record(nanos);
+            if (bytes > 0) {
+                REGISTRY.histogram(metric + ".bytes").record(bytes);
+            }
+            return nanos;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package org.oogle.calender.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Named counters and histograms for the in-process view of what the app has been doing.
+ */
+public final class MetricsRegistry {
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, k -> new Counter());
+    }
+
+    public Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, k -> new Histogram());
+    }
+
+    /** Human-readable dump of every metric, sorted by name. Durations are in nanoseconds. */
+    public String summary() {
+        StringBuilder text = new StringBuilder();
+        new TreeMap<>(counters).forEach((name, counter) ->
+                text.append(String.format("%-28s %d%n", name, counter.get())));
+        new TreeMap<>(histograms).forEach((name, histogram) ->
+                text.append(String.format("%-28s n=%d mean=%.0f p50=%d p99=%d max=%d%n", name,
+                        histogram.getCount(), histogram.getMean(), histogram.percentile(50),
+                        histogram.percentile(99), histogram.getMax())));
+        return text.toString();
+    }
+}
@@ -0,0 +1,23 @@
+package org.oogle.calender.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Saving, loading or importing the data file. */
+@Name("org.oogle.calender.Persistence")
+@Label("Persistence")
+@Description("A full read or write of a calendar data file")
+public final class PersistenceEvent extends TimedEvent {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Path")
+    String path;
+
+    public PersistenceEvent(String operation, String path) {
+        this.operation = operation;
+        this.path = path;
+    }
+}
@@ -0,0 +1,19 @@
+package org.oogle.calender.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** One pass of the reminder timer; records is the number of reminders that fired. */
+@Name("org.oogle.calender.ReminderCheck")
+@Label("Reminder Check")
+@Description("One periodic check for due reminders")
+public final class ReminderCheckEvent extends TimedEvent {
+
+    @Label("Pending Reminders")
+    int pending;
+
+    public void setPending(int pending) {
+        this.pending = pending;
+    }
+}
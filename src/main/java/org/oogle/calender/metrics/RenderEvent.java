@@ -0,0 +1,19 @@
+package org.oogle.calender.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Rebuilding part of the UI from the model. */
+@Name("org.oogle.calender.Render")
+@Label("Render")
+@Description("A rebuild of the month grid, one of its day cells, or the sidebar")
+public final class RenderEvent extends TimedEvent {
+
+    @Label("View")
+    String view;
+
+    public RenderEvent(String view) {
+        this.view = view;
+    }
+}
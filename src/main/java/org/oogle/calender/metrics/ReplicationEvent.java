@@ -0,0 +1,19 @@
+package org.oogle.calender.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Applying a batch of change records received from a replication peer. */
+@Name("org.oogle.calender.Replication")
+@Label("Replication")
+@Description("Change records from a peer applied to the event model")
+public final class ReplicationEvent extends TimedEvent {
+
+    @Label("Peer")
+    String peer;
+
+    public ReplicationEvent(String peer) {
+        this.peer = peer;
+    }
+}
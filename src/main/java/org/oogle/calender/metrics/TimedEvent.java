@@ -0,0 +1,19 @@
+package org.oogle.calender.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+
+/**
+ * Common fields of the app's Flight Recorder events; the JFR event duration covers the operation.
+ */
+@Category("TaskFlow Calendar")
+public abstract class TimedEvent extends jdk.jfr.Event {
+
+    @Label("Records")
+    long records;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+}
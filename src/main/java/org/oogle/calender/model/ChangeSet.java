@@ -0,0 +1,83 @@
+package org.oogle.calender.model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The batch of changes delivered to {@link ModelListener}s in one notification. A reset change
+ * set means the whole model was replaced (load, "Replace All") and carries no individual changes;
+ * subscribers should rebuild whatever they derive from the model once.
+ */
+public final class ChangeSet {
+
+    private static final ChangeSet RESET = new ChangeSet(List.of(), true);
+
+    private final List<EventChange> changes;
+    private final boolean reset;
+    private Set<LocalDate> affectedDates;
+
+    private ChangeSet(List<EventChange> changes, boolean reset) {
+        this.changes = changes;
+        this.reset = reset;
+    }
+
+    static ChangeSet of(List<EventChange> changes) {
+        return new ChangeSet(Collections.unmodifiableList(changes), false);
+    }
+
+    static ChangeSet reset() {
+        return RESET;
+    }
+
+    /** The changes that take the model back to before this change set, in reverse order. */
+    ChangeSet inverse() {
+        if (reset) {
+            return RESET;
+        }
+        List<EventChange> inverted = new ArrayList<>(changes.size());
+        for (int i = changes.size() - 1; i >= 0; i--) {
+            inverted.add(changes.get(i).inverse());
+        }
+        return of(inverted);
+    }
+
+    public List<EventChange> getChanges() {
+        return changes;
+    }
+
+    public boolean isReset() {
+        return reset;
+    }
+
+    public boolean isEmpty() {
+        return !reset && changes.isEmpty();
+    }
+
+    public int size() {
+        return changes.size();
+    }
+
+    /** Every date that gained, lost or modified an event, including the old date of moved events. */
+    public synchronized Set<LocalDate> getAffectedDates() {
+        if (affectedDates == null) {
+            Set<LocalDate> dates = new HashSet<>();
+            for (EventChange change : changes) {
+                dates.add(change.getDate());
+                if (change.getPreviousDate() != null) {
+                    dates.add(change.getPreviousDate());
+                }
+            }
+            affectedDates = Collections.unmodifiableSet(dates);
+        }
+        return affectedDates;
+    }
+
+    /** True if a subscriber showing {@code date} has to refresh. */
+    public boolean affects(LocalDate date) {
+        return reset || getAffectedDates().contains(date);
+    }
+}
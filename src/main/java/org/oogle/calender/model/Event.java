@@ -0,0 +1,296 @@
+package org.oogle.calender.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * A single calendar entry. Everything except the per-reminder delivery flags is immutable;
+ * edits replace the event with a new instance that keeps the same id. Where the description is
+ * held may change, its value does not: a long one moves out of the heap into a {@link StoredText}
+ * once it has been saved, and is read back when asked for.
+ *
+ * <p>Events are kept in primitive form so a large calendar is mostly payload rather than object
+ * headers: the start is a minute count since 1970-01-01T00:00 (local, seconds are dropped), the
+ * reminders drawn from the add-event dialog's presets are a bitmask, and that mask shares one
+ * {@code long} with the delivery flags. Titles are interned, so repeated ones share one string.
+ * Reminders are kept unique and in descending order, which is the order the dialog offers them.
+ */
+public final class Event {
+
+    /** Offsets offered by the add/edit dialogs; bit {@code i} of the preset mask stands for entry {@code i}. */
+    private static final int[] PRESET_MINUTES = {1440, 60, 30, 10, 0};
+    private static final List<List<Integer>> PRESET_LISTS = presetLists();
+
+    // Layout of the state word: preset mask in the low byte, one delivery flag per reminder above it
+    private static final int DELIVERED_SHIFT = 8;
+    private static final int MAX_REMINDERS = Long.SIZE - DELIVERED_SHIFT;
+    private static final long PRESET_MASK = 0xFF;
+
+    /** The earliest and latest starts that fit the minute count, about the years -2113 and 6053. */
+    public static final LocalDateTime MIN_DATE_TIME = LocalDateTime.ofEpochSecond(Integer.MIN_VALUE * 60L, 0, ZoneOffset.UTC);
+    public static final LocalDateTime MAX_DATE_TIME = LocalDateTime.ofEpochSecond(Integer.MAX_VALUE * 60L, 0, ZoneOffset.UTC);
+
+    private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
+    // Description characters shown by toString(); the full text is in the edit dialog
+    private static final int PREVIEW_CHARS = 160;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+    private final long id;
+    private final int epochMinute;
+    private final String title;
+    private volatile Object description; // String, or StoredText once the text is kept outside the heap
+    private final int[] customReminders; // null when every reminder is a preset
+    private long state;
+
+    public Event(String title, LocalDateTime dateTime, String description, List<Integer> reminderMinutes) {
+        this(NEXT_ID.getAndIncrement(), title, dateTime, description, reminderMinutes);
+    }
+
+    public Event(long id, String title, LocalDateTime dateTime, String description, List<Integer> reminderMinutes) {
+        this(id, title, dateTime, (Object) (description.isEmpty() ? "" : description), reminderMinutes);
+    }
+
+    /** An event whose description is read from {@code description} when first needed. */
+    public Event(String title, LocalDateTime dateTime, StoredText description, List<Integer> reminderMinutes) {
+        this(NEXT_ID.getAndIncrement(), title, dateTime, description, reminderMinutes);
+    }
+
+    /** Like {@link #Event(String, LocalDateTime, StoredText, List)}, keeping the id of the event it replaces. */
+    public Event(long id, String title, LocalDateTime dateTime, StoredText description, List<Integer> reminderMinutes) {
+        this(id, title, dateTime, (Object) description, reminderMinutes);
+    }
+
+    private Event(long id, String title, LocalDateTime dateTime, Object description, List<Integer> reminderMinutes) {
+        this.id = id;
+        if (!isSupported(dateTime)) {
+            throw new IllegalArgumentException("date out of range (years " + MIN_DATE_TIME.getYear()
+                    + " to " + MAX_DATE_TIME.getYear() + "): " + dateTime);
+        }
+        this.epochMinute = (int) Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+        this.title = title.intern();
+        this.description = description;
+
+        int[] minutes = normalize(reminderMinutes);
+        long presetMask = 0;
+        for (int m : minutes) {
+            int preset = presetIndex(m);
+            if (preset < 0) {
+                presetMask = -1;
+                break;
+            }
+            presetMask |= 1L << preset;
+        }
+        this.customReminders = presetMask < 0 ? minutes : null;
+        this.state = presetMask < 0 ? 0 : presetMask;
+    }
+
+    /** Rebuilds an event from stored columns; the reminders are already normalised. */
+    Event(long id, int epochMinute, String title, Object description, long presetMask, int[] customReminders) {
+        this.id = id;
+        this.epochMinute = epochMinute;
+        this.title = title.intern();
+        this.description = description instanceof String text && text.isEmpty() ? "" : description;
+        this.customReminders = customReminders;
+        this.state = customReminders == null ? presetMask : 0;
+    }
+
+    /** Whether an event can start at {@code dateTime}; seconds are dropped, so the last minute counts whole. */
+    public static boolean isSupported(LocalDateTime dateTime) {
+        return !dateTime.isBefore(MIN_DATE_TIME) && dateTime.isBefore(MAX_DATE_TIME.plusMinutes(1));
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    /** Start as minutes since 1970-01-01T00:00 local time; the cheapest form to compare or sort on. */
+    public int getEpochMinute() {
+        return epochMinute;
+    }
+
+    public LocalDateTime getDateTime() {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60L, 0, ZoneOffset.UTC);
+    }
+
+    public LocalDate getDate() {
+        return LocalDate.ofEpochDay(Math.floorDiv(epochMinute, 1440));
+    }
+
+    /** The description; reads it from its {@link StoredText} if it is kept outside the heap. */
+    public String getDescription() {
+        Object held = description;
+        return held instanceof StoredText stored ? stored.text() : (String) held;
+    }
+
+    /** Whether there is a description, without reading it. */
+    public boolean hasDescription() {
+        return !(description instanceof String text) || !text.isEmpty();
+    }
+
+    /** The description's out-of-heap form, or {@code null} while it is held as a string. */
+    public StoredText getStoredDescription() {
+        return description instanceof StoredText stored ? stored : null;
+    }
+
+    /**
+     * Lets go of the description string once its text has been stored as {@code stored}; from then
+     * on it is read from there. Saving calls this, so text that is on disk is not also kept in memory.
+     */
+    public void storeDescription(StoredText stored) {
+        description = stored;
+    }
+
+    public List<Integer> getReminderMinutes() {
+        if (customReminders == null) {
+            return PRESET_LISTS.get((int) (state & PRESET_MASK));
+        }
+        return Arrays.stream(customReminders).boxed().toList();
+    }
+
+    public int getReminderCount() {
+        return customReminders == null ? Long.bitCount(state & PRESET_MASK) : customReminders.length;
+    }
+
+    /** Offset of the reminder at {@code reminderIndex} in {@link #getReminderMinutes()}, without boxing. */
+    public int getReminderMinutes(int reminderIndex) {
+        if (customReminders != null) {
+            return customReminders[reminderIndex];
+        }
+        long mask = state & PRESET_MASK;
+        for (int i = 0; i < reminderIndex; i++) {
+            mask &= mask - 1; // Drop the lowest set bit
+        }
+        if (mask == 0) {
+            throw new IndexOutOfBoundsException(reminderIndex);
+        }
+        return PRESET_MINUTES[Long.numberOfTrailingZeros(mask)];
+    }
+
+    /** The preset bitmask, or -1 if the reminders are held in {@link #customReminders()}. */
+    long presetMask() {
+        return customReminders == null ? state & PRESET_MASK : -1;
+    }
+
+    /** Normalised non-preset offsets, or {@code null}; shared, so callers must not modify it. */
+    int[] customReminders() {
+        return customReminders;
+    }
+
+    public synchronized boolean isNotified(int reminderIndex) {
+        return (state & deliveredBit(reminderIndex)) != 0;
+    }
+
+    public synchronized void markNotified(int reminderIndex) {
+        state |= deliveredBit(reminderIndex);
+    }
+
+    /**
+     * Rough retained size in bytes with compressed oops: the event, its description and any
+     * non-preset reminder array. Titles are interned and shared, so only their reference counts.
+     */
+    public long estimatedSize() {
+        long size = 48;                                                // Event
+        Object held = description;
+        if (held instanceof StoredText) {
+            size += 56;                                                // Reference and its tracking
+        } else if (!((String) held).isEmpty()) {
+            size += 24 + 16 + ((String) held).length();                // String and its byte array
+        }
+        if (customReminders != null) {
+            size += 16 + 4L * customReminders.length;                  // int[]
+        }
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return summary(PREVIEW_CHARS);
+    }
+
+    /**
+     * Time, title and reminders, with the start of the description up to {@code descriptionChars}
+     * characters on one line; 0 leaves the description out and does not read it.
+     */
+    public String summary(int descriptionChars) {
+        String time = getDateTime().format(TIME_FORMAT);
+        String reminders = getReminderMinutes().stream()
+                .map(m -> m == 0 ? "at time" : m + "min before")
+                .collect(Collectors.joining(", "));
+        String preview = "";
+        if (hasDescription()) {
+            if (descriptionChars > 0) {
+                String text = getDescription().replace('\n', ' ');
+                preview = "\n   " + (text.length() > descriptionChars ? text.substring(0, descriptionChars) + "…" : text);
+            } else {
+                preview = "\n   📝 Notes";
+            }
+        }
+        return "🕐 " + time + " - " + title + preview + "\n   📢 Reminders: " + reminders;
+    }
+
+    private long deliveredBit(int reminderIndex) {
+        if (reminderIndex < 0 || reminderIndex >= getReminderCount()) {
+            throw new IndexOutOfBoundsException(reminderIndex);
+        }
+        return 1L << (DELIVERED_SHIFT + reminderIndex);
+    }
+
+    // Unique offsets, largest first
+    private static int[] normalize(List<Integer> reminderMinutes) {
+        int[] minutes = new int[reminderMinutes.size()];
+        for (int i = 0; i < minutes.length; i++) {
+            minutes[i] = reminderMinutes.get(i);
+            if (minutes[i] < 0) {
+                throw new IllegalArgumentException("Reminder offsets must not be negative: " + minutes[i]);
+            }
+        }
+        Arrays.sort(minutes);
+        int[] descending = new int[minutes.length];
+        int unique = 0;
+        for (int i = minutes.length - 1; i >= 0; i--) {
+            if (unique == 0 || descending[unique - 1] != minutes[i]) {
+                descending[unique++] = minutes[i];
+            }
+        }
+        if (unique > MAX_REMINDERS) {
+            throw new IllegalArgumentException("At most " + MAX_REMINDERS + " reminders per event");
+        }
+        return unique == descending.length ? descending : Arrays.copyOf(descending, unique);
+    }
+
+    private static int presetIndex(int minutes) {
+        for (int i = 0; i < PRESET_MINUTES.length; i++) {
+            if (PRESET_MINUTES[i] == minutes) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // One shared immutable list per combination of presets
+    private static List<List<Integer>> presetLists() {
+        List<List<Integer>> lists = new ArrayList<>();
+        for (int mask = 0; mask < 1 << PRESET_MINUTES.length; mask++) {
+            List<Integer> minutes = new ArrayList<>();
+            for (int i = 0; i < PRESET_MINUTES.length; i++) {
+                if ((mask & (1 << i)) != 0) {
+                    minutes.add(PRESET_MINUTES[i]);
+                }
+            }
+            lists.add(List.copyOf(minutes));
+        }
+        return List.copyOf(lists);
+    }
+}
@@ -0,0 +1,77 @@
+package org.oogle.calender.model;
+
+import java.time.LocalDate;
+
+/**
+ * One typed mutation of the {@link EventModel}. For {@link Type#UPDATED} changes the previous
+ * instance and its date are kept so subscribers can drop whatever they derived from it.
+ */
+public final class EventChange {
+
+    public enum Type {
+        ADDED,
+        REMOVED,
+        UPDATED
+    }
+
+    private final Type type;
+    private final Event event;
+    private final Event previous;
+
+    private EventChange(Type type, Event event, Event previous) {
+        this.type = type;
+        this.event = event;
+        this.previous = previous;
+    }
+
+    static EventChange added(Event event) {
+        return new EventChange(Type.ADDED, event, null);
+    }
+
+    static EventChange removed(Event event) {
+        return new EventChange(Type.REMOVED, event, null);
+    }
+
+    static EventChange updated(Event previous, Event event) {
+        return new EventChange(Type.UPDATED, event, previous);
+    }
+
+    EventChange inverse() {
+        return switch (type) {
+            case ADDED -> removed(event);
+            case REMOVED -> added(event);
+            case UPDATED -> updated(event, previous);
+        };
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getEventId() {
+        return event.getId();
+    }
+
+    public LocalDate getDate() {
+        return event.getDate();
+    }
+
+    /** The event as it is after the change (the removed instance for {@link Type#REMOVED}). */
+    public Event getEvent() {
+        return event;
+    }
+
+    /** The replaced instance for {@link Type#UPDATED}, otherwise {@code null}. */
+    public Event getPrevious() {
+        return previous;
+    }
+
+    public LocalDate getPreviousDate() {
+        return previous != null ? previous.getDate() : null;
+    }
+
+    @Override
+    public String toString() {
+        return type + "#" + getEventId() + "@" + getDate();
+    }
+}
@@ -0,0 +1,293 @@
+package org.oogle.calender.model;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Events grouped by day, publishing a {@link ChangeSet} to its listeners after every mutation.
+ * Mutations made inside {@link #runBatch(Runnable)} are delivered together as one change set, so
+ * bulk operations such as imports cost subscribers a single refresh. Where the events are kept
+ * is chosen at construction, see {@link Storage}.
+ *
+ * <p>With the heap store every top-level mutation or batch also becomes an undo step. Steps keep
+ * the store versions from before and after the change, which share all untouched structure, so
+ * {@link #undo()} and {@link #redo()} restore a version in O(1) and deliver the inverse (or the
+ * original) change set, even for a whole import or "Replace All".
+ */
+public class EventModel {
+
+    /** Where the events are kept. */
+    public enum Storage {
+        /** Event objects in per-day lists; the default. */
+        HEAP,
+        /** Columns in direct buffers, events materialised on read; for multi-million-event calendars. */
+        OFF_HEAP
+    }
+
+    private final Storage storage;
+    private final EventStore store;
+    private final List<ModelListener> listeners = new CopyOnWriteArrayList<>();
+
+    private int batchDepth;
+    private boolean batchReset;
+    private List<EventChange> pending = new ArrayList<>();
+
+    private record HistoryStep(EventStore.Version before, EventStore.Version after, ChangeSet changes) {
+    }
+
+    private static final int MAX_HISTORY = 100;
+
+    private final Deque<HistoryStep> undoSteps = new ArrayDeque<>();
+    private final Deque<HistoryStep> redoSteps = new ArrayDeque<>();
+    private EventStore.Version stepStart;
+
+    public EventModel() {
+        this(Storage.HEAP);
+    }
+
+    public EventModel(Storage storage) {
+        this.storage = storage;
+        this.store = storage == Storage.OFF_HEAP ? new OffHeapEventStore() : new HeapEventStore();
+    }
+
+    public Storage getStorage() {
+        return storage;
+    }
+
+    public void addListener(ModelListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ModelListener listener) {
+        listeners.remove(listener);
+    }
+
+    public synchronized List<Event> eventsOn(LocalDate date) {
+        return store.eventsOn(date);
+    }
+
+    public synchronized int countOn(LocalDate date) {
+        return store.countOn(date);
+    }
+
+    /** The event currently stored under {@code id}, or {@code null}. */
+    public synchronized Event findById(long id) {
+        return store.findById(id);
+    }
+
+    /** Events from {@code from} to {@code to}, both inclusive, ordered by day. */
+    public synchronized List<Event> eventsBetween(LocalDate from, LocalDate to) {
+        List<Event> result = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            if (store.countOn(date) > 0) {
+                result.addAll(store.eventsOn(date));
+            }
+        }
+        return result;
+    }
+
+    public synchronized boolean hasEventsOn(LocalDate date) {
+        return store.countOn(date) > 0;
+    }
+
+    public synchronized Set<LocalDate> dates() {
+        return store.dates();
+    }
+
+    /** A copy of every event, in no particular order. */
+    public synchronized List<Event> allEvents() {
+        List<Event> all = new ArrayList<>(store.size());
+        store.forEach(all::add);
+        return all;
+    }
+
+    /** Passes every event to {@code action} under the model lock, without collecting them first. */
+    public synchronized void forEach(Consumer<Event> action) {
+        store.forEach(action);
+    }
+
+    /**
+     * The day buckets as they are now, safe to iterate while the model keeps changing. With the heap
+     * store this is a frozen version and costs O(1); the off-heap store copies its row numbers.
+     */
+    public synchronized Map<LocalDate, List<Event>> snapshot() {
+        return store.snapshot();
+    }
+
+    public synchronized int size() {
+        return store.size();
+    }
+
+    /** Estimated heap retained by the stored events; see {@link Event#estimatedSize()}. */
+    public synchronized long estimatedHeapBytes() {
+        return store.estimatedHeapBytes();
+    }
+
+    /** Direct memory reserved by an {@link Storage#OFF_HEAP} store; 0 for the heap store. */
+    public synchronized long offHeapBytes() {
+        return store.offHeapBytes();
+    }
+
+    public synchronized void add(Event event) {
+        beginStep();
+        store.insert(event);
+        record(EventChange.added(event));
+    }
+
+    public synchronized void addAll(Collection<Event> events) {
+        runBatch(() -> events.forEach(this::add));
+    }
+
+    /** Removes the given event; returns false if it is no longer part of the model. */
+    public synchronized boolean remove(Event event) {
+        beginStep();
+        if (!store.delete(event)) {
+            return false;
+        }
+        record(EventChange.removed(event));
+        return true;
+    }
+
+    /** Replaces {@code previous} with {@code updated}, moving it between days if the date changed. */
+    public synchronized boolean update(Event previous, Event updated) {
+        beginStep();
+        if (!store.delete(previous)) {
+            return false;
+        }
+        store.insert(updated);
+        record(EventChange.updated(previous, updated));
+        return true;
+    }
+
+    /** Replaces the whole model; listeners receive a single reset change set. */
+    public synchronized void replaceAll(Collection<Event> events) {
+        beginStep();
+        store.clear();
+        for (Event event : events) {
+            store.insert(event);
+        }
+        pending = new ArrayList<>();
+        batchReset = true;
+        if (batchDepth == 0) {
+            flush();
+        }
+    }
+
+    /**
+     * Runs {@code mutations} with notifications deferred; everything they change is delivered as
+     * one change set when the outermost batch completes.
+     */
+    public synchronized void runBatch(Runnable mutations) {
+        beginStep();
+        batchDepth++;
+        try {
+            mutations.run();
+        } finally {
+            batchDepth--;
+            if (batchDepth == 0) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Runs {@code reads} under the model lock, so several reads see the same state and no listener
+     * is notified in between.
+     */
+    public synchronized <T> T read(Supplier<T> reads) {
+        return reads.get();
+    }
+
+    private void record(EventChange change) {
+        pending.add(change);
+        if (batchDepth == 0) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        ChangeSet changes;
+        if (batchReset) {
+            changes = ChangeSet.reset();
+        } else if (!pending.isEmpty()) {
+            changes = ChangeSet.of(pending);
+        } else {
+            return;
+        }
+        batchReset = false;
+        pending = new ArrayList<>();
+        endStep(changes);
+        fire(changes);
+    }
+
+    public synchronized boolean canUndo() {
+        return !undoSteps.isEmpty();
+    }
+
+    public synchronized boolean canRedo() {
+        return !redoSteps.isEmpty();
+    }
+
+    /** Reverts the most recent undo step; returns false if there is none or a batch is running. */
+    public synchronized boolean undo() {
+        if (batchDepth > 0 || undoSteps.isEmpty()) {
+            return false;
+        }
+        HistoryStep step = undoSteps.pop();
+        store.restore(step.before());
+        redoSteps.push(step);
+        fire(step.changes().inverse());
+        return true;
+    }
+
+    /** Re-applies the most recently undone step; returns false if there is none or a batch is running. */
+    public synchronized boolean redo() {
+        if (batchDepth > 0 || redoSteps.isEmpty()) {
+            return false;
+        }
+        HistoryStep step = redoSteps.pop();
+        store.restore(step.after());
+        undoSteps.push(step);
+        fire(step.changes());
+        return true;
+    }
+
+    /** Forgets all undo and redo steps, e.g. once the initial load has finished. */
+    public synchronized void clearHistory() {
+        undoSteps.clear();
+        redoSteps.clear();
+    }
+
+    private void beginStep() {
+        if (batchDepth == 0) {
+            stepStart = store.version();
+        }
+    }
+
+    private void endStep(ChangeSet changes) {
+        if (stepStart == null) {
+            return; // The store keeps no versions
+        }
+        undoSteps.push(new HistoryStep(stepStart, store.version(), changes));
+        if (undoSteps.size() > MAX_HISTORY) {
+            undoSteps.removeLast();
+        }
+        redoSteps.clear();
+        stepStart = null;
+    }
+
+    private void fire(ChangeSet changes) {
+        for (ModelListener listener : listeners) {
+            listener.modelChanged(changes);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.oogle.calender.model;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Storage behind an {@link EventModel}. Calls are serialised by the model's lock; change
+ * notification and batching stay in the model.
+ */
+interface EventStore {
+
+    void insert(Event event);
+
+    /** Removes {@code event}; returns false if it is not stored. */
+    boolean delete(Event event);
+
+    void clear();
+
+    Event findById(long id);
+
+    /** A fresh list of the events on {@code date} by start time, equal times in insertion order. */
+    List<Event> eventsOn(LocalDate date);
+
+    int countOn(LocalDate date);
+
+    Set<LocalDate> dates();
+
+    void forEach(Consumer<Event> action);
+
+    /** Day buckets that stay valid while the store keeps changing. */
+    Map<LocalDate, List<Event>> snapshot();
+
+    /**
+     * Freezes the current contents and returns them as a handle for {@link #restore(Version)}, or
+     * {@code null} if this store cannot keep versions.
+     */
+    Version version();
+
+    /** Makes a version previously returned by {@link #version()} the current contents again. */
+    void restore(Version version);
+
+    int size();
+
+    long estimatedHeapBytes();
+
+    long offHeapBytes();
+
+    /** An immutable state of a store. */
+    interface Version {
+    }
+}
@@ -0,0 +1,260 @@
+package org.oogle.calender.model;
+
+import java.time.LocalDate;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Events kept as objects in per-day vectors inside persistent maps; the default store. Removal is
+ * by identity.
+ *
+ * <p>{@link #version()} freezes the current maps and day vectors and hands them out as they are,
+ * so a version costs O(1) to take and shares everything the next mutation does not touch. Between
+ * versions the store edits the nodes and vectors it created itself in place, which keeps a bulk
+ * import from copying a path per event.
+ */
+final class HeapEventStore implements EventStore {
+
+    private record State(PersistentMap<LocalDate, DayEvents> days, PersistentMap<Long, Event> byId,
+                         int size, long estimatedHeapBytes) implements Version {
+    }
+
+    /** Nodes and day vectors created under this token are private to the store until the next version. */
+    private Object edit = new Object();
+
+    private PersistentMap<LocalDate, DayEvents> days = PersistentMap.empty();
+    private PersistentMap<Long, Event> byId = PersistentMap.empty();
+
+    private int size;
+    private long estimatedHeapBytes;
+
+    @Override
+    public void insert(Event event) {
+        LocalDate date = event.getDate();
+        DayEvents day = days.get(date);
+        if (day == null || day.owner != edit) {
+            day = day == null ? new DayEvents(edit, new Event[4], 0) : day.copy(edit, day.size + 1);
+            days = days.put(date, day, edit);
+        }
+        day.insert(event);
+        byId = byId.put(event.getId(), event, edit);
+        size++;
+        estimatedHeapBytes += event.estimatedSize();
+    }
+
+    @Override
+    public boolean delete(Event event) {
+        LocalDate date = event.getDate();
+        DayEvents day = days.get(date);
+        int index = day == null ? -1 : day.indexOf(event);
+        if (index < 0) {
+            return false;
+        }
+        if (day.size == 1) {
+            days = days.remove(date, edit);
+        } else {
+            if (day.owner != edit) {
+                day = day.copy(edit, day.size);
+                days = days.put(date, day, edit);
+            }
+            day.removeAt(index);
+        }
+        if (byId.get(event.getId()) == event) {
+            byId = byId.remove(event.getId(), edit);
+        }
+        size--;
+        estimatedHeapBytes -= event.estimatedSize();
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        days = PersistentMap.empty();
+        byId = PersistentMap.empty();
+        size = 0;
+        estimatedHeapBytes = 0;
+    }
+
+    @Override
+    public Event findById(long id) {
+        return byId.get(id);
+    }
+
+    @Override
+    public List<Event> eventsOn(LocalDate date) {
+        DayEvents day = days.get(date);
+        if (day == null) {
+            return List.of();
+        }
+        // A frozen vector never changes again and can be handed out as it is
+        return day.owner == edit ? List.of(Arrays.copyOf(day.items, day.size)) : day.view();
+    }
+
+    @Override
+    public int countOn(LocalDate date) {
+        DayEvents day = days.get(date);
+        return day == null ? 0 : day.size;
+    }
+
+    @Override
+    public Set<LocalDate> dates() {
+        Set<LocalDate> dates = new HashSet<>(days.size() * 2);
+        days.forEach((date, day) -> dates.add(date));
+        return Collections.unmodifiableSet(dates);
+    }
+
+    @Override
+    public void forEach(Consumer<Event> action) {
+        days.forEach((date, day) -> {
+            for (int i = 0; i < day.size; i++) {
+                action.accept(day.items[i]);
+            }
+        });
+    }
+
+    @Override
+    public Map<LocalDate, List<Event>> snapshot() {
+        return new SnapshotMap(((State) version()).days());
+    }
+
+    @Override
+    public Version version() {
+        edit = new Object();
+        return new State(days, byId, size, estimatedHeapBytes);
+    }
+
+    @Override
+    public void restore(Version version) {
+        State state = (State) version;
+        edit = new Object();
+        days = state.days();
+        byId = state.byId();
+        size = state.size();
+        estimatedHeapBytes = state.estimatedHeapBytes();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long estimatedHeapBytes() {
+        return estimatedHeapBytes;
+    }
+
+    @Override
+    public long offHeapBytes() {
+        return 0;
+    }
+
+    /**
+     * The events of one day by start time, equal times in insertion order; changed in place only
+     * while owned by the current edit.
+     */
+    private static final class DayEvents {
+        final Object owner;
+        Event[] items;
+        int size;
+
+        DayEvents(Object owner, Event[] items, int size) {
+            this.owner = owner;
+            this.items = items;
+            this.size = size;
+        }
+
+        DayEvents copy(Object owner, int capacity) {
+            return new DayEvents(owner, Arrays.copyOf(items, Math.max(capacity, size)), size);
+        }
+
+        void insert(Event event) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, Math.max(4, size + (size >> 1)));
+            }
+            // After every event that starts no later, found by binary search
+            int start = event.getEpochMinute();
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (items[mid].getEpochMinute() <= start) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            System.arraycopy(items, low, items, low + 1, size - low);
+            items[low] = event;
+            size++;
+        }
+
+        void removeAt(int index) {
+            System.arraycopy(items, index + 1, items, index, size - index - 1);
+            items[--size] = null;
+        }
+
+        int indexOf(Event event) {
+            for (int i = 0; i < size; i++) {
+                if (items[i] == event) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        List<Event> view() {
+            return Collections.unmodifiableList(Arrays.asList(items).subList(0, size));
+        }
+    }
+
+    /** Read-only map over a frozen version of the day buckets. */
+    private static final class SnapshotMap extends AbstractMap<LocalDate, List<Event>> {
+        private final PersistentMap<LocalDate, DayEvents> days;
+
+        SnapshotMap(PersistentMap<LocalDate, DayEvents> days) {
+            this.days = days;
+        }
+
+        @Override
+        public List<Event> get(Object key) {
+            DayEvents day = key instanceof LocalDate ? days.get(key) : null;
+            return day == null ? null : day.view();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof LocalDate && days.get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return days.size();
+        }
+
+        @Override
+        public Set<Entry<LocalDate, List<Event>>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<LocalDate, List<Event>>> iterator() {
+                    List<Entry<LocalDate, List<Event>>> entries = new ArrayList<>(days.size());
+                    days.forEach((date, day) -> entries.add(new SimpleImmutableEntry<>(date, day.view())));
+                    return Collections.unmodifiableList(entries).iterator();
+                }
+
+                @Override
+                public int size() {
+                    return days.size();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package org.oogle.calender.model;
+
+/**
+ * Subscriber to {@link EventModel} mutations. Called on the thread that performed the mutation,
+ * once per committed batch.
+ */
+@FunctionalInterface
+public interface ModelListener {
+
+    void modelChanged(ChangeSet changes);
+}
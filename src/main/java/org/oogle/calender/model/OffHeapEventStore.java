@@ -0,0 +1,465 @@
+package org.oogle.calender.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Columnar store for calendars of millions of events. Each event is a row in direct buffers
+ * (id, start minute, reminder mask, and references into an off-heap UTF-8 text area holding
+ * titles and descriptions), ids are looked up in an off-heap hash table, and the heap only keeps
+ * a per-day list of row numbers. {@link Event} objects are created for the rows actually read,
+ * such as the selected day, so heap size and GC work stay flat as the calendar grows.
+ *
+ * <p>Rows are append-only. Removing an event unlinks its row, and once dead rows outnumber live
+ * ones the live rows are copied into fresh buffers. Snapshots keep the buffers they were taken
+ * from, so they stay readable across later inserts, growth and compaction. Removal matches by
+ * id and start time rather than identity, since callers hold materialised copies. Reminder
+ * delivery flags are not stored; they live on the instances the reminder scheduler holds.
+ *
+ * <p>Descriptions kept as {@link StoredText} stay that way: the reference is held on the side,
+ * keyed by row like custom reminders, and the text is not copied into the text area. A
+ * description stored by a save after its event was inserted is not seen here, since saving
+ * works on materialised copies, so such a description is appended again by the next save.
+ */
+final class OffHeapEventStore implements EventStore {
+
+    private static final int INITIAL_ROWS = 1024;
+    private static final int INITIAL_TEXT_BYTES = 64 * 1024;
+    private static final int MAX_BUFFER_BYTES = Integer.MAX_VALUE - 8;
+    private static final int TITLE_CACHE_SIZE = 4096;
+    private static final int COMPACT_MIN_DEAD_ROWS = 4096;
+
+    private Columns columns = new Columns(INITIAL_ROWS, INITIAL_TEXT_BYTES);
+    private IdTable idTable = new IdTable(INITIAL_ROWS * 2);
+    private final Map<Integer, RowList> days = new HashMap<>(); // Keyed by epoch day
+    private Map<Integer, int[]> customReminders = new HashMap<>(); // Rare, keyed by row
+    private Map<Integer, StoredText> storedDescriptions = new HashMap<>(); // Keyed by row
+
+    // Recently stored titles, so repeated titles share their bytes in the text area
+    private final Map<String, Long> titleRefs = new LinkedHashMap<>(TITLE_CACHE_SIZE * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > TITLE_CACHE_SIZE;
+        }
+    };
+
+    private int size;
+    private int deadRows;
+
+    @Override
+    public void insert(Event event) {
+        if (columns.rows == columns.rowCapacity) {
+            columns = columns.copy(grownCapacity(columns.rowCapacity, columns.rowCapacity + 1, Long.BYTES),
+                    columns.text.capacity());
+        }
+        int row = columns.rows++;
+        long mask = event.presetMask();
+        columns.ids.putLong(row << 3, event.getId());
+        columns.starts.putInt(row << 2, event.getEpochMinute());
+        columns.masks.putLong(row << 3, mask);
+        columns.titles.putLong(row << 3, titleRef(event.getTitle()));
+        StoredText stored = event.getStoredDescription();
+        if (stored != null) {
+            columns.descriptions.putLong(row << 3, 0);
+            storedDescriptions.put(row, stored);
+        } else {
+            columns.descriptions.putLong(row << 3, appendText(event.getDescription()));
+        }
+        if (mask < 0) {
+            customReminders.put(row, event.customReminders());
+        }
+
+        days.computeIfAbsent(epochDay(event.getEpochMinute()), k -> new RowList()).insert(row, columns.starts);
+        if (idTable.size * 2 >= idTable.capacity) {
+            idTable = idTable.grown();
+        }
+        idTable.put(event.getId(), row);
+        size++;
+    }
+
+    @Override
+    public boolean delete(Event event) {
+        int row = idTable.get(event.getId());
+        if (row < 0 || columns.starts.getInt(row << 2) != event.getEpochMinute()) {
+            return false;
+        }
+        int day = epochDay(event.getEpochMinute());
+        RowList dayRows = days.get(day);
+        dayRows.remove(row);
+        if (dayRows.size == 0) {
+            days.remove(day);
+        }
+        idTable.remove(event.getId());
+        customReminders.remove(row);
+        storedDescriptions.remove(row);
+        size--;
+        deadRows++;
+        if (deadRows >= COMPACT_MIN_DEAD_ROWS && deadRows > size) {
+            compact();
+        }
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        columns = new Columns(INITIAL_ROWS, INITIAL_TEXT_BYTES);
+        idTable = new IdTable(INITIAL_ROWS * 2);
+        days.clear();
+        customReminders = new HashMap<>();
+        storedDescriptions = new HashMap<>();
+        titleRefs.clear();
+        size = 0;
+        deadRows = 0;
+    }
+
+    @Override
+    public Event findById(long id) {
+        int row = idTable.get(id);
+        return row < 0 ? null : read(columns, row, customReminders, storedDescriptions);
+    }
+
+    @Override
+    public List<Event> eventsOn(LocalDate date) {
+        RowList dayRows = days.get((int) date.toEpochDay());
+        if (dayRows == null) {
+            return List.of();
+        }
+        List<Event> events = new ArrayList<>(dayRows.size);
+        for (int i = 0; i < dayRows.size; i++) {
+            events.add(read(columns, dayRows.rows[i], customReminders, storedDescriptions));
+        }
+        return events;
+    }
+
+    @Override
+    public int countOn(LocalDate date) {
+        RowList dayRows = days.get((int) date.toEpochDay());
+        return dayRows == null ? 0 : dayRows.size;
+    }
+
+    @Override
+    public Set<LocalDate> dates() {
+        Set<LocalDate> dates = new HashSet<>(days.size() * 2);
+        for (int day : days.keySet()) {
+            dates.add(LocalDate.ofEpochDay(day));
+        }
+        return dates;
+    }
+
+    @Override
+    public void forEach(Consumer<Event> action) {
+        for (RowList dayRows : days.values()) {
+            for (int i = 0; i < dayRows.size; i++) {
+                action.accept(read(columns, dayRows.rows[i], customReminders, storedDescriptions));
+            }
+        }
+    }
+
+    /** Copies only the row numbers; events are materialised as the snapshot is iterated. */
+    @Override
+    public Map<LocalDate, List<Event>> snapshot() {
+        Columns view = columns;
+        Map<Integer, int[]> customs = customReminders.isEmpty() ? Map.of() : new HashMap<>(customReminders);
+        Map<Integer, StoredText> stored = storedDescriptions.isEmpty() ? Map.of() : new HashMap<>(storedDescriptions);
+        Map<LocalDate, List<Event>> snapshot = new HashMap<>(days.size() * 2);
+        for (Map.Entry<Integer, RowList> entry : days.entrySet()) {
+            int[] rows = Arrays.copyOf(entry.getValue().rows, entry.getValue().size);
+            snapshot.put(LocalDate.ofEpochDay(entry.getKey()), new AbstractList<>() {
+                @Override
+                public Event get(int index) {
+                    return read(view, rows[index], customs, stored);
+                }
+
+                @Override
+                public int size() {
+                    return rows.length;
+                }
+            });
+        }
+        return snapshot;
+    }
+
+    /** Not supported: the day index and id table are updated in place, so there is no undo history. */
+    @Override
+    public Version version() {
+        return null;
+    }
+
+    @Override
+    public void restore(Version version) {
+        throw new UnsupportedOperationException("The off-heap store does not keep versions");
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /** Row numbers in the day index plus per-day, custom-reminder, stored-description and title cache entries. */
+    @Override
+    public long estimatedHeapBytes() {
+        return 4L * size + 96L * days.size() + 96L * customReminders.size() + 96L * storedDescriptions.size()
+                + 96L * titleRefs.size();
+    }
+
+    @Override
+    public long offHeapBytes() {
+        return columns.offHeapBytes() + (long) idTable.capacity * IdTable.SLOT_BYTES;
+    }
+
+    private static Event read(Columns columns, int row, Map<Integer, int[]> customs, Map<Integer, StoredText> stored) {
+        long mask = columns.masks.getLong(row << 3);
+        StoredText description = stored.isEmpty() ? null : stored.get(row);
+        return new Event(columns.ids.getLong(row << 3), columns.starts.getInt(row << 2),
+                columns.readText(columns.titles.getLong(row << 3)),
+                description != null ? description : columns.readText(columns.descriptions.getLong(row << 3)),
+                mask, mask < 0 ? customs.get(row) : null);
+    }
+
+    private long titleRef(String title) {
+        Long ref = titleRefs.get(title);
+        if (ref == null) {
+            ref = appendText(title);
+            titleRefs.put(title, ref);
+        }
+        return ref;
+    }
+
+    // Text references pack the byte offset into the high and the length into the low 32 bits
+    private long appendText(String text) {
+        if (text.isEmpty()) {
+            return 0;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if ((long) columns.textEnd + bytes.length > columns.text.capacity()) {
+            columns = columns.copy(columns.rowCapacity,
+                    grownCapacity(columns.text.capacity(), (long) columns.textEnd + bytes.length, 1));
+        }
+        int offset = columns.textEnd;
+        columns.text.put(offset, bytes);
+        columns.textEnd += bytes.length;
+        return (long) offset << 32 | bytes.length;
+    }
+
+    // Doubles until {@code required} fits, limited by the largest direct buffer of this element size
+    private static int grownCapacity(int current, long required, int elementBytes) {
+        long limit = MAX_BUFFER_BYTES / elementBytes;
+        if (required > limit) {
+            throw new IllegalStateException("Off-heap event store is full");
+        }
+        long capacity = Math.max(current, 1);
+        while (capacity < required) {
+            capacity *= 2;
+        }
+        return (int) Math.min(capacity, limit);
+    }
+
+    /** Copies the live rows into fresh buffers in day order; the old ones are freed by GC. */
+    private void compact() {
+        Columns old = columns;
+        Map<Integer, int[]> oldCustoms = customReminders;
+        Map<Integer, StoredText> oldStored = storedDescriptions;
+        columns = new Columns(Math.max(INITIAL_ROWS, size + size / 2), Math.max(INITIAL_TEXT_BYTES, old.textEnd / 2));
+        idTable = new IdTable(Math.max(INITIAL_ROWS * 2, size * 3));
+        customReminders = new HashMap<>();
+        storedDescriptions = new HashMap<>();
+        titleRefs.clear();
+        size = 0;
+        deadRows = 0;
+
+        List<Map.Entry<Integer, RowList>> entries = new ArrayList<>(days.entrySet());
+        days.clear();
+        for (Map.Entry<Integer, RowList> entry : entries) {
+            RowList dayRows = entry.getValue();
+            for (int i = 0; i < dayRows.size; i++) {
+                insert(read(old, dayRows.rows[i], oldCustoms, oldStored));
+            }
+        }
+    }
+
+    private static int epochDay(int epochMinute) {
+        return Math.floorDiv(epochMinute, 1440);
+    }
+
+    /** The row buffers and text area of one generation of the store. */
+    private static final class Columns {
+        final int rowCapacity;
+        final ByteBuffer ids;           // long per row
+        final ByteBuffer starts;        // int per row, minutes since the epoch
+        final ByteBuffer masks;         // long per row, preset mask or -1 for custom reminders
+        final ByteBuffer titles;        // long per row, text reference
+        final ByteBuffer descriptions;  // long per row, text reference
+        final ByteBuffer text;
+        int rows;
+        int textEnd;
+
+        Columns(int rowCapacity, int textCapacity) {
+            this.rowCapacity = rowCapacity;
+            ids = allocate(rowCapacity * Long.BYTES);
+            starts = allocate(rowCapacity * Integer.BYTES);
+            masks = allocate(rowCapacity * Long.BYTES);
+            titles = allocate(rowCapacity * Long.BYTES);
+            descriptions = allocate(rowCapacity * Long.BYTES);
+            text = allocate(textCapacity);
+        }
+
+        Columns copy(int newRowCapacity, int newTextCapacity) {
+            Columns copy = new Columns(newRowCapacity, newTextCapacity);
+            copy.ids.put(0, ids, 0, rows * Long.BYTES);
+            copy.starts.put(0, starts, 0, rows * Integer.BYTES);
+            copy.masks.put(0, masks, 0, rows * Long.BYTES);
+            copy.titles.put(0, titles, 0, rows * Long.BYTES);
+            copy.descriptions.put(0, descriptions, 0, rows * Long.BYTES);
+            copy.text.put(0, text, 0, textEnd);
+            copy.rows = rows;
+            copy.textEnd = textEnd;
+            return copy;
+        }
+
+        String readText(long ref) {
+            int length = (int) ref;
+            if (length == 0) {
+                return "";
+            }
+            byte[] bytes = new byte[length];
+            text.get((int) (ref >>> 32), bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        long offHeapBytes() {
+            return (long) rowCapacity * (4 * Long.BYTES + Integer.BYTES) + text.capacity();
+        }
+
+        private static ByteBuffer allocate(int bytes) {
+            return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /** Open-addressing id to row table in a direct buffer, with backward-shift deletion. */
+    private static final class IdTable {
+        static final int SLOT_BYTES = 12; // long id, int row + 1 (0 marks an empty slot)
+
+        final int capacity;
+        final ByteBuffer slots;
+        private final int mask;
+        int size;
+
+        IdTable(int minCapacity) {
+            capacity = Integer.highestOneBit(Math.max(16, minCapacity - 1)) << 1;
+            mask = capacity - 1;
+            slots = ByteBuffer.allocateDirect(capacity * SLOT_BYTES).order(ByteOrder.nativeOrder());
+        }
+
+        int get(long id) {
+            for (int slot = home(id); ; slot = (slot + 1) & mask) {
+                int row = slots.getInt(slot * SLOT_BYTES + 8);
+                if (row == 0) {
+                    return -1;
+                }
+                if (slots.getLong(slot * SLOT_BYTES) == id) {
+                    return row - 1;
+                }
+            }
+        }
+
+        void put(long id, int row) {
+            int slot = home(id);
+            while (slots.getInt(slot * SLOT_BYTES + 8) != 0 && slots.getLong(slot * SLOT_BYTES) != id) {
+                slot = (slot + 1) & mask;
+            }
+            if (slots.getInt(slot * SLOT_BYTES + 8) == 0) {
+                size++;
+            }
+            slots.putLong(slot * SLOT_BYTES, id);
+            slots.putInt(slot * SLOT_BYTES + 8, row + 1);
+        }
+
+        void remove(long id) {
+            int hole = home(id);
+            while (true) {
+                if (slots.getInt(hole * SLOT_BYTES + 8) == 0) {
+                    return;
+                }
+                if (slots.getLong(hole * SLOT_BYTES) == id) {
+                    break;
+                }
+                hole = (hole + 1) & mask;
+            }
+            // Pull back later entries of the same probe run so lookups never stop at the hole
+            for (int slot = (hole + 1) & mask; slots.getInt(slot * SLOT_BYTES + 8) != 0; slot = (slot + 1) & mask) {
+                int home = home(slots.getLong(slot * SLOT_BYTES));
+                if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                    slots.putLong(hole * SLOT_BYTES, slots.getLong(slot * SLOT_BYTES));
+                    slots.putInt(hole * SLOT_BYTES + 8, slots.getInt(slot * SLOT_BYTES + 8));
+                    hole = slot;
+                }
+            }
+            slots.putInt(hole * SLOT_BYTES + 8, 0);
+            size--;
+        }
+
+        IdTable grown() {
+            IdTable grown = new IdTable(capacity * 2);
+            for (int slot = 0; slot < capacity; slot++) {
+                int row = slots.getInt(slot * SLOT_BYTES + 8);
+                if (row != 0) {
+                    grown.put(slots.getLong(slot * SLOT_BYTES), row - 1);
+                }
+            }
+            return grown;
+        }
+
+        private int home(long id) {
+            long hash = id * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+    }
+
+    /** Row numbers of one day by start time, equal times in insertion order. */
+    private static final class RowList {
+        int[] rows = new int[4];
+        int size;
+
+        void insert(int row, ByteBuffer starts) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            int start = starts.getInt(row << 2);
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (starts.getInt(rows[mid] << 2) <= start) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            System.arraycopy(rows, low, rows, low + 1, size - low);
+            rows[low] = row;
+            size++;
+        }
+
+        void remove(int row) {
+            for (int i = 0; i < size; i++) {
+                if (rows[i] == row) {
+                    System.arraycopy(rows, i + 1, rows, i, size - i - 1);
+                    size--;
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package org.oogle.calender.model;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable hash array mapped trie: updates copy only the path to the changed entry, so every
+ * version shares all untouched nodes with its predecessor and costs O(log n) to produce.
+ *
+ * <p>Updates take an edit token. Nodes created under a token are still private to the writer and
+ * are changed in place by later updates with the same token, which keeps bulk inserts from
+ * copying the same path over and over. A writer must switch to a fresh token before it hands a
+ * version to anyone else; from then on that version is never modified.
+ */
+final class PersistentMap<K, V> {
+
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(Object key) {
+        return root == null ? null : (V) root.find(0, hash(key), key);
+    }
+
+    PersistentMap<K, V> put(K key, V value, Object edit) {
+        boolean[] added = new boolean[1];
+        Node base = root == null ? BitmapNode.EMPTY : root;
+        Node newRoot = base.put(edit, 0, hash(key), key, value, added);
+        if (newRoot == root && !added[0]) {
+            return this;
+        }
+        return new PersistentMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    PersistentMap<K, V> remove(Object key, Object edit) {
+        if (root == null) {
+            return this;
+        }
+        boolean[] removed = new boolean[1];
+        Node newRoot = root.remove(edit, 0, hash(key), key, removed);
+        if (!removed[0]) {
+            return this;
+        }
+        return new PersistentMap<>(newRoot, size - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    void forEach(BiConsumer<? super K, ? super V> action) {
+        if (root != null) {
+            root.forEach((BiConsumer<Object, Object>) action);
+        }
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private abstract static class Node {
+        final Object owner;
+
+        Node(Object owner) {
+            this.owner = owner;
+        }
+
+        abstract Object find(int shift, int hash, Object key);
+
+        abstract Node put(Object edit, int shift, int hash, Object key, Object value, boolean[] added);
+
+        /** Returns the updated node, or {@code null} once it holds nothing. */
+        abstract Node remove(Object edit, int shift, int hash, Object key, boolean[] removed);
+
+        abstract void forEach(BiConsumer<Object, Object> action);
+    }
+
+    /**
+     * Up to 32 slots selected by five bits of the hash. Slots are stored as key/value pairs;
+     * a {@code null} key means the value is a child node.
+     */
+    private static final class BitmapNode extends Node {
+        static final BitmapNode EMPTY = new BitmapNode(null, 0, new Object[0]);
+
+        int bitmap;
+        Object[] array;
+
+        BitmapNode(Object owner, int bitmap, Object[] array) {
+            super(owner);
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        private BitmapNode editable(Object edit) {
+            return owner == edit ? this : new BitmapNode(edit, bitmap, array.clone());
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int bit = 1 << ((hash >>> shift) & 31);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            int idx = index(bit);
+            Object k = array[2 * idx];
+            Object v = array[2 * idx + 1];
+            if (k == null) {
+                return ((Node) v).find(shift + 5, hash, key);
+            }
+            return key.equals(k) ? v : null;
+        }
+
+        @Override
+        Node put(Object edit, int shift, int hash, Object key, Object value, boolean[] added) {
+            int bit = 1 << ((hash >>> shift) & 31);
+            int idx = index(bit);
+            if ((bitmap & bit) != 0) {
+                Object k = array[2 * idx];
+                Object v = array[2 * idx + 1];
+                if (k == null) {
+                    Node child = ((Node) v).put(edit, shift + 5, hash, key, value, added);
+                    if (child == v) {
+                        return this;
+                    }
+                    BitmapNode node = editable(edit);
+                    node.array[2 * idx + 1] = child;
+                    return node;
+                }
+                if (key.equals(k)) {
+                    if (v == value) {
+                        return this;
+                    }
+                    BitmapNode node = editable(edit);
+                    node.array[2 * idx + 1] = value;
+                    return node;
+                }
+                added[0] = true;
+                Node child = createNode(edit, shift + 5, k, v, hash, key, value);
+                BitmapNode node = editable(edit);
+                node.array[2 * idx] = null;
+                node.array[2 * idx + 1] = child;
+                return node;
+            }
+
+            added[0] = true;
+            int count = Integer.bitCount(bitmap);
+            Object[] grown = new Object[2 * (count + 1)];
+            System.arraycopy(array, 0, grown, 0, 2 * idx);
+            grown[2 * idx] = key;
+            grown[2 * idx + 1] = value;
+            System.arraycopy(array, 2 * idx, grown, 2 * (idx + 1), 2 * (count - idx));
+            if (owner == edit) {
+                bitmap |= bit;
+                array = grown;
+                return this;
+            }
+            return new BitmapNode(edit, bitmap | bit, grown);
+        }
+
+        @Override
+        Node remove(Object edit, int shift, int hash, Object key, boolean[] removed) {
+            int bit = 1 << ((hash >>> shift) & 31);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int idx = index(bit);
+            Object k = array[2 * idx];
+            Object v = array[2 * idx + 1];
+            if (k == null) {
+                Node child = ((Node) v).remove(edit, shift + 5, hash, key, removed);
+                if (child == v) {
+                    return this;
+                }
+                if (child != null) {
+                    BitmapNode node = editable(edit);
+                    node.array[2 * idx + 1] = child;
+                    return node;
+                }
+            } else if (key.equals(k)) {
+                removed[0] = true;
+            } else {
+                return this;
+            }
+
+            // The slot is gone: either its entry was removed or its child became empty
+            if (bitmap == bit) {
+                return null;
+            }
+            int count = Integer.bitCount(bitmap);
+            Object[] shrunk = new Object[2 * (count - 1)];
+            System.arraycopy(array, 0, shrunk, 0, 2 * idx);
+            System.arraycopy(array, 2 * (idx + 1), shrunk, 2 * idx, 2 * (count - idx - 1));
+            if (owner == edit) {
+                bitmap ^= bit;
+                array = shrunk;
+                return this;
+            }
+            return new BitmapNode(edit, bitmap ^ bit, shrunk);
+        }
+
+        @Override
+        void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i] == null) {
+                    ((Node) array[i + 1]).forEach(action);
+                } else {
+                    action.accept(array[i], array[i + 1]);
+                }
+            }
+        }
+
+        private static Node createNode(Object edit, int shift, Object key1, Object value1,
+                                       int hash2, Object key2, Object value2) {
+            int hash1 = hash(key1);
+            if (hash1 == hash2) {
+                return new CollisionNode(edit, hash1, new Object[]{key1, value1, key2, value2});
+            }
+            boolean[] added = new boolean[1];
+            return EMPTY.put(edit, shift, hash1, key1, value1, added)
+                    .put(edit, shift, hash2, key2, value2, added);
+        }
+    }
+
+    /** Keys whose full hashes are equal, as key/value pairs. */
+    private static final class CollisionNode extends Node {
+        final int hash;
+        Object[] array;
+
+        CollisionNode(Object owner, int hash, Object[] array) {
+            super(owner);
+            this.hash = hash;
+            this.array = array;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int i = indexOf(key);
+            return i < 0 ? null : array[i + 1];
+        }
+
+        @Override
+        Node put(Object edit, int shift, int hash, Object key, Object value, boolean[] added) {
+            if (hash != this.hash) {
+                // Push this node one level down next to the new key
+                Node parent = new BitmapNode(edit, 1 << ((this.hash >>> shift) & 31), new Object[]{null, this});
+                return parent.put(edit, shift, hash, key, value, added);
+            }
+            int i = indexOf(key);
+            if (i >= 0) {
+                if (array[i + 1] == value) {
+                    return this;
+                }
+                Object[] copy = owner == edit ? array : array.clone();
+                copy[i + 1] = value;
+                return owner == edit ? this : new CollisionNode(edit, hash, copy);
+            }
+            added[0] = true;
+            Object[] grown = new Object[array.length + 2];
+            System.arraycopy(array, 0, grown, 0, array.length);
+            grown[array.length] = key;
+            grown[array.length + 1] = value;
+            if (owner == edit) {
+                array = grown;
+                return this;
+            }
+            return new CollisionNode(edit, hash, grown);
+        }
+
+        @Override
+        Node remove(Object edit, int shift, int hash, Object key, boolean[] removed) {
+            int i = indexOf(key);
+            if (i < 0) {
+                return this;
+            }
+            removed[0] = true;
+            if (array.length == 2) {
+                return null;
+            }
+            Object[] shrunk = new Object[array.length - 2];
+            System.arraycopy(array, 0, shrunk, 0, i);
+            System.arraycopy(array, i + 2, shrunk, i, array.length - i - 2);
+            if (owner == edit) {
+                array = shrunk;
+                return this;
+            }
+            return new CollisionNode(edit, hash, shrunk);
+        }
+
+        @Override
+        void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                action.accept(array[i], array[i + 1]);
+            }
+        }
+    }
+}
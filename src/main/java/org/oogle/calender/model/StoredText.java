@@ -0,0 +1,14 @@
+package org.oogle.calender.model;
+
+/**
+ * Text kept outside the heap, such as a long description in the data file's description segment.
+ * An event holding one carries only this small reference; the text is read when asked for.
+ */
+public interface StoredText {
+
+    /** The text, read from wherever it is stored if it is not cached. */
+    String text();
+
+    /** The stored size in bytes; what the text would cost if it were held in memory. */
+    int storedBytes();
+}
@@ -0,0 +1,91 @@
+package org.oogle.calender.notes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The lightweight markup of event descriptions, one line at a time: a line starting with
+ * {@code -}, {@code *} or {@code •} is a bullet, {@code [ ]} and {@code [x]} at its start (after
+ * any bullet) are checkboxes, and {@code http://}, {@code https://} and {@code www.} addresses
+ * anywhere are links. The text itself is never changed; markup only decides how it is shown.
+ *
+ * <p>Lines are independent, so after an edit only the changed lines need parsing again.
+ */
+public final class NoteMarkup {
+
+    public enum Kind {
+        BULLET,
+        CHECKBOX,
+        CHECKED,
+        /** The rest of a checked line. */
+        DONE,
+        LINK
+    }
+
+    /** A marked stretch of a line, from {@code start} inclusive to {@code end} exclusive. */
+    public record Span(Kind kind, int start, int end) {
+    }
+
+    private static final Pattern LINK = Pattern.compile("\\b(?:https?://|www\\.)[^\\s<>\"]+");
+    private static final String TRAILING_PUNCTUATION = ".,;:!?)]}'";
+
+    private NoteMarkup() {
+    }
+
+    /** The marked spans of {@code line} in order, without overlaps; empty for plain text. */
+    public static List<Span> parse(String line) {
+        int i = 0;
+        while (i < line.length() && (line.charAt(i) == ' ' || line.charAt(i) == '\t')) {
+            i++;
+        }
+        List<Span> spans = new ArrayList<>(0);
+        if (i + 1 < line.length() && "-*•".indexOf(line.charAt(i)) >= 0 && line.charAt(i + 1) == ' ') {
+            spans.add(new Span(Kind.BULLET, i, i + 1));
+            i += 2;
+        }
+        boolean checked = false;
+        if (line.startsWith("[ ]", i) || line.startsWith("[x]", i) || line.startsWith("[X]", i)) {
+            checked = line.charAt(i + 1) != ' ';
+            spans.add(new Span(checked ? Kind.CHECKED : Kind.CHECKBOX, i, i + 3));
+            i += 3;
+        }
+
+        // Links cut the done stretch of a checked line into pieces
+        int from = i;
+        if (line.indexOf("://", from) >= 0 || line.indexOf("www.", from) >= 0) {
+            Matcher links = LINK.matcher(line);
+            while (links.find(from)) {
+                int end = links.end();
+                while (end > links.start() && TRAILING_PUNCTUATION.indexOf(line.charAt(end - 1)) >= 0) {
+                    end--;
+                }
+                if (checked && links.start() > from) {
+                    spans.add(new Span(Kind.DONE, from, links.start()));
+                }
+                spans.add(new Span(Kind.LINK, links.start(), end));
+                from = end;
+            }
+        }
+        if (checked && from < line.length()) {
+            spans.add(new Span(Kind.DONE, from, line.length()));
+        }
+        return spans;
+    }
+
+    /** The span of {@code spans} covering {@code column}, or {@code null}. */
+    public static Span at(List<Span> spans, int column) {
+        for (Span span : spans) {
+            if (column >= span.start() && column < span.end()) {
+                return span;
+            }
+        }
+        return null;
+    }
+
+    /** The address a link's text points to; {@code www.} links get {@code https://}. */
+    public static String target(String link) {
+        return link.startsWith("www.") ? "https://" + link : link;
+    }
+}
@@ -0,0 +1,238 @@
+package org.oogle.calender.query;
+
+import org.oogle.calender.model.Event;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+
+/**
+ * An immutable description of which events to fetch, built fluently from {@link #all()}: every
+ * call returns a new query with one more condition, and all conditions must hold. Run it with a
+ * {@link QueryEngine}, which picks the cheapest way to find the candidates; as a plain
+ * {@link Predicate} it checks a single event.
+ *
+ * <pre>{@code
+ * EventQuery thisWeek = EventQuery.all().between(monday, monday.plusDays(6)).matching("review");
+ * List<Event> events = engine.list(thisWeek.withReminders().limit(50));
+ * }</pre>
+ */
+public final class EventQuery implements Predicate<Event> {
+
+    private static final EventQuery ALL = new EventQuery();
+
+    static final int LAST_MINUTE = 24 * 60 - 1;
+
+    private LocalDate from; // Inclusive; null when the dates are not restricted
+    private LocalDate to;
+    private int fromMinute; // Minute of day, inclusive
+    private int toMinute = LAST_MINUTE;
+    private List<String> words = List.of();
+    private Boolean reminders; // null: either
+    private long limit = Long.MAX_VALUE;
+    private boolean parallel;
+
+    private EventQuery() {
+    }
+
+    /** Every event. */
+    public static EventQuery all() {
+        return ALL;
+    }
+
+    /** Events from {@code from} to {@code to}, both inclusive. */
+    public EventQuery between(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException(to + " is before " + from);
+        }
+        EventQuery query = copy();
+        query.from = from;
+        query.to = to;
+        return query;
+    }
+
+    public EventQuery on(LocalDate date) {
+        return between(date, date);
+    }
+
+    /** Events starting from {@code from} to {@code to} on their day, both inclusive. */
+    public EventQuery timeOfDay(LocalTime from, LocalTime to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException(to + " is before " + from);
+        }
+        EventQuery query = copy();
+        query.fromMinute = from.getHour() * 60 + from.getMinute();
+        query.toMinute = to.getHour() * 60 + to.getMinute();
+        return query;
+    }
+
+    /**
+     * Events whose title or description has, for each word of {@code text}, a word starting with
+     * it, ignoring case: "rev dem" matches "Sprint review" with "demo" in its notes. Blank text
+     * matches everything.
+     */
+    public EventQuery matching(String text) {
+        EventQuery query = copy();
+        query.words = words(text);
+        return query;
+    }
+
+    public EventQuery withReminders() {
+        EventQuery query = copy();
+        query.reminders = Boolean.TRUE;
+        return query;
+    }
+
+    public EventQuery withoutReminders() {
+        EventQuery query = copy();
+        query.reminders = Boolean.FALSE;
+        return query;
+    }
+
+    /** Stops after the first {@code limit} results by start time, whatever plan runs the query. */
+    public EventQuery limit(long limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("negative limit " + limit);
+        }
+        EventQuery query = copy();
+        query.limit = limit;
+        return query;
+    }
+
+    /** Runs the query as a parallel stream, in no particular order unless it has a limit. */
+    public EventQuery parallel() {
+        EventQuery query = copy();
+        query.parallel = true;
+        return query;
+    }
+
+    /** True if {@code event} meets every condition; the limit plays no part. */
+    @Override
+    public boolean test(Event event) {
+        if (from != null) {
+            LocalDate date = event.getDate();
+            if (date.isBefore(from) || date.isAfter(to)) {
+                return false;
+            }
+        }
+        if (fromMinute > 0 || toMinute < LAST_MINUTE) {
+            int minute = minuteOfDay(event);
+            if (minute < fromMinute || minute > toMinute) {
+                return false;
+            }
+        }
+        if (reminders != null && (event.getReminderCount() > 0) != reminders) {
+            return false;
+        }
+        return words.isEmpty() || matchesWords(event);
+    }
+
+    LocalDate from() {
+        return from;
+    }
+
+    LocalDate to() {
+        return to;
+    }
+
+    int fromMinute() {
+        return fromMinute;
+    }
+
+    int toMinute() {
+        return toMinute;
+    }
+
+    boolean restrictsTime() {
+        return fromMinute > 0 || toMinute < LAST_MINUTE;
+    }
+
+    List<String> words() {
+        return words;
+    }
+
+    Boolean reminders() {
+        return reminders;
+    }
+
+    /** The maximum number of results, {@link Long#MAX_VALUE} if unlimited. */
+    public long limit() {
+        return limit;
+    }
+
+    boolean isParallel() {
+        return parallel;
+    }
+
+    static int minuteOfDay(Event event) {
+        return Math.floorMod(event.getEpochMinute(), 24 * 60);
+    }
+
+    /** The lower-cased words of {@code text}, split at everything but letters and digits. */
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private boolean matchesWords(Event event) {
+        List<String> eventWords = words(event.getTitle());
+        eventWords.addAll(words(event.getDescription()));
+        for (String word : words) {
+            if (eventWords.stream().noneMatch(candidate -> candidate.startsWith(word))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private EventQuery copy() {
+        EventQuery query = new EventQuery();
+        query.from = from;
+        query.to = to;
+        query.fromMinute = fromMinute;
+        query.toMinute = toMinute;
+        query.words = words;
+        query.reminders = reminders;
+        query.limit = limit;
+        query.parallel = parallel;
+        return query;
+    }
+
+    @Override
+    public String toString() {
+        List<String> conditions = new ArrayList<>();
+        if (from != null) {
+            conditions.add(from.equals(to) ? "on " + from : "between " + from + " and " + to);
+        }
+        if (restrictsTime()) {
+            conditions.add(String.format("from %02d:%02d to %02d:%02d", fromMinute / 60, fromMinute % 60,
+                    toMinute / 60, toMinute % 60));
+        }
+        if (!words.isEmpty()) {
+            conditions.add("matching " + String.join(" ", words));
+        }
+        if (reminders != null) {
+            conditions.add(reminders ? "with reminders" : "without reminders");
+        }
+        if (limit != Long.MAX_VALUE) {
+            conditions.add("limit " + limit);
+        }
+        return "events" + (conditions.isEmpty() ? "" : " " + String.join(", ", conditions)) + (parallel ? " (parallel)" : "");
+    }
+}
@@ -0,0 +1,80 @@
+package org.oogle.calender.query;
+
+import org.oogle.calender.model.ChangeSet;
+import org.oogle.calender.model.Event;
+import org.oogle.calender.model.EventChange;
+import org.oogle.calender.model.EventModel;
+import org.oogle.calender.model.ModelListener;
+
+/**
+ * An index from some key of an event to the ids of the events with it, kept current from the
+ * model's change notifications. Ids are only ever added: a removed or updated event leaves its old
+ * postings behind, which is harmless because the {@link QueryEngine} checks every candidate
+ * against the query, and the index is rebuilt once stale postings outnumber live ones.
+ */
+abstract class PostingIndex implements ModelListener {
+
+    private static final long MIN_STALE_FOR_REBUILD = 4096;
+
+    private final EventModel model;
+    private long live;
+    private long stale;
+
+    PostingIndex(EventModel model) {
+        this.model = model;
+    }
+
+    /** Indexes every event of the model; call with the model locked so no change slips through. */
+    final synchronized void build() {
+        clear();
+        live = 0;
+        stale = 0;
+        model.forEach(event -> live += add(event));
+    }
+
+    @Override
+    public final synchronized void modelChanged(ChangeSet changes) {
+        if (changes.isReset()) {
+            build();
+            return;
+        }
+        for (EventChange change : changes.getChanges()) {
+            switch (change.getType()) {
+                case ADDED -> live += add(change.getEvent());
+                case REMOVED -> retire(change.getEvent());
+                case UPDATED -> {
+                    retire(change.getPrevious());
+                    live += add(change.getEvent());
+                }
+            }
+        }
+        if (stale > MIN_STALE_FOR_REBUILD && stale > live) {
+            build(); // Listeners run under the model lock
+        }
+    }
+
+    /** Number of postings, stale ones included. */
+    final synchronized long postings() {
+        return live + stale;
+    }
+
+    private void retire(Event event) {
+        int count = retired(event);
+        live -= count;
+        stale += count;
+    }
+
+    abstract void clear();
+
+    /** Indexes {@code event} and returns the number of postings added. */
+    abstract int add(Event event);
+
+    /** The number of postings {@link #add(Event)} made for {@code event}, which has been removed or replaced. */
+    abstract int retired(Event event);
+
+    /** An upper bound for the number of events {@code query} finds through this index, or -1 if it cannot help. */
+    abstract long estimate(EventQuery query);
+
+    /** Sorted distinct ids of the events {@code query} may find; only valid if {@link #estimate} was not -1. */
+    abstract long[] candidates(EventQuery query);
+}
@@ -0,0 +1,39 @@
+package org.oogle.calender.query;
+
+import java.util.Arrays;
+
+/** A growable list of event ids under one index key; duplicates and stale ids are allowed. */
+final class Postings {
+
+    private long[] ids = new long[4];
+    private int size;
+
+    void add(long id) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        ids[size++] = id;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Appends the ids to {@code out}, which must have room for them, and returns the new length. */
+    int copyTo(long[] out, int offset) {
+        System.arraycopy(ids, 0, out, offset, size);
+        return offset + size;
+    }
+
+    /** Sorts the first {@code length} ids of {@code ids} and returns them without duplicates. */
+    static long[] distinct(long[] ids, int length) {
+        Arrays.sort(ids, 0, length);
+        int unique = 0;
+        for (int i = 0; i < length; i++) {
+            if (unique == 0 || ids[i] != ids[unique - 1]) {
+                ids[unique++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(ids, unique);
+    }
+}
@@ -0,0 +1,191 @@
+package org.oogle.calender.query;
+
+import org.oogle.calender.metrics.Metrics;
+import org.oogle.calender.model.Event;
+import org.oogle.calender.model.EventModel;
+import org.oogle.calender.query.QueryPlan.Access;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs {@link EventQuery}s against an {@link EventModel}. The model's day buckets are always
+ * available; text, time-of-day and reminder indexes can be added and are then kept current from
+ * the model's change notifications. For each query the planner estimates how many events each
+ * usable access path would hand it and takes the smallest, then checks every candidate against
+ * the whole query. Which events a query returns does not depend on the plan.
+ *
+ * <p>Results are lazy streams: a {@link EventQuery#limit(long) limit} stops reading buckets once
+ * it is reached. Plans by date return events by start time. Plans through an index return them in
+ * id order, unless the query has a limit: then they walk the candidates' days the way a plan by
+ * date would, so the limit keeps the same first events whichever plan runs. Events are read from
+ * the model as the stream advances, so an event changed meanwhile is returned as it is then, or
+ * not at all if it no longer matches.
+ */
+public final class QueryEngine implements AutoCloseable {
+
+    /** Up to this many days a date range is walked day by day rather than through the set of dates. */
+    private static final long MAX_WALKED_DAYS = 366;
+
+    /** An index row costs a lookup by id on top of the check, so it must save at least half the rows. */
+    private static final long INDEX_ROW_COST = 2;
+
+    /** A plan and how to open its stream; {@code source} runs with the model locked. */
+    private record Choice(QueryPlan plan, Supplier<Stream<Event>> source) {
+    }
+
+    private final EventModel model;
+    private final List<PostingIndex> indexes = new CopyOnWriteArrayList<>();
+
+    public QueryEngine(EventModel model) {
+        this.model = model;
+    }
+
+    /** Indexes the words of titles and descriptions, for {@link EventQuery#matching(String)}. */
+    public QueryEngine indexText() {
+        return addIndex(new TextIndex(model));
+    }
+
+    /** Indexes start times by minute of the day, for {@link EventQuery#timeOfDay}. */
+    public QueryEngine indexTimes() {
+        return addIndex(new TimeIndex(model));
+    }
+
+    /** Indexes the events that have reminders, for {@link EventQuery#withReminders()}. */
+    public QueryEngine indexReminders() {
+        return addIndex(new ReminderIndex(model));
+    }
+
+    public boolean hasTextIndex() {
+        return indexes.stream().anyMatch(index -> index instanceof TextIndex);
+    }
+
+    /** How {@code query} would run now. */
+    public QueryPlan plan(EventQuery query) {
+        return model.read(() -> choose(query).plan());
+    }
+
+    public Stream<Event> stream(EventQuery query) {
+        Stream<Event> events = model.read(() -> {
+            Choice choice = choose(query);
+            Metrics.registry().counter("query." + choice.plan().access().key()).increment();
+            return choice.source().get();
+        }).filter(query);
+        if (query.isParallel()) {
+            events = events.parallel();
+            if (query.limit() == Long.MAX_VALUE) {
+                events = events.unordered();
+            }
+        }
+        return query.limit() == Long.MAX_VALUE ? events : events.limit(query.limit());
+    }
+
+    public List<Event> list(EventQuery query) {
+        return stream(query).collect(Collectors.toList());
+    }
+
+    public long count(EventQuery query) {
+        return stream(query).count();
+    }
+
+    /** Stops maintaining the indexes. */
+    @Override
+    public void close() {
+        for (PostingIndex index : indexes) {
+            model.removeListener(index);
+        }
+        indexes.clear();
+    }
+
+    private QueryEngine addIndex(PostingIndex index) {
+        for (PostingIndex existing : indexes) {
+            if (existing.getClass() == index.getClass()) {
+                return this;
+            }
+        }
+        model.read(() -> {
+            index.build();
+            model.addListener(index);
+            return null;
+        });
+        indexes.add(index);
+        return this;
+    }
+
+    // Called with the model locked
+    private Choice choose(EventQuery query) {
+        Choice best = byDate(query);
+        for (PostingIndex index : indexes) {
+            long estimate = index.estimate(query);
+            if (estimate >= 0 && estimate * INDEX_ROW_COST < best.plan().estimatedRows()) {
+                best = new Choice(new QueryPlan(access(index), estimate), () -> {
+                    long[] ids = index.candidates(query);
+                    if (query.limit() != Long.MAX_VALUE) {
+                        return inDateOrder(ids);
+                    }
+                    return Arrays.stream(ids).mapToObj(model::findById).filter(Objects::nonNull);
+                });
+            }
+        }
+        return best;
+    }
+
+    private Choice byDate(EventQuery query) {
+        if (query.from() == null) {
+            return new Choice(new QueryPlan(Access.SCAN, model.size()), () -> {
+                Map<LocalDate, List<Event>> snapshot = model.snapshot();
+                return snapshot.keySet().stream().sorted().flatMap(date -> snapshot.get(date).stream());
+            });
+        }
+        List<LocalDate> days = new ArrayList<>();
+        long rows = 0;
+        if (ChronoUnit.DAYS.between(query.from(), query.to()) < MAX_WALKED_DAYS) {
+            for (LocalDate date = query.from(); !date.isAfter(query.to()); date = date.plusDays(1)) {
+                int count = model.countOn(date);
+                if (count > 0) {
+                    days.add(date);
+                    rows += count;
+                }
+            }
+        } else {
+            for (LocalDate date : model.dates()) {
+                if (!date.isBefore(query.from()) && !date.isAfter(query.to())) {
+                    days.add(date);
+                    rows += model.countOn(date);
+                }
+            }
+            days.sort(null);
+        }
+        return new Choice(new QueryPlan(Access.DAYS, rows), () -> days.stream().flatMap(date -> model.eventsOn(date).stream()));
+    }
+
+    // Called with the model locked. Each day's events come in the same order as from a plan by date.
+    private Stream<Event> inDateOrder(long[] ids) {
+        TreeSet<LocalDate> days = new TreeSet<>();
+        for (long id : ids) {
+            Event event = model.findById(id);
+            if (event != null) {
+                days.add(event.getDate());
+            }
+        }
+        return days.stream().flatMap(date -> model.eventsOn(date).stream()
+                .filter(event -> Arrays.binarySearch(ids, event.getId()) >= 0));
+    }
+
+    private static Access access(PostingIndex index) {
+        if (index instanceof TextIndex) {
+            return Access.TEXT;
+        }
+        return index instanceof TimeIndex ? Access.TIME : Access.REMINDERS;
+    }
+}
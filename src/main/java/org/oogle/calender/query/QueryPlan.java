@@ -0,0 +1,34 @@
+package org.oogle.calender.query;
+
+/** How a {@link QueryEngine} finds the candidates for a query, and how many it expects to check. */
+public record QueryPlan(Access access, long estimatedRows) {
+
+    public enum Access {
+        /** Every day bucket, in date order. */
+        SCAN("scan"),
+        /** The day buckets of the query's date range, in date order. */
+        DAYS("days"),
+        /** The text index's postings of the query's rarest word. */
+        TEXT("text"),
+        /** The time index's postings for the query's time-of-day window. */
+        TIME("time"),
+        /** The reminder index's postings. */
+        REMINDERS("reminders");
+
+        private final String key;
+
+        Access(String key) {
+            this.key = key;
+        }
+
+        /** Short name used in metrics. */
+        public String key() {
+            return key;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return access.key + " (~" + estimatedRows + " rows)";
+    }
+}
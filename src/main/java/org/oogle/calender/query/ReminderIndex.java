@@ -0,0 +1,44 @@
+package org.oogle.calender.query;
+
+import org.oogle.calender.model.Event;
+import org.oogle.calender.model.EventModel;
+
+/** The events that have at least one reminder. */
+final class ReminderIndex extends PostingIndex {
+
+    private Postings withReminders = new Postings();
+
+    ReminderIndex(EventModel model) {
+        super(model);
+    }
+
+    @Override
+    void clear() {
+        withReminders = new Postings();
+    }
+
+    @Override
+    int add(Event event) {
+        if (event.getReminderCount() == 0) {
+            return 0;
+        }
+        withReminders.add(event.getId());
+        return 1;
+    }
+
+    @Override
+    int retired(Event event) {
+        return event.getReminderCount() == 0 ? 0 : 1;
+    }
+
+    @Override
+    synchronized long estimate(EventQuery query) {
+        return Boolean.TRUE.equals(query.reminders()) ? withReminders.size() : -1;
+    }
+
+    @Override
+    synchronized long[] candidates(EventQuery query) {
+        long[] ids = new long[withReminders.size()];
+        return Postings.distinct(ids, withReminders.copyTo(ids, 0));
+    }
+}
@@ -0,0 +1,97 @@
+package org.oogle.calender.query;
+
+import org.oogle.calender.model.Event;
+import org.oogle.calender.model.EventModel;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/** Words of titles and descriptions, sorted so the postings of every word with a prefix are one range. */
+final class TextIndex extends PostingIndex {
+
+    private final TreeMap<String, Postings> words = new TreeMap<>();
+    // Postings made per event id, so retiring an event does not read its description again
+    private final Map<Long, Integer> postingCounts = new HashMap<>();
+
+    TextIndex(EventModel model) {
+        super(model);
+    }
+
+    @Override
+    void clear() {
+        words.clear();
+        postingCounts.clear();
+    }
+
+    @Override
+    int add(Event event) {
+        Set<String> eventWords = wordsOf(event);
+        for (String word : eventWords) {
+            words.computeIfAbsent(word, w -> new Postings()).add(event.getId());
+        }
+        postingCounts.put(event.getId(), eventWords.size());
+        return eventWords.size();
+    }
+
+    @Override
+    int retired(Event event) {
+        Integer count = postingCounts.remove(event.getId());
+        return count != null ? count : 0;
+    }
+
+    @Override
+    synchronized long estimate(EventQuery query) {
+        if (query.words().isEmpty()) {
+            return -1;
+        }
+        long best = Long.MAX_VALUE;
+        for (String word : query.words()) {
+            best = Math.min(best, size(withPrefix(word).values()));
+        }
+        return best;
+    }
+
+    @Override
+    synchronized long[] candidates(EventQuery query) {
+        // Every word must match, so the rarest one alone narrows the candidates enough
+        Collection<Postings> rarest = null;
+        long rarestSize = Long.MAX_VALUE;
+        for (String word : query.words()) {
+            Collection<Postings> postings = withPrefix(word).values();
+            long size = size(postings);
+            if (size < rarestSize) {
+                rarest = postings;
+                rarestSize = size;
+            }
+        }
+        long[] ids = new long[Math.toIntExact(rarestSize)];
+        int length = 0;
+        for (Postings postings : rarest) {
+            length = postings.copyTo(ids, length);
+        }
+        return Postings.distinct(ids, length);
+    }
+
+    private SortedMap<String, Postings> withPrefix(String prefix) {
+        return words.subMap(prefix, prefix + Character.MAX_VALUE);
+    }
+
+    private static long size(Collection<Postings> postings) {
+        long size = 0;
+        for (Postings p : postings) {
+            size += p.size();
+        }
+        return size;
+    }
+
+    private static Set<String> wordsOf(Event event) {
+        Set<String> eventWords = new LinkedHashSet<>(EventQuery.words(event.getTitle()));
+        eventWords.addAll(EventQuery.words(event.getDescription()));
+        return eventWords;
+    }
+}
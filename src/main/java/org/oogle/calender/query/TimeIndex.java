@@ -0,0 +1,54 @@
+package org.oogle.calender.query;
+
+import org.oogle.calender.model.Event;
+import org.oogle.calender.model.EventModel;
+
+/** Events by their minute of the day, for time-of-day windows across many days. */
+final class TimeIndex extends PostingIndex {
+
+    private final Postings[] minutes = new Postings[EventQuery.LAST_MINUTE + 1];
+
+    TimeIndex(EventModel model) {
+        super(model);
+    }
+
+    @Override
+    void clear() {
+        for (int i = 0; i < minutes.length; i++) {
+            minutes[i] = new Postings();
+        }
+    }
+
+    @Override
+    int add(Event event) {
+        minutes[EventQuery.minuteOfDay(event)].add(event.getId());
+        return 1;
+    }
+
+    @Override
+    int retired(Event event) {
+        return 1;
+    }
+
+    @Override
+    synchronized long estimate(EventQuery query) {
+        if (!query.restrictsTime()) {
+            return -1;
+        }
+        long size = 0;
+        for (int minute = query.fromMinute(); minute <= query.toMinute(); minute++) {
+            size += minutes[minute].size();
+        }
+        return size;
+    }
+
+    @Override
+    synchronized long[] candidates(EventQuery query) {
+        long[] ids = new long[Math.toIntExact(estimate(query))];
+        int length = 0;
+        for (int minute = query.fromMinute(); minute <= query.toMinute(); minute++) {
+            length = minutes[minute].copyTo(ids, length);
+        }
+        return Postings.distinct(ids, length);
+    }
+}
@@ -0,0 +1,42 @@
+package org.oogle.calender.reminder;
+
+import org.oogle.calender.metrics.Metrics;
+import org.oogle.calender.metrics.ReminderCheckEvent;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * One pass of the periodic reminder check: polls every calendar's {@link ReminderScheduler} at
+ * the clock's current time and records the pass as a {@code reminder.check} metric. Reading time
+ * only from the given clock lets the same pass run in the application and in a simulated replay.
+ */
+public final class ReminderChecker {
+
+    private final Clock clock;
+    private final Supplier<? extends Iterable<ReminderScheduler>> schedulers;
+
+    public ReminderChecker(Clock clock, Supplier<? extends Iterable<ReminderScheduler>> schedulers) {
+        this.clock = clock;
+        this.schedulers = schedulers;
+    }
+
+    /** Removes and returns the reminders due now, marking them delivered. */
+    public List<ReminderScheduler.DueReminder> check() {
+        ReminderCheckEvent check = new ReminderCheckEvent();
+        Metrics.Probe probe = Metrics.begin("reminder.check", check);
+        LocalDateTime now = LocalDateTime.now(clock);
+        List<ReminderScheduler.DueReminder> due = new ArrayList<>();
+        int pending = 0;
+        for (ReminderScheduler scheduler : schedulers.get()) {
+            due.addAll(scheduler.pollDue(now));
+            pending += scheduler.pendingCount();
+        }
+        check.setPending(pending);
+        probe.end(due.size(), 0);
+        return due;
+    }
+}
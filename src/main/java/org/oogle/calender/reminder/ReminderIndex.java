@@ -0,0 +1,121 @@
+package org.oogle.calender.reminder;
+
+import org.oogle.calender.model.Event;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The undelivered reminders of a parked calendar that fall due before a horizon, as parallel
+ * arrays in due order, so the heap holds only the events about to remind rather than the whole
+ * model. Once the clock passes the horizon the calendar's store is scanned for the next span.
+ * Not thread-safe; the owning {@link ReminderScheduler} synchronizes.
+ */
+final class ReminderIndex {
+
+    /** How far past the current time reminders are kept in memory. */
+    static final Duration HORIZON = Duration.ofDays(7);
+
+    private final ReminderScheduler.EventSource source;
+    private long[] due;        // Local date-time as epoch seconds, ascending
+    private Event[] events;
+    private int[] indexes;     // Reminder index within the event
+    private int next;
+    private LocalDateTime horizon;
+
+    ReminderIndex(ReminderScheduler.EventSource source, List<ReminderScheduler.Pending> pending, LocalDateTime horizon) {
+        this.source = source;
+        this.horizon = horizon;
+        fill(pending);
+    }
+
+    /** Delivers everything due at or before {@code now}, first reading the next span if it is due. */
+    void pollDue(LocalDateTime now, List<ReminderScheduler.DueReminder> out) {
+        if (!now.isBefore(horizon)) {
+            refill(now.plus(HORIZON));
+        }
+        long limit = seconds(now);
+        while (next < due.length && due[next] <= limit) {
+            Event event = events[next];
+            int index = indexes[next];
+            events[next++] = null;
+            if (!event.isNotified(index)) {
+                event.markNotified(index);
+                int minutes = event.getReminderMinutes(index);
+                out.add(new ReminderScheduler.DueReminder(event, minutes, event.getDateTime().minusMinutes(minutes)));
+            }
+        }
+    }
+
+    LocalDateTime nextDue() {
+        return next < due.length ? LocalDateTime.ofEpochSecond(due[next], 0, ZoneOffset.UTC) : null;
+    }
+
+    int size() {
+        return due.length - next;
+    }
+
+    /**
+     * Reads the reminders up to the horizon again from the source, which has changed; those due
+     * at or before {@code delivered} count as delivered. Keeps the index as it was if the read fails.
+     */
+    void reload(LocalDateTime delivered) throws IOException {
+        List<ReminderScheduler.Pending> pending = new ArrayList<>();
+        read(delivered, horizon, pending);
+        fill(pending);
+    }
+
+    // Adds the reminders due after the current horizon and up to the new one
+    private void refill(LocalDateTime newHorizon) {
+        List<ReminderScheduler.Pending> pending = new ArrayList<>(size());
+        for (int i = next; i < due.length; i++) {
+            pending.add(new ReminderScheduler.Pending(
+                    LocalDateTime.ofEpochSecond(due[i], 0, ZoneOffset.UTC), events[i], indexes[i]));
+        }
+        try {
+            read(horizon, newHorizon, pending);
+        } catch (IOException e) {
+            System.err.println("Error reading reminders: " + e.getMessage());
+            e.printStackTrace();
+            return; // Keep the old horizon and try again at the next check
+        }
+        horizon = newHorizon;
+        fill(pending);
+    }
+
+    // Adds the source's reminders due after from, if given, and up to to
+    private void read(LocalDateTime from, LocalDateTime to, List<ReminderScheduler.Pending> pending) throws IOException {
+        source.forEach(event -> {
+            LocalDateTime start = event.getDateTime();
+            for (int i = 0; i < event.getReminderCount(); i++) {
+                LocalDateTime at = start.minusMinutes(event.getReminderMinutes(i));
+                if ((from == null || at.isAfter(from)) && !at.isAfter(to)) {
+                    pending.add(new ReminderScheduler.Pending(at, event, i));
+                }
+            }
+        });
+    }
+
+    private void fill(List<ReminderScheduler.Pending> pending) {
+        pending.sort(Comparator.comparing(p -> p.due));
+        due = new long[pending.size()];
+        events = new Event[pending.size()];
+        indexes = new int[pending.size()];
+        for (int i = 0; i < pending.size(); i++) {
+            ReminderScheduler.Pending p = pending.get(i);
+            due[i] = seconds(p.due);
+            events[i] = p.event;
+            indexes[i] = p.index;
+        }
+        next = 0;
+    }
+
+    private static long seconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,221 @@
+package org.oogle.calender.reminder;
+
+import org.oogle.calender.model.ChangeSet;
+import org.oogle.calender.model.Event;
+import org.oogle.calender.model.EventChange;
+import org.oogle.calender.model.EventModel;
+import org.oogle.calender.model.ModelListener;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the undelivered reminders of an {@link EventModel} ordered by due time, so each check
+ * only looks at reminders that are actually due instead of scanning every event. The queue is
+ * maintained from the model's change notifications; removed events are dropped lazily when they
+ * reach the head of the queue. Events are tracked by id, since an off-heap model hands out a new
+ * instance on every read; the instance queued here is the one whose delivery flags count.
+ *
+ * <p>A scheduler can be {@link #park parked} while its model's events are released from memory:
+ * it then keeps only the reminders due within a week in a {@link ReminderIndex} and reads later
+ * ones from an {@link EventSource}, ignoring the model until {@link #unpark()}.
+ */
+public class ReminderScheduler implements ModelListener {
+
+    /** A reminder that has become due. */
+    public static final class DueReminder {
+        private final Event event;
+        private final int minutesBefore;
+        private final LocalDateTime due;
+
+        DueReminder(Event event, int minutesBefore, LocalDateTime due) {
+            this.event = event;
+            this.minutesBefore = minutesBefore;
+            this.due = due;
+        }
+
+        public Event getEvent() {
+            return event;
+        }
+
+        public int getMinutesBefore() {
+            return minutesBefore;
+        }
+
+        /** When the reminder was due; a check delivers it at or after this time. */
+        public LocalDateTime getDue() {
+            return due;
+        }
+    }
+
+    /** Reads every event of a parked calendar again, e.g. by streaming its file. */
+    public interface EventSource {
+        void forEach(Consumer<Event> action) throws IOException;
+    }
+
+    static final class Pending {
+        final LocalDateTime due;
+        final Event event;
+        final int index;
+
+        Pending(LocalDateTime due, Event event, int index) {
+            this.due = due;
+            this.event = event;
+            this.index = index;
+        }
+    }
+
+    private final EventModel model;
+    private final PriorityQueue<Pending> queue = new PriorityQueue<>(Comparator.comparing(p -> p.due));
+    private final Map<Long, Event> live = new HashMap<>(); // Queued events by id
+    private LocalDateTime lastPolled; // Everything due at or before it has been delivered
+    private ReminderIndex parked; // Non-null while parked
+
+    public ReminderScheduler(EventModel model) {
+        this.model = model;
+        rebuild(null);
+    }
+
+    @Override
+    public synchronized void modelChanged(ChangeSet changes) {
+        if (parked != null) {
+            return; // The model is being emptied or read back; the index is what counts
+        }
+        if (changes.isReset()) {
+            rebuild(lastPolled); // Reminders delivered before the model was replaced are not delivered again
+            return;
+        }
+        for (EventChange change : changes.getChanges()) {
+            switch (change.getType()) {
+                case ADDED -> enqueue(change.getEvent());
+                case REMOVED -> live.remove(change.getEventId());
+                case UPDATED -> {
+                    live.remove(change.getPrevious().getId());
+                    enqueue(change.getEvent());
+                }
+            }
+        }
+    }
+
+    /** Removes and returns every reminder due at or before {@code now}. */
+    public synchronized List<DueReminder> pollDue(LocalDateTime now) {
+        List<DueReminder> due = new ArrayList<>();
+        if (lastPolled == null || now.isAfter(lastPolled)) {
+            lastPolled = now;
+        }
+        if (parked != null) {
+            parked.pollDue(now, due);
+            return due;
+        }
+        while (!queue.isEmpty() && !queue.peek().due.isAfter(now)) {
+            Pending pending = queue.poll();
+            if (live.get(pending.event.getId()) != pending.event || pending.event.isNotified(pending.index)) {
+                continue;
+            }
+            pending.event.markNotified(pending.index);
+            due.add(new DueReminder(pending.event, pending.event.getReminderMinutes(pending.index), pending.due));
+        }
+        return due;
+    }
+
+    /** Due time of the earliest undelivered reminder, or {@code null} if none is pending. */
+    public synchronized LocalDateTime nextDue() {
+        if (parked != null) {
+            return parked.nextDue();
+        }
+        while (!queue.isEmpty()) {
+            Pending head = queue.peek();
+            if (live.get(head.event.getId()) == head.event && !head.event.isNotified(head.index)) {
+                return head.due;
+            }
+            queue.poll(); // Stale entry for a removed or already delivered reminder
+        }
+        return null;
+    }
+
+    /** Number of queued reminders, including ones for events removed since they were queued. */
+    public synchronized int pendingCount() {
+        return parked != null ? parked.size() : queue.size();
+    }
+
+    /**
+     * Moves the reminders due up to a week from {@code now} into a compact index and lets go of
+     * everything else, so the model's events can be released; later reminders are read from
+     * {@code source}, which must hold the same events as the model, when their time comes.
+     */
+    public synchronized void park(EventSource source, LocalDateTime now) {
+        if (parked != null) {
+            return;
+        }
+        LocalDateTime horizon = now.plus(ReminderIndex.HORIZON);
+        List<Pending> soon = new ArrayList<>();
+        for (Pending pending : queue) {
+            if (live.get(pending.event.getId()) == pending.event && !pending.event.isNotified(pending.index)
+                    && !pending.due.isAfter(horizon)) {
+                soon.add(pending);
+            }
+        }
+        parked = new ReminderIndex(source, soon, horizon);
+        queue.clear();
+        live.clear();
+    }
+
+    /**
+     * Reads the parked reminders again from the source once another process has changed it.
+     * Reminders due at or before the last check have been delivered and are not read back.
+     */
+    public synchronized void reloadParked() throws IOException {
+        if (parked != null) {
+            parked.reload(lastPolled);
+        }
+    }
+
+    public synchronized boolean isParked() {
+        return parked != null;
+    }
+
+    /**
+     * Follows the model again once its events have been read back. The fresh events carry no
+     * delivery flags, so reminders due at or before the last check are marked delivered.
+     */
+    public synchronized void unpark() {
+        if (parked != null) {
+            parked = null;
+            rebuild(lastPolled);
+        }
+    }
+
+    private void rebuild(LocalDateTime delivered) {
+        queue.clear();
+        live.clear();
+        model.forEach(event -> enqueue(event, delivered));
+    }
+
+    private void enqueue(Event event) {
+        enqueue(event, null);
+    }
+
+    // Reminders due at or before delivered, if given, are marked delivered instead of queued
+    private void enqueue(Event event, LocalDateTime delivered) {
+        if (event.getReminderCount() == 0) {
+            return;
+        }
+        live.put(event.getId(), event);
+        LocalDateTime start = event.getDateTime();
+        for (int i = 0; i < event.getReminderCount(); i++) {
+            LocalDateTime due = start.minusMinutes(event.getReminderMinutes(i));
+            if (delivered != null && !due.isAfter(delivered)) {
+                event.markNotified(i);
+            } else if (!event.isNotified(i)) {
+                queue.add(new Pending(due, event, i));
+            }
+        }
+    }
+}
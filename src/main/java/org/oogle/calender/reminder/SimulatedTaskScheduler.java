@@ -0,0 +1,130 @@
+package org.oogle.calender.reminder;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * A virtual clock that only moves when told to, and runs scheduled tasks on the calling thread as
+ * it passes their due times. Tasks due at the same instant run in the order they were scheduled,
+ * and the clock reads exactly the due time while a task runs, so a replay is deterministic: the
+ * same calendar and span always produce the same checks at the same simulated times.
+ */
+public final class SimulatedTaskScheduler implements TaskScheduler {
+
+    private final class Scheduled implements Task {
+        final Runnable task;
+        final long periodNanos;
+        final long sequence;
+        Instant due;
+        boolean cancelled;
+
+        Scheduled(Runnable task, Duration period, long sequence) {
+            this.task = task;
+            this.periodNanos = period.toNanos();
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private final ZoneId zone;
+    private final PriorityQueue<Scheduled> queue = new PriorityQueue<>(
+            Comparator.<Scheduled, Instant>comparing(s -> s.due).thenComparingLong(s -> s.sequence));
+    private Instant now;
+    private long sequence;
+    private long runs;
+
+    public SimulatedTaskScheduler(LocalDateTime start, ZoneId zone) {
+        this.zone = zone;
+        this.now = start.atZone(zone).toInstant();
+    }
+
+    @Override
+    public Clock getClock() {
+        return new VirtualClock(zone);
+    }
+
+    @Override
+    public Task scheduleAtFixedRate(Runnable task, Duration period) {
+        if (period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("Period must be positive: " + period);
+        }
+        Scheduled scheduled = new Scheduled(task, period, sequence++);
+        scheduled.due = now;
+        queue.add(scheduled);
+        return scheduled;
+    }
+
+    @Override
+    public void shutdown() {
+        queue.clear();
+    }
+
+    public LocalDateTime now() {
+        return LocalDateTime.ofInstant(now, zone);
+    }
+
+    /** Number of task runs so far. */
+    public long getRuns() {
+        return runs;
+    }
+
+    public void advance(Duration duration) {
+        advanceTo(now.plus(duration));
+    }
+
+    public void advanceTo(LocalDateTime time) {
+        advanceTo(time.atZone(zone).toInstant());
+    }
+
+    /** Moves the clock to {@code end}, running every task due on the way at its due time. */
+    public void advanceTo(Instant end) {
+        while (!queue.isEmpty() && !queue.peek().due.isAfter(end)) {
+            Scheduled next = queue.poll();
+            if (next.cancelled) {
+                continue;
+            }
+            now = next.due;
+            runs++;
+            next.task.run();
+            if (!next.cancelled) {
+                next.due = next.due.plusNanos(next.periodNanos);
+                queue.add(next);
+            }
+        }
+        if (end.isAfter(now)) {
+            now = end;
+        }
+    }
+
+    private final class VirtualClock extends Clock {
+        private final ZoneId clockZone;
+
+        VirtualClock(ZoneId clockZone) {
+            this.clockZone = clockZone;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return clockZone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return new VirtualClock(zone);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
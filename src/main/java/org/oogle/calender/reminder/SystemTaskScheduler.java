@@ -0,0 +1,51 @@
+package org.oogle.calender.reminder;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * Wall-clock time and a daemon {@link Timer} thread. Every periodic task shares the thread, so a
+ * task that throws is logged and runs again next period rather than killing the thread.
+ */
+public final class SystemTaskScheduler implements TaskScheduler {
+
+    private final Clock clock;
+    private final Timer timer = new Timer("reminder-timer", true);
+
+    public SystemTaskScheduler() {
+        this(Clock.systemDefaultZone());
+    }
+
+    public SystemTaskScheduler(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public Clock getClock() {
+        return clock;
+    }
+
+    @Override
+    public Task scheduleAtFixedRate(Runnable task, Duration period) {
+        TimerTask timerTask = new TimerTask() {
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    System.err.println("Error in scheduled task: " + e.getMessage());
+                    e.printStackTrace();
+                }
+            }
+        };
+        timer.scheduleAtFixedRate(timerTask, 0, period.toMillis());
+        return timerTask::cancel;
+    }
+
+    @Override
+    public void shutdown() {
+        timer.cancel();
+    }
+}
@@ -0,0 +1,26 @@
+package org.oogle.calender.reminder;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * The time source and periodic execution behind the reminder check. The application runs on
+ * {@link SystemTaskScheduler}; {@link SimulatedTaskScheduler} replays the same checks against a
+ * virtual clock as fast as they can run.
+ */
+public interface TaskScheduler {
+
+    /** A scheduled task, which stops running once cancelled. */
+    interface Task {
+        void cancel();
+    }
+
+    /** The clock tasks should read instead of {@code now()}. */
+    Clock getClock();
+
+    /** Runs {@code task} now and then every {@code period} until cancelled. */
+    Task scheduleAtFixedRate(Runnable task, Duration period);
+
+    /** Cancels every task; nothing runs afterwards. */
+    void shutdown();
+}
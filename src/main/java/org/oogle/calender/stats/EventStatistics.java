@@ -0,0 +1,254 @@
+package org.oogle.calender.stats;
+
+import org.oogle.calender.metrics.Metrics;
+import org.oogle.calender.model.ChangeSet;
+import org.oogle.calender.model.Event;
+import org.oogle.calender.model.EventChange;
+import org.oogle.calender.model.EventModel;
+import org.oogle.calender.model.ModelListener;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Per-month aggregates of an {@link EventModel}: events per day and per starting hour, and
+ * reminder usage. Once {@link #rebuild() rebuilt} they follow the model's change notifications,
+ * so a summary over any range of months costs one pass over its days, however many events
+ * there are.
+ *
+ * <p>A rebuild, and every reset of the model, recomputes the aggregates from a snapshot as a
+ * parallel reduction on the common fork-join pool. Changes arriving meanwhile are queued and
+ * applied on top once it completes; until then summaries show the previous aggregates.
+ */
+public final class EventStatistics implements ModelListener, AutoCloseable {
+
+    private final EventModel model;
+
+    // Guarded by this
+    private TreeMap<YearMonth, MonthStats> months = new TreeMap<>();
+    private List<ChangeSet> queued; // Non-null while a rebuild runs
+    private long generation;
+    private CompletableFuture<Void> rebuilt = CompletableFuture.completedFuture(null);
+    private boolean attached;
+
+    public EventStatistics(EventModel model) {
+        this.model = model;
+    }
+
+    /** Recomputes the aggregates in the background and keeps them current from then on. */
+    public CompletableFuture<Void> rebuild() {
+        return model.read(() -> {
+            synchronized (this) {
+                if (!attached) {
+                    model.addListener(this);
+                    attached = true;
+                }
+                return startRebuild(model.snapshot());
+            }
+        });
+    }
+
+    /** False while a rebuild is running. */
+    public synchronized boolean isReady() {
+        return queued == null;
+    }
+
+    /** Completes once the latest rebuild is in. */
+    public synchronized CompletableFuture<Void> whenReady() {
+        return rebuilt;
+    }
+
+    @Override
+    public synchronized void modelChanged(ChangeSet changes) {
+        if (changes.isReset()) {
+            startRebuild(model.snapshot()); // Called with the model locked
+        } else if (queued != null) {
+            queued.add(changes);
+        } else {
+            apply(months, changes);
+        }
+    }
+
+    /** Stops following the model. */
+    @Override
+    public void close() {
+        model.removeListener(this);
+        synchronized (this) {
+            attached = false;
+            generation++;
+            queued = null;
+        }
+    }
+
+    /** The statistics of the months from {@code from} to {@code to}; see {@link #summarize(List, YearMonth, YearMonth)}. */
+    public StatisticsSummary summarize(YearMonth from, YearMonth to) {
+        return summarize(List.of(this), from, to);
+    }
+
+    /**
+     * The combined statistics of several models over the months from {@code from} to {@code to},
+     * both inclusive. A {@code null} bound stands for the first or last month with events.
+     */
+    public static StatisticsSummary summarize(List<EventStatistics> statistics, YearMonth from, YearMonth to) {
+        TreeMap<YearMonth, MonthStats> merged = new TreeMap<>();
+        for (EventStatistics stats : statistics) {
+            synchronized (stats) {
+                SortedMap<YearMonth, MonthStats> range = stats.months;
+                if (from != null) {
+                    range = range.tailMap(from);
+                }
+                if (to != null) {
+                    range = range.headMap(to.plusMonths(1));
+                }
+                for (Map.Entry<YearMonth, MonthStats> month : range.entrySet()) {
+                    merged.merge(month.getKey(), month.getValue().copy(), MonthStats::merge);
+                }
+            }
+        }
+        YearMonth first = from != null ? from : merged.isEmpty() ? YearMonth.now() : merged.firstKey();
+        YearMonth last = to != null ? to : merged.isEmpty() ? first : merged.lastKey();
+        if (last.isBefore(first)) {
+            throw new IllegalArgumentException(last + " is before " + first);
+        }
+        return summarize(merged, first, last);
+    }
+
+    private static StatisticsSummary summarize(TreeMap<YearMonth, MonthStats> months, YearMonth from, YearMonth to) {
+        SortedMap<YearMonth, Integer> perMonth = new TreeMap<>();
+        SortedMap<LocalDate, Integer> perWeek = new TreeMap<>();
+        int[] perWeekday = new int[7];
+        int[] perHour = new int[24];
+        long events = 0;
+        long withReminders = 0;
+        long reminders = 0;
+
+        LocalDate freeStart = null; // Start of the current run of free days
+        LocalDate longestFreeStart = null;
+        int longestFreeDays = 0;
+
+        LocalDate date = from.atDay(1);
+        int weekday = date.getDayOfWeek().getValue() - 1;
+        LocalDate week = date.minusDays(weekday);
+        int weekCount = 0;
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            MonthStats stats = months.get(month);
+            if (stats != null) {
+                events += stats.events;
+                withReminders += stats.withReminders;
+                reminders += stats.reminders;
+                for (int hour = 0; hour < 24; hour++) {
+                    perHour[hour] += stats.hours[hour];
+                }
+            }
+            perMonth.put(month, stats != null ? stats.events : 0);
+
+            // Day by day, counting the weekday rather than asking each date for it
+            int length = month.lengthOfMonth();
+            for (int day = 0; day < length; day++, date = date.plusDays(1)) {
+                int count = stats != null ? stats.days[day] : 0;
+                perWeekday[weekday] += count;
+                weekCount += count;
+                if (count == 0 && freeStart == null) {
+                    freeStart = date;
+                } else if (count > 0 && freeStart != null) {
+                    int free = (int) (date.toEpochDay() - freeStart.toEpochDay());
+                    if (free > longestFreeDays) {
+                        longestFreeStart = freeStart;
+                        longestFreeDays = free;
+                    }
+                    freeStart = null;
+                }
+                if (++weekday == 7) {
+                    perWeek.put(week, weekCount);
+                    week = week.plusDays(7);
+                    weekCount = 0;
+                    weekday = 0;
+                }
+            }
+        }
+        if (weekday > 0) {
+            perWeek.put(week, weekCount);
+        }
+        if (freeStart != null) {
+            int free = (int) (date.toEpochDay() - freeStart.toEpochDay());
+            if (free > longestFreeDays) {
+                longestFreeStart = freeStart;
+                longestFreeDays = free;
+            }
+        }
+        return new StatisticsSummary(from, to, events, perMonth, perWeek, perWeekday, perHour,
+                withReminders, reminders, longestFreeStart, longestFreeDays);
+    }
+
+    // Called with this locked
+    private CompletableFuture<Void> startRebuild(Map<LocalDate, List<Event>> snapshot) {
+        long rebuild = ++generation;
+        queued = new ArrayList<>();
+        rebuilt = CompletableFuture.supplyAsync(() -> reduce(snapshot))
+                .thenAccept(computed -> install(rebuild, computed))
+                .exceptionally(e -> {
+                    System.err.println("Error computing event statistics: " + e.getMessage());
+                    e.printStackTrace();
+                    return null;
+                });
+        return rebuilt;
+    }
+
+    private synchronized void install(long rebuild, TreeMap<YearMonth, MonthStats> computed) {
+        if (rebuild != generation) {
+            return; // Superseded by a later reset
+        }
+        for (ChangeSet changes : queued) {
+            apply(computed, changes);
+        }
+        months = computed;
+        queued = null;
+    }
+
+    /** Aggregates a snapshot as a fork-join reduction: each task sums its share of the days, then the partial maps merge. */
+    private static TreeMap<YearMonth, MonthStats> reduce(Map<LocalDate, List<Event>> snapshot) {
+        long start = System.nanoTime();
+        Map<YearMonth, MonthStats> months = snapshot.entrySet().parallelStream().collect(HashMap::new,
+                (partial, day) -> {
+                    int dayOfMonth = day.getKey().getDayOfMonth();
+                    MonthStats stats = partial.computeIfAbsent(YearMonth.from(day.getKey()), month -> new MonthStats());
+                    for (Event event : day.getValue()) {
+                        stats.add(dayOfMonth, event, 1);
+                    }
+                },
+                (left, right) -> right.forEach((month, stats) -> left.merge(month, stats, MonthStats::merge)));
+        months.values().removeIf(MonthStats::isEmpty);
+        Metrics.registry().histogram("statistics.rebuild.nanos").record(System.nanoTime() - start);
+        return new TreeMap<>(months);
+    }
+
+    private static void apply(TreeMap<YearMonth, MonthStats> months, ChangeSet changes) {
+        for (EventChange change : changes.getChanges()) {
+            switch (change.getType()) {
+                case ADDED -> count(months, change.getEvent(), 1);
+                case REMOVED -> count(months, change.getEvent(), -1);
+                case UPDATED -> {
+                    count(months, change.getPrevious(), -1);
+                    count(months, change.getEvent(), 1);
+                }
+            }
+        }
+    }
+
+    private static void count(TreeMap<YearMonth, MonthStats> months, Event event, int sign) {
+        LocalDate date = event.getDate();
+        YearMonth month = YearMonth.from(date);
+        MonthStats stats = months.computeIfAbsent(month, key -> new MonthStats());
+        stats.add(date.getDayOfMonth(), event, sign);
+        if (stats.isEmpty()) {
+            months.remove(month);
+        }
+    }
+}
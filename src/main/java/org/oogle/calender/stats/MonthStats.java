@@ -0,0 +1,46 @@
+package org.oogle.calender.stats;
+
+import org.oogle.calender.model.Event;
+
+/** The counts of one calendar month, adjusted in place as events come and go. */
+final class MonthStats {
+
+    final int[] days = new int[31]; // Events per day of the month, from the 1st
+    final int[] hours = new int[24]; // Events per starting hour
+    int events;
+    int withReminders;
+    long reminders;
+
+    /** Counts {@code event}, which falls on {@code dayOfMonth}, once if {@code sign} is 1 and un-counts it if -1. */
+    void add(int dayOfMonth, Event event, int sign) {
+        int reminderCount = event.getReminderCount();
+        days[dayOfMonth - 1] += sign;
+        hours[Math.floorMod(event.getEpochMinute(), 24 * 60) / 60] += sign;
+        events += sign;
+        reminders += (long) sign * reminderCount;
+        if (reminderCount > 0) {
+            withReminders += sign;
+        }
+    }
+
+    MonthStats merge(MonthStats other) {
+        for (int i = 0; i < days.length; i++) {
+            days[i] += other.days[i];
+        }
+        for (int i = 0; i < hours.length; i++) {
+            hours[i] += other.hours[i];
+        }
+        events += other.events;
+        withReminders += other.withReminders;
+        reminders += other.reminders;
+        return this;
+    }
+
+    MonthStats copy() {
+        return new MonthStats().merge(this);
+    }
+
+    boolean isEmpty() {
+        return events == 0;
+    }
+}
@@ -0,0 +1,67 @@
+package org.oogle.calender.stats;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * The statistics of the whole months from {@code from} to {@code to}. Weeks run Monday to Sunday
+ * and are keyed by their Monday, so the first and last week may be partial. Weekday counts start
+ * at Monday, hour counts at midnight.
+ */
+public record StatisticsSummary(YearMonth from, YearMonth to, long events,
+                                SortedMap<YearMonth, Integer> perMonth, SortedMap<LocalDate, Integer> perWeek,
+                                int[] perWeekday, int[] perHour, long withReminders, long reminders,
+                                LocalDate longestFreeStart, int longestFreeDays) {
+
+    public long days() {
+        return ChronoUnit.DAYS.between(from.atDay(1), to.atEndOfMonth()) + 1;
+    }
+
+    public double averagePerWeek() {
+        return events * 7.0 / days();
+    }
+
+    public double averagePerMonth() {
+        return (double) events / perMonth.size();
+    }
+
+    /** The Monday of the week with the most events, or {@code null} if there are none. */
+    public LocalDate busiestWeek() {
+        LocalDate busiest = null;
+        int most = 0;
+        for (Map.Entry<LocalDate, Integer> week : perWeek.entrySet()) {
+            if (week.getValue() > most) {
+                busiest = week.getKey();
+                most = week.getValue();
+            }
+        }
+        return busiest;
+    }
+
+    public DayOfWeek busiestWeekday() {
+        return DayOfWeek.of(indexOfMax(perWeekday) + 1);
+    }
+
+    public int busiestHour() {
+        return indexOfMax(perHour);
+    }
+
+    /** The share of events with at least one reminder, from 0 to 1. */
+    public double reminderShare() {
+        return events == 0 ? 0 : (double) withReminders / events;
+    }
+
+    private static int indexOfMax(int[] counts) {
+        int max = 0;
+        for (int i = 1; i < counts.length; i++) {
+            if (counts[i] > counts[max]) {
+                max = i;
+            }
+        }
+        return max;
+    }
+}
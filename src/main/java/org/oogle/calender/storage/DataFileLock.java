@@ -0,0 +1,125 @@
+package org.oogle.calender.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Coordinates the processes sharing a data file: readers hold a shared lock while they read it,
+ * and whoever appends to it or replaces it holds an exclusive one. Saves rename a new file over
+ * the old one, so the lock is taken on a sidecar file, {@code <data file>.lock}, that stays put;
+ * it is never deleted, since another process may be waiting on it.
+ *
+ * <p>Operating system locks belong to the whole process, and Java refuses overlapping ones
+ * within a JVM, so threads are ordered by a read-write lock first and the file lock is taken by
+ * the first reader and released by the last. A thread holding the exclusive lock may also take
+ * the shared one; one holding only the shared lock must not ask for the exclusive one.
+ *
+ * <p>There is one lock per data file, shared by everything reading or writing it.
+ */
+public final class DataFileLock {
+
+    /**
+     * Releases what was acquired; closing twice is a mistake. Taken in a try-with-resources block
+     * that never refers to it, so the methods doing so suppress the {@code try} lint.
+     */
+    public interface Hold extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final Map<File, DataFileLock> LOCKS = new HashMap<>();
+
+    private final File lockFile;
+    private final ReentrantReadWriteLock local = new ReentrantReadWriteLock();
+    private FileChannel channel; // Guarded by this
+    private FileLock held;       // Guarded by this
+    private int sharedHolders;   // Guarded by this
+
+    private DataFileLock(File dataFile) {
+        this.lockFile = new File(dataFile.getPath() + ".lock");
+    }
+
+    /** The lock of {@code dataFile}; the lock file is created when it is first taken. */
+    public static DataFileLock of(File dataFile) {
+        File key = dataFile.getAbsoluteFile();
+        synchronized (LOCKS) {
+            return LOCKS.computeIfAbsent(key, DataFileLock::new);
+        }
+    }
+
+    /** Waits until no other process or thread is writing the file. */
+    public Hold shared() throws IOException {
+        if (local.isWriteLockedByCurrentThread()) {
+            local.readLock().lock(); // The file lock is already exclusive
+            return local.readLock()::unlock;
+        }
+        local.readLock().lock();
+        try {
+            synchronized (this) {
+                if (sharedHolders == 0) {
+                    held = channel().lock(0, Long.MAX_VALUE, true);
+                }
+                sharedHolders++;
+            }
+        } catch (IOException | RuntimeException e) {
+            local.readLock().unlock();
+            throw e;
+        }
+        return () -> {
+            synchronized (this) {
+                if (--sharedHolders == 0) {
+                    release();
+                }
+            }
+            local.readLock().unlock();
+        };
+    }
+
+    /** Waits until nobody else is reading or writing the file; keep it short. */
+    public Hold exclusive() throws IOException {
+        local.writeLock().lock();
+        if (local.getWriteHoldCount() > 1) {
+            return local.writeLock()::unlock;
+        }
+        try {
+            synchronized (this) {
+                held = channel().lock();
+            }
+        } catch (IOException | RuntimeException e) {
+            local.writeLock().unlock();
+            throw e;
+        }
+        return () -> {
+            synchronized (this) {
+                release();
+            }
+            local.writeLock().unlock();
+        };
+    }
+
+    // Reopened if an interrupt closed it while waiting
+    private FileChannel channel() throws IOException {
+        if (channel == null || !channel.isOpen()) {
+            channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        return channel;
+    }
+
+    private void release() {
+        try {
+            if (held != null && held.isValid()) {
+                held.release();
+            }
+        } catch (IOException e) {
+            System.err.println("Error releasing " + lockFile + ": " + e.getMessage());
+        }
+        held = null;
+    }
+}
@@ -0,0 +1,424 @@
+package org.oogle.calender.storage;
+
+import org.oogle.calender.metrics.Metrics;
+import org.oogle.calender.model.StoredText;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * The description segment of a data file: long descriptions are appended to a file next to it,
+ * {@code <data file>.notes.<generation>}, and the data file only references them by offset. Each
+ * entry is its length, its CRC32C and its UTF-8 bytes. Descriptions are read when an event is
+ * shown, edited or notified, and kept in a cache bounded by {@value #CACHE_CHARS} characters,
+ * so neither memory nor saving grows with the amount of text: a save writes references for
+ * descriptions that are already stored and appends only new ones.
+ *
+ * <p>Replaced descriptions stay in the file as garbage. Once there is more garbage than live
+ * text, the next save copies every description still referenced in memory (undo history
+ * included) into the next generation's file and repoints them; the old file is deleted once the
+ * data file referencing the new one is committed.
+ *
+ * <p>References carry the entry's CRC32C, so a description can be told apart from another by its
+ * {@link #fingerprint(String) fingerprint} without reading it. Saves run under the data file's
+ * exclusive {@link DataFileLock}; each starts by taking in what other processes sharing the file
+ * did, moving to a new generation if one of them compacted.
+ *
+ * <p>There is one store per data file, shared by everything reading or writing it.
+ */
+public final class DescriptionStore {
+
+    /** Descriptions at least this long are stored out of line; shorter ones stay in the record. */
+    public static final int MIN_STORED_CHARS = 256;
+
+    static final int CACHE_CHARS = 1 << 20;
+    private static final int ENTRY_HEADER = 8; // Length and CRC32C
+    private static final long COMPACT_MIN_GARBAGE = 1 << 20;
+
+    private static final Map<File, DescriptionStore> STORES = new HashMap<>();
+
+    private final File dataFile;
+    private int generation; // 0 until a file is opened or created
+    private FileChannel channel;
+    private long end;
+    private long liveBytes = -1; // Referenced by the last load or save; -1 if unknown
+    private long compactedEnd; // File size right after the last compaction
+    private final List<WeakReference<Blob>> blobs = new ArrayList<>();
+
+    private long cachedChars;
+    private final LinkedHashMap<Blob, String> cache = new LinkedHashMap<>(64, 0.75f, true);
+
+    private DescriptionStore(File dataFile) {
+        this.dataFile = dataFile;
+    }
+
+    /** The store of {@code dataFile}; nothing is opened until a description is read or written. */
+    public static DescriptionStore of(File dataFile) {
+        File key = dataFile.getAbsoluteFile();
+        synchronized (STORES) {
+            return STORES.computeIfAbsent(key, DescriptionStore::new);
+        }
+    }
+
+    /** The description files of {@code dataFile}, to be copied or moved along with it. */
+    public static List<File> filesOf(File dataFile) {
+        File directory = dataFile.getAbsoluteFile().getParentFile();
+        String prefix = dataFile.getName() + ".notes.";
+        File[] files = directory != null ? directory.listFiles((dir, name) -> name.startsWith(prefix)) : null;
+        return files == null ? List.of() : List.of(files);
+    }
+
+    /** The token a data file record holds in place of the description stored as {@code blob}. */
+    synchronized String reference(Blob blob) {
+        return "&blob;" + generation + ":" + blob.offset + ":" + blob.length
+                + (blob.crc >= 0 ? ":" + Long.toHexString(blob.crc) : "");
+    }
+
+    /** Identifies {@code text} by its UTF-8 length and CRC32C, as a stored description is identified. */
+    static String fingerprint(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+        return fingerprint(bytes.length, crc.getValue());
+    }
+
+    private static String fingerprint(int length, long crc) {
+        return length + ":" + Long.toHexString(crc);
+    }
+
+    /** The fingerprint of the description a data file record references, read from its entry if the reference predates them. */
+    synchronized String referencedFingerprint(String reference) throws IOException {
+        String[] parts = reference.substring("&blob;".length()).split(":");
+        if (parts.length == 4) {
+            return fingerprint(Integer.parseInt(parts[2]), Long.parseLong(parts[3], 16));
+        }
+        if (parts.length != 3) {
+            throw new IOException("Malformed description reference: " + reference);
+        }
+        int referenced = Integer.parseInt(parts[0]);
+        long offset = Long.parseLong(parts[1]);
+        if (referenced == generation && channel != null) {
+            return fingerprint(Integer.parseInt(parts[2]), readCrc(channel, offset));
+        }
+        try (FileChannel other = FileChannel.open(notesFile(referenced).toPath(), StandardOpenOption.READ)) {
+            return fingerprint(Integer.parseInt(parts[2]), readCrc(other, offset));
+        }
+    }
+
+    /** True if {@code field} is a reference rather than description text. */
+    static boolean isReference(String field) {
+        return field.startsWith("&blob;");
+    }
+
+    /**
+     * Resolves a reference read from the data file. References into the current generation become
+     * lazily read {@link StoredText}; a reference into another generation, which only a crash
+     * between compaction and commit leaves behind, is read right away.
+     */
+    synchronized Object resolve(String reference) throws IOException {
+        String[] parts = reference.substring("&blob;".length()).split(":");
+        if (parts.length != 3 && parts.length != 4) {
+            throw new IOException("Malformed description reference: " + reference);
+        }
+        int referenced = Integer.parseInt(parts[0]);
+        long offset = Long.parseLong(parts[1]);
+        int length = Integer.parseInt(parts[2]);
+        long crc = parts.length == 4 ? Long.parseLong(parts[3], 16) : -1;
+        if (generation == 0 && notesFile(referenced).exists()) {
+            open(referenced);
+        }
+        if (referenced != generation) {
+            try (FileChannel other = FileChannel.open(notesFile(referenced).toPath(), StandardOpenOption.READ)) {
+                return readEntry(other, offset, length);
+            }
+        }
+        Blob blob = track(new Blob(offset, length, crc));
+        liveBytes = Math.max(liveBytes, 0) + ENTRY_HEADER + length;
+        return blob;
+    }
+
+    /** Stores {@code text} and returns its reference; call {@link #sync()} before committing a record of it. */
+    synchronized Blob append(String text) throws IOException {
+        if (channel == null) {
+            open(Math.max(newestGeneration(), generation) + 1);
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        long offset = end;
+        long crc = writeEntry(channel, offset, bytes);
+        end += ENTRY_HEADER + bytes.length;
+        Blob blob = track(new Blob(offset, bytes.length, crc));
+        cache(blob, text);
+        return blob;
+    }
+
+    /**
+     * Starts a save of the data file, compacting first if the last load or save left more garbage
+     * than live text. Text still held by undo history or not yet collected survives compaction, so
+     * the file must also have doubled since the last one; that keeps compaction's cost in
+     * proportion to what was appended.
+     *
+     * <p>If another process compacted since, this store's file is no longer the one its data file
+     * references, so the descriptions it holds are copied into a newer generation still.
+     */
+    synchronized void beginSave() throws IOException {
+        if (channel != null) {
+            int newest = newestGeneration();
+            if (newest > generation || !notesFile(generation).exists()) {
+                compact(Math.max(newest, generation) + 1);
+            } else {
+                end = channel.size(); // Another process may have appended
+                if (liveBytes >= 0 && end - liveBytes > Math.max(liveBytes, COMPACT_MIN_GARBAGE)
+                        && end >= 2 * compactedEnd) {
+                    compact(generation + 1);
+                }
+            }
+        }
+        liveBytes = 0;
+    }
+
+    /** Counts {@code blob} as referenced by the save in progress. */
+    synchronized void referenced(Blob blob) {
+        liveBytes += ENTRY_HEADER + blob.length;
+    }
+
+    /** Forces appended descriptions to disk, so a committed data file never references lost text. */
+    synchronized void sync() throws IOException {
+        if (channel != null) {
+            channel.force(true);
+        }
+    }
+
+    /** Deletes the files of other generations once a data file referencing this one is committed. */
+    synchronized void committed() {
+        String current = notesFile(generation).getName();
+        for (File file : filesOf(dataFile)) {
+            if (!file.getName().equals(current)) {
+                try {
+                    Files.deleteIfExists(file.toPath());
+                } catch (IOException e) {
+                    System.err.println("Error deleting old description file " + file + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /** True if {@code blob} is in this store's current file, so a save can keep its reference. */
+    boolean holds(StoredText text) {
+        return text instanceof Blob blob && blob.store() == this;
+    }
+
+    long fileBytes() {
+        return end;
+    }
+
+    private String read(Blob blob) {
+        synchronized (this) {
+            String cached = cache.get(blob);
+            if (cached != null) {
+                return cached;
+            }
+            try {
+                String text = readEntry(channel, blob.offset, blob.length);
+                cache(blob, text);
+                return text;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error reading description from " + notesFile(generation) + ": " + e.getMessage());
+                e.printStackTrace();
+                return "[Description could not be read: " + e.getMessage() + "]";
+            }
+        }
+    }
+
+    private void cache(Blob blob, String text) {
+        if (text.length() > CACHE_CHARS / 4) {
+            return; // One huge description would evict everything else
+        }
+        String previous = cache.put(blob, text);
+        cachedChars += text.length() - (previous != null ? previous.length() : 0);
+        Iterator<Map.Entry<Blob, String>> eldest = cache.entrySet().iterator();
+        while (cachedChars > CACHE_CHARS && eldest.hasNext()) {
+            cachedChars -= eldest.next().getValue().length();
+            eldest.remove();
+        }
+    }
+
+    private Blob track(Blob blob) {
+        if (blobs.size() >= 1024 && Integer.bitCount(blobs.size()) == 1) {
+            blobs.removeIf(reference -> reference.get() == null); // Now and then, as the list doubles
+        }
+        blobs.add(new WeakReference<>(blob));
+        return blob;
+    }
+
+    /** Copies every description still referenced into the next generation and repoints them. */
+    private void compact(int next) throws IOException {
+        long started = System.nanoTime();
+        File nextFile = notesFile(next);
+        FileChannel target = FileChannel.open(nextFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long position = 0;
+        List<WeakReference<Blob>> live = new ArrayList<>();
+        try {
+            ByteBuffer entry = ByteBuffer.allocate(64 * 1024);
+            for (WeakReference<Blob> reference : blobs) {
+                Blob blob = reference.get();
+                if (blob == null) {
+                    continue;
+                }
+                // Copied as stored, checksum included, so damage is neither hidden nor spread
+                int size = ENTRY_HEADER + blob.length;
+                if (entry.capacity() < size) {
+                    entry = ByteBuffer.allocate(size);
+                }
+                entry.clear().limit(size);
+                readFully(channel, entry, blob.offset);
+                entry.flip();
+                while (entry.hasRemaining()) {
+                    position += target.write(entry, position);
+                }
+                blob.offset = position - size;
+                live.add(reference);
+            }
+            target.force(true);
+        } catch (IOException | RuntimeException e) {
+            target.close();
+            Files.deleteIfExists(nextFile.toPath());
+            throw e;
+        }
+        channel.close();
+        channel = target;
+        generation = next;
+        end = position;
+        compactedEnd = position;
+        blobs.clear();
+        blobs.addAll(live);
+        Metrics.registry().histogram("notes.compact.nanos").record(System.nanoTime() - started);
+    }
+
+    private void open(int openGeneration) throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+        channel = FileChannel.open(notesFile(openGeneration).toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        generation = openGeneration;
+        end = channel.size();
+    }
+
+    private int newestGeneration() {
+        int newest = 0;
+        String prefix = dataFile.getName() + ".notes.";
+        for (File file : filesOf(dataFile)) {
+            try {
+                newest = Math.max(newest, Integer.parseInt(file.getName().substring(prefix.length())));
+            } catch (NumberFormatException e) {
+                // Not one of ours
+            }
+        }
+        return newest;
+    }
+
+    private File notesFile(int fileGeneration) {
+        return new File(dataFile.getPath() + ".notes." + fileGeneration);
+    }
+
+    private static String readEntry(FileChannel from, long offset, int length) throws IOException {
+        if (from == null) {
+            throw new IOException("No description file");
+        }
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_HEADER + length);
+        readFully(from, entry, offset);
+        entry.flip();
+        int storedLength = entry.getInt();
+        int storedCrc = entry.getInt();
+        if (storedLength != length) {
+            throw new IOException("Description at " + offset + " has length " + storedLength + ", expected " + length);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(entry.array(), ENTRY_HEADER, length);
+        if ((int) crc.getValue() != storedCrc) {
+            throw new IOException("Description at " + offset + " fails its checksum");
+        }
+        return new String(entry.array(), ENTRY_HEADER, length, StandardCharsets.UTF_8);
+    }
+
+    private static long readCrc(FileChannel from, long offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(ENTRY_HEADER);
+        readFully(from, header, offset);
+        return Integer.toUnsignedLong(header.getInt(4));
+    }
+
+    // Returns the CRC32C of bytes
+    private static long writeEntry(FileChannel to, long offset, byte[] bytes) throws IOException {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_HEADER + bytes.length);
+        entry.putInt(bytes.length).putInt((int) crc.getValue()).put(bytes).flip();
+        long position = offset;
+        while (entry.hasRemaining()) {
+            position += to.write(entry, position);
+        }
+        return crc.getValue();
+    }
+
+    private static void readFully(FileChannel from, ByteBuffer into, long offset) throws IOException {
+        long position = offset;
+        while (into.hasRemaining()) {
+            int read = from.read(into, position);
+            if (read < 0) {
+                throw new IOException("Description at " + offset + " is cut off");
+            }
+            position += read;
+        }
+    }
+
+    /** A stored description; its offset moves when the store is compacted. */
+    final class Blob implements StoredText {
+        private long offset; // Guarded by the store
+        private final int length;
+        private long crc;    // Guarded by the store; -1 until read for references that predate it
+
+        private Blob(long offset, int length, long crc) {
+            this.offset = offset;
+            this.length = length;
+            this.crc = crc;
+        }
+
+        DescriptionStore store() {
+            return DescriptionStore.this;
+        }
+
+        /** The description's {@link DescriptionStore#fingerprint(String) fingerprint}, without reading the text. */
+        String fingerprint() throws IOException {
+            synchronized (DescriptionStore.this) {
+                if (crc < 0) {
+                    crc = readCrc(channel, offset);
+                }
+                return DescriptionStore.fingerprint(length, crc);
+            }
+        }
+
+        @Override
+        public String text() {
+            return read(this);
+        }
+
+        @Override
+        public int storedBytes() {
+            return length;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package org.oogle.calender.storage;
+
+import org.oogle.calender.model.Event;
+import org.oogle.calender.model.EventChange;
+import org.oogle.calender.model.StoredText;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Reads and writes the {@code .dat} calendar format, one event per line:
+ * {@code DATE|TITLE|TIME|DESCRIPTION|REMINDERS}. Title and description are escaped so they
+ * cannot contain the field separator or line breaks, nor start with {@code &}, so a description
+ * written into the record can never pass for a {@code &blob;} reference. The lines are the records of a
+ * {@link RecordFile}, which adds the checksums and the atomic replace on save.
+ *
+ * <p>Descriptions of {@value DescriptionStore#MIN_STORED_CHARS} characters or more are kept in
+ * the file's {@link DescriptionStore} and the record holds a {@code &blob;} reference to them;
+ * {@link #writeInline} writes them into the records instead, for files that must stand alone.
+ *
+ * <p>Several processes may share a file. Reads hold its shared {@link DataFileLock} and writes
+ * its exclusive one; {@link #append} adds changes to the file's journal rather than writing it
+ * all, and {@link #readChanges} reads those another process appended. Removals are journaled by
+ * {@link #key(Event) key}, which identifies an event by its fields and a fingerprint of its
+ * description, however that is stored.
+ */
+public final class EventFile {
+
+    private EventFile() {
+    }
+
+    /** Reads every intact event; damage is logged, see {@link #read(File, Consumer)} for the details. */
+    public static List<Event> read(File file) throws IOException {
+        List<Event> events = new ArrayList<>();
+        RecoveryReport report = read(file, events::add);
+        if (!report.isClean()) {
+            System.err.println("Recovered " + file + " with damage: " + report);
+        }
+        return events;
+    }
+
+    /** The changes {@link #readChanges} finds, in the order they were made. */
+    public interface Changes {
+
+        void added(Event event);
+
+        /** An event was removed; {@code key} is its {@link #key(Event) key}. */
+        void removed(String key);
+    }
+
+    /** Hands every intact event of {@code file} to {@code events} and reports what could not be read. */
+    public static RecoveryReport read(File file, Consumer<Event> events) throws IOException {
+        DescriptionStore notes = DescriptionStore.of(file);
+        return readLines(file, line -> {
+            Event event = parseLine(line, notes);
+            if (event == null) {
+                return false;
+            }
+            events.accept(event);
+            return true;
+        });
+    }
+
+    /**
+     * Hands every intact record of {@code file}, journal applied, to {@code lines} to parse with
+     * {@link #parseLine(String, DescriptionStore)}; it returns false for those it could not use.
+     */
+    @SuppressWarnings("try")
+    public static RecoveryReport readLines(File file, Predicate<String> lines) throws IOException {
+        DescriptionStore notes = DescriptionStore.of(file);
+        try (DataFileLock.Hold hold = DataFileLock.of(file).shared()) {
+            return RecordFile.read(file, lines, line -> key(line, notes));
+        }
+    }
+
+    /** The version of {@code file}, or {@code null} if it does not exist; cheap enough to poll. */
+    @SuppressWarnings("try")
+    public static RecordFile.Version version(File file) throws IOException {
+        try (DataFileLock.Hold hold = DataFileLock.of(file).shared()) {
+            return RecordFile.readVersion(file);
+        }
+    }
+
+    /**
+     * Hands the changes made to {@code file} after {@code since} to {@code changes} and returns the
+     * version now read, or {@code null} if the file was written in full since and has to be read again.
+     */
+    @SuppressWarnings("try")
+    public static RecordFile.Version readChanges(File file, RecordFile.Version since, Changes changes) throws IOException {
+        DescriptionStore notes = DescriptionStore.of(file);
+        try (DataFileLock.Hold hold = DataFileLock.of(file).shared()) {
+            return RecordFile.readChanges(file, since, new RecordFile.Journal() {
+                @Override
+                public void added(String record) {
+                    Event event = parseLine(record, notes);
+                    if (event != null) {
+                        changes.added(event);
+                    }
+                }
+
+                @Override
+                public void removed(String key) {
+                    changes.removed(key);
+                }
+            });
+        }
+    }
+
+    /**
+     * Replaces {@code file} with the events, atomically: a failed write leaves the old file in place.
+     * Long descriptions already in the file's store are written as their references, new ones are
+     * appended to it and the events let go of their strings.
+     */
+    @SuppressWarnings("try")
+    public static RecordFile.Version write(File file, Collection<? extends Collection<Event>> eventsByDay) throws IOException {
+        DescriptionStore notes = DescriptionStore.of(file);
+        try (DataFileLock.Hold hold = DataFileLock.of(file).exclusive()) {
+            notes.beginSave();
+            RecordFile.Version version;
+            try (RecordFile.Writer writer = RecordFile.create(file)) {
+                for (Collection<Event> dayEvents : eventsByDay) {
+                    for (Event event : dayEvents) {
+                        writer.append(formatLine(event, notes));
+                    }
+                }
+                notes.sync();
+                writer.commit();
+                version = writer.getVersion();
+            }
+            notes.committed();
+            return version;
+        }
+    }
+
+    /**
+     * Appends {@code changes} to the journal of {@code file} as one group and returns the new
+     * version. Added events are written with their descriptions inline, so the description store
+     * is only ever written by full saves. The file must be {@link RecordFile.Version#isAppendable
+     * appendable}.
+     */
+    @SuppressWarnings("try")
+    public static RecordFile.Version append(File file, List<EventChange> changes) throws IOException {
+        try (DataFileLock.Hold hold = DataFileLock.of(file).exclusive();
+             RecordFile.Appender appender = RecordFile.append(file)) {
+            for (EventChange change : changes) {
+                switch (change.getType()) {
+                    case ADDED -> appender.added(formatLine(change.getEvent()));
+                    case REMOVED -> appender.removed(key(change.getEvent()));
+                    case UPDATED -> {
+                        appender.removed(key(change.getPrevious()));
+                        appender.added(formatLine(change.getEvent()));
+                    }
+                }
+            }
+            return appender.commit();
+        }
+    }
+
+    /**
+     * Identifies an event in the journal: its fields as a record has them, with a fingerprint in
+     * place of the description, so an event with a stored description matches its record without
+     * the text being read.
+     */
+    public static String key(Event event) throws IOException {
+        StoredText stored = event.getStoredDescription();
+        String fingerprint = stored instanceof DescriptionStore.Blob blob ? blob.fingerprint()
+                : DescriptionStore.fingerprint(stored != null ? stored.text() : event.getDescription());
+        return format(event, fingerprint);
+    }
+
+    // The key of a record line; a line that is not an event is its own key
+    private static String key(String line, DescriptionStore notes) {
+        String[] parts = line.split("\\|", -1);
+        if (parts.length < 5) {
+            return line;
+        }
+        try {
+            parts[3] = DescriptionStore.isReference(parts[3])
+                    ? notes.referencedFingerprint(parts[3]) : DescriptionStore.fingerprint(unescape(parts[3]));
+        } catch (IOException | RuntimeException e) {
+            return line;
+        }
+        return String.join("|", parts);
+    }
+
+    /** Like {@link #write}, but with every description in its record, for exports and other files that must stand alone. */
+    public static void writeInline(File file, Collection<? extends Collection<Event>> eventsByDay) throws IOException {
+        try (RecordFile.Writer writer = RecordFile.create(file)) {
+            for (Collection<Event> dayEvents : eventsByDay) {
+                for (Event event : dayEvents) {
+                    writer.append(formatLine(event));
+                }
+            }
+            writer.commit();
+        }
+    }
+
+    /** Parses one self-contained line; malformed lines are logged and skipped by returning {@code null}. */
+    public static Event parseLine(String line) {
+        return parseLine(line, null);
+    }
+
+    /**
+     * Parses one line of a file whose description references resolve against {@code notes}; a
+     * description that cannot be read is replaced by a note saying so rather than losing the event.
+     */
+    public static Event parseLine(String line, DescriptionStore notes) {
+        try {
+            String[] parts = line.split("\\|", -1); // Keep the empty reminder field of events without reminders
+            if (parts.length >= 5) {
+                LocalDate date = LocalDate.parse(parts[0]);
+                String title = unescape(parts[1]);
+                LocalTime time = LocalTime.parse(parts[2]);
+                Object description = notes != null && DescriptionStore.isReference(parts[3])
+                        ? resolve(notes, parts[3]) : unescape(parts[3]);
+
+                List<Integer> reminders = new ArrayList<>();
+                if (!parts[4].isEmpty()) {
+                    String[] reminderParts = parts[4].split(",");
+                    for (String r : reminderParts) {
+                        reminders.add(Integer.parseInt(r.trim()));
+                    }
+                }
+
+                LocalDateTime dateTime = LocalDateTime.of(date, time);
+                return description instanceof StoredText stored
+                        ? new Event(title, dateTime, stored, reminders)
+                        : new Event(title, dateTime, (String) description, reminders);
+            }
+        } catch (Exception e) {
+            System.err.println("Error parsing line: " + line);
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /** Formats the event with its description inline. */
+    public static String formatLine(Event event) {
+        return format(event, escape(event.getDescription()));
+    }
+
+    private static String formatLine(Event event, DescriptionStore notes) throws IOException {
+        StoredText stored = event.getStoredDescription();
+        if (stored instanceof DescriptionStore.Blob blob && notes.holds(blob)) {
+            notes.referenced(blob);
+            return format(event, notes.reference(blob));
+        }
+        String description = event.getDescription();
+        if (description.length() < DescriptionStore.MIN_STORED_CHARS) {
+            return format(event, escape(description));
+        }
+        DescriptionStore.Blob blob = notes.append(description);
+        notes.referenced(blob);
+        event.storeDescription(blob);
+        return format(event, notes.reference(blob));
+    }
+
+    private static Object resolve(DescriptionStore notes, String reference) {
+        try {
+            return notes.resolve(reference);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error reading description " + reference + ": " + e.getMessage());
+            return "[Description could not be read: " + e.getMessage() + "]";
+        }
+    }
+
+    private static String format(Event event, String description) {
+        String reminders = event.getReminderMinutes().stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+
+        return String.format("%s|%s|%s|%s|%s",
+                event.getDate().toString(),
+                escape(event.getTitle()),
+                event.getDateTime().toLocalTime().toString(),
+                description,
+                reminders
+        );
+    }
+
+    public static String escape(String str) {
+        if (str == null) return "";
+        String escaped = str.replace("|", "&#124;").replace("\n", "&#10;");
+        // Only ever a reference starts with &
+        return str.startsWith("&") ? "&#38;" + escaped.substring(1) : escaped;
+    }
+
+    public static String unescape(String str) {
+        if (str == null) return "";
+        String unescaped = str.replace("&#124;", "|").replace("&#10;", "\n");
+        return str.startsWith("&#38;") ? "&" + unescaped.substring(5) : unescaped;
+    }
+}
@@ -0,0 +1,671 @@
+package org.oogle.calender.storage;
+
+import org.oogle.calender.model.Event;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * Streaming reader and writer for iCalendar (RFC 5545) files. The reader unfolds lines on the
+ * fly and hands each {@code VEVENT} to a consumer as soon as its {@code END} line is read, so
+ * memory use does not grow with the file. {@code VALARM} triggers before the start become
+ * reminder minutes, and {@code RRULE}/{@code EXDATE} are expanded into one event per occurrence
+ * up to a horizon, since events here do not recur. Times are converted to the local time zone.
+ *
+ * <p>Supported recurrences are {@code FREQ=DAILY/WEEKLY/MONTHLY/YEARLY} with {@code INTERVAL},
+ * {@code COUNT}, {@code UNTIL}, {@code BYDAY} and {@code BYMONTHDAY}. Other rule parts are ignored.
+ * Overridden instances ({@code RECURRENCE-ID}) are imported as separate events.
+ */
+public final class ICalendarFile {
+
+    /** How far past today recurring events are expanded by default. */
+    public static final int DEFAULT_HORIZON_YEARS = 2;
+
+    // Upper bound on the occurrences generated for a single rule
+    private static final int MAX_OCCURRENCES = 10_000;
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final int MAX_LINE_OCTETS = 75;
+
+    private ICalendarFile() {
+    }
+
+    /** Reads {@code file} as UTF-8, expanding recurrences up to the default horizon. */
+    public static int read(File file, Consumer<Event> sink) throws IOException {
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            return read(reader, LocalDate.now().plusYears(DEFAULT_HORIZON_YEARS), sink);
+        }
+    }
+
+    /**
+     * Parses events from {@code reader} and passes each one to {@code sink}; recurring events
+     * produce one event per occurrence on or before {@code horizon}. Returns the number emitted.
+     * Malformed events are logged and skipped.
+     */
+    public static int read(Reader reader, LocalDate horizon, Consumer<Event> sink) throws IOException {
+        Unfolder lines = new Unfolder(new BufferedReader(reader, 64 * 1024));
+        LocalDateTime horizonEnd = horizon.atTime(23, 59, 59);
+        ZoneId localZone = ZoneId.systemDefault();
+
+        int emitted = 0;
+        VEvent event = null;
+        Alarm alarm = null;
+        int skipDepth = 0; // Nesting inside components we do not map, such as VTODO
+        String line;
+        while ((line = lines.next()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            Property property = Property.parse(line);
+            if (property == null) {
+                continue;
+            }
+            if (property.name.equals("BEGIN")) {
+                String component = property.value.toUpperCase();
+                if (skipDepth > 0) {
+                    skipDepth++;
+                } else if (component.equals("VEVENT") && event == null) {
+                    event = new VEvent();
+                } else if (component.equals("VALARM") && event != null && alarm == null) {
+                    alarm = new Alarm();
+                } else if (event != null) {
+                    skipDepth++;
+                }
+                continue;
+            }
+            if (property.name.equals("END")) {
+                String component = property.value.toUpperCase();
+                if (skipDepth > 0) {
+                    skipDepth--;
+                } else if (component.equals("VALARM") && alarm != null) {
+                    event.alarms.add(alarm);
+                    alarm = null;
+                } else if (component.equals("VEVENT") && event != null) {
+                    emitted += emit(event, localZone, horizonEnd, sink);
+                    event = null;
+                }
+                continue;
+            }
+            if (skipDepth > 0) {
+                continue;
+            }
+            try {
+                if (alarm != null) {
+                    alarm.accept(property);
+                } else if (event != null) {
+                    event.accept(property);
+                }
+            } catch (RuntimeException e) {
+                event.error = e; // Reported when the event ends
+            }
+        }
+        return emitted;
+    }
+
+    public static void write(File file, Collection<? extends Collection<Event>> eventsByDay) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            write(writer, eventsByDay);
+        }
+    }
+
+    /**
+     * Writes one {@code VEVENT} per event with a floating local start time and one display
+     * {@code VALARM} per reminder. Lines are folded at 75 octets and end in CRLF.
+     */
+    public static void write(Writer writer, Collection<? extends Collection<Event>> eventsByDay) throws IOException {
+        String stamp = LocalDateTime.now(ZoneOffset.UTC).format(DATE_TIME) + "Z";
+        writeLine(writer, "BEGIN:VCALENDAR");
+        writeLine(writer, "VERSION:2.0");
+        writeLine(writer, "PRODID:-//TaskFlow Calendar//EN");
+        for (Collection<Event> dayEvents : eventsByDay) {
+            for (Event event : dayEvents) {
+                writeLine(writer, "BEGIN:VEVENT");
+                writeLine(writer, "UID:taskflow-" + event.getId() + "-" + event.getDateTime().format(DATE_TIME));
+                writeLine(writer, "DTSTAMP:" + stamp);
+                writeLine(writer, "DTSTART:" + event.getDateTime().format(DATE_TIME));
+                writeLine(writer, "SUMMARY:" + escapeText(event.getTitle()));
+                if (!event.getDescription().isEmpty()) {
+                    writeLine(writer, "DESCRIPTION:" + escapeText(event.getDescription()));
+                }
+                for (int minutes : event.getReminderMinutes()) {
+                    writeLine(writer, "BEGIN:VALARM");
+                    writeLine(writer, "ACTION:DISPLAY");
+                    writeLine(writer, "DESCRIPTION:" + escapeText(event.getTitle()));
+                    writeLine(writer, "TRIGGER:" + (minutes == 0 ? "PT0S" : "-PT" + minutes + "M"));
+                    writeLine(writer, "END:VALARM");
+                }
+                writeLine(writer, "END:VEVENT");
+            }
+        }
+        writeLine(writer, "END:VCALENDAR");
+    }
+
+    private static int emit(VEvent event, ZoneId localZone, LocalDateTime horizon, Consumer<Event> sink) {
+        try {
+            if (event.error != null) {
+                throw event.error;
+            }
+            if (event.start == null) {
+                throw new IllegalArgumentException("missing DTSTART");
+            }
+            String title = event.summary == null || event.summary.isBlank() ? "(No title)" : event.summary;
+            String description = event.description == null ? "" : event.description;
+            List<Integer> reminders = event.reminderMinutes();
+
+            if (event.rrule == null) {
+                sink.accept(new Event(title, toLocal(event.start, event.zone, localZone), description, reminders));
+                return 1;
+            }
+            Recurrence recurrence = Recurrence.parse(event.rrule, event.zone, localZone);
+            int[] count = {0};
+            recurrence.expand(event.start, horizon, occurrence -> {
+                LocalDateTime local = toLocal(occurrence, event.zone, localZone);
+                if (!event.exdates.contains(local)) {
+                    sink.accept(new Event(title, local, description, reminders));
+                    count[0]++;
+                }
+            });
+            return count[0];
+        } catch (RuntimeException e) {
+            System.err.println("Error parsing event: " + (event.uid != null ? event.uid : event.summary));
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    /** A DATE or DATE-TIME value in the zone it was written in; {@code zone} is null for floating times. */
+    private static LocalDateTime parseDateTime(String value, Property property, ZoneId[] zone) {
+        String text = value.trim();
+        if (text.length() == 8 || "DATE".equalsIgnoreCase(property.params.get("VALUE"))) {
+            zone[0] = null;
+            return LocalDate.parse(text.substring(0, 8), DATE).atStartOfDay();
+        }
+        if (text.endsWith("Z")) {
+            zone[0] = ZoneOffset.UTC;
+            return LocalDateTime.parse(text.substring(0, text.length() - 1), DATE_TIME);
+        }
+        zone[0] = parseZone(property.params.get("TZID"));
+        return LocalDateTime.parse(text, DATE_TIME);
+    }
+
+    // Non-IANA ids (such as Windows zone names) are treated as floating local time
+    private static ZoneId parseZone(String tzid) {
+        if (tzid == null) {
+            return null;
+        }
+        try {
+            return ZoneId.of(tzid.startsWith("/") ? tzid.substring(1) : tzid);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static LocalDateTime toLocal(LocalDateTime dateTime, ZoneId zone, ZoneId localZone) {
+        if (zone == null || zone.equals(localZone)) {
+            return dateTime;
+        }
+        return dateTime.atZone(zone).withZoneSameInstant(localZone).toLocalDateTime();
+    }
+
+    /** Parses an RFC 5545 duration such as {@code -PT15M}, {@code -P1DT2H} or {@code -P1W}. */
+    private static Duration parseDuration(String value) {
+        String text = value.trim().toUpperCase();
+        int i = 0;
+        boolean negative = false;
+        if (text.startsWith("-") || text.startsWith("+")) {
+            negative = text.charAt(0) == '-';
+            i++;
+        }
+        if (i >= text.length() || text.charAt(i) != 'P') {
+            throw new IllegalArgumentException("invalid duration: " + value);
+        }
+        i++;
+        long seconds = 0;
+        long number = -1;
+        for (; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                number = (number < 0 ? 0 : number * 10) + (c - '0');
+                continue;
+            }
+            if (c == 'T') {
+                continue;
+            }
+            if (number < 0) {
+                throw new IllegalArgumentException("invalid duration: " + value);
+            }
+            seconds += number * switch (c) {
+                case 'W' -> 7 * 86_400L;
+                case 'D' -> 86_400L;
+                case 'H' -> 3_600L;
+                case 'M' -> 60L;
+                case 'S' -> 1L;
+                default -> throw new IllegalArgumentException("invalid duration: " + value);
+            };
+            number = -1;
+        }
+        return Duration.ofSeconds(negative ? -seconds : seconds);
+    }
+
+    static String escapeText(String text) {
+        StringBuilder escaped = new StringBuilder(text.length() + 8);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\' -> escaped.append("\\\\");
+                case ';' -> escaped.append("\\;");
+                case ',' -> escaped.append("\\,");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> { }
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    static String unescapeText(String text) {
+        if (text.indexOf('\\') < 0) {
+            return text;
+        }
+        StringBuilder unescaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                char next = text.charAt(++i);
+                unescaped.append(next == 'n' || next == 'N' ? '\n' : next);
+            } else {
+                unescaped.append(c);
+            }
+        }
+        return unescaped.toString();
+    }
+
+    // Folds after 75 octets without splitting a UTF-8 sequence or a surrogate pair
+    private static void writeLine(Writer writer, String line) throws IOException {
+        int octets = 0;
+        int limit = MAX_LINE_OCTETS;
+        for (int i = 0; i < line.length(); ) {
+            int codePoint = line.codePointAt(i);
+            int width = codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+            if (octets + width > limit) {
+                writer.write("\r\n ");
+                octets = 0;
+                limit = MAX_LINE_OCTETS - 1; // The leading space counts towards the line
+            }
+            writer.write(line, i, Character.charCount(codePoint));
+            octets += width;
+            i += Character.charCount(codePoint);
+        }
+        writer.write("\r\n");
+    }
+
+    /** Joins folded continuation lines, reading one line ahead. */
+    private static final class Unfolder {
+        private final BufferedReader reader;
+        private String lookahead;
+
+        Unfolder(BufferedReader reader) throws IOException {
+            this.reader = reader;
+            this.lookahead = reader.readLine();
+        }
+
+        String next() throws IOException {
+            if (lookahead == null) {
+                return null;
+            }
+            String line = lookahead;
+            lookahead = reader.readLine();
+            if (lookahead == null || lookahead.isEmpty() || (lookahead.charAt(0) != ' ' && lookahead.charAt(0) != '\t')) {
+                return line;
+            }
+            StringBuilder unfolded = new StringBuilder(line);
+            while (lookahead != null && !lookahead.isEmpty()
+                    && (lookahead.charAt(0) == ' ' || lookahead.charAt(0) == '\t')) {
+                unfolded.append(lookahead, 1, lookahead.length());
+                lookahead = reader.readLine();
+            }
+            return unfolded.toString();
+        }
+    }
+
+    /** A content line split into upper-cased name, parameters and raw value. */
+    private static final class Property {
+        final String name;
+        final Map<String, String> params;
+        final String value;
+
+        private Property(String name, Map<String, String> params, String value) {
+            this.name = name;
+            this.params = params;
+            this.value = value;
+        }
+
+        static Property parse(String line) {
+            // Parameters are separated by ';' and the value starts after the first ':',
+            // except where either appears inside a quoted parameter value
+            int nameEnd = -1;
+            int colon = -1;
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (c == '"') {
+                    quoted = !quoted;
+                } else if (!quoted && c == ';' && nameEnd < 0) {
+                    nameEnd = i;
+                } else if (!quoted && c == ':') {
+                    colon = i;
+                    break;
+                }
+            }
+            if (colon < 0) {
+                return null;
+            }
+            if (nameEnd < 0) {
+                return new Property(line.substring(0, colon).toUpperCase(), Map.of(), line.substring(colon + 1));
+            }
+
+            Map<String, String> params = new HashMap<>();
+            int start = nameEnd + 1;
+            quoted = false;
+            for (int i = start; i <= colon; i++) {
+                char c = line.charAt(i);
+                if (c == '"') {
+                    quoted = !quoted;
+                } else if (!quoted && (c == ';' || i == colon)) {
+                    int eq = line.indexOf('=', start);
+                    if (eq > start && eq < i) {
+                        params.put(line.substring(start, eq).toUpperCase(), line.substring(eq + 1, i).replace("\"", ""));
+                    }
+                    start = i + 1;
+                }
+            }
+            return new Property(line.substring(0, nameEnd).toUpperCase(), params, line.substring(colon + 1));
+        }
+    }
+
+    private static final class VEvent {
+        String uid;
+        String summary;
+        String description;
+        LocalDateTime start;
+        LocalDateTime end;
+        ZoneId zone;
+        String rrule;
+        final Set<LocalDateTime> exdates = new HashSet<>();
+        final List<Alarm> alarms = new ArrayList<>();
+        RuntimeException error;
+
+        void accept(Property property) {
+            ZoneId[] zone = new ZoneId[1];
+            switch (property.name) {
+                case "UID" -> uid = property.value;
+                case "SUMMARY" -> summary = unescapeText(property.value);
+                case "DESCRIPTION" -> description = unescapeText(property.value);
+                case "DTSTART" -> {
+                    start = parseDateTime(property.value, property, zone);
+                    this.zone = zone[0];
+                }
+                case "DTEND" -> end = parseDateTime(property.value, property, zone);
+                case "RRULE" -> rrule = property.value;
+                case "EXDATE" -> {
+                    ZoneId localZone = ZoneId.systemDefault();
+                    for (String value : property.value.split(",")) {
+                        exdates.add(toLocal(parseDateTime(value, property, zone), zone[0], localZone));
+                    }
+                }
+                default -> { }
+            }
+        }
+
+        /** Minutes before the start for every alarm that fires at or before it, latest first. */
+        List<Integer> reminderMinutes() {
+            TreeSet<Integer> minutes = new TreeSet<>();
+            for (Alarm alarm : alarms) {
+                Integer before = alarm.minutesBefore(this);
+                if (before != null && before >= 0) {
+                    minutes.add(before);
+                }
+            }
+            return new ArrayList<>(minutes.descendingSet());
+        }
+    }
+
+    private static final class Alarm {
+        String trigger;
+        boolean relatedToEnd;
+        boolean absolute;
+        ZoneId absoluteZone;
+        LocalDateTime absoluteTime;
+
+        void accept(Property property) {
+            if (!property.name.equals("TRIGGER")) {
+                return;
+            }
+            if ("DATE-TIME".equalsIgnoreCase(property.params.get("VALUE"))) {
+                ZoneId[] zone = new ZoneId[1];
+                absoluteTime = parseDateTime(property.value, property, zone);
+                absoluteZone = zone[0];
+                absolute = true;
+            } else {
+                trigger = property.value;
+                relatedToEnd = "END".equalsIgnoreCase(property.params.get("RELATED"));
+            }
+        }
+
+        Integer minutesBefore(VEvent event) {
+            if (absolute) {
+                LocalDateTime at = toLocal(absoluteTime, absoluteZone, event.zone == null ? ZoneId.systemDefault() : event.zone);
+                return (int) ChronoUnit.MINUTES.between(at, event.start);
+            }
+            if (trigger == null) {
+                return null;
+            }
+            long offset = parseDuration(trigger).toMinutes();
+            if (relatedToEnd && event.end != null) {
+                offset += ChronoUnit.MINUTES.between(event.start, event.end);
+            }
+            return (int) -offset;
+        }
+    }
+
+    /** The supported subset of an RRULE, expanded in the event's own time zone. */
+    private static final class Recurrence {
+        private final String freq;
+        private final int interval;
+        private final int count;
+        private final LocalDateTime until;
+        private final List<DayOfWeek> byDay = new ArrayList<>();
+        private final List<Integer> byDayOrdinal = new ArrayList<>();
+        private final List<Integer> byMonthDay = new ArrayList<>();
+
+        private Recurrence(String freq, int interval, int count, LocalDateTime until) {
+            this.freq = freq;
+            this.interval = interval;
+            this.count = count;
+            this.until = until;
+        }
+
+        static Recurrence parse(String rule, ZoneId eventZone, ZoneId localZone) {
+            Map<String, String> parts = new HashMap<>();
+            for (String part : rule.split(";")) {
+                int eq = part.indexOf('=');
+                if (eq > 0) {
+                    parts.put(part.substring(0, eq).toUpperCase(), part.substring(eq + 1).toUpperCase());
+                }
+            }
+            String freq = parts.get("FREQ");
+            if (freq == null || !Set.of("DAILY", "WEEKLY", "MONTHLY", "YEARLY").contains(freq)) {
+                throw new IllegalArgumentException("unsupported RRULE: " + rule);
+            }
+            int interval = Integer.parseInt(parts.getOrDefault("INTERVAL", "1"));
+            int count = Integer.parseInt(parts.getOrDefault("COUNT", "0"));
+            LocalDateTime until = null;
+            if (parts.containsKey("UNTIL")) {
+                String value = parts.get("UNTIL");
+                if (value.length() == 8) {
+                    until = LocalDate.parse(value, DATE).atTime(23, 59, 59);
+                } else if (value.endsWith("Z")) {
+                    // UTC, compared against occurrences in the event's zone
+                    LocalDateTime utc = LocalDateTime.parse(value.substring(0, value.length() - 1), DATE_TIME);
+                    until = toLocal(utc, ZoneOffset.UTC, eventZone == null ? localZone : eventZone);
+                } else {
+                    until = LocalDateTime.parse(value, DATE_TIME);
+                }
+            }
+
+            Recurrence recurrence = new Recurrence(freq, Math.max(1, interval), count, until);
+            if (parts.containsKey("BYDAY")) {
+                for (String day : parts.get("BYDAY").split(",")) {
+                    String code = day.substring(day.length() - 2);
+                    String ordinal = day.substring(0, day.length() - 2);
+                    recurrence.byDay.add(dayOfWeek(code));
+                    recurrence.byDayOrdinal.add(ordinal.isEmpty() ? 0 : Integer.parseInt(ordinal.replace("+", "")));
+                }
+            }
+            if (parts.containsKey("BYMONTHDAY")) {
+                for (String day : parts.get("BYMONTHDAY").split(",")) {
+                    recurrence.byMonthDay.add(Integer.parseInt(day));
+                }
+            }
+            return recurrence;
+        }
+
+        /** Emits occurrences in order, honouring COUNT, UNTIL, the horizon and MAX_OCCURRENCES. */
+        void expand(LocalDateTime start, LocalDateTime horizon, Consumer<LocalDateTime> out) {
+            int generated = 0;
+            for (long period = 0; ; period++) {
+                List<LocalDateTime> candidates = candidates(start, period * interval);
+                for (LocalDateTime occurrence : candidates) {
+                    if (occurrence.isBefore(start)) {
+                        continue;
+                    }
+                    if ((until != null && occurrence.isAfter(until)) || occurrence.isAfter(horizon)
+                            || generated >= MAX_OCCURRENCES) {
+                        return;
+                    }
+                    out.accept(occurrence);
+                    generated++;
+                    if (count > 0 && generated >= count) {
+                        return;
+                    }
+                }
+                LocalDateTime periodStart = periodStart(start, period * interval);
+                if ((until != null && periodStart.isAfter(until)) || periodStart.isAfter(horizon)) {
+                    return;
+                }
+            }
+        }
+
+        private LocalDateTime periodStart(LocalDateTime start, long offset) {
+            return switch (freq) {
+                case "DAILY" -> start.plusDays(offset);
+                case "WEEKLY" -> start.plusWeeks(offset).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case "MONTHLY" -> YearMonth.from(start).plusMonths(offset).atDay(1).atTime(start.toLocalTime());
+                default -> LocalDate.of(start.getYear(), 1, 1).plusYears(offset).atTime(start.toLocalTime());
+            };
+        }
+
+        // Occurrences within one period, in order; dates that do not exist (such as Feb 30) are skipped
+        private List<LocalDateTime> candidates(LocalDateTime start, long offset) {
+            List<LocalDateTime> result = new ArrayList<>();
+            switch (freq) {
+                case "DAILY" -> result.add(start.plusDays(offset));
+                case "WEEKLY" -> {
+                    if (byDay.isEmpty()) {
+                        result.add(start.plusWeeks(offset));
+                    } else {
+                        LocalDateTime monday = periodStart(start, offset);
+                        for (DayOfWeek day : byDay) {
+                            result.add(monday.plusDays(day.getValue() - 1L));
+                        }
+                    }
+                }
+                case "MONTHLY" -> {
+                    YearMonth month = YearMonth.from(start).plusMonths(offset);
+                    if (!byMonthDay.isEmpty()) {
+                        for (int day : byMonthDay) {
+                            int dayOfMonth = day > 0 ? day : month.lengthOfMonth() + day + 1;
+                            if (dayOfMonth >= 1 && dayOfMonth <= month.lengthOfMonth()) {
+                                result.add(month.atDay(dayOfMonth).atTime(start.toLocalTime()));
+                            }
+                        }
+                    } else if (!byDay.isEmpty()) {
+                        for (int i = 0; i < byDay.size(); i++) {
+                            addWeekdays(result, month, byDay.get(i), byDayOrdinal.get(i), start);
+                        }
+                    } else if (start.getDayOfMonth() <= month.lengthOfMonth()) {
+                        result.add(month.atDay(start.getDayOfMonth()).atTime(start.toLocalTime()));
+                    }
+                }
+                default -> {
+                    int year = Math.toIntExact(start.getYear() + offset);
+                    YearMonth month = YearMonth.of(year, start.getMonth());
+                    if (start.getDayOfMonth() <= month.lengthOfMonth()) {
+                        result.add(month.atDay(start.getDayOfMonth()).atTime(start.toLocalTime()));
+                    }
+                }
+            }
+            result.sort(null);
+            return result;
+        }
+
+        private static void addWeekdays(List<LocalDateTime> result, YearMonth month, DayOfWeek day,
+                                        int ordinal, LocalDateTime start) {
+            LocalDate first = month.atDay(1).with(TemporalAdjusters.nextOrSame(day));
+            if (ordinal == 0) {
+                for (LocalDate date = first; YearMonth.from(date).equals(month); date = date.plusWeeks(1)) {
+                    result.add(date.atTime(start.toLocalTime()));
+                }
+                return;
+            }
+            LocalDate date = ordinal > 0
+                    ? first.plusWeeks(ordinal - 1L)
+                    : month.atEndOfMonth().with(TemporalAdjusters.previousOrSame(day)).plusWeeks(ordinal + 1L);
+            if (YearMonth.from(date).equals(month)) {
+                result.add(date.atTime(start.toLocalTime()));
+            }
+        }
+
+        private static DayOfWeek dayOfWeek(String code) {
+            return switch (code) {
+                case "MO" -> DayOfWeek.MONDAY;
+                case "TU" -> DayOfWeek.TUESDAY;
+                case "WE" -> DayOfWeek.WEDNESDAY;
+                case "TH" -> DayOfWeek.THURSDAY;
+                case "FR" -> DayOfWeek.FRIDAY;
+                case "SA" -> DayOfWeek.SATURDAY;
+                case "SU" -> DayOfWeek.SUNDAY;
+                default -> throw new IllegalArgumentException("invalid BYDAY: " + code);
+            };
+        }
+    }
+}
@@ -0,0 +1,709 @@
+package org.oogle.calender.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.zip.CRC32C;
+
+/**
+ * A text file of one-line records, checksummed so damage is found and contained. The first line
+ * is the header {@code #TFC 3 <generation> <written> <journal> <end>}, four fields of sixteen
+ * hex digits; every record line ends with {@code |} and the CRC32C of the rest of the line in
+ * eight hex digits; every {@value #BLOCK_RECORDS} records are followed by
+ * {@code #B <records> <crc>}, the CRC32C of the block's bytes; and the records end with
+ * {@code #E <records>}.
+ *
+ * <p>Reading checks each block as a whole, which costs one pass of the (hardware-accelerated)
+ * CRC over the bytes; only a block that fails is checked record by record, so a damaged stretch
+ * loses the records in it and nothing else. Files without the header are older, unchecksummed
+ * files and are read line by line as before; files with the {@code #TFC 2} header predate the
+ * journal.
+ *
+ * <p>Writing goes to a temporary file next to the target, which is synced and then renamed over
+ * it, so a crash leaves either the old file or the new one.
+ *
+ * <p>Small changes are {@link #append appended} instead, after the end marker, as a journal of
+ * groups: lines {@code +<record>} and {@code -<key>} with their checksums, closed by
+ * {@code #J <lines> <crc> <generation>}. A group counts once the header has been rewritten in
+ * place to end after it, so a group cut short by a crash is never read and the next one
+ * overwrites it. Every commit, full or appended, counts the generation up; {@code written} is the
+ * generation of the last full write and {@code journal} where its journal starts. Another
+ * process can thus tell from the first line alone whether the file changed, and whether it only
+ * has to {@link #readChanges read the groups after what it has seen}. Reads see the journal
+ * applied: a record removed by key is skipped and added records follow the others. Callers
+ * coordinate through the file's {@link DataFileLock}.
+ */
+public final class RecordFile {
+
+    static final String HEADER = "#TFC 3";
+    static final String UNJOURNALED_HEADER = "#TFC 2";
+    static final int BLOCK_RECORDS = 1024;
+
+    private static final int HEADER_LENGTH = HEADER.length() + 4 * 17; // Four fields of a space and 16 hex digits
+
+    private static final int CHECKSUM_LENGTH = 9; // '|' and eight hex digits
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * What a reader has seen of a file: its generation, which every commit counts up; the
+     * generation of its last full write; and where its journal starts and ends.
+     */
+    public record Version(long generation, long written, long journalStart, long end) {
+
+        /** False for files without a journal, which have to be written in full before anything is appended. */
+        public boolean isAppendable() {
+            return generation > 0;
+        }
+
+        public long journalBytes() {
+            return end - journalStart;
+        }
+    }
+
+    /** Receives the changes of a journal in the order they were committed. */
+    public interface Journal {
+
+        void added(String record);
+
+        /** A record was removed; {@code key} is what the reader's key function makes of it. */
+        void removed(String key);
+    }
+
+    private RecordFile() {
+    }
+
+    /** Starts writing {@code target}; nothing replaces it until {@link Writer#commit()}. */
+    public static Writer create(File target) throws IOException {
+        return new Writer(target);
+    }
+
+    /** Starts a journal group for {@code file}, which must be {@link Version#isAppendable appendable}. */
+    public static Appender append(File file) throws IOException {
+        return new Appender(file);
+    }
+
+    /**
+     * Reads every intact record of {@code file} in order and hands it, without its checksum, to
+     * {@code records}, which returns false if it cannot use the record; such records are reported
+     * as lost along with those that failed their checksum. Journaled removals are matched by
+     * the record itself.
+     */
+    public static RecoveryReport read(File file, Predicate<String> records) throws IOException {
+        return read(file, records, Function.identity());
+    }
+
+    /**
+     * Like {@link #read(File, Predicate)}, matching journaled removals to records by
+     * {@code keys}, which must give the key the removal was appended with.
+     */
+    public static RecoveryReport read(File file, Predicate<String> records, Function<String, String> keys) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            Version version = readVersion(channel);
+            Changes changes = new Changes(keys);
+            RecoveryReport report = new RecoveryReport(file);
+            if (version.journalBytes() > 0) {
+                readJournal(channel, version.journalStart(), version.end(), changes, report::changeLost);
+            }
+            new Reader(records, changes, report).read(Channels.newInputStream(channel.position(0)), version.journalStart());
+            for (String record : changes.added()) {
+                if (records.test(record)) {
+                    report.recordRead(false);
+                } else {
+                    report.changeLost(record);
+                }
+            }
+            report.setVersion(version);
+            return report;
+        }
+    }
+
+    /** The version of {@code file} from its first line, or {@code null} if there is no such file. */
+    public static Version readVersion(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return readVersion(channel);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Hands the changes committed to {@code file} after {@code since} to {@code journal} and
+     * returns the version now read, or returns {@code null} without reading anything if the file
+     * has been written in full since, so only reading all of it will do.
+     */
+    public static Version readChanges(File file, Version since, Journal journal) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            Version current = readVersion(channel);
+            if (!current.isAppendable() || current.written() != since.written()
+                    || current.journalStart() != since.journalStart() || current.end() < since.end()) {
+                return null;
+            }
+            if (current.end() > since.end()) {
+                readJournal(channel, since.end(), current.end(), journal,
+                        line -> System.err.println("Skipping damaged change in " + file + ": " + line));
+            }
+            return current;
+        }
+    }
+
+    /** Reads the header; files without a journal come back as version 0 and are read to their end. */
+    private static Version readVersion(FileChannel channel) throws IOException {
+        ByteBuffer first = ByteBuffer.allocate(HEADER_LENGTH + 2);
+        while (first.hasRemaining() && channel.read(first, first.position()) > 0) {
+            // Read until full or at the end of a short file
+        }
+        String line = new String(first.array(), 0, first.position(), StandardCharsets.US_ASCII);
+        if (line.length() >= HEADER_LENGTH && line.startsWith(HEADER + " ")) {
+            try {
+                String[] fields = line.substring(HEADER.length() + 1, HEADER_LENGTH).split(" ");
+                return new Version(Long.parseUnsignedLong(fields[0], 16), Long.parseUnsignedLong(fields[1], 16),
+                        Long.parseUnsignedLong(fields[2], 16), Long.parseUnsignedLong(fields[3], 16));
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                // A damaged header; read the whole file and let the next save write a new one
+            }
+        }
+        long size = channel.size();
+        return new Version(0, 0, size, size);
+    }
+
+    private static byte[] header(Version version) {
+        return String.format("%s %016x %016x %016x %016x", HEADER, version.generation(), version.written(),
+                version.journalStart(), version.end()).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /** Passes the intact groups between {@code from} and {@code to} to {@code journal}; a damaged group is skipped whole. */
+    private static void readJournal(FileChannel channel, long from, long to, Journal journal, Consumer<String> lost)
+            throws IOException {
+        if (to - from > Integer.MAX_VALUE - 8) {
+            throw new IOException("Journal of " + (to - from) + " bytes is too large to read");
+        }
+        ByteBuffer region = ByteBuffer.allocate((int) (to - from));
+        while (region.hasRemaining()) {
+            if (channel.read(region, from + region.position()) < 0) {
+                throw new IOException("Journal ends at " + (from + region.position()) + ", expected " + to);
+            }
+        }
+        byte[] bytes = region.array();
+        CRC32C crc = new CRC32C();
+        List<String> group = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') {
+                continue;
+            }
+            int end = i;
+            while (end > start && bytes[end - 1] == '\r') {
+                end--;
+            }
+            if (end > start && bytes[start] == '#') {
+                String[] marker = new String(bytes, start, end - start, StandardCharsets.US_ASCII).split(" ");
+                boolean intact = false;
+                try {
+                    intact = marker[0].equals("#J") && marker.length >= 3 && Integer.parseInt(marker[1]) == group.size()
+                            && Long.parseLong(marker[2], 16) == crc.getValue();
+                } catch (NumberFormatException e) {
+                    // Damaged marker
+                }
+                for (String line : group) {
+                    if (!intact) {
+                        lost.accept(line);
+                    } else if (line.charAt(0) == '+') {
+                        journal.added(line.substring(1, line.length() - CHECKSUM_LENGTH));
+                    } else {
+                        journal.removed(line.substring(1, line.length() - CHECKSUM_LENGTH));
+                    }
+                }
+                group.clear();
+                crc.reset();
+            } else if (end > start) {
+                crc.update(bytes, start, i + 1 - start);
+                group.add(new String(bytes, start, end - start, StandardCharsets.UTF_8));
+            }
+            start = i + 1;
+        }
+        for (String line : group) {
+            lost.accept(line); // No marker; the header should never point past one
+        }
+    }
+
+    // Writes '|' and the CRC32C of bytes in eight hex digits into checksum
+    private static void checksum(CRC32C crc, byte[] bytes, byte[] checksum) {
+        crc.reset();
+        crc.update(bytes);
+        long value = crc.getValue();
+        checksum[0] = '|';
+        for (int i = 0; i < 8; i++) {
+            checksum[CHECKSUM_LENGTH - 1 - i] = HEX[(int) (value >>> (4 * i)) & 0xF];
+        }
+    }
+
+    private static void checkRecord(String record) {
+        if (record.startsWith("#") || record.indexOf('\n') >= 0 || record.indexOf('\r') >= 0) {
+            throw new IllegalArgumentException("Not a one-line record: " + record);
+        }
+    }
+
+    public static final class Writer implements Closeable {
+
+        private final File target;
+        private final File temp;
+        private final FileOutputStream file;
+        private final OutputStream out;
+        private final byte[] separator = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+        private final byte[] checksum = new byte[CHECKSUM_LENGTH];
+        private final CRC32C blockCrc = new CRC32C();
+        private final CRC32C recordCrc = new CRC32C();
+        private final long generation;
+        private int blockRecords;
+        private long records;
+        private boolean committed;
+        private Version version;
+
+        private Writer(File target) throws IOException {
+            this.target = target.getAbsoluteFile();
+            Version previous = readVersion(this.target);
+            this.generation = previous != null ? previous.generation() + 1 : 1;
+            this.temp = File.createTempFile(target.getName() + ".", ".tmp", this.target.getParentFile());
+            this.file = new FileOutputStream(temp);
+            this.out = new BufferedOutputStream(file, 1 << 16);
+            out.write(header(new Version(generation, generation, 0, 0))); // Completed on commit
+            out.write(separator);
+        }
+
+        /** Appends one record; it must not contain line breaks or start with {@code #}. */
+        public void append(String record) throws IOException {
+            checkRecord(record);
+            byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+            checksum(recordCrc, bytes, checksum);
+            out.write(bytes);
+            out.write(checksum);
+            out.write(separator);
+            blockCrc.update(bytes);
+            blockCrc.update(checksum);
+            blockCrc.update(separator);
+            records++;
+            if (++blockRecords == BLOCK_RECORDS) {
+                endBlock();
+            }
+        }
+
+        public long getRecords() {
+            return records;
+        }
+
+        /** The version the file was committed as. */
+        public Version getVersion() {
+            return version;
+        }
+
+        /** Finishes the file, forces it to disk and renames it over the target. */
+        public void commit() throws IOException {
+            endBlock();
+            writeControl("#E " + records);
+            out.flush();
+            FileChannel channel = file.getChannel();
+            long length = channel.position();
+            Version committedVersion = new Version(generation, generation, length, length);
+            channel.write(ByteBuffer.wrap(header(committedVersion)), 0);
+            channel.force(true);
+            out.close();
+            try {
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            committed = true;
+            version = committedVersion;
+            syncDirectory();
+        }
+
+        /** Abandons the file unless it was committed; the target is left as it was. */
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                try {
+                    out.close();
+                } finally {
+                    Files.deleteIfExists(temp.toPath());
+                }
+            }
+        }
+
+        private void endBlock() throws IOException {
+            if (blockRecords > 0) {
+                writeControl("#B " + blockRecords + " " + Long.toHexString(blockCrc.getValue()));
+                blockCrc.reset();
+                blockRecords = 0;
+            }
+        }
+
+        private void writeControl(String line) throws IOException {
+            out.write(line.getBytes(StandardCharsets.US_ASCII));
+            out.write(separator);
+        }
+
+        // Makes the rename itself durable where the platform allows opening a directory
+        private void syncDirectory() {
+            try (FileChannel directory = FileChannel.open(target.getParentFile().toPath(), StandardOpenOption.READ)) {
+                directory.force(true);
+            } catch (IOException e) {
+                // Not supported on Windows; the rename is still atomic there
+            }
+        }
+    }
+
+    /**
+     * One group of changes appended to a file's journal; nothing is visible to readers until
+     * {@link #commit()}. Hold the file's exclusive {@link DataFileLock} from before this is created
+     * until it is closed.
+     */
+    public static final class Appender implements Closeable {
+
+        private final FileChannel channel;
+        private final Version base;
+        private final ByteArrayOutputStream group = new ByteArrayOutputStream();
+        private final byte[] separator = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+        private final byte[] checksum = new byte[CHECKSUM_LENGTH];
+        private final CRC32C recordCrc = new CRC32C();
+        private final CRC32C groupCrc = new CRC32C();
+        private int lines;
+
+        private Appender(File file) throws IOException {
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                this.base = readVersion(channel);
+                if (!base.isAppendable()) {
+                    throw new IOException(file + " has no journal; write it in full first");
+                }
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        /** The version the group is appended to. */
+        public Version getBase() {
+            return base;
+        }
+
+        public void added(String record) {
+            checkRecord(record);
+            line('+' + record);
+        }
+
+        public void removed(String key) {
+            checkRecord(key);
+            line('-' + key);
+        }
+
+        public int getLines() {
+            return lines;
+        }
+
+        /**
+         * Writes the group after the journal and forces it to disk, then points the header past it;
+         * returns the new version, or the base version if nothing was added or removed.
+         */
+        public Version commit() throws IOException {
+            if (lines == 0) {
+                return base;
+            }
+            group.write(("#J " + lines + " " + Long.toHexString(groupCrc.getValue()) + " " + (base.generation() + 1))
+                    .getBytes(StandardCharsets.US_ASCII));
+            group.write(separator);
+            ByteBuffer bytes = ByteBuffer.wrap(group.toByteArray());
+            long position = base.end();
+            while (bytes.hasRemaining()) {
+                position += channel.write(bytes, position);
+            }
+            channel.force(true);
+            Version committed = new Version(base.generation() + 1, base.written(), base.journalStart(), position);
+            channel.write(ByteBuffer.wrap(header(committed)), 0);
+            channel.force(false);
+            return committed;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        private void line(String line) {
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            checksum(recordCrc, bytes, checksum);
+            group.writeBytes(bytes);
+            group.writeBytes(checksum);
+            group.writeBytes(separator);
+            groupCrc.update(bytes);
+            groupCrc.update(checksum);
+            groupCrc.update(separator);
+            lines++;
+        }
+    }
+
+    /** Nets the journal read ahead of the records: removals waiting for their record, and records added. */
+    private static final class Changes implements Journal {
+
+        private final Function<String, String> keys;
+        private final Map<String, Integer> removed = new HashMap<>();
+        private final Map<String, ArrayDeque<String>> added = new LinkedHashMap<>(); // By key
+
+        Changes(Function<String, String> keys) {
+            this.keys = keys;
+        }
+
+        @Override
+        public void added(String record) {
+            added.computeIfAbsent(keys.apply(record), k -> new ArrayDeque<>()).add(record);
+        }
+
+        @Override
+        public void removed(String key) {
+            ArrayDeque<String> records = added.get(key);
+            if (records == null) {
+                removed.merge(key, 1, Integer::sum);
+                return;
+            }
+            records.removeFirst();
+            if (records.isEmpty()) {
+                added.remove(key);
+            }
+        }
+
+        /** True, once per removal, for a record the journal removed. */
+        boolean removes(String record) {
+            if (removed.isEmpty()) {
+                return false;
+            }
+            String key = keys.apply(record);
+            Integer count = removed.get(key);
+            if (count == null) {
+                return false;
+            }
+            if (count == 1) {
+                removed.remove(key);
+            } else {
+                removed.put(key, count - 1);
+            }
+            return true;
+        }
+
+        List<String> added() {
+            List<String> records = new ArrayList<>();
+            added.values().forEach(records::addAll);
+            return records;
+        }
+    }
+
+    /** Splits the file into lines at the byte level and keeps the current block's bytes for its checksum. */
+    private static final class Reader {
+
+        private final Predicate<String> records;
+        private final Changes changes;
+        private final RecoveryReport report;
+        private final CRC32C crc = new CRC32C();
+
+        // The pending block: its raw bytes, and where each line's content starts and ends in them
+        private byte[] block = new byte[1 << 16];
+        private int blockLength;
+        private int[] starts = new int[BLOCK_RECORDS];
+        private int[] ends = new int[BLOCK_RECORDS];
+        private int lines;
+        private long blockFirstLine;
+
+        private long lineNumber;
+        private long recordLines; // Record lines seen, used or not, to check the end marker
+        private boolean legacy;
+
+        Reader(Predicate<String> records, Changes changes, RecoveryReport report) {
+            this.records = records;
+            this.changes = changes;
+            this.report = report;
+        }
+
+        /** Reads the first {@code limit} bytes of {@code in}, where the journal starts. */
+        RecoveryReport read(InputStream in, long limit) throws IOException {
+            byte[] buffer = new byte[1 << 16];
+            int lineStart = blockLength;
+            long remaining = limit;
+            int read;
+            while (remaining > 0 && (read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining))) > 0) {
+                remaining -= read;
+                int from = 0;
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') {
+                        append(buffer, from, i + 1 - from);
+                        line(lineStart, blockLength);
+                        lineStart = blockLength;
+                        from = i + 1;
+                    }
+                }
+                append(buffer, from, read - from);
+            }
+            if (blockLength > lineStart) {
+                line(lineStart, blockLength); // Last line without a line break
+            }
+            if (legacy || lineNumber == 0) {
+                report.setLegacy();
+            } else {
+                if (lines > 0) {
+                    endBlock(-1, 0); // Records after the last block marker
+                }
+            }
+            return report;
+        }
+
+        private void append(byte[] bytes, int from, int length) {
+            if (blockLength + length > block.length) {
+                block = Arrays.copyOf(block, Math.max(block.length * 2, blockLength + length));
+            }
+            System.arraycopy(bytes, from, block, blockLength, length);
+            blockLength += length;
+        }
+
+        /** Handles the line at {@code start} to {@code end} of the block bytes, line break included. */
+        private void line(int start, int end) {
+            lineNumber++;
+            int contentEnd = end;
+            while (contentEnd > start && (block[contentEnd - 1] == '\n' || block[contentEnd - 1] == '\r')) {
+                contentEnd--;
+            }
+            if (lineNumber == 1) {
+                String first = new String(block, start, contentEnd - start, StandardCharsets.UTF_8);
+                blockLength = 0;
+                if (!first.startsWith(HEADER + " ") && !first.equals(UNJOURNALED_HEADER)) {
+                    legacy = true;
+                    legacyRecord(first);
+                }
+                return;
+            }
+            if (legacy) {
+                legacyRecord(new String(block, start, contentEnd - start, StandardCharsets.UTF_8));
+                blockLength = 0;
+                return;
+            }
+            if (contentEnd == start) {
+                blockLength = start; // Blank line, not part of any block
+                return;
+            }
+            if (block[start] == '#') {
+                String control = new String(block, start, contentEnd - start, StandardCharsets.US_ASCII);
+                blockLength = start; // Control lines are not part of the block they close
+                control(control);
+                return;
+            }
+            recordLines++;
+            if (lines == 0) {
+                blockFirstLine = lineNumber;
+            }
+            if (lines == starts.length) {
+                starts = Arrays.copyOf(starts, lines * 2);
+                ends = Arrays.copyOf(ends, lines * 2);
+            }
+            starts[lines] = start;
+            ends[lines] = contentEnd;
+            lines++;
+        }
+
+        private void control(String line) {
+            String[] parts = line.split(" ");
+            try {
+                if (parts[0].equals("#B") && parts.length == 3) {
+                    endBlock(Integer.parseInt(parts[1]), Long.parseLong(parts[2], 16));
+                    return;
+                }
+                if (parts[0].equals("#E") && parts.length == 2) {
+                    if (lines > 0) {
+                        endBlock(-1, 0);
+                    }
+                    report.ended(Long.parseLong(parts[1]), recordLines);
+                    return;
+                }
+            } catch (NumberFormatException e) {
+                // Reported below as a damaged line
+            }
+            report.recordLost(lineNumber, line);
+        }
+
+        /** Checks the pending block against its marker, or record by record if that fails or is missing. */
+        private void endBlock(int markedRecords, long markedCrc) {
+            crc.reset();
+            crc.update(block, 0, blockLength);
+            boolean intact = markedRecords == lines && crc.getValue() == markedCrc;
+            report.blockRead(!intact);
+            for (int i = 0; i < lines; i++) {
+                int start = starts[i];
+                int end = ends[i];
+                long line = blockFirstLine + i;
+                if (intact && end - start >= CHECKSUM_LENGTH || recordIntact(start, end)) {
+                    String record = new String(block, start, end - CHECKSUM_LENGTH - start, StandardCharsets.UTF_8);
+                    if (changes.removes(record)) {
+                        continue; // Removed since the file was written
+                    }
+                    if (records.test(record)) {
+                        report.recordRead(!intact);
+                    } else {
+                        report.recordLost(line, record);
+                    }
+                } else {
+                    report.recordLost(line, new String(block, start, end - start, StandardCharsets.UTF_8));
+                }
+            }
+            blockLength = 0;
+            lines = 0;
+        }
+
+        private boolean recordIntact(int start, int end) {
+            int checksumStart = end - CHECKSUM_LENGTH;
+            if (checksumStart < start || block[checksumStart] != '|') {
+                return false;
+            }
+            long expected = 0;
+            for (int i = checksumStart + 1; i < end; i++) {
+                int digit = Character.digit(block[i], 16);
+                if (digit < 0) {
+                    return false;
+                }
+                expected = expected << 4 | digit;
+            }
+            crc.reset();
+            crc.update(block, start, checksumStart - start);
+            return crc.getValue() == expected;
+        }
+
+        private void legacyRecord(String line) {
+            if (line.isEmpty()) {
+                return;
+            }
+            if (records.test(line)) {
+                report.recordRead(false);
+            } else {
+                report.recordLost(lineNumber, line);
+            }
+        }
+    }
+}
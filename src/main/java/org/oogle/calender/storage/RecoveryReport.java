@@ -0,0 +1,162 @@
+package org.oogle.calender.storage;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What reading a {@link RecordFile} found: how many records were used, which blocks failed their
+ * checksum, and which lines were lost. A clean report means every record was read as written.
+ */
+public final class RecoveryReport {
+
+    /** Lost lines kept for the report; the rest are only counted. */
+    private static final int MAX_LISTED = 20;
+
+    private final File file;
+    private boolean legacy;
+    private boolean complete;
+    private long records;
+    private long blocks;
+    private long damagedBlocks;
+    private long salvaged;
+    private long lost;
+    private long missing;
+    private final List<String> lostLines = new ArrayList<>();
+    private RecordFile.Version version;
+
+    RecoveryReport(File file) {
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /** The version that was read, so later changes by other processes can be read on top of it. */
+    public RecordFile.Version getVersion() {
+        return version;
+    }
+
+    /** True for files written before checksums were added; they are read without verification. */
+    public boolean isLegacy() {
+        return legacy;
+    }
+
+    /** True if the file ends with its end marker, so nothing was cut off. */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /** Records read and used, including the salvaged ones. */
+    public long getRecords() {
+        return records;
+    }
+
+    public long getBlocks() {
+        return blocks;
+    }
+
+    public long getDamagedBlocks() {
+        return damagedBlocks;
+    }
+
+    /** Records from damaged blocks that still matched their own checksum. */
+    public long getSalvaged() {
+        return salvaged;
+    }
+
+    /** Lines that failed their checksum or could not be read as an event. */
+    public long getLost() {
+        return lost;
+    }
+
+    /** Records counted by the end marker but never seen as lines, such as those in a stretch overwritten with zeros. */
+    public long getMissing() {
+        return missing;
+    }
+
+    /** The first lost lines, each with its line number or "journal". */
+    public List<String> getLostLines() {
+        return Collections.unmodifiableList(lostLines);
+    }
+
+    public boolean isClean() {
+        return lost == 0 && missing == 0 && damagedBlocks == 0 && complete;
+    }
+
+    void setVersion(RecordFile.Version version) {
+        this.version = version;
+    }
+
+    void setLegacy() {
+        legacy = true;
+        complete = true; // Nothing to tell a cut-off legacy file from a whole one
+    }
+
+    /** Records that the end marker was found and how many record lines it counts. */
+    void ended(long expectedRecordLines, long seenRecordLines) {
+        complete = true;
+        missing = Math.max(0, expectedRecordLines - seenRecordLines);
+    }
+
+    void blockRead(boolean damaged) {
+        blocks++;
+        if (damaged) {
+            damagedBlocks++;
+        }
+    }
+
+    void recordRead(boolean salvaged) {
+        records++;
+        if (salvaged) {
+            this.salvaged++;
+        }
+    }
+
+    void recordLost(long lineNumber, String line) {
+        lost++;
+        if (lostLines.size() < MAX_LISTED) {
+            String shown = line.replaceAll("\\p{Cntrl}", "?"); // Damage is often zeroed bytes
+            lostLines.add((lineNumber > 0 ? "line " + lineNumber : "journal") + ": " + (shown.length() > 80 ? shown.substring(0, 80) + "..." : shown));
+        }
+    }
+
+    /** A journaled change that failed its checksum or could not be read as an event. */
+    void changeLost(String line) {
+        recordLost(0, line);
+    }
+
+    /** A few lines for the user: what was kept and what was not. */
+    public String describe() {
+        StringBuilder text = new StringBuilder();
+        text.append(records).append(" events read from ").append(file).append('\n');
+        if (damagedBlocks > 0) {
+            text.append(damagedBlocks).append(" of ").append(blocks).append(" blocks failed their checksum; ")
+                    .append(salvaged).append(" events in them were salvaged\n");
+        }
+        if (!complete) {
+            text.append("The file ends early, so events after the last complete block may be missing\n");
+        }
+        if (missing > 0) {
+            text.append(missing).append(" events are missing altogether\n");
+        }
+        if (lost > 0) {
+            text.append(lost).append(" damaged lines were skipped:\n");
+            for (String line : lostLines) {
+                text.append("  ").append(line).append('\n');
+            }
+            if (lost > lostLines.size()) {
+                text.append("  ... and ").append(lost - lostLines.size()).append(" more\n");
+            }
+        }
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        return records + " records, " + blocks + " blocks (" + damagedBlocks + " damaged, " + salvaged +
+                " records salvaged), " + lost + " lines lost, " + missing + " missing" + (complete ? "" : ", truncated") + (legacy ? ", legacy format" : "");
+    }
+}
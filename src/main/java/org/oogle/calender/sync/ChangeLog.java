@@ -0,0 +1,219 @@
+package org.oogle.calender.sync;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The replica's side of replication: the newest {@link ChangeRecord} per gid, indexed by origin
+ * and sequence number so the records a peer has not seen can be found from its vector clock, and
+ * kept on disk next to the data file.
+ *
+ * <p>The file holds a header line ({@code {"node":...,"seen":{...},"clock":...}}) followed by one
+ * JSON record per line. Accepted records are appended; superseded ones are dropped from memory at
+ * once and from the file whenever it is rewritten, on open and once it holds twice as many lines
+ * as live records. Not thread-safe; the {@link Replicator} serialises access.
+ */
+final class ChangeLog implements Closeable {
+
+    private static final int MIN_COMPACT_LINES = 1024;
+
+    private static final class Header {
+        String node;
+        Map<String, Long> seen;
+        long clock;
+    }
+
+    private final File file;
+    private final Gson gson = new Gson();
+    private final String node;
+    private final Map<String, ChangeRecord> latest = new HashMap<>(); // By gid
+    private final Map<String, TreeMap<Long, ChangeRecord>> byOrigin = new HashMap<>();
+    private final Map<String, Long> seen = new HashMap<>(); // Vector clock: highest sequence number per origin
+    private long clock;
+    private Writer writer;
+    private int lines;
+
+    private ChangeLog(File file, String node) {
+        this.file = file;
+        this.node = node;
+    }
+
+    /** Reads {@code file}, or starts a new replica with a random node id if it does not exist yet. */
+    static ChangeLog open(File file) throws IOException {
+        if (!file.exists()) {
+            ChangeLog log = new ChangeLog(file, newNodeId());
+            log.rewrite();
+            return log;
+        }
+
+        ChangeLog log;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            Gson gson = new Gson();
+            Header header = gson.fromJson(reader.readLine(), Header.class);
+            if (header == null || header.node == null) {
+                throw new IOException("Not a replication log: " + file);
+            }
+            log = new ChangeLog(file, header.node);
+            if (header.seen != null) {
+                log.seen.putAll(header.seen);
+            }
+            log.clock = header.clock;
+
+            String line;
+            int lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                try {
+                    ChangeRecord record = gson.fromJson(line, ChangeRecord.class);
+                    log.observe(record);
+                    log.store(record);
+                } catch (JsonParseException | NullPointerException e) {
+                    // Most likely a line cut short by a crash; everything before it is intact
+                    System.err.println("Skipping damaged replication log line " + lineNumber + ": " + e.getMessage());
+                }
+            }
+        }
+        log.rewrite();
+        return log;
+    }
+
+    String node() {
+        return node;
+    }
+
+    ChangeRecord get(String gid) {
+        return latest.get(gid);
+    }
+
+    Collection<ChangeRecord> records() {
+        return latest.values();
+    }
+
+    Map<String, Long> seen() {
+        return new HashMap<>(seen);
+    }
+
+    /** A gid no other replica can produce. */
+    String newGid() {
+        return node + "-" + Long.toString(seen.getOrDefault(node, 0L) + 1, 36);
+    }
+
+    /** Stamps {@code record} as this replica's next change and accepts it. */
+    ChangeRecord appendLocal(ChangeRecord record) throws IOException {
+        record.origin = node;
+        record.seq = seen.getOrDefault(node, 0L) + 1;
+        record.clock = clock + 1;
+        accept(record);
+        return record;
+    }
+
+    /** False if {@code record} or a later one from the same origin has been seen already. */
+    boolean isNew(ChangeRecord record) {
+        return record.seq > seen.getOrDefault(record.origin, 0L);
+    }
+
+    /** Takes {@code record} into the log; returns false if the log already holds a newer one for its gid. */
+    boolean accept(ChangeRecord record) throws IOException {
+        observe(record);
+        if (!store(record)) {
+            return false;
+        }
+        writer.write(gson.toJson(record));
+        writer.write('\n');
+        lines++;
+        return true;
+    }
+
+    /** The records a peer that has seen {@code peerSeen} is missing, in sequence order per origin. */
+    List<ChangeRecord> missing(Map<String, Long> peerSeen) {
+        List<ChangeRecord> missing = new ArrayList<>();
+        for (Map.Entry<String, TreeMap<Long, ChangeRecord>> entry : byOrigin.entrySet()) {
+            long known = peerSeen.getOrDefault(entry.getKey(), 0L);
+            missing.addAll(entry.getValue().tailMap(known, false).values());
+        }
+        return missing;
+    }
+
+    /** Makes appended records durable, compacting the file first if it has grown stale. */
+    void flush() throws IOException {
+        if (lines > MIN_COMPACT_LINES && lines > 2 * latest.size()) {
+            rewrite();
+        } else {
+            writer.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    private boolean store(ChangeRecord record) {
+        ChangeRecord current = latest.get(record.gid);
+        if (!record.supersedes(current)) {
+            return false;
+        }
+        if (current != null) {
+            byOrigin.get(current.origin).remove(current.seq);
+        }
+        latest.put(record.gid, record);
+        byOrigin.computeIfAbsent(record.origin, k -> new TreeMap<>()).put(record.seq, record);
+        return true;
+    }
+
+    /** Advances the vector and Lamport clocks past {@code record}, whether or not it is stored. */
+    private void observe(ChangeRecord record) {
+        seen.merge(record.origin, record.seq, Math::max);
+        clock = Math.max(clock, record.clock);
+    }
+
+    /** Writes header and live records to a temporary file and moves it over the log. */
+    private void rewrite() throws IOException {
+        close();
+        File temp = new File(file.getPath() + ".tmp");
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.UTF_8))) {
+            Header header = new Header();
+            header.node = node;
+            header.seen = seen;
+            header.clock = clock;
+            out.write(gson.toJson(header));
+            out.write('\n');
+            for (ChangeRecord record : latest.values()) {
+                out.write(gson.toJson(record));
+                out.write('\n');
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        lines = latest.size();
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+    }
+
+    private static String newNodeId() {
+        return Long.toHexString(new SecureRandom().nextLong() | Long.MIN_VALUE);
+    }
+}
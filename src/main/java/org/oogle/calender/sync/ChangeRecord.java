@@ -0,0 +1,102 @@
+package org.oogle.calender.sync;
+
+import org.oogle.calender.model.Event;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * One entry of the replication log: the whole state of an event under its replication id
+ * ({@code gid}), or a tombstone once it was deleted. Each record is stamped with the replica that
+ * wrote it ({@code origin}), that replica's sequence number, and a Lamport clock.
+ *
+ * <p>Only the newest record per gid is kept. Records are ordered by clock, and equal clocks are
+ * broken by origin, so every replica picks the same winner whatever order records arrive in.
+ */
+final class ChangeRecord {
+
+    String origin;
+    long seq;
+    long clock;
+    String gid;
+    boolean deleted;
+    String title;
+    String date;
+    String time;
+    String description;
+    List<Integer> reminders;
+
+    static ChangeRecord of(String gid, Event event) {
+        ChangeRecord record = new ChangeRecord();
+        record.gid = gid;
+        record.title = event.getTitle();
+        record.date = event.getDate().toString();
+        record.time = event.getDateTime().toLocalTime().toString();
+        record.description = event.getDescription();
+        record.reminders = event.getReminderMinutes();
+        return record;
+    }
+
+    static ChangeRecord tombstone(String gid) {
+        ChangeRecord record = new ChangeRecord();
+        record.gid = gid;
+        record.deleted = true;
+        return record;
+    }
+
+    /** True if this record wins over {@code other}, the record currently held for the same gid. */
+    boolean supersedes(ChangeRecord other) {
+        if (other == null || clock != other.clock) {
+            return other == null || clock > other.clock;
+        }
+        return origin.compareTo(other.origin) > 0;
+    }
+
+    /** A new event with a fresh local id. */
+    Event toEvent() {
+        return new Event(title, LocalDate.parse(date).atTime(LocalTime.parse(time)), description, reminders);
+    }
+
+    /** The replacement for the local event {@code id}. */
+    Event toEvent(long id) {
+        return new Event(id, title, LocalDate.parse(date).atTime(LocalTime.parse(time)), description, reminders);
+    }
+
+    /** Identifies events with equal content, for matching events reloaded from disk to their gids. */
+    String contentKey() {
+        return date + '|' + time + '|' + title + '|' + description + '|' + reminders;
+    }
+
+    static String contentKey(Event event) {
+        return of(null, event).contentKey();
+    }
+
+    /** Rejects records from a peer that could not be applied. */
+    void validate() {
+        if (origin == null || gid == null || seq <= 0) {
+            throw new IllegalArgumentException("record without origin, gid or sequence number");
+        }
+        if (deleted) {
+            return;
+        }
+        if (title == null || date == null || time == null || description == null || reminders == null) {
+            throw new IllegalArgumentException("incomplete record for " + gid);
+        }
+        try {
+            LocalDate.parse(date);
+            LocalTime.parse(time);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("invalid date or time: " + e.getParsedString());
+        }
+        if (reminders.stream().anyMatch(m -> m == null || m < 0)) {
+            throw new IllegalArgumentException("invalid reminders for " + gid);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return gid + "@" + origin + ":" + seq + (deleted ? " deleted" : "");
+    }
+}
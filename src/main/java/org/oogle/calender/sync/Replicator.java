@@ -0,0 +1,709 @@
+package org.oogle.calender.sync;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.oogle.calender.metrics.Metrics;
+import org.oogle.calender.metrics.ReplicationEvent;
+import org.oogle.calender.model.ChangeSet;
+import org.oogle.calender.model.Event;
+import org.oogle.calender.model.EventChange;
+import org.oogle.calender.model.EventModel;
+import org.oogle.calender.model.ModelListener;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the {@link EventModel}s of several running instances in step by exchanging change
+ * records over TCP.
+ *
+ * <p>Every event gets a replication id (gid) that is stable across restarts and replicas, and
+ * every local change becomes a {@link ChangeRecord} in the {@link ChangeLog} kept next to the
+ * data file. When two replicas connect they swap vector clocks and each sends only the records
+ * the other has not seen; afterwards new records, local or relayed from other peers, are
+ * streamed as they are accepted. The newest record per gid wins by Lamport clock, ties broken by
+ * replica id, so concurrent edits converge to the same event everywhere and a deletion is a
+ * record like any other. Bandwidth and apply time follow the number of changes; only start-up and
+ * "Replace All" compare the whole model, to match reloaded events to their gids by content.
+ *
+ * <p>Own changes go out at once. Records from one peer are relayed to the others after
+ * {@link #RELAY_DELAY_MILLIS}, and only to those that have not acknowledged them by then, so
+ * replicas that all talk to each other do not receive every change twice while chains of
+ * replicas still get everything.
+ *
+ * <p>The protocol is one message per line: {@code H {"node":...,"seen":{...}}} once per
+ * connection, {@code C <record>} per change and {@code A {"seen":{...}}} to acknowledge what a
+ * replica has applied. There is no authentication; anyone who can reach the port can edit the
+ * calendar, so only use it on a trusted network.
+ */
+public class Replicator {
+
+    public static final int DEFAULT_PORT = 8788;
+    static final long SAVE_DELAY_MILLIS = 500;
+    static final long RECONNECT_SECONDS = 5;
+    static final long RELAY_DELAY_MILLIS = 100;
+    private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+    private static final int MAX_APPLY_BATCH = 1000;
+
+    private static final class Hello {
+        String node;
+        Map<String, Long> seen;
+    }
+
+    private final EventModel model;
+    private final File logFile;
+    private final Runnable persist;
+    private final Gson gson = new Gson();
+    private final ModelListener listener = this::onLocalChange;
+    private final AtomicBoolean saveScheduled = new AtomicBoolean();
+    private final AtomicBoolean relayScheduled = new AtomicBoolean();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    // Guarded by this. Lock order is model, then this: local changes arrive under the model lock.
+    private ChangeLog log;
+    private final Map<Long, String> gidByLocalId = new HashMap<>();
+    private final Map<String, Long> localIdByGid = new HashMap<>();
+    private final List<Peer> peers = new ArrayList<>();
+    private final Map<InetSocketAddress, Peer> outbound = new HashMap<>();
+    private ServerSocket serverSocket;
+    private ScheduledExecutorService scheduler;
+
+    // Guarded by the model, whose listeners run under its lock. Set while remote records are
+    // applied, so their change sets are not logged again.
+    private Thread applyingThread;
+
+    /**
+     * @param logFile the replication log, created on first start; one per data file
+     * @param persist writes the model to disk; called from a background thread after remote changes
+     */
+    public Replicator(EventModel model, File logFile, Runnable persist) {
+        this.model = model;
+        this.logFile = logFile;
+        this.persist = persist;
+    }
+
+    /**
+     * Opens the log, matches the model's events to their gids, listens on {@code port} (0 picks a
+     * free one) and keeps connecting to {@code peerAddresses}.
+     */
+    public void start(int port, List<InetSocketAddress> peerAddresses) throws IOException {
+        synchronized (this) {
+            if (log != null) {
+                return;
+            }
+        }
+        ChangeLog opened = ChangeLog.open(logFile);
+        ServerSocket server = new ServerSocket();
+        try {
+            server.bind(new InetSocketAddress(port));
+        } catch (IOException e) {
+            opened.close();
+            server.close();
+            throw e;
+        }
+
+        // Under the model lock, so no change slips in between matching and listening
+        model.runBatch(() -> {
+            synchronized (this) {
+                log = opened;
+                serverSocket = server;
+                reconcile(model.snapshot());
+                flushLog();
+            }
+            model.addListener(listener);
+        });
+
+        synchronized (this) {
+            scheduler = Executors.newScheduledThreadPool(1, r -> daemon(r, "sync-scheduler"));
+            scheduler.scheduleWithFixedDelay(() -> connect(peerAddresses), 0, RECONNECT_SECONDS, TimeUnit.SECONDS);
+        }
+        daemon(() -> accept(server), "sync-accept").start();
+    }
+
+    public void stop() {
+        model.removeListener(listener);
+        List<Peer> open;
+        synchronized (this) {
+            if (log == null) {
+                return;
+            }
+            try {
+                serverSocket.close();
+                log.close();
+            } catch (IOException e) {
+                System.err.println("Error closing replication log: " + e.getMessage());
+            }
+            scheduler.shutdown(); // A save that is already scheduled still runs
+            open = new ArrayList<>(peers);
+            open.addAll(outbound.values());
+            peers.clear();
+            outbound.clear();
+            gidByLocalId.clear();
+            localIdByGid.clear();
+            serverSocket = null;
+            log = null;
+        }
+        open.forEach(Peer::close);
+    }
+
+    public synchronized boolean isRunning() {
+        return log != null;
+    }
+
+    public synchronized int getPort() {
+        return serverSocket == null ? -1 : serverSocket.getLocalPort();
+    }
+
+    /** This replica's id, or {@code null} while stopped. */
+    public synchronized String getNodeId() {
+        return log == null ? null : log.node();
+    }
+
+    /** Highest sequence number seen per replica; equal on replicas that have converged. */
+    public synchronized Map<String, Long> getVectorClock() {
+        return log == null ? Map.of() : log.seen();
+    }
+
+    /** Ids of the replicas currently connected. */
+    public synchronized Set<String> getConnectedPeers() {
+        Set<String> nodes = new HashSet<>();
+        for (Peer peer : peers) {
+            nodes.add(peer.node);
+        }
+        return nodes;
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    /** Parses {@code host:port,host:port}; the port defaults to {@link #DEFAULT_PORT}. */
+    public static List<InetSocketAddress> parsePeers(String peers) {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (String peer : peers.split(",")) {
+            peer = peer.trim();
+            if (peer.isEmpty()) {
+                continue;
+            }
+            int colon = peer.lastIndexOf(':');
+            try {
+                addresses.add(colon < 0
+                        ? InetSocketAddress.createUnresolved(peer, DEFAULT_PORT)
+                        : InetSocketAddress.createUnresolved(peer.substring(0, colon),
+                        Integer.parseInt(peer.substring(colon + 1))));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid peer address: " + peer);
+            }
+        }
+        return addresses;
+    }
+
+    // Local changes
+
+    private void onLocalChange(ChangeSet changes) {
+        if (applyingThread == Thread.currentThread()) {
+            return;
+        }
+        synchronized (this) {
+            if (log == null) {
+                return;
+            }
+            if (changes.isReset()) {
+                reconcile(model.snapshot());
+            } else {
+                for (EventChange change : changes.getChanges()) {
+                    Event event = change.getEvent();
+                    switch (change.getType()) {
+                        case ADDED -> publish(gidByLocalId.get(event.getId()), event);
+                        case UPDATED -> {
+                            String gid = gidByLocalId.get(change.getPrevious().getId());
+                            publish(gid, event);
+                        }
+                        case REMOVED -> {
+                            String gid = gidByLocalId.get(event.getId());
+                            if (gid != null) {
+                                publishTombstone(gid);
+                            }
+                        }
+                    }
+                }
+            }
+            flushLog();
+        }
+    }
+
+    /**
+     * Brings the log in line with the whole model: events already known are republished if they
+     * differ, unknown events take over the gid of a vanished event with the same content, and
+     * whatever is left is published as new or deleted.
+     */
+    private void reconcile(Map<LocalDate, List<Event>> snapshot) {
+        Set<Long> present = new HashSet<>();
+        List<Event> unmatched = new ArrayList<>();
+        for (List<Event> dayEvents : snapshot.values()) {
+            for (Event event : dayEvents) {
+                present.add(event.getId());
+                String gid = gidByLocalId.get(event.getId());
+                ChangeRecord current = gid == null ? null : log.get(gid);
+                if (current == null) {
+                    unmatched.add(event);
+                } else if (current.deleted || !current.contentKey().equals(ChangeRecord.contentKey(event))) {
+                    publish(gid, event);
+                }
+            }
+        }
+
+        Map<String, Deque<String>> orphans = new HashMap<>();
+        for (ChangeRecord record : log.records()) {
+            Long localId = localIdByGid.get(record.gid);
+            if (!record.deleted && (localId == null || !present.contains(localId))) {
+                orphans.computeIfAbsent(record.contentKey(), k -> new ArrayDeque<>()).add(record.gid);
+            }
+        }
+        for (Event event : unmatched) {
+            Deque<String> gids = orphans.get(ChangeRecord.contentKey(event));
+            String gid = gids == null ? null : gids.poll();
+            if (gid != null) {
+                map(event.getId(), gid);
+            } else {
+                publish(null, event);
+            }
+        }
+        for (Deque<String> gids : orphans.values()) {
+            for (String gid : gids) {
+                publishTombstone(gid);
+            }
+        }
+    }
+
+    /** Logs and sends the current state of {@code event}; a {@code null} gid assigns a new one. */
+    private void publish(String gid, Event event) {
+        if (gid == null) {
+            gid = log.newGid();
+        }
+        map(event.getId(), gid);
+        appendLocal(ChangeRecord.of(gid, event));
+    }
+
+    private void publishTombstone(String gid) {
+        ChangeRecord current = log.get(gid);
+        if (current != null && !current.deleted) {
+            appendLocal(ChangeRecord.tombstone(gid));
+        }
+    }
+
+    private void appendLocal(ChangeRecord record) {
+        try {
+            log.appendLocal(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        forward(record, null);
+    }
+
+    private void map(long localId, String gid) {
+        String previousGid = gidByLocalId.put(localId, gid);
+        if (previousGid != null && !previousGid.equals(gid)) {
+            localIdByGid.remove(previousGid, localId);
+        }
+        Long previousId = localIdByGid.put(gid, localId);
+        if (previousId != null && previousId != localId) {
+            gidByLocalId.remove(previousId, gid);
+        }
+    }
+
+    private void flushLog() {
+        try {
+            log.flush();
+        } catch (IOException e) {
+            System.err.println("Error writing replication log: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    // Remote changes
+
+    /**
+     * Applies records from {@code source} as one model batch. Records the log has seen, or that
+     * lose to what it holds, are skipped; the rest are forwarded to the other peers in the same
+     * critical section, so each peer receives every origin's records in sequence order.
+     */
+    private void applyRemote(Peer source, List<ChangeRecord> records) {
+        Metrics.Probe probe = Metrics.begin("sync.apply", new ReplicationEvent(source.node));
+        int[] applied = new int[1];
+        synchronized (model) {
+            applyingThread = Thread.currentThread();
+            try {
+                model.runBatch(() -> applied[0] = applyRecords(source, records));
+            } finally {
+                applyingThread = null; // The batch's change set has been delivered by now
+            }
+        }
+        probe.end(applied[0], 0);
+        if (applied[0] > 0) {
+            requestSave();
+        }
+    }
+
+    private synchronized int applyRecords(Peer source, List<ChangeRecord> records) {
+        if (log == null) {
+            return 0;
+        }
+        int applied = 0;
+        for (ChangeRecord record : records) {
+            source.seen.merge(record.origin, record.seq, Math::max);
+            if (!log.isNew(record)) {
+                continue;
+            }
+            try {
+                if (!log.accept(record)) {
+                    continue;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            applyToModel(record);
+            forward(record, source);
+            applied++;
+        }
+        flushLog();
+        if (applied > 0) {
+            acknowledge(source);
+        }
+        return applied;
+    }
+
+    private void applyToModel(ChangeRecord record) {
+        Long localId = localIdByGid.get(record.gid);
+        Event existing = localId == null ? null : model.findById(localId);
+        if (record.deleted) {
+            if (existing != null) {
+                model.remove(existing);
+            }
+            return;
+        }
+        Event event = existing != null ? record.toEvent(existing.getId()) : record.toEvent();
+        if (existing != null) {
+            model.update(existing, event);
+        } else {
+            model.add(event);
+        }
+        map(event.getId(), record.gid);
+    }
+
+    private void requestSave() {
+        if (saveScheduled.compareAndSet(false, true)) {
+            ScheduledExecutorService executor;
+            synchronized (this) {
+                executor = scheduler;
+            }
+            if (executor.isShutdown()) {
+                saveScheduled.set(false);
+                return; // Stopped meanwhile; the app saves on exit
+            }
+            executor.schedule(() -> {
+                saveScheduled.set(false);
+                persist.run();
+            }, SAVE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Connections
+
+    /**
+     * Sends {@code record} to every connected peer that has not seen it: at once for own records
+     * ({@code source} is {@code null}), after the relay delay for records received from {@code source}.
+     */
+    private void forward(ChangeRecord record, Peer source) {
+        String line = null;
+        for (Peer peer : peers) {
+            if (peer == source || record.seq <= peer.seen.getOrDefault(record.origin, 0L)) {
+                continue;
+            }
+            if (source != null) {
+                peer.relays.add(record);
+                continue;
+            }
+            if (line == null) {
+                line = "C " + gson.toJson(record);
+            }
+            peer.seen.merge(record.origin, record.seq, Math::max);
+            peer.send(line);
+        }
+        if (source != null && relayScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(this::relay, RELAY_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Sends the queued relays that peers have not acknowledged in the meantime, in queue order. */
+    private synchronized void relay() {
+        relayScheduled.set(false);
+        for (Peer peer : peers) {
+            ChangeRecord record;
+            while ((record = peer.relays.poll()) != null) {
+                if (record.seq > peer.seen.getOrDefault(record.origin, 0L)) {
+                    peer.seen.merge(record.origin, record.seq, Math::max);
+                    peer.send("C " + gson.toJson(record));
+                }
+            }
+        }
+    }
+
+    /** Tells every peer but {@code source}, which knows already, what this replica has applied. */
+    private void acknowledge(Peer source) {
+        Hello ack = new Hello();
+        ack.seen = log.seen();
+        String line = "A " + gson.toJson(ack);
+        for (Peer peer : peers) {
+            if (peer != source) {
+                peer.send(line);
+            }
+        }
+    }
+
+    private synchronized void onAcknowledged(Peer peer, Hello ack) {
+        if (ack.seen != null) {
+            ack.seen.forEach((origin, seq) -> peer.seen.merge(origin, seq, Math::max));
+        }
+    }
+
+    private void accept(ServerSocket server) {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                new Peer(socket, false).start();
+            } catch (SocketException e) {
+                return; // Closed by stop()
+            } catch (IOException e) {
+                System.err.println("Error accepting replication peer: " + e.getMessage());
+            }
+        }
+    }
+
+    private void connect(List<InetSocketAddress> addresses) {
+        for (InetSocketAddress address : addresses) {
+            synchronized (this) {
+                if (log == null || outbound.containsKey(address)) {
+                    continue;
+                }
+            }
+            try {
+                Socket socket = new Socket();
+                socket.connect(new InetSocketAddress(address.getHostString(), address.getPort()), CONNECT_TIMEOUT_MILLIS);
+                Peer peer = new Peer(socket, true);
+                synchronized (this) {
+                    if (log == null) {
+                        peer.close();
+                        return;
+                    }
+                    outbound.put(address, peer);
+                    peer.address = address;
+                }
+                peer.start();
+            } catch (IOException e) {
+                // Not running yet; retried on the next round
+            }
+        }
+    }
+
+    /** Called with this peer's hello: keeps one connection per pair of replicas and sends the backlog. */
+    private synchronized boolean onHello(Peer peer, Hello hello) {
+        if (log == null || hello.node == null || hello.node.equals(log.node())) {
+            return false;
+        }
+        peer.node = hello.node;
+        if (hello.seen != null) {
+            peer.seen.putAll(hello.seen);
+        }
+        for (Peer other : peers) {
+            if (other.node.equals(peer.node)) {
+                // Both replicas dialled each other; both keep the connection opened by the smaller id
+                String initiator = peer.outbound ? log.node() : peer.node;
+                String otherInitiator = other.outbound ? log.node() : other.node;
+                if (initiator.compareTo(otherInitiator) > 0) {
+                    return false;
+                }
+                peers.remove(other);
+                other.close();
+                break;
+            }
+        }
+        peers.add(peer);
+        for (ChangeRecord record : log.missing(peer.seen)) {
+            peer.seen.merge(record.origin, record.seq, Math::max);
+            peer.send("C " + gson.toJson(record));
+        }
+        return true;
+    }
+
+    private synchronized void onClosed(Peer peer) {
+        peers.remove(peer);
+        if (peer.address != null) {
+            outbound.remove(peer.address, peer);
+        }
+    }
+
+    /** One connection: a reader thread applying what arrives and a writer thread draining the outbox. */
+    private final class Peer {
+        private static final String CLOSE = "";
+
+        final Socket socket;
+        final boolean outbound;
+        final Map<String, Long> seen = new HashMap<>(); // What the peer has, as far as we know; guarded by Replicator.this
+        final BlockingQueue<String> outbox = new LinkedBlockingQueue<>();
+        final Deque<ChangeRecord> relays = new ArrayDeque<>(); // Guarded by Replicator.this
+        volatile String node = "?";
+        InetSocketAddress address;
+
+        Peer(Socket socket, boolean outbound) {
+            this.socket = socket;
+            this.outbound = outbound;
+        }
+
+        void start() {
+            Hello hello = new Hello();
+            synchronized (Replicator.this) {
+                if (log == null) {
+                    close();
+                    return;
+                }
+                hello.node = log.node();
+                hello.seen = log.seen();
+            }
+            send("H " + gson.toJson(hello));
+            daemon(this::write, "sync-send").start();
+            daemon(this::read, "sync-receive").start();
+        }
+
+        void send(String line) {
+            outbox.add(line);
+        }
+
+        void close() {
+            outbox.add(CLOSE);
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+
+        private void read() {
+            try (BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+                String line = in.readLine();
+                if (line == null || !line.startsWith("H ")) {
+                    return;
+                }
+                bytesReceived.addAndGet(line.length() + 1);
+                if (!onHello(this, gson.fromJson(line.substring(2), Hello.class))) {
+                    return;
+                }
+
+                List<ChangeRecord> batch = new ArrayList<>();
+                while ((line = in.readLine()) != null) {
+                    receive(line, batch);
+                    // Apply whatever has already arrived as one batch, e.g. the backlog after connecting
+                    while (batch.size() < MAX_APPLY_BATCH && in.ready() && (line = in.readLine()) != null) {
+                        receive(line, batch);
+                    }
+                    if (!batch.isEmpty()) {
+                        applyRemote(this, batch);
+                        batch = new ArrayList<>();
+                    }
+                }
+            } catch (IllegalArgumentException | JsonParseException e) {
+                System.err.println("Dropping replication peer " + node + ": " + e.getMessage());
+            } catch (IOException e) {
+                // Connection closed
+            } catch (RuntimeException e) {
+                System.err.println("Replication from " + node + " failed: " + e.getMessage());
+                e.printStackTrace();
+            } finally {
+                close();
+                onClosed(this);
+            }
+        }
+
+        private void receive(String line, List<ChangeRecord> batch) {
+            bytesReceived.addAndGet(line.length() + 1);
+            Metrics.registry().counter("sync.bytes.received").add(line.length() + 1);
+            if (line.startsWith("A ")) {
+                Hello ack = gson.fromJson(line.substring(2), Hello.class);
+                if (ack != null) {
+                    onAcknowledged(this, ack);
+                }
+                return;
+            }
+            if (!line.startsWith("C ")) {
+                throw new IllegalArgumentException("unexpected message: " + line);
+            }
+            ChangeRecord record = gson.fromJson(line.substring(2), ChangeRecord.class);
+            if (record == null) {
+                throw new IllegalArgumentException("empty record");
+            }
+            record.validate();
+            batch.add(record);
+        }
+
+        private void write() {
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+                while (true) {
+                    String line = outbox.take();
+                    if (line == CLOSE) {
+                        return;
+                    }
+                    out.write(line);
+                    out.write('\n');
+                    bytesSent.addAndGet(line.length() + 1);
+                    Metrics.registry().counter("sync.bytes.sent").add(line.length() + 1);
+                    if (outbox.isEmpty()) {
+                        out.flush();
+                    }
+                }
+            } catch (IOException | InterruptedException e) {
+                // Connection closed
+            } finally {
+                close();
+            }
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
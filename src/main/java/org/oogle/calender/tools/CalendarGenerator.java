@@ -0,0 +1,156 @@
+package org.oogle.calender.tools;
+
+import org.oogle.calender.model.EventModel;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line entry point for synthetic calendars:
+ * <pre>
+ *   generate --out=events.dat [calendar options]
+ *   loadtest [calendar options] [--iterations=5] [--bursts=200] [--burst-size=50] [--reminder-days=7]
+ *            [--store=heap|offheap]
+ *   replicate [calendar options] [--replicas=3] [--changes=1000] [--conflicts=100]
+ *   simulate [calendar options] [--sim-days=365] [--check-seconds=30] [--edits-per-day=20]
+ *            [--store=heap|offheap]
+ *   footprint [calendar options] [--idle-seconds=10] [--check-seconds=30] [--store=heap|offheap]
+ *   contend [calendar options] [--processes=4] [--edits=500] [--refresh-every=10] [--full-every=100]
+ *
+ *   calendar options: --events=1000 --seed=42 --start=2025-01-01 --days=1095
+ *                     --desc-min=0 --desc-max=200 --escape-share=0.05
+ *                     --reminders=none:4,10:3,60+10:2,1440+60+30+10+0:1
+ * </pre>
+ */
+public class CalendarGenerator {
+
+    public static void main(String[] args) {
+        if (args.length == 0 || !List.of("generate", "loadtest", "replicate", "simulate", "footprint", "contend", "contend-worker")
+                .contains(args[0])) {
+            printUsage();
+            System.exit(1);
+        }
+
+        try {
+            Map<String, String> options = parseOptions(args);
+            SyntheticCalendar calendar = calendarFrom(options);
+
+            if (args[0].equals("generate")) {
+                File out = new File(options.getOrDefault("out", "calendar_events.dat"));
+                long started = System.nanoTime();
+                int written = calendar.writeTo(out);
+                System.out.printf("Wrote %d events to %s in %d ms%n", written, out.getAbsolutePath(),
+                        (System.nanoTime() - started) / 1_000_000);
+            } else if (args[0].equals("replicate")) {
+                new ReplicationTest(calendar)
+                        .replicas(Integer.parseInt(options.getOrDefault("replicas", "3")))
+                        .changes(Integer.parseInt(options.getOrDefault("changes", "1000")))
+                        .conflicts(Integer.parseInt(options.getOrDefault("conflicts", "100")))
+                        .run(System.out);
+            } else if (args[0].equals("simulate")) {
+                new ReminderSimulation(calendar)
+                        .days(Integer.parseInt(options.getOrDefault("sim-days", "365")))
+                        .period(Duration.ofSeconds(Long.parseLong(options.getOrDefault("check-seconds", "30"))))
+                        .editsPerDay(Integer.parseInt(options.getOrDefault("edits-per-day", "20")))
+                        .storage(storageFrom(options.getOrDefault("store", "heap")))
+                        .run(System.out);
+            } else if (args[0].equals("contend")) {
+                boolean passed = new ContentionTest(calendar)
+                        .processes(Integer.parseInt(options.getOrDefault("processes", "4")))
+                        .edits(Integer.parseInt(options.getOrDefault("edits", "500")))
+                        .refreshEvery(Integer.parseInt(options.getOrDefault("refresh-every", "10")))
+                        .fullEvery(Integer.parseInt(options.getOrDefault("full-every", "100")))
+                        .run(System.out);
+                if (!passed) {
+                    System.exit(1);
+                }
+            } else if (args[0].equals("contend-worker")) {
+                // Started by contend, once per process
+                if (!ContentionTest.work(new File(options.get("file")), Integer.parseInt(options.get("worker")),
+                        Integer.parseInt(options.get("edits")), Integer.parseInt(options.get("refresh-every")),
+                        Integer.parseInt(options.get("full-every")))) {
+                    System.exit(1);
+                }
+            } else if (args[0].equals("footprint")) {
+                new TrayFootprint(calendar)
+                        .idleSeconds(Integer.parseInt(options.getOrDefault("idle-seconds", "10")))
+                        .period(Duration.ofSeconds(Long.parseLong(options.getOrDefault("check-seconds", "30"))))
+                        .storage(storageFrom(options.getOrDefault("store", "heap")))
+                        .run(System.out);
+            } else {
+                new LoadTest(calendar)
+                        .iterations(Integer.parseInt(options.getOrDefault("iterations", "5")))
+                        .bursts(Integer.parseInt(options.getOrDefault("bursts", "200")),
+                                Integer.parseInt(options.getOrDefault("burst-size", "50")))
+                        .reminderDays(Integer.parseInt(options.getOrDefault("reminder-days", "7")))
+                        .storage(storageFrom(options.getOrDefault("store", "heap")))
+                        .run(System.out);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            printUsage();
+            System.exit(1);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    private static SyntheticCalendar calendarFrom(Map<String, String> options) {
+        SyntheticCalendar calendar = new SyntheticCalendar()
+                .seed(Long.parseLong(options.getOrDefault("seed", "42")))
+                .events(Integer.parseInt(options.getOrDefault("events", "1000")))
+                .spreadDays(Integer.parseInt(options.getOrDefault("days", "1095")))
+                .descriptionLength(Integer.parseInt(options.getOrDefault("desc-min", "0")),
+                        Integer.parseInt(options.getOrDefault("desc-max", "200")))
+                .escapeShare(Double.parseDouble(options.getOrDefault("escape-share", "0.05")));
+        if (options.containsKey("start")) {
+            calendar.startDate(LocalDate.parse(options.get("start")));
+        }
+        if (options.containsKey("reminders")) {
+            calendar.reminderMix(options.get("reminders"));
+        }
+        return calendar;
+    }
+
+    private static EventModel.Storage storageFrom(String name) {
+        return switch (name) {
+            case "heap" -> EventModel.Storage.HEAP;
+            case "offheap" -> EventModel.Storage.OFF_HEAP;
+            default -> throw new IllegalArgumentException("Unknown store: " + name);
+        };
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            options.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+        return options;
+    }
+
+    private static void printUsage() {
+        System.err.println("Usage: CalendarGenerator generate --out=<file> [options]");
+        System.err.println("       CalendarGenerator loadtest [options]");
+        System.err.println("       CalendarGenerator replicate [options]");
+        System.err.println("       CalendarGenerator simulate [options]");
+        System.err.println("       CalendarGenerator footprint [options]");
+        System.err.println("       CalendarGenerator contend [options]");
+        System.err.println("Options: --events --seed --start --days --desc-min --desc-max --escape-share --reminders");
+        System.err.println("Load test: --iterations --bursts --burst-size --reminder-days --store=heap|offheap");
+        System.err.println("Replication: --replicas --changes --conflicts");
+        System.err.println("Simulation: --sim-days --check-seconds --edits-per-day --store=heap|offheap");
+        System.err.println("Footprint: --idle-seconds --check-seconds --store=heap|offheap");
+        System.err.println("Contention: --processes --edits --refresh-every --full-every");
+    }
+}
@@ -0,0 +1,274 @@
+package org.oogle.calender.tools;
+
+import org.oogle.calender.calendars.NamedCalendar;
+import org.oogle.calender.model.Event;
+import org.oogle.calender.model.EventModel;
+import org.oogle.calender.query.QueryEngine;
+import org.oogle.calender.storage.DataFileLock;
+import org.oogle.calender.storage.EventFile;
+import org.oogle.calender.storage.RecoveryReport;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Starts several JVMs that edit one data file at once, each through its own {@link NamedCalendar}
+ * as the application does: every edit is saved right away, the file is checked for the others'
+ * changes now and then, and now and then a save writes the whole file, which makes the others
+ * read it all again. Workers add, move and remove events of their own, a share of them with
+ * descriptions long enough to go to the description store.
+ *
+ * <p>When all have finished, the file must hold the calendar's events plus exactly the events
+ * each worker last had, descriptions included; anything lost to an interleaved write, or
+ * written twice, shows up as missing or extra. Each worker also checks that its model matches
+ * the file after its last refresh, which tests reading only the changes.
+ */
+public final class ContentionTest {
+
+    private static final String[] WORDS = {"agenda", "budget", "review", "notes", "follow-up", "draft", "slides", "call"};
+
+    private final SyntheticCalendar calendar;
+    private int processes = 4;
+    private int edits = 500;
+    private int refreshEvery = 10;
+    private int fullEvery = 100;
+
+    public ContentionTest(SyntheticCalendar calendar) {
+        this.calendar = calendar;
+    }
+
+    public ContentionTest processes(int processes) {
+        this.processes = processes;
+        return this;
+    }
+
+    /** Edits per worker, each saved at once. */
+    public ContentionTest edits(int edits) {
+        this.edits = edits;
+        return this;
+    }
+
+    /** Edits between checks for the other workers' changes. */
+    public ContentionTest refreshEvery(int refreshEvery) {
+        this.refreshEvery = refreshEvery;
+        return this;
+    }
+
+    /** Saves between full writes of the file. */
+    public ContentionTest fullEvery(int fullEvery) {
+        this.fullEvery = fullEvery;
+        return this;
+    }
+
+    /** Runs the workers and reports on {@code out}; returns whether the file holds exactly what they saved. */
+    public boolean run(PrintStream out) throws IOException {
+        Path directory = Files.createTempDirectory("contention-test");
+        File dataFile = directory.resolve("events.dat").toFile();
+        try {
+            List<Event> events = calendar.generate();
+            EventFile.write(dataFile, List.of(events));
+            Map<String, Integer> expected = new HashMap<>();
+            for (Event event : EventFile.read(dataFile)) {
+                expected.merge(EventFile.key(event), 1, Integer::sum);
+            }
+            out.printf("%d processes, %d edits each, on %d events; check every %d edits, full write every %d saves%n",
+                    processes, edits, events.size(), refreshEvery, fullEvery);
+
+            long started = System.nanoTime();
+            List<Process> workers = new ArrayList<>();
+            for (int i = 0; i < processes; i++) {
+                workers.add(start(dataFile, i));
+            }
+            List<String> output = new ArrayList<>();
+            boolean failed = false;
+            for (int i = 0; i < processes; i++) {
+                Process worker = workers.get(i);
+                try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(worker.getInputStream(), StandardCharsets.UTF_8))) {
+                    reader.lines().forEach(output::add);
+                }
+                try {
+                    if (worker.waitFor() != 0) {
+                        out.println("Worker " + i + " failed with exit code " + worker.exitValue());
+                        failed = true;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for worker " + i, e);
+                }
+            }
+            double seconds = (System.nanoTime() - started) / 1e9;
+            output.forEach(out::println);
+
+            for (int i = 0; i < processes; i++) {
+                for (String key : Files.readAllLines(expectedFile(dataFile, i).toPath(), StandardCharsets.UTF_8)) {
+                    expected.merge(key, 1, Integer::sum);
+                }
+            }
+            Map<String, Integer> actual = new HashMap<>();
+            RecoveryReport report = EventFile.read(dataFile, event -> {
+                try {
+                    actual.merge(EventFile.key(event), 1, Integer::sum);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            int missing = difference(expected, actual);
+            int extra = difference(actual, expected);
+            out.printf("%d edits in %.2f s (%.0f saves/s across processes); file holds %d events, version %s%n",
+                    processes * edits, seconds, processes * edits / seconds, report.getRecords(), report.getVersion());
+            boolean passed = missing == 0 && extra == 0 && report.isClean() && !failed;
+            out.printf("Missing %d, extra %d, damaged %s%s%n", missing, extra, report.isClean() ? "no" : report,
+                    passed ? "" : "  FAILED");
+            return passed;
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    private Process start(File dataFile, int worker) throws IOException {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                CalendarGenerator.class.getName(), "contend-worker",
+                "--file=" + dataFile.getAbsolutePath(), "--worker=" + worker, "--edits=" + edits,
+                "--refresh-every=" + refreshEvery, "--full-every=" + fullEvery)
+                .redirectErrorStream(true)
+                .start();
+    }
+
+    /**
+     * One worker process: edits its own events in {@code dataFile}, saving each edit, then writes
+     * the keys of the events it ends up with next to the file and reports how it went. Returns
+     * whether its model matched the file in the end.
+     */
+    @SuppressWarnings("try")
+    static boolean work(File dataFile, int worker, int edits, int refreshEvery, int fullEvery) throws IOException {
+        EventModel model = new EventModel();
+        NamedCalendar named = new NamedCalendar("worker-" + worker, dataFile, model, new QueryEngine(model));
+        named.beginLoad();
+        List<Event> loaded = new ArrayList<>();
+        RecoveryReport report = EventFile.read(dataFile, loaded::add);
+        model.addAll(loaded);
+        named.endLoad(report);
+
+        Random random = new Random(worker * 7919L + 1);
+        Map<String, Event> own = new LinkedHashMap<>(); // By title
+        LatencyRecorder save = new LatencyRecorder("worker " + worker + " save");
+        LatencyRecorder refresh = new LatencyRecorder("worker " + worker + " refresh");
+        int saves = 0;
+        int refreshed = 0;
+        for (int n = 0; n < edits; n++) {
+            int choice = own.isEmpty() ? 0 : random.nextInt(5);
+            if (choice <= 2) {
+                Event added = newEvent("w" + worker + "-" + n, random);
+                model.add(added);
+                own.put(added.getTitle(), added);
+            } else {
+                String title = new ArrayList<>(own.keySet()).get(random.nextInt(own.size()));
+                Event target = current(model, own.get(title));
+                if (choice == 3) {
+                    Event moved = newEvent(title, random);
+                    model.update(target, new Event(target.getId(), title, moved.getDateTime(),
+                            moved.getDescription(), moved.getReminderMinutes()));
+                    own.put(title, moved);
+                } else {
+                    model.remove(target);
+                    own.remove(title);
+                }
+            }
+
+            if (fullEvery > 0 && (saves + 1) % fullEvery == 0) {
+                named.markDirty();
+            }
+            long started = System.nanoTime();
+            named.save();
+            save.record(System.nanoTime() - started);
+            saves++;
+            if (refreshEvery > 0 && n % refreshEvery == 0) {
+                started = System.nanoTime();
+                if (named.refresh()) {
+                    refreshed++;
+                }
+                refresh.record(System.nanoTime() - started);
+            }
+        }
+
+        // The model must match the file once it has read the others' changes
+        Map<String, Integer> inModel = new HashMap<>();
+        Map<String, Integer> inFile = new HashMap<>();
+        try (DataFileLock.Hold hold = DataFileLock.of(dataFile).shared()) {
+            named.refresh();
+            for (Event event : model.allEvents()) {
+                inModel.merge(EventFile.key(event), 1, Integer::sum);
+            }
+            for (Event event : EventFile.read(dataFile)) {
+                inFile.merge(EventFile.key(event), 1, Integer::sum);
+            }
+        }
+        List<String> keys = new ArrayList<>();
+        for (Event event : own.values()) {
+            keys.add(EventFile.key(current(model, event)));
+        }
+        Files.write(expectedFile(dataFile, worker).toPath(), keys, StandardCharsets.UTF_8);
+
+        System.out.printf("worker %d: %d saves, %d checks read changes, %d own events, model %s the file%n",
+                worker, saves, refreshed, own.size(), inModel.equals(inFile) ? "matches" : "DOES NOT MATCH");
+        System.out.println(LatencyRecorder.header());
+        System.out.println(save);
+        System.out.println(refresh);
+        return inModel.equals(inFile);
+    }
+
+    private static File expectedFile(File dataFile, int worker) {
+        return new File(dataFile.getPath() + ".worker-" + worker);
+    }
+
+    // The model's instance of an own event, which a full read of the file replaces
+    private static Event current(EventModel model, Event event) {
+        for (Event candidate : model.eventsOn(event.getDate())) {
+            if (candidate.getTitle().equals(event.getTitle())) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("Lost " + event.getTitle() + " on " + event.getDate());
+    }
+
+    // A third get a description long enough for the description store
+    private static Event newEvent(String title, Random random) {
+        LocalDateTime dateTime = LocalDate.of(2025, 1, 1).plusDays(random.nextInt(365))
+                .atTime(7 + random.nextInt(12), random.nextInt(4) * 15);
+        StringBuilder description = new StringBuilder();
+        int words = random.nextInt(3) == 0 ? 60 + random.nextInt(60) : random.nextInt(8);
+        for (int i = 0; i < words; i++) {
+            description.append(i > 0 ? " " : "").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return new Event(title, dateTime, description.toString(), List.of(10 * random.nextInt(4)));
+    }
+
+    // How many entries of a are not in b, counting duplicates
+    private static int difference(Map<String, Integer> a, Map<String, Integer> b) {
+        int count = 0;
+        for (Map.Entry<String, Integer> entry : a.entrySet()) {
+            count += Math.max(0, entry.getValue() - b.getOrDefault(entry.getKey(), 0));
+        }
+        return count;
+    }
+}
@@ -0,0 +1,49 @@
+package org.oogle.calender.tools;
+
+import java.util.Arrays;
+
+/**
+ * Collects operation latencies in nanoseconds and reports percentiles.
+ */
+public final class LatencyRecorder {
+
+    private final String name;
+    private long[] samples = new long[1024];
+    private int count;
+
+    public LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    public void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /** The given percentile (0-100) in nanoseconds, nearest-rank. */
+    public long percentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * count);
+        return sorted[Math.max(0, Math.min(count - 1, rank - 1))];
+    }
+
+    public static String header() {
+        return String.format("%-24s %8s %10s %10s %10s %10s", "operation", "samples", "p50 ms", "p90 ms", "p99 ms", "max ms");
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-24s %8d %10.3f %10.3f %10.3f %10.3f", name, count,
+                percentile(50) / 1e6, percentile(90) / 1e6, percentile(99) / 1e6, percentile(100) / 1e6);
+    }
+}
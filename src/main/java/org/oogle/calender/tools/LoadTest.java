@@ -0,0 +1,198 @@
+package org.oogle.calender.tools;
+
+import org.oogle.calender.model.Event;
+import org.oogle.calender.model.EventModel;
+import org.oogle.calender.reminder.ReminderScheduler;
+import org.oogle.calender.storage.EventFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Drives the headless model through load, merge import, mutation bursts and reminder checks
+ * over a {@link SyntheticCalendar} and prints latency percentiles for each.
+ */
+public final class LoadTest {
+
+    private final SyntheticCalendar calendar;
+    private int iterations = 5;
+    private int bursts = 200;
+    private int burstSize = 50;
+    private int reminderDays = 7;
+    private EventModel.Storage storage = EventModel.Storage.HEAP;
+
+    public LoadTest(SyntheticCalendar calendar) {
+        this.calendar = calendar;
+    }
+
+    public LoadTest iterations(int iterations) {
+        this.iterations = iterations;
+        return this;
+    }
+
+    public LoadTest bursts(int bursts, int burstSize) {
+        this.bursts = bursts;
+        this.burstSize = burstSize;
+        return this;
+    }
+
+    /** Length of the simulated span of 30 second reminder checks. */
+    public LoadTest reminderDays(int reminderDays) {
+        this.reminderDays = reminderDays;
+        return this;
+    }
+
+    public LoadTest storage(EventModel.Storage storage) {
+        this.storage = storage;
+        return this;
+    }
+
+    public void run(PrintStream out) throws IOException {
+        File dataFile = File.createTempFile("loadtest-events", ".dat");
+        try {
+            long started = System.nanoTime();
+            int written = calendar.writeTo(dataFile);
+            out.printf("Generated %d events (%d KB) in %d ms%n", written, dataFile.length() / 1024,
+                    (System.nanoTime() - started) / 1_000_000);
+
+            List<LatencyRecorder> results = new ArrayList<>();
+            results.add(measureLoad(dataFile, out));
+            results.add(measureImport(dataFile));
+            results.addAll(measureMutations(dataFile));
+            results.addAll(measureReminders(dataFile));
+
+            out.println();
+            out.println(LatencyRecorder.header());
+            for (LatencyRecorder result : results) {
+                out.println(result);
+            }
+        } finally {
+            dataFile.delete();
+        }
+    }
+
+    private LatencyRecorder measureLoad(File dataFile, PrintStream out) throws IOException {
+        LatencyRecorder load = new LatencyRecorder("load");
+        EventModel model = null;
+        long gcMillis = totalGcMillis();
+        for (int i = 0; i < iterations; i++) {
+            model = new EventModel(storage);
+            long started = System.nanoTime();
+            model.replaceAll(EventFile.read(dataFile));
+            load.record(System.nanoTime() - started);
+        }
+        gcMillis = totalGcMillis() - gcMillis;
+
+        // Heap still in use with the last loaded model alive
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        long heapUsed = runtime.totalMemory() - runtime.freeMemory();
+        out.printf("%s store: %d MB heap in use after load (%d KB off-heap), %d ms GC during %d loads%n",
+                storage, heapUsed / (1024 * 1024), model.offHeapBytes() / 1024, gcMillis, iterations);
+        return load;
+    }
+
+    private static long totalGcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    private LatencyRecorder measureImport(File dataFile) throws IOException {
+        LatencyRecorder merge = new LatencyRecorder("import (merge)");
+        List<Event> base = EventFile.read(dataFile);
+        for (int i = 0; i < iterations; i++) {
+            EventModel model = new EventModel(storage);
+            model.replaceAll(base);
+            long started = System.nanoTime();
+            model.addAll(EventFile.read(dataFile));
+            merge.record(System.nanoTime() - started);
+        }
+        return merge;
+    }
+
+    private List<LatencyRecorder> measureMutations(File dataFile) throws IOException {
+        LatencyRecorder single = new LatencyRecorder("single mutation");
+        LatencyRecorder burst = new LatencyRecorder("burst of " + burstSize);
+
+        EventModel model = new EventModel(storage);
+        model.replaceAll(EventFile.read(dataFile));
+        ReminderScheduler scheduler = new ReminderScheduler(model);
+        model.addListener(scheduler);
+
+        List<Event> live = model.allEvents();
+        Random random = new Random(7);
+        for (int b = 0; b < bursts; b++) {
+            List<Event> fresh = new SyntheticCalendar().seed(random.nextLong()).events(burstSize)
+                    .startDate(calendar.getStartDate()).spreadDays(calendar.getSpreadDays()).generate();
+
+            long started = System.nanoTime();
+            model.runBatch(() -> {
+                for (Event event : fresh) {
+                    mutate(model, live, event, random, single);
+                }
+            });
+            burst.record(System.nanoTime() - started);
+        }
+        return List.of(single, burst);
+    }
+
+    // One add, update or remove, picked at random
+    private void mutate(EventModel model, List<Event> live, Event fresh, Random random, LatencyRecorder single) {
+        int choice = live.isEmpty() ? 0 : random.nextInt(3);
+        long started = System.nanoTime();
+        if (choice == 0) {
+            model.add(fresh);
+            live.add(fresh);
+        } else {
+            int index = random.nextInt(live.size());
+            Event target = live.get(index);
+            if (choice == 1) {
+                Event updated = new Event(target.getId(), target.getTitle(), fresh.getDateTime(),
+                        target.getDescription(), target.getReminderMinutes());
+                model.update(target, updated);
+                live.set(index, updated);
+            } else {
+                model.remove(target);
+                live.set(index, live.get(live.size() - 1));
+                live.remove(live.size() - 1);
+            }
+        }
+        single.record(System.nanoTime() - started);
+    }
+
+    private List<LatencyRecorder> measureReminders(File dataFile) throws IOException {
+        LatencyRecorder rebuild = new LatencyRecorder("reminder set rebuild");
+        LatencyRecorder check = new LatencyRecorder("reminder check");
+
+        EventModel model = new EventModel(storage);
+        model.replaceAll(EventFile.read(dataFile));
+
+        ReminderScheduler scheduler = new ReminderScheduler(model);
+        for (int i = 0; i < iterations; i++) {
+            long started = System.nanoTime();
+            scheduler = new ReminderScheduler(model);
+            rebuild.record(System.nanoTime() - started);
+        }
+
+        // Replay the 30 second checks over the first days of the calendar
+        LocalDateTime now = calendar.getStartDate().atStartOfDay();
+        LocalDateTime end = now.plusDays(reminderDays);
+        scheduler.pollDue(now);
+        for (; now.isBefore(end); now = now.plusSeconds(30)) {
+            long started = System.nanoTime();
+            scheduler.pollDue(now);
+            check.record(System.nanoTime() - started);
+        }
+        return List.of(rebuild, check);
+    }
+}
@@ -0,0 +1,224 @@
+package org.oogle.calender.tools;
+
+import org.oogle.calender.model.Event;
+import org.oogle.calender.model.EventModel;
+import org.oogle.calender.reminder.ReminderChecker;
+import org.oogle.calender.reminder.ReminderScheduler;
+import org.oogle.calender.reminder.SimulatedTaskScheduler;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Replays a span of time over a {@link SyntheticCalendar} at full speed: the reminder check runs
+ * on a {@link SimulatedTaskScheduler} every check period of simulated time, while events are
+ * added, moved and removed at a steady rate. Every reminder that should fire in the span is
+ * tracked, so the report shows how late each firing was in simulated time, which fired twice,
+ * fired early or fired for an event that no longer has it, and which never fired, along with
+ * how fast the replay ran and how long each check took on the wall clock.
+ *
+ * <p>Reminders already due when the replay starts are delivered once before it begins, as the
+ * application does on startup, and are not counted.
+ */
+public final class ReminderSimulation {
+
+    /** One reminder of one event as scheduled at a given time; moving the event makes a new one. */
+    private record Firing(long eventId, int minutesBefore, LocalDateTime due) {
+    }
+
+    private final SyntheticCalendar calendar;
+    private int days = 365;
+    private Duration period = Duration.ofSeconds(30);
+    private int editsPerDay = 20;
+    private EventModel.Storage storage = EventModel.Storage.HEAP;
+
+    // Replay state
+    private EventModel model;
+    private SimulatedTaskScheduler scheduler;
+    private final Map<Firing, LocalDateTime> expected = new HashMap<>(); // Firing -> when it became due or known
+    private final Map<Long, List<Firing>> expectedByEvent = new HashMap<>();
+    private final Set<Firing> fired = new HashSet<>();
+    private int duplicates;
+    private int early;
+    private int unexpected;
+
+    public ReminderSimulation(SyntheticCalendar calendar) {
+        this.calendar = calendar;
+    }
+
+    /** Length of the replayed span, starting at the calendar's start date. */
+    public ReminderSimulation days(int days) {
+        this.days = days;
+        return this;
+    }
+
+    /** Simulated time between reminder checks; the application uses 30 seconds. */
+    public ReminderSimulation period(Duration period) {
+        this.period = period;
+        return this;
+    }
+
+    /** Events added, moved or removed per simulated day while the replay runs. */
+    public ReminderSimulation editsPerDay(int editsPerDay) {
+        this.editsPerDay = editsPerDay;
+        return this;
+    }
+
+    public ReminderSimulation storage(EventModel.Storage storage) {
+        this.storage = storage;
+        return this;
+    }
+
+    public void run(PrintStream out) {
+        LocalDateTime start = calendar.getStartDate().atStartOfDay();
+        LocalDateTime end = start.plusDays(days);
+
+        long started = System.nanoTime();
+        model = new EventModel(storage);
+        model.replaceAll(calendar.generate());
+        ReminderScheduler reminders = new ReminderScheduler(model);
+        model.addListener(reminders);
+        reminders.pollDue(start);
+        List<Event> live = model.allEvents();
+        for (Event event : live) {
+            expect(event, start, false);
+        }
+        out.printf("Built %d events with %d pending reminders in %d ms%n", live.size(), expected.size(),
+                (System.nanoTime() - started) / 1_000_000);
+
+        LatencyRecorder check = new LatencyRecorder("reminder check");
+        LatencyRecorder edit = new LatencyRecorder("edit");
+        LatencyRecorder lateness = new LatencyRecorder("lateness (simulated)");
+
+        scheduler = new SimulatedTaskScheduler(start, ZoneOffset.UTC);
+        ReminderChecker checker = new ReminderChecker(scheduler.getClock(), () -> List.of(reminders));
+        scheduler.scheduleAtFixedRate(() -> {
+            LocalDateTime now = scheduler.now();
+            long checkStarted = System.nanoTime();
+            List<ReminderScheduler.DueReminder> due = checker.check();
+            check.record(System.nanoTime() - checkStarted);
+            for (ReminderScheduler.DueReminder reminder : due) {
+                record(reminder, now, lateness);
+            }
+        }, period);
+        if (editsPerDay > 0) {
+            Random random = new Random(7);
+            scheduler.scheduleAtFixedRate(() -> {
+                long editStarted = System.nanoTime();
+                edit(live, random);
+                edit.record(System.nanoTime() - editStarted);
+            }, Duration.ofDays(1).dividedBy(editsPerDay));
+        }
+
+        started = System.nanoTime();
+        scheduler.advanceTo(end);
+        long wallNanos = System.nanoTime() - started;
+
+        // Anything due more than one check before the end should have fired by now
+        LocalDateTime cutoff = end.minus(period);
+        int due = 0;
+        int misses = 0;
+        for (Map.Entry<Firing, LocalDateTime> entry : expected.entrySet()) {
+            if (!entry.getValue().isAfter(cutoff)) {
+                due++;
+                if (!fired.contains(entry.getKey())) {
+                    misses++;
+                }
+            }
+        }
+
+        double seconds = wallNanos / 1e9;
+        out.printf("Replayed %d days in %.2f s (%.0fx real time): %d checks (%.0f/s), %d edits, %d firings (%.0f/s)%n",
+                days, seconds, Duration.between(start, end).toNanos() / (double) wallNanos,
+                check.getCount(), check.getCount() / seconds, edit.getCount(), fired.size(), fired.size() / seconds);
+        out.printf("Due %d, fired %d, missed %d, duplicates %d, early %d, unexpected %d%n",
+                due, fired.size(), misses, duplicates, early, unexpected);
+        out.println();
+        out.println(LatencyRecorder.header());
+        out.println(check);
+        out.println(edit);
+        out.println(lateness);
+    }
+
+    private void record(ReminderScheduler.DueReminder reminder, LocalDateTime now, LatencyRecorder lateness) {
+        Firing firing = new Firing(reminder.getEvent().getId(), reminder.getMinutesBefore(), reminder.getDue());
+        LocalDateTime dueAt = expected.get(firing);
+        if (!fired.add(firing)) {
+            duplicates++;
+        } else if (dueAt == null) {
+            unexpected++; // Removed or moved before it fired, or never scheduled
+        } else if (now.isBefore(dueAt)) {
+            early++;
+        } else {
+            lateness.record(Duration.between(dueAt, now).toNanos());
+        }
+    }
+
+    // Reminders of an event as of now; past ones were either delivered already or fire at the next check
+    private void expect(Event event, LocalDateTime now, boolean pastFires) {
+        List<Firing> firings = new ArrayList<>(event.getReminderCount());
+        for (int i = 0; i < event.getReminderCount(); i++) {
+            int minutes = event.getReminderMinutes(i);
+            LocalDateTime due = event.getDateTime().minusMinutes(minutes);
+            if (due.isAfter(now) || pastFires) {
+                Firing firing = new Firing(event.getId(), minutes, due);
+                expected.put(firing, due.isAfter(now) ? due : now);
+                firings.add(firing);
+            }
+        }
+        if (!firings.isEmpty()) {
+            expectedByEvent.put(event.getId(), firings);
+        }
+    }
+
+    // Drops the reminders of an event that have not fired yet
+    private void forget(Event event) {
+        List<Firing> firings = expectedByEvent.remove(event.getId());
+        if (firings != null) {
+            for (Firing firing : firings) {
+                if (!fired.contains(firing)) {
+                    expected.remove(firing);
+                }
+            }
+        }
+    }
+
+    // One add, move or remove, picked at random; moves and adds land within the next two weeks
+    private void edit(List<Event> live, Random random) {
+        LocalDateTime now = scheduler.now();
+        LocalDateTime dateTime = now.plusMinutes(15 + random.nextInt(14 * 24 * 60));
+        int choice = live.isEmpty() ? 0 : random.nextInt(3);
+        if (choice == 0) {
+            Event fresh = new SyntheticCalendar().seed(random.nextLong()).events(1)
+                    .startDate(now.toLocalDate()).spreadDays(1).generate().get(0);
+            Event added = new Event(fresh.getTitle(), dateTime, fresh.getDescription(), fresh.getReminderMinutes());
+            model.add(added);
+            live.add(added);
+            expect(added, now, true);
+            return;
+        }
+        int index = random.nextInt(live.size());
+        Event target = live.get(index);
+        forget(target);
+        if (choice == 1) {
+            Event moved = new Event(target.getId(), target.getTitle(), dateTime,
+                    target.getDescription(), target.getReminderMinutes());
+            model.update(target, moved);
+            live.set(index, moved);
+            expect(moved, now, true);
+        } else {
+            model.remove(target);
+            live.set(index, live.get(live.size() - 1));
+            live.remove(live.size() - 1);
+        }
+    }
+}
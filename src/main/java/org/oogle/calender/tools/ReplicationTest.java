@@ -0,0 +1,257 @@
+package org.oogle.calender.tools;
+
+import org.oogle.calender.model.Event;
+import org.oogle.calender.model.EventModel;
+import org.oogle.calender.storage.EventFile;
+import org.oogle.calender.sync.Replicator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Runs several {@link Replicator}s on localhost, each with its own model and replication log,
+ * and reports what replication costs: the initial copy of a {@link SyntheticCalendar}, a series
+ * of random edits spread over the replicas, concurrent edits of the same events, and a replica
+ * catching up after a restart. Every phase ends by checking that all replicas hold the same events.
+ */
+public final class ReplicationTest {
+
+    private static final long CONVERGE_TIMEOUT_MILLIS = 120_000;
+
+    private final SyntheticCalendar calendar;
+    private int replicas = 3;
+    private int changes = 1000;
+    private int conflicts = 100;
+
+    private final List<EventModel> models = new ArrayList<>();
+    private final List<Replicator> replicators = new ArrayList<>();
+    private final List<Integer> ports = new ArrayList<>();
+    private File directory;
+    private long bytesBefore;
+    private long bytesOfStopped; // Sent by replicators that have been replaced
+
+    public ReplicationTest(SyntheticCalendar calendar) {
+        this.calendar = calendar;
+    }
+
+    public ReplicationTest replicas(int replicas) {
+        if (replicas < 2) {
+            throw new IllegalArgumentException("At least two replicas are needed");
+        }
+        this.replicas = replicas;
+        return this;
+    }
+
+    /** Random adds, updates and removes spread over the replicas. */
+    public ReplicationTest changes(int changes) {
+        this.changes = changes;
+        return this;
+    }
+
+    /** Events edited on two replicas at once. */
+    public ReplicationTest conflicts(int conflicts) {
+        this.conflicts = conflicts;
+        return this;
+    }
+
+    public void run(PrintStream out) throws IOException {
+        directory = Files.createTempDirectory("replication-test").toFile();
+        try {
+            runPhases(out);
+        } finally {
+            replicators.forEach(replicator -> {
+                if (replicator != null) {
+                    replicator.stop();
+                }
+            });
+            try (Stream<Path> files = Files.walk(directory.toPath())) {
+                files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    private void runPhases(PrintStream out) throws IOException {
+        out.printf("%d replicas, %d events on the first one%n", replicas, calendar.getEvents());
+        out.printf("%-24s %10s %12s %14s %10s%n", "phase", "changes", "bytes sent", "bytes/change", "ms");
+
+        EventModel first = new EventModel();
+        first.replaceAll(calendar.generate());
+        models.add(first);
+        for (int i = 1; i < replicas; i++) {
+            models.add(new EventModel());
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < replicas; i++) {
+            startReplica(i);
+        }
+        report(out, "initial copy", calendar.getEvents(), started);
+
+        Random random = new Random(11);
+        started = System.nanoTime();
+        for (int i = 0; i < changes; i++) {
+            mutate(models.get(random.nextInt(replicas)), random);
+        }
+        report(out, "random edits", changes, started);
+
+        // The same events edited on two replicas before either hears of the other's edit
+        started = System.nanoTime();
+        List<Event> targets = sample(models.get(0), random, conflicts);
+        for (Event target : targets) {
+            for (int replica = 0; replica < 2; replica++) {
+                EventModel model = models.get(replica);
+                Event current = model.findById(localId(model, target));
+                if (current != null) {
+                    model.update(current, new Event(current.getId(), current.getTitle() + " (edited on " + replica + ")",
+                            current.getDateTime(), current.getDescription(), current.getReminderMinutes()));
+                }
+            }
+        }
+        report(out, "concurrent edits", 2 * targets.size(), started);
+
+        // Restart the last replica from its saved file after the others moved on
+        int last = replicas - 1;
+        File saved = new File(directory, "replica-" + last + ".dat");
+        EventFile.write(saved, models.get(last).snapshot().values());
+        replicators.get(last).stop();
+        bytesOfStopped += replicators.get(last).getBytesSent();
+        replicators.set(last, null);
+        for (int i = 0; i < changes; i++) {
+            mutate(models.get(random.nextInt(last)), random);
+        }
+        awaitConvergence(models.subList(0, last));
+        EventModel reloaded = new EventModel();
+        reloaded.replaceAll(EventFile.read(saved));
+        models.set(last, reloaded);
+        started = System.nanoTime();
+        startReplica(last);
+        report(out, "catch-up after restart", changes, started);
+    }
+
+    private void startReplica(int index) throws IOException {
+        List<InetSocketAddress> peers = new ArrayList<>();
+        for (int i = 0; i < ports.size(); i++) {
+            if (i != index) {
+                peers.add(InetSocketAddress.createUnresolved("localhost", ports.get(i)));
+            }
+        }
+        Replicator replicator = new Replicator(models.get(index), new File(directory, "replica-" + index + ".sync"), () -> {
+        });
+        replicator.start(0, peers);
+        if (index < replicators.size()) {
+            replicators.set(index, replicator);
+            ports.set(index, replicator.getPort());
+        } else {
+            replicators.add(replicator);
+            ports.add(replicator.getPort());
+        }
+    }
+
+    // One add, update or remove on a random day of the calendar's span
+    private void mutate(EventModel model, Random random) {
+        LocalDate date = calendar.getStartDate().plusDays(random.nextInt(calendar.getSpreadDays()));
+        List<Event> dayEvents = model.eventsOn(date);
+        int choice = dayEvents.isEmpty() ? 0 : random.nextInt(3);
+        if (choice == 0) {
+            model.add(new Event("Replicated " + random.nextInt(1000), date.atTime(random.nextInt(24), 0),
+                    "", List.of(10)));
+        } else {
+            Event target = dayEvents.get(random.nextInt(dayEvents.size()));
+            if (choice == 1) {
+                model.update(target, new Event(target.getId(), target.getTitle(), target.getDateTime().plusMinutes(30),
+                        target.getDescription(), target.getReminderMinutes()));
+            } else {
+                model.remove(target);
+            }
+        }
+    }
+
+    private List<Event> sample(EventModel model, Random random, int count) {
+        List<Event> all = model.allEvents();
+        List<Event> sample = new ArrayList<>();
+        for (int i = 0; i < count && !all.isEmpty(); i++) {
+            sample.add(all.remove(random.nextInt(all.size())));
+        }
+        return sample;
+    }
+
+    /** The id of the event in {@code model} with the same content as {@code event} from another replica. */
+    private long localId(EventModel model, Event event) {
+        for (Event candidate : model.eventsOn(event.getDate())) {
+            if (fingerprint(candidate).equals(fingerprint(event))) {
+                return candidate.getId();
+            }
+        }
+        return -1;
+    }
+
+    private void report(PrintStream out, String phase, int changeCount, long started) throws IOException {
+        awaitConvergence(models);
+        long millis = (System.nanoTime() - started) / 1_000_000;
+        long sent = bytesOfStopped;
+        for (Replicator replicator : replicators) {
+            sent += replicator.getBytesSent();
+        }
+        long phaseBytes = sent - bytesBefore;
+        bytesBefore = sent;
+        out.printf("%-24s %10d %12d %14.1f %10d%n", phase, changeCount, phaseBytes,
+                changeCount == 0 ? 0.0 : (double) phaseBytes / changeCount, millis);
+    }
+
+    /** Waits until the running replicas have seen the same changes and hold the same events. */
+    private void awaitConvergence(List<EventModel> group) throws IOException {
+        long deadline = System.currentTimeMillis() + CONVERGE_TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            Map<String, Long> clock = null;
+            boolean same = true;
+            for (Replicator replicator : replicators) {
+                if (replicator == null) {
+                    continue;
+                }
+                Map<String, Long> replicaClock = replicator.getVectorClock();
+                same &= clock == null || clock.equals(replicaClock);
+                clock = replicaClock;
+            }
+            if (same && sameEvents(group)) {
+                return;
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for replicas", e);
+            }
+        }
+        throw new IOException("Replicas did not converge within " + CONVERGE_TIMEOUT_MILLIS / 1000 + " s");
+    }
+
+    private boolean sameEvents(List<EventModel> group) {
+        List<String> expected = null;
+        for (EventModel model : group) {
+            List<String> events = new ArrayList<>(model.size());
+            model.forEach(event -> events.add(fingerprint(event)));
+            events.sort(null);
+            if (expected != null && !expected.equals(events)) {
+                return false;
+            }
+            expected = events;
+        }
+        return true;
+    }
+
+    private static String fingerprint(Event event) {
+        return event.getDateTime() + "|" + event.getTitle() + "|" + Objects.hashCode(event.getDescription())
+                + "|" + event.getReminderMinutes();
+    }
+}
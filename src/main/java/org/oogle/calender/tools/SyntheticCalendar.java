@@ -0,0 +1,207 @@
+package org.oogle.calender.tools;
+
+import org.oogle.calender.model.Event;
+import org.oogle.calender.storage.EventFile;
+import org.oogle.calender.storage.RecordFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Seeded, reproducible calendar data: the same settings always produce the same events in the
+ * same order. Events are generated lazily, so {@link #writeTo(File)} runs in constant memory
+ * however many events are requested.
+ */
+public final class SyntheticCalendar implements Iterable<Event> {
+
+    private static final String[] TITLES = {
+            "Standup", "1:1", "Planning", "Sprint review", "Lunch", "Team sync",
+            "Interview", "Dentist", "Gym", "Release", "Retro", "Design review"
+    };
+    private static final String[] WORDS = {
+            "agenda", "notes", "follow", "up", "budget", "roadmap", "customer", "draft",
+            "review", "action", "items", "owner", "deadline", "blocker", "demo", "metrics"
+    };
+
+    private long seed = 42;
+    private int events = 1000;
+    private LocalDate startDate = LocalDate.now().minusYears(1);
+    private int spreadDays = 3 * 365;
+    private int minDescription = 0;
+    private int maxDescription = 200;
+    private double escapeShare = 0.05;
+    private List<int[]> reminderSets = new ArrayList<>();
+    private List<Integer> reminderWeights = new ArrayList<>();
+
+    public SyntheticCalendar() {
+        reminderMix("none:4,10:3,60+10:2,1440+60+30+10+0:1");
+    }
+
+    public SyntheticCalendar seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public SyntheticCalendar events(int events) {
+        this.events = events;
+        return this;
+    }
+
+    public int getEvents() {
+        return events;
+    }
+
+    public SyntheticCalendar startDate(LocalDate startDate) {
+        this.startDate = startDate;
+        return this;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    /** Number of days, starting at {@link #startDate(LocalDate)}, that events are spread over. */
+    public SyntheticCalendar spreadDays(int spreadDays) {
+        this.spreadDays = spreadDays;
+        return this;
+    }
+
+    public int getSpreadDays() {
+        return spreadDays;
+    }
+
+    /** Description length in characters; 0 to 0 produces no descriptions. */
+    public SyntheticCalendar descriptionLength(int min, int max) {
+        this.minDescription = min;
+        this.maxDescription = max;
+        return this;
+    }
+
+    /** Share (0..1) of events whose title or description contains '|' or a line break. */
+    public SyntheticCalendar escapeShare(double escapeShare) {
+        this.escapeShare = escapeShare;
+        return this;
+    }
+
+    /**
+     * Weighted reminder presets, e.g. {@code "none:4,10:3,60+10:2,1440+60+30+10+0:1"}: each entry
+     * is a '+'-separated list of minutes before the event (or "none") and its relative weight.
+     */
+    public SyntheticCalendar reminderMix(String spec) {
+        List<int[]> sets = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Reminder mix entry must be <minutes>:<weight>: " + entry);
+            }
+            int[] minutes = parts[0].equals("none") ? new int[0] :
+                    Arrays.stream(parts[0].split("\\+")).mapToInt(Integer::parseInt).toArray();
+            sets.add(minutes);
+            weights.add(Integer.parseInt(parts[1]));
+        }
+        this.reminderSets = sets;
+        this.reminderWeights = weights;
+        return this;
+    }
+
+    @Override
+    public Iterator<Event> iterator() {
+        Random random = new Random(seed);
+        int totalWeight = reminderWeights.stream().mapToInt(Integer::intValue).sum();
+
+        return new Iterator<>() {
+            private int generated;
+
+            @Override
+            public boolean hasNext() {
+                return generated < events;
+            }
+
+            @Override
+            public Event next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                generated++;
+                return nextEvent(random, totalWeight);
+            }
+        };
+    }
+
+    public List<Event> generate() {
+        List<Event> generated = new ArrayList<>(events);
+        for (Event event : this) {
+            generated.add(event);
+        }
+        return generated;
+    }
+
+    /** Writes the calendar in the .dat format and returns the number of events written. */
+    public int writeTo(File file) throws IOException {
+        int written = 0;
+        try (RecordFile.Writer writer = RecordFile.create(file)) {
+            for (Event event : this) {
+                writer.append(EventFile.formatLine(event));
+                written++;
+            }
+            writer.commit();
+        }
+        return written;
+    }
+
+    private Event nextEvent(Random random, int totalWeight) {
+        LocalDateTime dateTime = startDate
+                .plusDays(random.nextInt(Math.max(1, spreadDays)))
+                .atTime(7 + random.nextInt(12), random.nextInt(4) * 15);
+
+        String title = TITLES[random.nextInt(TITLES.length)];
+        String description = description(random);
+        if (random.nextDouble() < escapeShare) {
+            // Characters the .dat format has to escape
+            if (random.nextBoolean()) {
+                title = title + " | " + TITLES[random.nextInt(TITLES.length)];
+            } else {
+                description = description + "\n- " + WORDS[random.nextInt(WORDS.length)] + " | done";
+            }
+        }
+
+        int pick = random.nextInt(Math.max(1, totalWeight));
+        int[] minutes = new int[0];
+        for (int i = 0; i < reminderSets.size(); i++) {
+            pick -= reminderWeights.get(i);
+            if (pick < 0) {
+                minutes = reminderSets.get(i);
+                break;
+            }
+        }
+        List<Integer> reminders = new ArrayList<>(minutes.length);
+        for (int m : minutes) {
+            reminders.add(m);
+        }
+
+        return new Event(title, dateTime, description, reminders);
+    }
+
+    private String description(Random random) {
+        int length = minDescription + (maxDescription > minDescription ?
+                random.nextInt(maxDescription - minDescription + 1) : 0);
+        StringBuilder text = new StringBuilder(length + 16);
+        while (text.length() < length) {
+            if (text.length() > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        text.setLength(length);
+        return text.toString().trim();
+    }
+}
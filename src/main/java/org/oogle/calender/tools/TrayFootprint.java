@@ -0,0 +1,140 @@
+package org.oogle.calender.tools;
+
+import org.oogle.calender.calendars.NamedCalendar;
+import org.oogle.calender.model.Event;
+import org.oogle.calender.model.EventModel;
+import org.oogle.calender.query.QueryEngine;
+import org.oogle.calender.reminder.ReminderChecker;
+import org.oogle.calender.reminder.SystemTaskScheduler;
+import org.oogle.calender.reminder.TaskScheduler;
+import org.oogle.calender.storage.EventFile;
+import org.oogle.calender.storage.RecoveryReport;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures what a calendar costs while the window is open and while it is parked in the tray:
+ * heap in use, heap committed and resident set size after a full collection, and the CPU time
+ * spent idling with the reminder check running. The scene graph is not included; this covers the
+ * model, its indexes and statistics, and the reminders.
+ */
+public final class TrayFootprint {
+
+    private final SyntheticCalendar calendar;
+    private int idleSeconds = 10;
+    private Duration period = Duration.ofSeconds(30);
+    private EventModel.Storage storage = EventModel.Storage.HEAP;
+
+    public TrayFootprint(SyntheticCalendar calendar) {
+        this.calendar = calendar;
+    }
+
+    /** How long each state idles while CPU time is measured. */
+    public TrayFootprint idleSeconds(int idleSeconds) {
+        this.idleSeconds = idleSeconds;
+        return this;
+    }
+
+    public TrayFootprint period(Duration period) {
+        this.period = period;
+        return this;
+    }
+
+    public TrayFootprint storage(EventModel.Storage storage) {
+        this.storage = storage;
+        return this;
+    }
+
+    public void run(PrintStream out) throws IOException {
+        File dataFile = File.createTempFile("footprint-events", ".dat");
+        TaskScheduler scheduler = new SystemTaskScheduler();
+        try {
+            calendar.writeTo(dataFile);
+            EventModel model = new EventModel(storage);
+            NamedCalendar named = new NamedCalendar("footprint", dataFile, model, new QueryEngine(model).indexReminders());
+            load(named);
+            named.getReminders().pollDue(LocalDateTime.now()); // Deliver the past, as the first check does
+
+            ReminderChecker checker = new ReminderChecker(scheduler.getClock(), () -> List.of(named.getReminders()));
+            scheduler.scheduleAtFixedRate(checker::check, period);
+
+            out.printf("%d events, %s store, reminder check every %d s, %d s idle per state%n",
+                    model.size(), storage, period.toSeconds(), idleSeconds);
+            out.println(header());
+            out.println(measure("windowed", named));
+
+            if (!named.park(LocalDateTime.now())) {
+                throw new IllegalStateException("Calendar could not be parked");
+            }
+            out.println(measure("parked", named));
+
+            long started = System.nanoTime();
+            load(named);
+            named.unpark();
+            out.printf("Reloaded in %d ms%n", (System.nanoTime() - started) / 1_000_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            scheduler.shutdown();
+            dataFile.delete();
+        }
+    }
+
+    private static void load(NamedCalendar named) throws IOException {
+        List<Event> events = new ArrayList<>();
+        named.beginLoad();
+        RecoveryReport report = EventFile.read(named.getFile(), events::add);
+        named.getModel().addAll(events);
+        named.endLoad(report);
+        named.getModel().clearHistory();
+        named.getStatistics().rebuild().join();
+    }
+
+    private String measure(String state, NamedCalendar named) throws InterruptedException {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        long heapUsed = runtime.totalMemory() - runtime.freeMemory();
+        long committed = runtime.totalMemory();
+        long cpuBefore = processCpuNanos();
+        Thread.sleep(idleSeconds * 1000L);
+        long cpuMillis = (processCpuNanos() - cpuBefore) / 1_000_000;
+        return String.format("%-10s %12d %12d %12s %12d %10d", state, heapUsed / (1024 * 1024),
+                committed / (1024 * 1024), residentMegabytes(), cpuMillis, named.getReminders().pendingCount());
+    }
+
+    private static String header() {
+        return String.format("%-10s %12s %12s %12s %12s %10s", "state", "heap MB", "committed MB", "RSS MB",
+                "idle CPU ms", "reminders");
+    }
+
+    private static long processCpuNanos() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            return os.getProcessCpuTime();
+        }
+        return 0;
+    }
+
+    // VmRSS from /proc, so only on Linux
+    private static String residentMegabytes() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    long kilobytes = Long.parseLong(line.replaceAll("\\D", ""));
+                    return Long.toString(kilobytes / 1024);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not available on this platform
+        }
+        return "n/a";
+    }
+}
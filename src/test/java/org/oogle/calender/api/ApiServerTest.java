@@ -0,0 +1,108 @@
+package org.oogle.calender.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.oogle.calender.model.EventModel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** The checks that keep web pages in the user's browser away from the API. */
+class ApiServerTest {
+
+    private static final String EVENT = "{\"title\":\"Standup\",\"date\":\"2025-05-02\",\"time\":\"09:30\"}";
+
+    private final EventModel model = new EventModel();
+    private final ApiServer server = new ApiServer(model, () -> { });
+    private final HttpClient client = HttpClient.newHttpClient();
+    private int port;
+
+    @BeforeEach
+    void start() throws IOException {
+        server.start(0);
+        port = server.getPort();
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop();
+    }
+
+    @Test
+    void createsEventsSentAsJson() throws Exception {
+        assertEquals(201, post("/events", "application/json; charset=utf-8", null).statusCode());
+        assertEquals(1, model.size());
+        HttpResponse<String> list = send(HttpRequest.newBuilder(uri("/events?from=2025-05-01&to=2025-05-31")).GET());
+        assertEquals(200, list.statusCode());
+        assertTrue(list.body().contains("Standup"), list.body());
+    }
+
+    @Test
+    void refusesSimpleCrossSiteBodies() throws Exception {
+        assertEquals(415, post("/events", "text/plain", null).statusCode());
+        assertEquals(415, post("/events/bulk", "application/x-www-form-urlencoded", null).statusCode());
+        assertEquals(415, post("/events", null, null).statusCode());
+        assertEquals(0, model.size());
+    }
+
+    @Test
+    void refusesRequestsWithAnOrigin() throws Exception {
+        assertEquals(403, post("/events", "application/json", "https://example.com").statusCode());
+        HttpResponse<String> list = send(HttpRequest.newBuilder(uri("/events?from=2025-05-01&to=2025-05-31"))
+                .header("Origin", "http://localhost:" + port).GET());
+        assertEquals(403, list.statusCode());
+        assertEquals(0, model.size());
+    }
+
+    @Test
+    void refusesOtherHostNames() throws IOException {
+        // As after DNS rebinding: the page's own name, resolved to loopback
+        assertTrue(rawGet("attacker.example:" + port).startsWith("HTTP/1.1 403"));
+        assertTrue(rawGet("localhost:" + (port + 1)).startsWith("HTTP/1.1 403"));
+        assertTrue(rawGet("localhost:" + port).startsWith("HTTP/1.1 200"));
+        assertTrue(rawGet("127.0.0.1:" + port).startsWith("HTTP/1.1 200"));
+    }
+
+    private HttpResponse<String> post(String path, String contentType, String origin) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(EVENT));
+        if (contentType != null) {
+            request.header("Content-Type", contentType);
+        }
+        if (origin != null) {
+            request.header("Origin", origin);
+        }
+        return send(request);
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    // HttpClient will not send a Host of our choosing
+    private String rawGet(String host) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET /events?from=2025-05-01&to=2025-05-31 HTTP/1.1\r\nHost: " + host
+                    + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            InputStream in = socket.getInputStream();
+            return new String(in.readAllBytes(), StandardCharsets.US_ASCII);
+        }
+    }
+}
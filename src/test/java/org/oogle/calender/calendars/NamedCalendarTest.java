@@ -0,0 +1,196 @@
+package org.oogle.calender.calendars;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.oogle.calender.model.Event;
+import org.oogle.calender.model.EventModel;
+import org.oogle.calender.query.QueryEngine;
+import org.oogle.calender.reminder.ReminderScheduler;
+import org.oogle.calender.storage.EventFile;
+import org.oogle.calender.storage.RecoveryReport;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Two calendars on one file, as two processes sharing it would have; each saves and reads the other's changes. */
+class NamedCalendarTest {
+
+    @TempDir
+    Path directory;
+
+    private File file;
+
+    @BeforeEach
+    void writeFile() throws IOException {
+        file = directory.resolve("events.dat").toFile();
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            events.add(new Event("base " + i, LocalDateTime.of(2025, 1, 1 + i, 9, 0), "", List.of(10)));
+        }
+        EventFile.write(file, List.of(events));
+    }
+
+    @Test
+    void undoDoesNotTakeBackAnotherWritersChanges() throws IOException {
+        NamedCalendar a = load("a");
+        NamedCalendar b = load("b");
+
+        Event own = event("own", 3, 10, "");
+        b.getModel().add(own);
+        assertTrue(b.getModel().canUndo());
+
+        a.getModel().add(event("theirs", 5, 14, "from a"));
+        a.getModel().remove(find(a, "base 0"));
+        a.save();
+
+        assertTrue(b.refresh());
+        assertNotNull(find(b, "theirs"));
+        assertFalse(b.getModel().undo(), "the other writer's changes are not an undo step");
+        assertNotNull(find(b, "theirs"));
+        assertEquals(null, find(b, "base 0"));
+
+        b.save();
+        assertTrue(a.refresh());
+        assertNotNull(find(a, "own"));
+        assertEquals(keys(a), keys(b));
+        assertEquals(keys(a), fileKeys());
+    }
+
+    @Test
+    void alternatingWritersConverge() throws IOException {
+        NamedCalendar a = load("a");
+        NamedCalendar b = load("b");
+        Map<String, Integer> expected = fileKeys();
+        List<Map<String, Event>> own = List.of(new LinkedHashMap<>(), new LinkedHashMap<>());
+        Random random = new Random(42);
+
+        for (int n = 0; n < 300; n++) {
+            int writer = n % 2;
+            NamedCalendar calendar = writer == 0 ? a : b;
+            Map<String, Event> mine = own.get(writer);
+            EventModel model = calendar.getModel();
+            int choice = mine.isEmpty() ? 0 : random.nextInt(5);
+            if (choice <= 2) {
+                Event added = randomEvent("w" + writer + "-" + n, random);
+                model.add(added);
+                mine.put(added.getTitle(), added);
+            } else {
+                String title = new ArrayList<>(mine.keySet()).get(random.nextInt(mine.size()));
+                Event target = find(calendar, title);
+                assertNotNull(target, title);
+                if (choice == 3) {
+                    Event moved = randomEvent(title, random);
+                    model.update(target, new Event(target.getId(), title, moved.getDateTime(),
+                            moved.getDescription(), moved.getReminderMinutes()));
+                    mine.put(title, moved);
+                } else {
+                    model.remove(target);
+                    mine.remove(title);
+                }
+            }
+            if (n % 37 == 0) {
+                calendar.markDirty(); // A full write, which the other reads in full
+            }
+            calendar.save();
+            if (n % 3 == 0) {
+                (writer == 0 ? b : a).refresh();
+            }
+        }
+
+        a.refresh();
+        b.refresh();
+        for (Map<String, Event> mine : own) {
+            for (Event event : mine.values()) {
+                expected.merge(EventFile.key(event), 1, Integer::sum);
+            }
+        }
+        assertEquals(expected, fileKeys());
+        assertEquals(expected, keys(a));
+        assertEquals(expected, keys(b));
+    }
+
+    @Test
+    void aParkedCalendarRemindsOfAnotherWritersChangesOnce() throws IOException {
+        NamedCalendar a = load("a");
+        NamedCalendar b = load("b");
+        LocalDateTime parkedAt = LocalDateTime.of(2025, 1, 3, 12, 0);
+        assertEquals(List.of("base 0", "base 1", "base 2"), titles(b.getReminders().pollDue(parkedAt)));
+        assertTrue(b.park(parkedAt));
+        assertFalse(b.refresh(), "nothing changed yet");
+
+        a.getModel().add(new Event("theirs", LocalDateTime.of(2025, 1, 4, 10, 0), "", List.of(10)));
+        a.getModel().add(new Event("already past", LocalDateTime.of(2025, 1, 2, 10, 0), "", List.of(10)));
+        a.getModel().remove(find(a, "base 4"));
+        a.save();
+
+        assertTrue(b.refresh());
+        assertFalse(b.refresh());
+        assertTrue(b.isParked());
+        assertEquals(List.of("base 3", "theirs", "base 5"), titles(b.getReminders().pollDue(LocalDateTime.of(2025, 1, 6, 12, 0))));
+    }
+
+    private NamedCalendar load(String name) throws IOException {
+        EventModel model = new EventModel();
+        NamedCalendar calendar = new NamedCalendar(name, file, model, new QueryEngine(model));
+        calendar.beginLoad();
+        List<Event> events = new ArrayList<>();
+        RecoveryReport report = EventFile.read(file, events::add);
+        model.addAll(events);
+        calendar.endLoad(report);
+        model.clearHistory();
+        return calendar;
+    }
+
+    // A third get a description long enough for the description store
+    private static Event randomEvent(String title, Random random) {
+        String description = random.nextInt(3) == 0 ? "notes ".repeat(60 + random.nextInt(60)) : "short " + random.nextInt(100);
+        return event(title, 1 + random.nextInt(28), 7 + random.nextInt(12), description);
+    }
+
+    private static Event event(String title, int day, int hour, String description) {
+        return new Event(title, LocalDateTime.of(2025, 2, day, hour, 0), description, List.of(10));
+    }
+
+    private static Event find(NamedCalendar calendar, String title) {
+        for (Event event : calendar.getModel().allEvents()) {
+            if (event.getTitle().equals(title)) {
+                return event;
+            }
+        }
+        return null;
+    }
+
+    private static List<String> titles(List<ReminderScheduler.DueReminder> due) {
+        return due.stream().map(reminder -> reminder.getEvent().getTitle()).toList();
+    }
+
+    private static Map<String, Integer> keys(NamedCalendar calendar) throws IOException {
+        Map<String, Integer> keys = new HashMap<>();
+        for (Event event : calendar.getModel().allEvents()) {
+            keys.merge(EventFile.key(event), 1, Integer::sum);
+        }
+        return keys;
+    }
+
+    private Map<String, Integer> fileKeys() throws IOException {
+        Map<String, Integer> keys = new HashMap<>();
+        for (Event event : EventFile.read(file)) {
+            keys.merge(EventFile.key(event), 1, Integer::sum);
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,103 @@
+package org.oogle.calender.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventModelTest {
+
+    private final EventModel model = new EventModel();
+    private final List<ChangeSet> fired = new ArrayList<>();
+
+    EventModelTest() {
+        model.addListener(fired::add);
+    }
+
+    @Test
+    void undoAndRedoFireTheInverseOfEachStep() {
+        Event a = event("a", 1, 9);
+        Event b = event("b", 2, 9);
+        Event c = event("c", 3, 9);
+        model.add(a);
+        model.add(c);
+        List<Event> beforeBatch = sorted(model.allEvents());
+
+        Event movedA = new Event(a.getId(), "a", LocalDateTime.of(2025, 3, 9, 10, 0), "", List.of());
+        model.runBatch(() -> {
+            model.add(b);
+            model.update(a, movedA);
+            model.remove(c);
+        });
+        List<Event> afterBatch = sorted(model.allEvents());
+        ChangeSet batch = last();
+        assertEquals(List.of(EventChange.Type.ADDED, EventChange.Type.UPDATED, EventChange.Type.REMOVED), types(batch));
+
+        Event x = event("x", 20, 9);
+        model.replaceAll(List.of(x));
+        assertTrue(last().isReset());
+
+        // Replace All comes back as one reset
+        assertTrue(model.undo());
+        assertTrue(last().isReset());
+        assertEquals(afterBatch, sorted(model.allEvents()));
+
+        // The batch comes back as one change set, inverted and in reverse order
+        assertTrue(model.undo());
+        ChangeSet inverse = last();
+        assertEquals(List.of(EventChange.Type.ADDED, EventChange.Type.UPDATED, EventChange.Type.REMOVED), types(inverse));
+        assertSame(c, inverse.getChanges().get(0).getEvent());
+        assertSame(a, inverse.getChanges().get(1).getEvent());
+        assertSame(movedA, inverse.getChanges().get(1).getPrevious());
+        assertSame(b, inverse.getChanges().get(2).getEvent());
+        assertEquals(beforeBatch, sorted(model.allEvents()));
+        assertSame(a, model.findById(a.getId()));
+
+        assertTrue(model.redo());
+        assertSame(batch.getChanges(), last().getChanges());
+        assertEquals(afterBatch, sorted(model.allEvents()));
+
+        assertTrue(model.redo());
+        assertTrue(last().isReset());
+        assertEquals(List.of(x), model.allEvents());
+        assertFalse(model.redo());
+    }
+
+    @Test
+    void aNewEditDropsTheRedoSteps() {
+        Event a = event("a", 1, 9);
+        model.add(a);
+        model.add(event("b", 2, 9));
+        assertTrue(model.undo());
+        assertTrue(model.canRedo());
+        model.remove(a);
+        assertFalse(model.canRedo());
+        assertTrue(model.undo());
+        assertEquals(List.of(a), model.allEvents());
+    }
+
+    private ChangeSet last() {
+        return fired.get(fired.size() - 1);
+    }
+
+    private static List<EventChange.Type> types(ChangeSet changes) {
+        return changes.getChanges().stream().map(EventChange::getType).toList();
+    }
+
+    private static List<Event> sorted(List<Event> events) {
+        List<Event> copy = new ArrayList<>(events);
+        copy.sort(Comparator.comparingLong(Event::getId));
+        return copy;
+    }
+
+    private static Event event(String title, int day, int hour) {
+        return new Event(title, LocalDateTime.of(2025, 3, day, hour, 0), "", List.of());
+    }
+}
@@ -0,0 +1,44 @@
+package org.oogle.calender.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventTest {
+
+    @Test
+    void keepsTheFirstAndLastSupportedMinute() {
+        Event first = new Event("first", Event.MIN_DATE_TIME, "", List.of());
+        Event last = new Event("last", Event.MAX_DATE_TIME.plusSeconds(59), "", List.of());
+
+        assertEquals(Event.MIN_DATE_TIME, first.getDateTime());
+        assertEquals(Event.MAX_DATE_TIME, last.getDateTime());
+        assertEquals(Integer.MIN_VALUE, first.getEpochMinute());
+        assertEquals(Integer.MAX_VALUE, last.getEpochMinute());
+    }
+
+    @Test
+    void rejectsStartsOutsideTheRange() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new Event("late", Event.MAX_DATE_TIME.plusMinutes(1), "", List.of()));
+        assertThrows(IllegalArgumentException.class,
+                () -> new Event("early", Event.MIN_DATE_TIME.minusSeconds(1), "", List.of()));
+        // Years the date picker, the API and iCalendar files all accept
+        assertThrows(IllegalArgumentException.class,
+                () -> new Event(7, "far", LocalDateTime.of(9999, 12, 31, 23, 59), "", List.of()));
+    }
+
+    @Test
+    void tellsWhetherAStartIsSupported() {
+        assertTrue(Event.isSupported(LocalDateTime.of(2025, 6, 1, 9, 30)));
+        assertTrue(Event.isSupported(Event.MAX_DATE_TIME));
+        assertFalse(Event.isSupported(Event.MAX_DATE_TIME.plusMinutes(1)));
+        assertFalse(Event.isSupported(LocalDateTime.of(9999, 1, 1, 0, 0)));
+    }
+}
@@ -0,0 +1,64 @@
+package org.oogle.calender.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class HeapEventStoreTest {
+
+    @Test
+    void takenVersionsNeverChangeAfterLaterEdits() {
+        HeapEventStore store = new HeapEventStore();
+        List<Event> first = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Event event = event("e" + i, 1 + i % 5, 8 + i % 10);
+            store.insert(event);
+            first.add(event);
+        }
+        EventStore.Version version = store.version();
+        Map<LocalDate, List<Event>> snapshot = store.snapshot();
+        List<Event> day1 = store.eventsOn(LocalDate.of(2025, 3, 1));
+
+        // Edits after the version, in place under the new token: inserts, deletes and a move
+        for (int i = 0; i < 100; i++) {
+            store.insert(event("late" + i, 1 + i % 7, 9));
+        }
+        for (int i = 0; i < first.size(); i += 3) {
+            store.delete(first.get(i));
+        }
+        store.delete(first.get(1));
+        store.insert(new Event(first.get(1).getId(), "moved", LocalDateTime.of(2025, 4, 1, 9, 0), "", List.of()));
+
+        assertEquals(day1, snapshot.get(LocalDate.of(2025, 3, 1)));
+        assertEquals(5, snapshot.size());
+        store.restore(version);
+        assertEquals(first.size(), store.size());
+        assertEquals(sorted(first), sorted(all(store)));
+        assertEquals(day1, store.eventsOn(LocalDate.of(2025, 3, 1)));
+        assertSame(first.get(1), store.findById(first.get(1).getId()));
+    }
+
+    private static List<Event> all(EventStore store) {
+        List<Event> events = new ArrayList<>();
+        store.forEach(events::add);
+        return events;
+    }
+
+    private static List<Event> sorted(List<Event> events) {
+        List<Event> copy = new ArrayList<>(events);
+        copy.sort(Comparator.comparingLong(Event::getId));
+        return copy;
+    }
+
+    private static Event event(String title, int day, int hour) {
+        return new Event(title, LocalDateTime.of(2025, 3, day, hour, 0), "", List.of());
+    }
+}
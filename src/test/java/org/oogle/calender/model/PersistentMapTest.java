@@ -0,0 +1,119 @@
+package org.oogle.calender.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class PersistentMapTest {
+
+    /** A key whose hash code is chosen by the test, so full-hash collisions can be forced. */
+    private record Key(int id, int hash) {
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && key.id == id;
+        }
+    }
+
+    @Test
+    void versionsNeverChangeAfterTheTokenMovesOn() {
+        Random random = new Random(7);
+        PersistentMap<Key, Integer> map = PersistentMap.empty();
+        Map<Key, Integer> expected = new HashMap<>();
+        List<PersistentMap<Key, Integer>> versions = new ArrayList<>();
+        List<Map<Key, Integer>> contents = new ArrayList<>();
+        Object edit = new Object();
+
+        for (int step = 0; step < 20_000; step++) {
+            // Few distinct hashes, so collision nodes appear and are split and emptied again
+            int id = random.nextInt(2_000);
+            Key key = new Key(id, id % 4 == 0 ? id % 32 : id * 0x9E3779B9);
+            if (random.nextInt(3) == 0) {
+                map = map.remove(key, edit);
+                expected.remove(key);
+            } else {
+                int value = random.nextInt();
+                map = map.put(key, value, edit);
+                expected.put(key, value);
+            }
+            if (step % 500 == 0) {
+                versions.add(map);
+                contents.add(new HashMap<>(expected));
+                edit = new Object(); // Hand the version out; later edits must copy
+            }
+        }
+        versions.add(map);
+        contents.add(expected);
+
+        for (int i = 0; i < versions.size(); i++) {
+            assertContents(contents.get(i), versions.get(i));
+        }
+    }
+
+    @Test
+    void keysWithTheSameHashShareACollisionNode() {
+        Object edit = new Object();
+        PersistentMap<Key, String> map = PersistentMap.empty();
+        for (int id = 0; id < 6; id++) {
+            map = map.put(new Key(id, 42), "v" + id, edit);
+        }
+        PersistentMap<Key, String> frozen = map;
+        edit = new Object();
+
+        // Replace, remove from the middle, then add a key whose hash shares only its first five bits
+        map = map.put(new Key(3, 42), "replaced", edit);
+        map = map.remove(new Key(2, 42), edit);
+        map = map.remove(new Key(99, 42), edit); // Not there
+        map = map.put(new Key(100, 42 + (1 << 6)), "deeper", edit);
+
+        Map<Key, String> expected = new HashMap<>();
+        for (int id = 0; id < 6; id++) {
+            expected.put(new Key(id, 42), "v" + id);
+        }
+        assertContents(expected, frozen);
+
+        expected.put(new Key(3, 42), "replaced");
+        expected.remove(new Key(2, 42));
+        expected.put(new Key(100, 42 + (1 << 6)), "deeper");
+        assertContents(expected, map);
+
+        for (Key key : new ArrayList<>(expected.keySet())) {
+            map = map.remove(key, edit);
+            expected.remove(key);
+            assertContents(expected, map);
+        }
+        assertNull(map.get(new Key(0, 42)));
+    }
+
+    @Test
+    void unchangedUpdatesReturnTheSameMap() {
+        Object edit = new Object();
+        PersistentMap<Key, String> map = PersistentMap.<Key, String>empty().put(new Key(1, 1), "a", edit);
+        edit = new Object();
+        String value = map.get(new Key(1, 1));
+        assertSame(map, map.put(new Key(1, 1), value, edit));
+        assertSame(map, map.remove(new Key(2, 1), edit));
+    }
+
+    private static <V> void assertContents(Map<Key, V> expected, PersistentMap<Key, V> map) {
+        assertEquals(expected.size(), map.size());
+        Map<Key, V> iterated = new HashMap<>();
+        map.forEach((key, value) -> assertNull(iterated.put(key, value), "each key once"));
+        assertEquals(expected, iterated);
+        for (Map.Entry<Key, V> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+}
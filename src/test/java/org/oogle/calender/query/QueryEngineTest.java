@@ -0,0 +1,49 @@
+package org.oogle.calender.query;
+
+import org.junit.jupiter.api.Test;
+import org.oogle.calender.model.Event;
+import org.oogle.calender.model.EventModel;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QueryEngineTest {
+
+    @Test
+    void aLimitKeepsTheSameEventsWhicheverPlanRuns() {
+        EventModel model = new EventModel();
+        // Added latest first, so id order is the reverse of date order
+        for (int day = 28; day >= 1; day--) {
+            for (int i = 0; i < 10; i++) {
+                model.add(new Event("Sync " + i, LocalDateTime.of(2025, 2, day, 9 + i % 3, 0), "", List.of()));
+            }
+            if (day % 3 == 0) {
+                model.add(new Event("Design review", LocalDateTime.of(2025, 2, day, 10, 0), "", List.of()));
+            }
+        }
+
+        EventQuery query = EventQuery.all().between(LocalDate.of(2025, 2, 1), LocalDate.of(2025, 2, 28))
+                .matching("review").limit(5);
+        QueryEngine byDate = new QueryEngine(model);
+        QueryEngine indexed = new QueryEngine(model).indexText();
+        assertEquals(QueryPlan.Access.DAYS, byDate.plan(query).access());
+        assertEquals(QueryPlan.Access.TEXT, indexed.plan(query).access());
+
+        List<Event> expected = byDate.list(query);
+        assertEquals(5, expected.size());
+        assertEquals(LocalDate.of(2025, 2, 3), expected.get(0).getDate());
+        assertEquals(expected, indexed.list(query));
+        assertEquals(expected, indexed.list(query.parallel()));
+
+        // Events starting together come in the order they were added, not by id
+        Event design = expected.get(0);
+        model.add(new Event("Code review", design.getDateTime(), "", List.of()));
+        model.update(design, new Event(design.getId(), "Design review", design.getDateTime(), "Moved", List.of()));
+        List<Event> onTheThird = indexed.list(query.between(design.getDate(), design.getDate()).limit(1));
+        assertEquals("Code review", onTheThird.get(0).getTitle());
+        assertEquals(byDate.list(query.between(design.getDate(), design.getDate()).limit(1)), onTheThird);
+    }
+}
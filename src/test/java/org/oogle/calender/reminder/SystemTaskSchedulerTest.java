@@ -0,0 +1,35 @@
+package org.oogle.calender.reminder;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SystemTaskSchedulerTest {
+
+    @Test
+    void aFailingTaskDoesNotStopTheOthers() throws InterruptedException {
+        SystemTaskScheduler scheduler = new SystemTaskScheduler();
+        try {
+            CountDownLatch failures = new CountDownLatch(3);
+            CountDownLatch runs = new CountDownLatch(3);
+            scheduler.scheduleAtFixedRate(() -> {
+                failures.countDown();
+                throw new IllegalStateException("expected by the test");
+            }, Duration.ofMillis(10));
+            scheduler.scheduleAtFixedRate(runs::countDown, Duration.ofMillis(10));
+
+            assertTrue(failures.await(5, TimeUnit.SECONDS), "the failing task ran again");
+            assertTrue(runs.await(5, TimeUnit.SECONDS), "the other task kept running");
+            // Scheduling still works, which it would not once the timer thread had died
+            CountDownLatch later = new CountDownLatch(1);
+            scheduler.scheduleAtFixedRate(later::countDown, Duration.ofMillis(10));
+            assertTrue(later.await(5, TimeUnit.SECONDS));
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.oogle.calender.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DataFileLockTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @SuppressWarnings("try")
+    void exclusiveKeepsReadersOut() throws Exception {
+        DataFileLock lock = DataFileLock.of(directory.resolve("events.dat").toFile());
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> read;
+            try (DataFileLock.Hold writing = lock.exclusive()) {
+                read = reader.submit(() -> {
+                    try (DataFileLock.Hold reading = lock.shared()) {
+                        return null;
+                    }
+                });
+                assertThrows(TimeoutException.class, () -> read.get(200, TimeUnit.MILLISECONDS));
+            }
+            read.get(5, TimeUnit.SECONDS);
+        } finally {
+            reader.shutdownNow();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    void readersShareAndKeepTheWriterOut() throws Exception {
+        File file = directory.resolve("events.dat").toFile();
+        DataFileLock lock = DataFileLock.of(file);
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        try {
+            CountDownLatch bothReading = new CountDownLatch(2);
+            CountDownLatch done = new CountDownLatch(1);
+            for (int i = 0; i < 2; i++) {
+                threads.submit(() -> {
+                    try (DataFileLock.Hold reading = lock.shared()) {
+                        bothReading.countDown();
+                        done.await();
+                    }
+                    return null;
+                });
+            }
+            assertTrue(bothReading.await(5, TimeUnit.SECONDS), "both readers hold the lock at once");
+
+            ExecutorService writer = Executors.newSingleThreadExecutor();
+            try {
+                Future<?> write = writer.submit(() -> {
+                    try (DataFileLock.Hold writing = DataFileLock.of(file).exclusive()) {
+                        return null;
+                    }
+                });
+                assertThrows(TimeoutException.class, () -> write.get(200, TimeUnit.MILLISECONDS));
+                done.countDown();
+                write.get(5, TimeUnit.SECONDS);
+            } finally {
+                writer.shutdownNow();
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+}
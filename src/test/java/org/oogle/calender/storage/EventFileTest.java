@@ -0,0 +1,86 @@
+package org.oogle.calender.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.oogle.calender.model.Event;
+import org.oogle.calender.model.EventChange;
+import org.oogle.calender.model.EventModel;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventFileTest {
+
+    private static final List<String> TRICKY = List.of("&blob;0:0:12", "&blob;1:2:3:4", "&", "&&x", "&|a",
+            "&#38;", "&#124;", "|&blob;", "line\nbreak", "plain");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void escapingRoundTripsAndNeverStartsWithAReference() {
+        for (String text : TRICKY) {
+            String escaped = EventFile.escape(text);
+            assertEquals(text, EventFile.unescape(escaped), text);
+            assertFalse(DescriptionStore.isReference(escaped), text);
+            assertFalse(escaped.contains("|") || escaped.contains("\n"), text);
+        }
+    }
+
+    @Test
+    void descriptionsThatLookLikeReferencesSurviveTheJournal() throws IOException {
+        File file = directory.resolve("events.dat").toFile();
+        Event base = new Event("base", LocalDateTime.of(2025, 3, 1, 9, 0), "", List.of());
+        RecordFile.Version version = EventFile.write(file, List.of(List.of(base)));
+
+        EventModel model = new EventModel();
+        List<EventChange> changes = new ArrayList<>();
+        model.addListener(changeSet -> changes.addAll(changeSet.getChanges()));
+        for (int i = 0; i < TRICKY.size(); i++) {
+            model.add(new Event("note " + i, LocalDateTime.of(2025, 3, 2, 8 + i, 0), TRICKY.get(i), List.of(10)));
+        }
+        EventFile.append(file, changes);
+
+        List<String> added = new ArrayList<>();
+        RecordFile.Version read = EventFile.readChanges(file, version, new EventFile.Changes() {
+            @Override
+            public void added(Event event) {
+                added.add(event.getDescription());
+            }
+
+            @Override
+            public void removed(String key) {
+            }
+        });
+        assertNotNull(read);
+        assertEquals(TRICKY, added);
+
+        List<String> all = new ArrayList<>();
+        RecoveryReport report = EventFile.read(file, event -> all.add(event.getDescription()));
+        assertTrue(report.isClean());
+        assertEquals(TRICKY, all.subList(1, all.size()));
+    }
+
+    @Test
+    void descriptionsThatLookLikeReferencesSurviveAFullWrite() throws IOException {
+        File file = directory.resolve("events.dat").toFile();
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < TRICKY.size(); i++) {
+            events.add(new Event("note " + i, LocalDateTime.of(2025, 3, 2, 8 + i, 0), TRICKY.get(i), List.of()));
+        }
+        EventFile.write(file, List.of(events));
+
+        List<String> read = new ArrayList<>();
+        EventFile.read(file, event -> read.add(event.getDescription()));
+        assertEquals(TRICKY, read);
+    }
+}
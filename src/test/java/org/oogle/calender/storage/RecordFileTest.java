@@ -0,0 +1,167 @@
+package org.oogle.calender.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecordFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void aFlippedByteLosesOnlyItsRecord() throws IOException {
+        File file = directory.resolve("events.dat").toFile();
+        write(file, records(2 * RecordFile.BLOCK_RECORDS));
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        int at = indexOf(bytes, "record 499|");
+        bytes[at] = 'R';
+        Files.write(file.toPath(), bytes);
+
+        List<String> read = new ArrayList<>();
+        RecoveryReport report = read(file, read);
+        List<String> expected = new ArrayList<>(records(2 * RecordFile.BLOCK_RECORDS));
+        expected.remove("record 499");
+        assertEquals(expected, read);
+        assertEquals(2, report.getBlocks());
+        assertEquals(1, report.getDamagedBlocks());
+        assertEquals(RecordFile.BLOCK_RECORDS - 1, report.getSalvaged());
+        assertEquals(1, report.getLost());
+        assertTrue(report.getLostLines().get(0).startsWith("line 501: Record 499|"), report.getLostLines().get(0));
+        assertTrue(report.isComplete());
+        assertFalse(report.isClean());
+    }
+
+    @Test
+    void aCutOffFileIsReportedIncomplete() throws IOException {
+        File file = directory.resolve("events.dat").toFile();
+        List<String> written = records(3000);
+        write(file, written);
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        // Partway through a record of the last block
+        int cut = indexOf(bytes, "record 2500|") + 4;
+        Files.write(file.toPath(), Arrays.copyOf(bytes, cut));
+
+        List<String> read = new ArrayList<>();
+        RecoveryReport report = read(file, read);
+        assertEquals(written.subList(0, 2500), read);
+        assertFalse(report.isComplete());
+        assertFalse(report.isClean());
+        assertEquals(1, report.getLost());
+        assertEquals(3, report.getBlocks());
+    }
+
+    @Test
+    void readsFilesWithoutAHeaderLineByLine() throws IOException {
+        File file = directory.resolve("events.dat").toFile();
+        Files.writeString(file.toPath(), "first\nsecond|x\n\nthird");
+
+        List<String> read = new ArrayList<>();
+        RecoveryReport report = read(file, read);
+        assertEquals(List.of("first", "second|x", "third"), read);
+        assertTrue(report.isLegacy());
+        assertTrue(report.isClean());
+        assertFalse(report.getVersion().isAppendable());
+    }
+
+    @Test
+    void readsFilesWithTheHeaderFromBeforeTheJournal() throws IOException {
+        File file = directory.resolve("events.dat").toFile();
+        List<String> written = records(RecordFile.BLOCK_RECORDS + 10);
+        write(file, written);
+        String text = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+        Files.writeString(file.toPath(), RecordFile.UNJOURNALED_HEADER + text.substring(text.indexOf(System.lineSeparator())));
+
+        List<String> read = new ArrayList<>();
+        RecoveryReport report = read(file, read);
+        assertEquals(written, read);
+        assertFalse(report.isLegacy());
+        assertTrue(report.isClean());
+        assertEquals(2, report.getBlocks());
+        assertFalse(report.getVersion().isAppendable());
+    }
+
+    @Test
+    void aFailedWriteLeavesTheTargetAsItWas() throws IOException {
+        File file = directory.resolve("events.dat").toFile();
+        write(file, records(5));
+        byte[] before = Files.readAllBytes(file.toPath());
+
+        // Abandoned partway, here by a record that is not one line
+        try (RecordFile.Writer writer = RecordFile.create(file)) {
+            writer.append("replacement");
+            assertThrows(IllegalArgumentException.class, () -> writer.append("two\nlines"));
+        }
+        assertArrayEquals(before, Files.readAllBytes(file.toPath()));
+        assertEquals(List.of(file.toPath()), files());
+
+        // Failing at the rename, the temporary file having gone
+        try (RecordFile.Writer writer = RecordFile.create(file)) {
+            writer.append("replacement");
+            for (Path temp : files()) {
+                if (!temp.equals(file.toPath())) {
+                    Files.delete(temp);
+                }
+            }
+            assertThrows(IOException.class, writer::commit);
+        }
+        assertArrayEquals(before, Files.readAllBytes(file.toPath()));
+        assertEquals(List.of(file.toPath()), files());
+
+        List<String> read = new ArrayList<>();
+        assertTrue(read(file, read).isClean());
+        assertEquals(records(5), read);
+    }
+
+    private static List<String> records(int count) {
+        List<String> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            records.add("record " + i);
+        }
+        return records;
+    }
+
+    private static void write(File file, List<String> records) throws IOException {
+        try (RecordFile.Writer writer = RecordFile.create(file)) {
+            for (String record : records) {
+                writer.append(record);
+            }
+            writer.commit();
+        }
+    }
+
+    private static RecoveryReport read(File file, List<String> records) throws IOException {
+        return RecordFile.read(file, records::add);
+    }
+
+    private static int indexOf(byte[] bytes, String text) {
+        byte[] wanted = text.getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i + wanted.length <= bytes.length; i++) {
+            if (Arrays.equals(bytes, i, i + wanted.length, wanted, 0, wanted.length)) {
+                return i;
+            }
+        }
+        throw new AssertionError(text + " not found");
+    }
+
+    private List<Path> files() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.toList();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.oogle.calender.tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** A small run of {@link ContentionTest}: separate JVMs, so the operating system's file locks are exercised too. */
+class ContentionRunTest {
+
+    @Test
+    void processesSharingAFileLoseNothing() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        boolean passed;
+        try (PrintStream out = new PrintStream(output, true, StandardCharsets.UTF_8)) {
+            passed = new ContentionTest(new SyntheticCalendar().events(500).descriptionLength(0, 600))
+                    .processes(3)
+                    .edits(60)
+                    .refreshEvery(5)
+                    .fullEvery(25)
+                    .run(out);
+        }
+        assertTrue(passed, output.toString(StandardCharsets.UTF_8));
+    }
+}